@@ -0,0 +1,66 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Paths}
+
+/** Compare two JMH JSON result files, e.g. from runs of 'sbt benchJson' on different commits.
+  * Prints each benchmark and parameter combination with the baseline and current scores and the
+  * ratio between them. Ratios above 1.0 are slower for time based modes.
+  *
+  * Usage: bench/runMain com.nawforce.apexlink.bench.BenchmarkCompare baseline.json current.json
+  */
+object BenchmarkCompare {
+
+  case class Score(value: Double, error: Double, unit: String)
+
+  def main(args: Array[String]): Unit = {
+    if (args.length != 2) {
+      System.err.println("Usage: BenchmarkCompare <baseline.json> <current.json>")
+      return
+    }
+
+    val baseline = load(args(0))
+    val current  = load(args(1))
+    (baseline.keySet ++ current.keySet).toSeq.sorted.foreach(key => {
+      (baseline.get(key), current.get(key)) match {
+        case (Some(base), Some(now)) =>
+          println(f"$key: ${format(base)} -> ${format(now)} (${now.value / base.value}%.3fx)")
+        case (Some(base), None) => println(s"$key: ${format(base)} -> missing")
+        case (None, Some(now))  => println(s"$key: missing -> ${format(now)}")
+        case (None, None)       => ()
+      }
+    })
+  }
+
+  /** Read a JMH JSON result file as scores keyed by benchmark name and parameters. */
+  def load(path: String): Map[String, Score] = {
+    val json = ujson.read(new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8))
+    json.arr.map { result =>
+      val params = result.obj
+        .get("params")
+        .map(_.obj.toSeq.sortBy(_._1).map(p => s"${p._1}=${p._2.str}").mkString("(", ",", ")"))
+        .getOrElse("")
+      val metric = result("primaryMetric")
+      val error  = metric("scoreError").numOpt.filterNot(_.isNaN).getOrElse(0.0)
+      s"${result("benchmark").str}$params" ->
+        Score(metric("score").num, error, metric("scoreUnit").str)
+    }.toMap
+  }
+
+  private def format(score: Score): String = {
+    f"${score.value}%.3f +/- ${score.error}%.3f ${score.unit}"
+  }
+}
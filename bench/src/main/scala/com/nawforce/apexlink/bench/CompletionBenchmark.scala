@@ -0,0 +1,88 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import com.nawforce.apexlink.org.CompletionProvider
+import com.nawforce.runtime.parsers.{CodeParser, SourceData}
+import com.nawforce.runtime.platform.Path
+import com.vmware.antlr4c3.CodeCompletionCore
+import com.vmware.antlr4c3.CodeCompletionCore.CandidatesCollection
+import io.github.apexdevtools.apexparser.ApexParser
+import org.openjdk.jmh.annotations._
+
+import java.util.concurrent.TimeUnit
+import scala.jdk.CollectionConverters._
+
+/** CodeCompletionCore.collectCandidates at the end of a generated class, the class is parsed once
+  * during setup so only candidate collection is measured.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+class CompletionBenchmark {
+
+  @Param(Array("1000", "5000"))
+  var lines: Int = _
+
+  @Param(Array("1000000"))
+  var maxStates: Int = _
+
+  private var parser: ApexParser                                 = _
+  private var compilationUnit: ApexParser.CompilationUnitContext = _
+  private var caretIndex: Int                                    = 0
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    val (classParser, cu) = CodeParser(
+      Path("/Benchmark.cls"),
+      SourceData(CompletionBenchmark.generateClass(lines))
+    ).parseClassReturningParser().value
+    parser = classParser
+    compilationUnit = cu
+    caretIndex = parser.getInputStream.size() - 1
+  }
+
+  @Benchmark
+  def collectCandidates(): CandidatesCollection = {
+    val core = new CodeCompletionCore(
+      parser,
+      CompletionProvider.preferredRules.asJava,
+      CompletionProvider.ignoredTokens.asJava
+    )
+    core.collectCandidates(caretIndex, compilationUnit, maxStates)
+  }
+}
+
+object CompletionBenchmark {
+
+  /** Generate a class of roughly the requested line count ending in an incomplete statement. */
+  def generateClass(lines: Int): String = {
+    val builder = new StringBuilder("public class Benchmark {\n")
+    var method  = 0
+    while (method * 5 < lines - 3) {
+      builder.append(s"  public Integer method$method(Integer value) {\n")
+      builder.append(s"    Integer result = value * $method;\n")
+      builder.append(s"    for (Integer i = 0; i < result; i++) { result += method$method(i); }\n")
+      builder.append("    return result;\n")
+      builder.append("  }\n")
+      method += 1
+    }
+    builder.append("  public void last() {\n")
+    builder.append("    Integer x = ")
+    builder.toString()
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.bench
+
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.runtime.platform.Path
+
+import java.lang.management.ManagementFactory
+import java.nio.file.Files
+
+/** Heap used by a synthetic org before and after every class has been edited, as after a long
+  * editing session. The org is opened from a warm parsed cache so types start as summaries, edits
+  * replace them by full declarations which are retained unless a declaration budget is set. Run
+  * once per budget so each measurement is made in a fresh JVM, a budget of 0 disables demotion.
+  *
+  * Usage: bench/runMain com.nawforce.apexlink.bench.DeclarationHeap classCount budgetMb
+  */
+object DeclarationHeap {
+
+  def main(args: Array[String]): Unit = {
+    if (args.length != 2) {
+      System.err.println("Usage: DeclarationHeap <classCount> <budgetMb>")
+      return
+    }
+    val classCount = args(0).toInt
+    val budgetMb   = args(1).toInt
+
+    val workspace = SyntheticOrg.create(classCount)
+    val cacheDir  = Files.createTempDirectory("apexls-bench-cache")
+    try {
+      val options =
+        OpenOptions.default().withCacheDirectory(cacheDir.toString).withAutoFlush(false)
+      Org.newOrg(Path(workspace.toString), options).flush()
+
+      val org = Org
+        .newOrg(Path(workspace.toString), options.withDeclarationBudget(budgetMb))
+        .asInstanceOf[OPM.OrgImpl]
+      val loaded = usedHeap()
+
+      val pairs = Math.max(1, classCount / 2)
+      (0 until pairs).foreach(i => {
+        Seq(("Model", SyntheticOrg.model(i)), ("Service", SyntheticOrg.service(i, (i + 1) % pairs)))
+          .foreach { case (prefix, content) =>
+            val path = SyntheticOrg.classPath(workspace, s"$prefix$i")
+            SyntheticOrg.write(path, s"/* Edit */\n$content")
+            org.packages.foreach(_.refresh(path.toString, highPriority = false))
+          }
+      })
+      org.flush()
+      val edited = usedHeap()
+
+      val held = org.fullDeclarations.map(_.size.toString).getOrElse("all")
+      println(s"classCount=$classCount budgetMb=$budgetMb full declarations held=$held")
+      println(f"Heap used after load: ${loaded / MB}%.1f MB")
+      println(f"Heap used after editing all classes: ${edited / MB}%.1f MB")
+    } finally {
+      SyntheticOrg.delete(workspace)
+      SyntheticOrg.delete(cacheDir)
+    }
+  }
+
+  private final val MB = 1024.0 * 1024.0
+
+  /** Heap used after requesting collection, approximate as collection is not guaranteed. */
+  private def usedHeap(): Long = {
+    val memory = ManagementFactory.getMemoryMXBean
+    (0 until 3).foreach(_ => {
+      System.gc()
+      Thread.sleep(100)
+    })
+    memory.getHeapMemoryUsage.getUsed
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.runtime.platform.Path
+import org.openjdk.jmh.annotations._
+
+import java.nio.file.{Files, Path => NioPath}
+import java.util.concurrent.TimeUnit
+
+/** Org open over a synthetic workspace, cold with the parsed cache disabled and warm with a parsed
+  * cache that was populated during setup.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.SingleShotTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+class OrgLoadBenchmark {
+
+  @Param(Array("100", "1000"))
+  var classCount: Int = _
+
+  private var workspace: NioPath = _
+  private var cacheDir: NioPath  = _
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    workspace = SyntheticOrg.create(classCount)
+    cacheDir = Files.createTempDirectory("apexls-bench-cache")
+    Org.newOrg(Path(workspace.toString), warmOptions).flush()
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    SyntheticOrg.delete(workspace)
+    SyntheticOrg.delete(cacheDir)
+  }
+
+  @Benchmark
+  def cold(): Org = {
+    Org.newOrg(Path(workspace.toString), OrgLoadBenchmark.coldOptions)
+  }
+
+  @Benchmark
+  def warm(): Org = {
+    Org.newOrg(Path(workspace.toString), warmOptions)
+  }
+
+  private def warmOptions: OpenOptions =
+    OpenOptions.default().withCacheDirectory(cacheDir.toString).withAutoFlush(false)
+}
+
+/** Org open over the workspaces in samples/, cold and warm as for [[OrgLoadBenchmark]]. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.SingleShotTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+class SampleLoadBenchmark {
+
+  @Param(Array("sfdx-test", "mdapi-test", "sfdx-ns-test"))
+  var sample: String = _
+
+  private var workspace: NioPath = _
+  private var cacheDir: NioPath  = _
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    workspace = SyntheticOrg.sample(sample)
+    cacheDir = Files.createTempDirectory("apexls-bench-cache")
+    Org.newOrg(Path(workspace.toString), warmOptions).flush()
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    SyntheticOrg.delete(cacheDir)
+  }
+
+  @Benchmark
+  def cold(): Org = {
+    Org.newOrg(Path(workspace.toString), OrgLoadBenchmark.coldOptions)
+  }
+
+  @Benchmark
+  def warm(): Org = {
+    Org.newOrg(Path(workspace.toString), warmOptions)
+  }
+
+  private def warmOptions: OpenOptions =
+    OpenOptions.default().withCacheDirectory(cacheDir.toString).withAutoFlush(false)
+}
+
+object OrgLoadBenchmark {
+  def coldOptions: OpenOptions = OpenOptions.default().withCache(false).withAutoFlush(false)
+}
@@ -0,0 +1,100 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import com.nawforce.pkgforce.documents.{
+  DirectoryParsedCache,
+  PackageContext,
+  ParsedCache,
+  SegmentParsedCache
+}
+import com.nawforce.runtime.platform.Path
+import org.openjdk.jmh.annotations._
+
+import java.nio.file.{Files, Path => NioPath}
+import java.util.concurrent.TimeUnit
+import scala.util.Random
+
+/** ParsedCache get and upsert against the directory and segment cache implementations. Entries are
+  * pre-populated during setup and each invocation works on the next entry in turn.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+class ParsedCacheBenchmark {
+
+  @Param(Array("directory", "segment"))
+  var cacheType: String = _
+
+  @Param(Array("1000"))
+  var entries: Int = _
+
+  @Param(Array("8192"))
+  var entrySize: Int = _
+
+  private val packageContext     = PackageContext(None, Array(), Array(), Array(), Array(), false)
+  private var directory: NioPath = _
+  private var cache: ParsedCache = _
+  private var value: Array[Byte] = _
+  private var next: Int          = 0
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    directory = Files.createTempDirectory("apexls-bench-cache")
+    val path = Path(directory.toString)
+    cache = cacheType match {
+      case "directory" => new DirectoryParsedCache(path, ParsedCacheBenchmark.VERSION)
+      case "segment" =>
+        SegmentParsedCache.open(path, ParsedCacheBenchmark.VERSION) match {
+          case Right(segmentCache) => segmentCache
+          case Left(err)           => throw new IllegalStateException(err)
+        }
+    }
+    value = new Array[Byte](entrySize)
+    new Random(entrySize).nextBytes(value)
+    (0 until entries).foreach(i => cache.upsert(packageContext, name(i), i, value))
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    SyntheticOrg.delete(directory)
+  }
+
+  @Benchmark
+  def get(): Option[Array[Byte]] = {
+    val i = nextEntry()
+    cache.get(packageContext, name(i), i)
+  }
+
+  @Benchmark
+  def upsert(): Unit = {
+    val i = nextEntry()
+    cache.upsert(packageContext, name(i), i, value)
+  }
+
+  private def nextEntry(): Int = {
+    val i = next
+    next = (next + 1) % entries
+    i
+  }
+
+  private def name(i: Int): String = s"Class$i"
+}
+
+object ParsedCacheBenchmark {
+  final val VERSION = 1
+}
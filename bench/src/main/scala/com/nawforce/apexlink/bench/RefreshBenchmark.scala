@@ -0,0 +1,75 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.runtime.platform.Path
+import org.openjdk.jmh.annotations._
+
+import java.nio.file.{Path => NioPath}
+import java.util.concurrent.TimeUnit
+
+/** Refresh of a single edited class in a loaded synthetic org. The class is rewritten with a new
+  * comment before each invocation so every refresh re-parses it and re-validates its dependents;
+  * a model class has dependent services whereas nothing depends on a service.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+class RefreshBenchmark {
+
+  @Param(Array("1000"))
+  var classCount: Int = _
+
+  @Param(Array("Model0", "Service0"))
+  var edited: String = _
+
+  private var workspace: NioPath = _
+  private var org: OPM.OrgImpl   = _
+  private var path: NioPath      = _
+  private var content: String    = _
+  private var edits: Int         = 0
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    workspace = SyntheticOrg.create(classCount)
+    org = Org
+      .newOrg(Path(workspace.toString), OrgLoadBenchmark.coldOptions)
+      .asInstanceOf[OPM.OrgImpl]
+    path = SyntheticOrg.classPath(workspace, edited)
+    content = if (edited.startsWith("Model")) SyntheticOrg.model(0) else SyntheticOrg.service(0, 1)
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    SyntheticOrg.delete(workspace)
+  }
+
+  @Setup(Level.Invocation)
+  def edit(): Unit = {
+    edits += 1
+    SyntheticOrg.write(path, s"/* Edit $edits */\n$content")
+  }
+
+  @Benchmark
+  def refresh(): Boolean = {
+    // A high priority refresh on an empty queue is handled by refreshBatched on this thread
+    org.packages.foreach(_.refresh(path.toString, highPriority = true))
+    org.isDirty()
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import com.nawforce.apexlink.rpc.{OpenOptions, OrgAPI}
+
+import java.nio.file.Files
+import java.util.concurrent.{Executors, TimeUnit}
+import scala.collection.mutable
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Future}
+import scala.util.Random
+
+/** Latency of RPC requests when several clients issue completion, definition, reference and issue
+  * requests against a synthetic org while another client refreshes a class every couple of
+  * seconds. Each client waits for its request before sending the next so latencies include time
+  * queued behind other clients and behind refreshes. Optionally a further client repeatedly finds
+  * the references to a method that is called from a class per pair, so that each query has many
+  * holders to look up.
+  *
+  * Usage: bench/runMain com.nawforce.apexlink.bench.RequestLatency classCount clients requests
+  * [slowReferences]
+  */
+object RequestLatency {
+
+  def main(args: Array[String]): Unit = {
+    if (args.length != 3 && args.length != 4) {
+      System.err.println(
+        "Usage: RequestLatency <classCount> <clients> <requestsPerClient> [slowReferences]"
+      )
+      return
+    }
+    val classCount     = args(0).toInt
+    val clients        = args(1).toInt
+    val requests       = args(2).toInt
+    val slowReferences = args.length == 4 && args(3).toBoolean
+    val pairs          = Math.max(1, classCount / 2)
+
+    val workspace = SyntheticOrg.create(classCount)
+    if (slowReferences) {
+      SyntheticOrg.writeClass(workspace, "Audit", AUDIT)
+      (0 until pairs).foreach(i => SyntheticOrg.writeClass(workspace, s"Caller$i", caller(i)))
+    }
+    val cacheDir = Files.createTempDirectory("apexls-bench-cache")
+    val pool     = Executors.newFixedThreadPool(clients + 2)
+    try {
+      val orgAPI = OrgAPI()
+      // Auto flush is left enabled so that refreshes are processed
+      val options = OpenOptions.default().withCacheDirectory(cacheDir.toString)
+      await(orgAPI.open(workspace.toString, options))
+
+      val kinds     = Array("completion", "definition", "references", "issues")
+      val reported  = kinds :+ "slow refs"
+      val times     = reported.map(kind => kind -> mutable.ArrayBuffer[Long]()).toMap
+      val auditPath = SyntheticOrg.classPath(workspace, "Audit").toString
+
+      def request(kind: String, i: Int): Future[_] = {
+        val path = SyntheticOrg.classPath(workspace, s"Service$i").toString
+        kind match {
+          case "completion" => orgAPI.getCompletionItems(path, 8, 12, completionSource(i, pairs))
+          case "definition" => orgAPI.getDefinition(path, 8, 24, None)
+          case "references" => orgAPI.getReferences(path, 5, 18)
+          case _            => orgAPI.issuesForFile(path)
+        }
+      }
+
+      // Warm up each kind of request before measuring
+      kinds.foreach(kind => (0 until 20).foreach(i => await(request(kind, i % pairs))))
+
+      val refreshing = new java.util.concurrent.atomic.AtomicBoolean(true)
+      val refresher = pool.submit(new Runnable {
+        override def run(): Unit = {
+          var i = 0
+          while (refreshing.get()) {
+            val path = SyntheticOrg.classPath(workspace, s"Model${i % pairs}")
+            SyntheticOrg.write(path, s"/* Edit $i */\n${SyntheticOrg.model(i % pairs)}")
+            await(orgAPI.refresh(path.toString, highPriority = false))
+            Thread.sleep(REFRESH_INTERVAL)
+            i += 1
+          }
+        }
+      })
+
+      val slow = pool.submit(new Runnable {
+        override def run(): Unit = {
+          while (slowReferences && refreshing.get()) {
+            val start = System.nanoTime()
+            await(orgAPI.getReferences(auditPath, 2, 21))
+            val elapsed = System.nanoTime() - start
+            times("slow refs").synchronized { times("slow refs").append(elapsed) }
+          }
+        }
+      })
+
+      val started = System.nanoTime()
+      val workers = (0 until clients).map(client =>
+        pool.submit(new Runnable {
+          override def run(): Unit = {
+            val random = new Random(client)
+            (0 until requests).foreach(_ => {
+              val kind  = kinds(random.nextInt(kinds.length))
+              val start = System.nanoTime()
+              await(request(kind, random.nextInt(pairs)))
+              val elapsed = System.nanoTime() - start
+              times(kind).synchronized { times(kind).append(elapsed) }
+            })
+          }
+        })
+      )
+      workers.foreach(_.get())
+      val wall = System.nanoTime() - started
+      refreshing.set(false)
+      refresher.get()
+      slow.get()
+
+      println(
+        s"classCount=$classCount clients=$clients requestsPerClient=$requests " +
+          s"slowReferences=$slowReferences"
+      )
+      reported.foreach(kind => {
+        val sorted = times(kind).sorted
+        if (sorted.nonEmpty) {
+          println(
+            f"$kind%-10s n=${sorted.length}%4d mean=${ms(sorted.sum / sorted.length)}%8.2f ms " +
+              f"p50=${ms(percentile(sorted, 50))}%8.2f ms p95=${ms(percentile(sorted, 95))}%8.2f ms"
+          )
+        }
+      })
+      println(f"Wall time: ${ms(wall)}%.0f ms")
+    } finally {
+      pool.shutdownNow()
+      SyntheticOrg.delete(workspace)
+      SyntheticOrg.delete(cacheDir)
+    }
+    System.exit(0)
+  }
+
+  /** Milliseconds between refreshes, requests wait for queued refreshes to be processed. */
+  private final val REFRESH_INTERVAL = 2000L
+
+  /** A class with a method that is called from a class per pair, at line 2 offset 21. */
+  private final val AUDIT =
+    """public with sharing class Audit {
+      |  public static void log(Object value) {}
+      |}
+      |""".stripMargin
+
+  private def caller(i: Int): String = {
+    s"""public with sharing class Caller$i {
+       |  public void run() { Audit.log(new Service$i()); }
+       |}
+       |""".stripMargin
+  }
+
+  /** A service class with an incomplete member access at line 8 offset 12 for completion. */
+  private def completionSource(i: Int, pairs: Int): String = {
+    val lines = SyntheticOrg.service(i, (i + 1) % pairs).split('\n')
+    (lines.take(7) ++ Seq("      model.") ++ lines.drop(7)).mkString("\n")
+  }
+
+  private def await[T](future: Future[T]): T = Await.result(future, Duration(60, TimeUnit.SECONDS))
+
+  private def percentile(sorted: mutable.ArrayBuffer[Long], p: Int): Long =
+    sorted(Math.min(sorted.length - 1, sorted.length * p / 100))
+
+  private def ms(nanos: Long): Double = nanos / 1000000.0
+}
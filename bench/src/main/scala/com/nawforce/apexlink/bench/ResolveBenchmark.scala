@@ -0,0 +1,113 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.cst.{MethodMap, TypeVerifyContext}
+import com.nawforce.apexlink.finding.TypeResolver
+import com.nawforce.apexlink.finding.TypeResolver.TypeResponse
+import com.nawforce.apexlink.names.TypeNames
+import com.nawforce.apexlink.org.{OPM, OrgInfo}
+import com.nawforce.apexlink.types.apex.ApexClassDeclaration
+import com.nawforce.apexlink.types.core.MethodDeclaration
+import com.nawforce.pkgforce.names.{Name, TypeName}
+import com.nawforce.runtime.platform.Path
+import org.openjdk.jmh.annotations._
+
+import java.nio.file.{Path => NioPath}
+import java.util.concurrent.TimeUnit
+import scala.collection.immutable.ArraySeq
+
+/** Method and type lookups against a loaded synthetic org, covering MethodMap.findMethod with and
+  * without overload disambiguation and TypeResolver for local, system, schema and generic types.
+  */
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+class ResolveBenchmark {
+
+  @Param(Array("1000"))
+  var classCount: Int = _
+
+  private var workspace: NioPath          = _
+  private var org: OPM.OrgImpl            = _
+  private var module: OPM.Module          = _
+  private var model: ApexClassDeclaration = _
+  private var methodMap: MethodMap        = _
+  private var context: TypeVerifyContext  = _
+  private val describe                    = Name("describe")
+  private val stringParams                = ArraySeq(TypeNames.String)
+  private val integerParams               = ArraySeq(TypeNames.Integer)
+  private val localType                   = TypeName(Name("Model1"))
+  private val systemType                  = TypeNames.String
+  private val schemaType                  = TypeName(Name("Account"))
+  private val genericType: TypeName       = TypeName("Map<Id, Model1>").toOption.get
+
+  @Setup(Level.Trial)
+  def setup(): Unit = {
+    workspace = SyntheticOrg.create(classCount)
+    org = Org
+      .newOrg(Path(workspace.toString), OrgLoadBenchmark.coldOptions)
+      .asInstanceOf[OPM.OrgImpl]
+    val modelName = TypeName(Name("Model0"))
+    module = org.packages.flatMap(_.modules).find(_.findModuleType(modelName).nonEmpty).get
+    model = module.findModuleType(modelName).get.asInstanceOf[ApexClassDeclaration]
+    methodMap = model.methodMap
+    val service = module.findModuleType(TypeName(Name("Service0"))).get
+    context = new TypeVerifyContext(
+      None,
+      service.asInstanceOf[ApexClassDeclaration],
+      None,
+      enablePlugins = false
+    )
+  }
+
+  @TearDown(Level.Trial)
+  def tearDown(): Unit = {
+    SyntheticOrg.delete(workspace)
+  }
+
+  @Benchmark
+  def findMethodExact(): Option[MethodDeclaration] = {
+    methodMap.findMethod(describe, stringParams)
+  }
+
+  @Benchmark
+  def findMethodDisambiguated(): Either[String, MethodDeclaration] = {
+    OrgInfo.current.withValue(org) {
+      methodMap.findMethod(describe, integerParams, Some(false), context)
+    }
+  }
+
+  @Benchmark
+  def resolveLocal(): TypeResponse = resolve(localType)
+
+  @Benchmark
+  def resolveSystem(): TypeResponse = resolve(systemType)
+
+  @Benchmark
+  def resolveSchema(): TypeResponse = resolve(schemaType)
+
+  @Benchmark
+  def resolveGeneric(): TypeResponse = resolve(genericType)
+
+  private def resolve(typeName: TypeName): TypeResponse = {
+    OrgInfo.current.withValue(org) {
+      TypeResolver(typeName, model)
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.bench
+
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Files, Path => NioPath, Paths}
+import java.util.Comparator
+
+/** Generates sfdx workspaces of a configurable size for benchmarking. Classes are generated in
+  * pairs, a model with overloaded methods and a service that uses it and the next model along so
+  * that loading involves cross-type resolution and method disambiguation.
+  */
+object SyntheticOrg {
+
+  final val CLASS_DIRECTORY = "force-app/main/default/classes"
+
+  /** Create a workspace in a new temporary directory holding around classCount classes. */
+  def create(classCount: Int): NioPath = {
+    val workspace = Files.createTempDirectory("apexls-bench")
+    write(
+      workspace.resolve("sfdx-project.json"),
+      """{"packageDirectories":[{"path":"force-app","default":true}],"namespace":""}"""
+    )
+    val pairs = Math.max(1, classCount / 2)
+    (0 until pairs).foreach(i => {
+      writeClass(workspace, s"Model$i", model(i))
+      writeClass(workspace, s"Service$i", service(i, (i + 1) % pairs))
+    })
+    workspace
+  }
+
+  /** Path of a generated class within a workspace. */
+  def classPath(workspace: NioPath, name: String): NioPath = {
+    workspace.resolve(CLASS_DIRECTORY).resolve(s"$name.cls")
+  }
+
+  def model(i: Int): String = {
+    s"""public with sharing class Model$i {
+       |  public Integer id;
+       |  public String name;
+       |  public Model$i(Integer id, String name) { this.id = id; this.name = name; }
+       |  public Integer getId() { return id; }
+       |  public String describe() { return name + ':' + id; }
+       |  public String describe(String prefix) { return prefix + describe(); }
+       |  public String describe(Integer count) { return describe() + count; }
+       |  public String describe(Object value) { return describe() + String.valueOf(value); }
+       |}
+       |""".stripMargin
+  }
+
+  def service(i: Int, next: Int): String = {
+    s"""public with sharing class Service$i {
+       |  public List<Model$i> models = new List<Model$i>();
+       |  public Model$next next;
+       |  public void add(Integer id, String name) { models.add(new Model$i(id, name)); }
+       |  public String run(String prefix) {
+       |    String result = '';
+       |    for (Model$i model : models) {
+       |      result += model.describe(prefix) + model.describe(model.getId());
+       |    }
+       |    if (next != null) {
+       |      result += next.describe(prefix);
+       |    }
+       |    return result;
+       |  }
+       |  public Map<Id, Account> accounts(Set<Id> ids) {
+       |    return new Map<Id, Account>([SELECT Id, Name FROM Account WHERE Id IN :ids]);
+       |  }
+       |}
+       |""".stripMargin
+  }
+
+  /** Find a directory under samples/ by searching up from the working directory. */
+  def sample(name: String): NioPath = {
+    var dir = Paths.get("").toAbsolutePath
+    while (dir != null) {
+      val candidate = dir.resolve("samples").resolve(name)
+      if (Files.isDirectory(candidate))
+        return candidate
+      dir = dir.getParent
+    }
+    throw new IllegalArgumentException(s"Sample workspace '$name' not found")
+  }
+
+  def write(path: NioPath, content: String): Unit = {
+    Files.createDirectories(path.getParent)
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8))
+  }
+
+  /** Recursively delete a directory created for a benchmark. */
+  def delete(path: NioPath): Unit = {
+    if (path != null && Files.exists(path)) {
+      val files = Files.walk(path)
+      try {
+        files.sorted(Comparator.reverseOrder[NioPath]()).forEach(p => Files.delete(p))
+      } finally {
+        files.close()
+      }
+    }
+  }
+
+  /** Write a class and its metadata into a workspace. */
+  def writeClass(workspace: NioPath, name: String, content: String): Unit = {
+    val path = classPath(workspace, name)
+    write(path, content)
+    write(
+      path.resolveSibling(s"$name.cls-meta.xml"),
+      """<?xml version="1.0" encoding="UTF-8"?>
+        |<ApexClass xmlns="http://soap.sforce.com/2006/04/metadata">
+        |    <apiVersion>60.0</apiVersion>
+        |    <status>Active</status>
+        |</ApexClass>
+        |""".stripMargin
+    )
+  }
+}
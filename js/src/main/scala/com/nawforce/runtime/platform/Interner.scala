@@ -0,0 +1,52 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.runtime.platform
+
+import com.nawforce.pkgforce.memory.CleanableCache
+
+import scala.collection.mutable
+
+/** A pool of canonical instances. There are no weak references available so the pool is cleared
+  * along with the other cleanable caches.
+  *
+  * @param hash  hash of a value, must be consistent with same
+  * @param same  test if two values are interchangeable
+  */
+final class Interner[T <: AnyRef](hash: T => Int, same: (T, T) => Boolean) extends CleanableCache {
+
+  private final class Key(val value: T) {
+    override val hashCode: Int = hash(value)
+
+    override def equals(that: Any): Boolean = {
+      that match {
+        case other: Key @unchecked => (other.value eq value) || same(other.value, value)
+        case _                     => false
+      }
+    }
+  }
+
+  private var entries = mutable.HashMap[Key, T]()
+
+  /** Obtain the canonical instance for a value, the value becomes canonical if there is none. */
+  def intern(value: T): T = {
+    entries.getOrElseUpdate(new Key(value), value)
+  }
+
+  /** Number of canonical instances currently held. */
+  def size: Int = entries.size
+
+  override def clean(): Unit = {
+    entries = mutable.HashMap[Key, T]()
+  }
+}
@@ -20,6 +20,7 @@ import io.scalajs.nodejs.fs.Fs
 import io.scalajs.nodejs.process.Process
 
 import scala.collection.mutable
+import scala.util.Random
 import scala.scalajs.js
 import scala.scalajs.js.JSConverters._
 
@@ -101,6 +102,20 @@ final class Path private (path: String) extends PathLike {
     }
   }
 
+  override def replace(data: Array[Byte]): Option[String] = {
+    val temp = s"$path.${java.lang.Long.toHexString(Random.nextLong())}.tmp"
+    try {
+      Fs.writeFileSync(temp, Buffer.from(data.map(_.toInt).toJSArray))
+      Fs.renameSync(temp, path)
+      None
+    } catch {
+      case ex: js.JavaScriptException =>
+        try Fs.unlinkSync(temp)
+        catch { case _: js.JavaScriptException => () }
+        Some(ex.getMessage())
+    }
+  }
+
   override def delete(): Option[String] = {
     try {
       if (isDirectory)
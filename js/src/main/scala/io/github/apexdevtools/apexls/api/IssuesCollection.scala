@@ -56,4 +56,10 @@ trait IssuesCollection {
     includeWarnings: Boolean,
     maxErrorsPerFile: Int
   ): Array[Issue]
+
+  /** Issues added and removed since a version returned by an earlier call, pass 0 to obtain all
+    * current issues. The delta is marked as a reset if the changes since the version are no longer
+    * held. This does not reset the updated issues tracking.
+    */
+  def issuesSince(version: Long): IssuesDelta
 }
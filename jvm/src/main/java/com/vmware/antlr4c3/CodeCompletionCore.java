@@ -11,6 +11,8 @@
 package com.vmware.antlr4c3;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,6 +27,7 @@ import org.antlr.v4.runtime.atn.PredicateTransition;
 import org.antlr.v4.runtime.atn.RuleStopState;
 import org.antlr.v4.runtime.atn.RuleTransition;
 import org.antlr.v4.runtime.atn.Transition;
+import org.antlr.v4.runtime.misc.Interval;
 import org.antlr.v4.runtime.misc.IntervalSet;
 
 /**
@@ -66,7 +69,8 @@ public class CodeCompletionCore {
 
   public static class FollowSetWithPath {
     public IntervalSet intervals;
-    public List<Integer> path;
+    /* KJJ: Rule path & following tokens held as ints/shared lists to avoid per collection copies */
+    public int[] path;
     public List<Integer> following;
   }
 
@@ -75,17 +79,140 @@ public class CodeCompletionCore {
     public IntervalSet combined;
   }
 
-  public static class PipelineEntry {
+  /**
+   * KJJ: Growable list of ints, avoids boxing in the ATN walk.
+   */
+  static final class IntList {
+    private int[] values;
+    private int size;
+
+    IntList() {
+      this.values = new int[8];
+    }
+
+    int size() {
+      return size;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
 
-    public PipelineEntry(ATNState state, Integer tokenIndex) {
-      this.state = state;
-      this.tokenIndex = tokenIndex;
+    int get(int index) {
+      return values[index];
     }
 
-    ATNState state;
-    Integer tokenIndex;
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    void addUnique(int value) {
+      if (!contains(value)) {
+        add(value);
+      }
+    }
+
+    int removeLast() {
+      return values[--size];
+    }
+
+    boolean contains(int value) {
+      for (int i = 0; i < size; i++) {
+        if (values[i] == value) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    int max() {
+      int max = Integer.MIN_VALUE;
+      for (int i = 0; i < size; i++) {
+        max = Math.max(max, values[i]);
+      }
+      return max;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
   }
 
+  /**
+   * KJJ: Open addressing map of token index to the end positions reached by a rule, replaces the boxed
+   * Map<Integer, Set<Integer>> of the original.
+   */
+  static final class PositionMap {
+    private int[] keys = new int[8];
+    private IntList[] values = new IntList[8];
+    private int size;
+
+    IntList get(int key) {
+      int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      while (values[i] != null) {
+        if (keys[i] == key) {
+          return values[i];
+        }
+        i = (i + 1) & mask;
+      }
+      return null;
+    }
+
+    void put(int key, IntList value) {
+      if ((size + 1) * 2 > keys.length) {
+        int[] oldKeys = keys;
+        IntList[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new IntList[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+          if (oldValues[i] != null) {
+            put(oldKeys[i], oldValues[i]);
+          }
+        }
+      }
+      int mask = keys.length - 1;
+      int i = hash(key) & mask;
+      while (values[i] != null) {
+        if (keys[i] == key) {
+          values[i] = value;
+          return;
+        }
+        i = (i + 1) & mask;
+      }
+      keys[i] = key;
+      values[i] = value;
+      size++;
+    }
+
+    boolean isEmpty() {
+      return size == 0;
+    }
+
+    int maxKey() {
+      int max = Integer.MIN_VALUE;
+      for (int i = 0; i < keys.length; i++) {
+        if (values[i] != null) {
+          max = Math.max(max, keys[i]);
+        }
+      }
+      return max;
+    }
+
+    private static int hash(int key) {
+      int h = key * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+
+  // KJJ: Shared result for rule walks that reach no end positions, never modified
+  private static final IntList NO_POSITIONS = new IntList();
+  private static final int[] EMPTY_PATH = new int[0];
+
   private boolean showResult = true;
   private boolean showDebugOutput = true;
   private boolean debugOutputWithTransitions = true;
@@ -94,33 +221,52 @@ public class CodeCompletionCore {
   private Set<Integer> ignoredTokens = new HashSet<>();
   private Set<Integer> preferredRules = new HashSet<>();
 
+  // KJJ: Lookup tables for the above, indexed by token type & rule index
+  private boolean[] ignoredByType;
+  private boolean[] preferredByRule;
+
   private Parser parser;
   private ATN atn;
   private Vocabulary vocabulary;
   private String[] ruleNames;
   private List<Token> tokens;
+  private int[] tokenTypes;
 
   private int tokenStartIndex = 0;
   private int statesProcessed = 0;
+  private boolean debugging = false;
 
   // A mapping of rule index to token stream position to end token positions.
   // A rule which has been visited before with the same input position will always produce the same output positions.
-  private final Map<Integer, Map<Integer, Set<Integer>>> shortcutMap = new HashMap<>();
+  private final PositionMap[] shortcutMap;
   private final CandidatesCollection candidates = new CandidatesCollection(); // The collected candidates (rules and tokens).
 
-  private final static Map<String, Map<Integer, FollowSetsHolder>> followSetsByATN = new HashMap<>();
+  /* KJJ: Follow sets by ATN & rule start state number. These are computed once per ATN, on first use of each rule,
+   * and shared between instances on any thread. A holder is only published once complete. */
+  private final static Map<ATN, AtomicReferenceArray<FollowSetsHolder>> followSetsByATN = new ConcurrentHashMap<>();
+  private final AtomicReferenceArray<FollowSetsHolder> followSetsByState;
 
   public CodeCompletionCore(Parser parser, Set<Integer> preferredRules, Set<Integer> ignoredTokens) {
     this.parser = parser;
     this.atn = parser.getATN();
     this.vocabulary = parser.getVocabulary();
     this.ruleNames = parser.getRuleNames();
+    this.shortcutMap = new PositionMap[this.atn.ruleToStartState.length];
+    this.followSetsByState =
+        followSetsByATN.computeIfAbsent(this.atn, atn -> new AtomicReferenceArray<>(atn.states.size()));
     if (preferredRules != null) {
       this.preferredRules = preferredRules;
     }
     if (ignoredTokens != null) {
       this.ignoredTokens = ignoredTokens;
     }
+    this.preferredByRule = ruleLookup(this.preferredRules);
+    this.ignoredByType = new boolean[this.atn.maxTokenType + 1];
+    for (int token : this.ignoredTokens) {
+      if (token >= 0 && token < this.ignoredByType.length) {
+        this.ignoredByType[token] = true;
+      }
+    }
   }
 
   public Set<Integer> getPreferredRules() {
@@ -129,6 +275,28 @@ public class CodeCompletionCore {
 
   public void setPreferredRules(Set<Integer> preferredRules) {
     this.preferredRules = new HashSet<>(preferredRules);
+    this.preferredByRule = ruleLookup(this.preferredRules);
+  }
+
+  private boolean[] ruleLookup(Set<Integer> rules) {
+    boolean[] lookup = new boolean[this.ruleNames.length];
+    for (int rule : rules) {
+      if (rule >= 0 && rule < lookup.length) {
+        lookup[rule] = true;
+      }
+    }
+    return lookup;
+  }
+
+  private boolean isPreferredRule(int rule) {
+    return rule >= 0 && rule < this.preferredByRule.length && this.preferredByRule[rule];
+  }
+
+  private boolean isIgnoredToken(int token) {
+    if (token >= 0 && token < this.ignoredByType.length) {
+      return this.ignoredByType[token];
+    }
+    return this.ignoredTokens.contains(token);
   }
 
   /**
@@ -138,17 +306,19 @@ public class CodeCompletionCore {
    * speed up the retrieval process but might miss some candidates (if they are outside of the given context).
    */
   public CandidatesCollection collectCandidates(int caretTokenIndex, ParserRuleContext context, int maxStates) {
-    this.shortcutMap.clear();
+    Arrays.fill(this.shortcutMap, null);
     this.candidates.rules.clear();
     this.candidates.tokens.clear();
+    this.candidates.rulePositions.clear();
     this.statesProcessed = 0;
+    this.debugging = logger.isLoggable(Level.FINE);
 
     this.tokenStartIndex = context != null ? context.start.getTokenIndex() : 0;
     TokenStream tokenStream  = this.parser.getInputStream();
 
     int currentIndex = tokenStream.index();
     tokenStream.seek(this.tokenStartIndex);
-    this.tokens = new ArrayList<>(tokenStream.size());
+    this.tokens = new ArrayList<>();
     int offset = 0;
     while (true) {
       /* KJJ: Optimised loop, the original use of CommonTokenStream.LT(...) was very slow for large inputs */
@@ -168,7 +338,12 @@ public class CodeCompletionCore {
     }
     tokenStream.seek(currentIndex);
 
-    LinkedList<Integer> callStack = new LinkedList<>();
+    this.tokenTypes = new int[this.tokens.size()];
+    for (int i = 0; i < this.tokenTypes.length; i++) {
+      this.tokenTypes[i] = this.tokens.get(i).getType();
+    }
+
+    IntList callStack = new IntList();
     int startRule = context != null ? context.getRuleIndex() : 0;
     this.processRule(this.atn.ruleToStartState[startRule], 0, callStack, "\n", maxStates);
 
@@ -177,18 +352,18 @@ public class CodeCompletionCore {
     // now post-process the rule candidates and find the last occurrences
     // of each preferred rule and extract its start and end in the input stream
     for (int ruleId : preferredRules) {
-      final Map<Integer, Set<Integer>> shortcut = shortcutMap.get(ruleId);
+      final PositionMap shortcut = ruleId >= 0 && ruleId < shortcutMap.length ? shortcutMap[ruleId] : null;
       if (shortcut == null || shortcut.isEmpty()) {
         continue;
       }
       // select the right-most occurrence
-      final int startToken = Collections.max(shortcut.keySet());
-      final Set<Integer> endSet = shortcut.get(startToken);
+      final int startToken = shortcut.maxKey();
+      final IntList endSet = shortcut.get(startToken);
       final int endToken;
       if (endSet.isEmpty()) {
         endToken = tokens.size() - 1;
       } else {
-        endToken = Collections.max(shortcut.get(startToken));
+        endToken = endSet.max();
       }
       final int startOffset = tokens.get(startToken).getStartIndex();
       final int endOffset;
@@ -245,34 +420,29 @@ public class CodeCompletionCore {
   /**
    * Walks the rule chain upwards to see if that matches any of the preferred rules.
    * If found, that rule is added to the collection candidates and true is returned.
+   * KJJ: The rule chain is the call stack followed by the path, to avoid copying them into a new list.
    */
-  private boolean translateToRuleIndex(List<Integer> ruleStack) {
+  private boolean translateToRuleIndex(IntList callStack, int[] path) {
     if (this.preferredRules.isEmpty())
       return false;
 
     // Loop over the rule stack from highest to lowest rule level. This way we properly handle the higher rule
     // if it contains a lower one that is also a preferred rule.
-    for (int i = 0; i < ruleStack.size(); ++i) {
-      if (this.preferredRules.contains(ruleStack.get(i))) {
+    int length = callStack.size() + path.length;
+    for (int i = 0; i < length; ++i) {
+      int rule = ruleAt(callStack, path, i);
+      if (this.isPreferredRule(rule)) {
         // Add the rule to our candidates list along with the current rule path,
         // but only if there isn't already an entry like that.
-        List<Integer> path = new LinkedList<>(ruleStack.subList(0, i));
-        boolean addNew = true;
-        for (Map.Entry<Integer, List<Integer>> entry : this.candidates.rules.entrySet()) {
-          if (!entry.getKey().equals(ruleStack.get(i)) || entry.getValue().size() != path.size()) {
-            continue;
-          }
-          // Found an entry for this rule. Same path? If so don't add a new (duplicate) entry.
-          if (path.equals(entry.getValue())) {
-            addNew = false;
-            break;
+        List<Integer> existing = this.candidates.rules.get(rule);
+        if (existing == null || !samePath(existing, callStack, path, i)) {
+          List<Integer> rulePath = new ArrayList<>(i);
+          for (int j = 0; j < i; ++j) {
+            rulePath.add(ruleAt(callStack, path, j));
           }
-        }
-
-        if (addNew) {
-          this.candidates.rules.put(ruleStack.get(i), path);
+          this.candidates.rules.put(rule, rulePath);
           if (showDebugOutput && logger.isLoggable(Level.FINE)) {
-            logger.fine("=====> collected: " + this.ruleNames[i]);
+            logger.fine("=====> collected: " + this.ruleNames[rule]);
           }
         }
         return true;
@@ -282,15 +452,29 @@ public class CodeCompletionCore {
     return false;
   }
 
+  private static int ruleAt(IntList callStack, int[] path, int index) {
+    return index < callStack.size() ? callStack.get(index) : path[index - callStack.size()];
+  }
+
+  private static boolean samePath(List<Integer> existing, IntList callStack, int[] path, int length) {
+    if (existing.size() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; ++i) {
+      if (existing.get(i) != ruleAt(callStack, path, i)) {
+        return false;
+      }
+    }
+    return true;
+  }
 
   /**
    * This method follows the given transition and collects all symbols within the same rule that directly follow it
    * without intermediate transitions to other rules and only if there is a single symbol for a transition.
    */
   private List<Integer> getFollowingTokens(Transition initialTransition) {
-    LinkedList<Integer> result = new LinkedList<>();
-    LinkedList<ATNState> seen = new LinkedList<>(); // unused but in orig
-    LinkedList<ATNState> pipeline = new LinkedList<>();
+    List<Integer> result = new ArrayList<>();
+    ArrayDeque<ATNState> pipeline = new ArrayDeque<>();
     pipeline.add(initialTransition.target);
 
     while (!pipeline.isEmpty()) {
@@ -299,9 +483,9 @@ public class CodeCompletionCore {
       for (Transition transition: state.getTransitions()) {
         if (transition.getSerializationType() == Transition.ATOM) {
           if (!transition.isEpsilon()) {
-            List<Integer> list = transition.label().toList();
-            if (list.size() == 1 && !this.ignoredTokens.contains(list.get(0))) {
-              result.addLast(list.get(0));
+            IntervalSet label = transition.label();
+            if (label.size() == 1 && !this.isIgnoredToken(label.getMinElement())) {
+              result.add(label.getMinElement());
               pipeline.addLast(transition.target);
             }
           } else {
@@ -311,16 +495,16 @@ public class CodeCompletionCore {
       }
     }
 
-    return result;
+    return Collections.unmodifiableList(result);
   }
 
   /**
    * Entry point for the recursive follow set collection function.
    */
-  private LinkedList<FollowSetWithPath> determineFollowSets(ATNState start, ATNState stop){
-    LinkedList<FollowSetWithPath> result = new LinkedList<>();
-    Set<ATNState> seen = new HashSet<>();
-    LinkedList<Integer> ruleStack = new LinkedList<>();
+  private List<FollowSetWithPath> determineFollowSets(ATNState start, ATNState stop){
+    List<FollowSetWithPath> result = new ArrayList<>();
+    BitSet seen = new BitSet(this.atn.states.size());
+    IntList ruleStack = new IntList();
 
     this.collectFollowSets(start, stop, result, seen, ruleStack);
 
@@ -331,29 +515,30 @@ public class CodeCompletionCore {
    * Collects possible tokens which could be matched following the given ATN state. This is essentially the same
    * algorithm as used in the LL1Analyzer class, but here we consider predicates also and use no parser rule context.
    */
-  private void collectFollowSets(ATNState s, ATNState stopState, LinkedList<FollowSetWithPath> followSets,
-                                 Set<ATNState> seen, LinkedList<Integer> ruleStack) {
+  private void collectFollowSets(ATNState s, ATNState stopState, List<FollowSetWithPath> followSets,
+                                 BitSet seen, IntList ruleStack) {
 
-    if (seen.contains(s))
+    if (seen.get(s.stateNumber))
       return;
 
-    seen.add(s);
+    seen.set(s.stateNumber);
 
     if (s.equals(stopState) || s.getStateType() == ATNState.RULE_STOP) {
       FollowSetWithPath set = new FollowSetWithPath();
       set.intervals = IntervalSet.of(Token.EPSILON);
-      set.path = new LinkedList<Integer>(ruleStack);
-      followSets.addLast(set);
+      set.path = ruleStack.toArray();
+      set.following = Collections.emptyList();
+      followSets.add(set);
       return;
     }
 
     for (Transition transition : s.getTransitions()) {
       if (transition.getSerializationType() == Transition.RULE) {
         RuleTransition ruleTransition = (RuleTransition) transition;
-        if (ruleStack.indexOf(ruleTransition.target.ruleIndex) != -1) {
+        if (ruleStack.contains(ruleTransition.target.ruleIndex)) {
           continue;
         }
-        ruleStack.addLast(ruleTransition.target.ruleIndex);
+        ruleStack.add(ruleTransition.target.ruleIndex);
         this.collectFollowSets(transition.target, stopState, followSets, seen, ruleStack);
         ruleStack.removeLast();
 
@@ -366,8 +551,9 @@ public class CodeCompletionCore {
       } else if (transition.getSerializationType() == Transition.WILDCARD) {
         FollowSetWithPath set = new FollowSetWithPath();
         set.intervals = IntervalSet.of(Token.MIN_USER_TOKEN_TYPE, this.atn.maxTokenType);
-        set.path = new LinkedList<Integer>(ruleStack);
-        followSets.addLast(set);
+        set.path = ruleStack.toArray();
+        set.following = Collections.emptyList();
+        followSets.add(set);
       } else {
         IntervalSet label = transition.label();
         if (label != null && label.size() > 0) {
@@ -376,39 +562,82 @@ public class CodeCompletionCore {
           }
           FollowSetWithPath set = new FollowSetWithPath();
           set.intervals = label;
-          set.path = new LinkedList<Integer>(ruleStack);
+          set.path = ruleStack.toArray();
           set.following = this.getFollowingTokens(transition);
-          followSets.addLast(set);
+          followSets.add(set);
         }
       }
     }
   }
 
+  /**
+   * Obtain the follow sets for a rule start state, computing and publishing them on first use.
+   */
+  private FollowSetsHolder getFollowSets(ATNState startState) {
+    FollowSetsHolder followSets = this.followSetsByState.get(startState.stateNumber);
+    if (followSets == null) {
+      FollowSetsHolder newSets = new FollowSetsHolder();
+      RuleStopState stop = this.atn.ruleToStopState[startState.ruleIndex];
+      newSets.sets = Collections.unmodifiableList(this.determineFollowSets(startState, stop));
+
+      // Sets are split by path to allow translating them to preferred rules. But for quick hit tests
+      // it is also useful to have a set with all symbols combined.
+      IntervalSet combined = new IntervalSet();
+      for (FollowSetWithPath set: newSets.sets) {
+        combined.addAll(set.intervals);
+      }
+      combined.setReadonly(true);
+      newSets.combined = combined;
+
+      if (this.followSetsByState.compareAndSet(startState.stateNumber, null, newSets)) {
+        followSets = newSets;
+      } else {
+        followSets = this.followSetsByState.get(startState.stateNumber);
+      }
+    }
+    return followSets;
+  }
+
+  /**
+   * Add a token candidate collected at the caret. If the token has already been collected with different following
+   * tokens the following tokens are cleared.
+   */
+  private void collectToken(int symbol, List<Integer> following) {
+    if (showDebugOutput && this.debugging) {
+      logger.fine("=====> collected: " + this.vocabulary.getDisplayName(symbol));
+    }
+    List<Integer> existing = this.candidates.tokens.get(symbol);
+    if (existing == null) {
+      this.candidates.tokens.put(symbol, following);
+    } else if (!existing.equals(following)) { // XXX js uses !=
+      this.candidates.tokens.put(symbol, Collections.emptyList());
+    }
+  }
+
   /**
    * Walks the ATN for a single rule only. It returns the token stream position for each path that could be matched in this rule.
    * The result can be empty in case we hit only non-epsilon transitions that didn't match the current input or if we
    * hit the caret position.
    */
-  private Set<Integer> processRule(ATNState startState, int tokenIndex, LinkedList<Integer> callStack, String indentation, int maxStates) {
+  private IntList processRule(ATNState startState, int tokenIndex, IntList callStack, String indentation, int maxStates) {
 
     // Start with rule specific handling before going into the ATN walk.
 
     // Check first if we've taken this path with the same input before.
-    Map<Integer,Set<Integer>> positionMap = this.shortcutMap.get(startState.ruleIndex);
+    PositionMap positionMap = this.shortcutMap[startState.ruleIndex];
     if (positionMap == null) {
-      positionMap = new HashMap<>();
-      this.shortcutMap.put(startState.ruleIndex, positionMap);
+      positionMap = new PositionMap();
+      this.shortcutMap[startState.ruleIndex] = positionMap;
     } else {
-      if (positionMap.containsKey(tokenIndex)) {
+      IntList positions = positionMap.get(tokenIndex);
+      if (positions != null) {
         if (showDebugOutput) {
           logger.fine("=====> shortcut");
         }
-        return positionMap.get(tokenIndex);
+        return positions;
       }
     }
 
-    Set<Integer> result = new HashSet<>();
-
     // For rule start states we determine and cache the follow set, which gives us 3 advantages:
     // 1) We can quickly check if a symbol would be matched when we follow that rule. We can so check in advance
     //    and can save us all the intermediate steps if there is no match.
@@ -416,57 +645,28 @@ public class CodeCompletionCore {
     // 3) We get this lookup for free with any 2nd or further visit of the same rule, which often happens
     //    in non trivial grammars, especially with (recursive) expressions and of course when invoking code completion
     //    multiple times.
-    Map<Integer, FollowSetsHolder> setsPerState = followSetsByATN.get(this.parser.getClass().getName());
-    if (setsPerState == null) {
-      setsPerState = new HashMap<>();
-      followSetsByATN.put(this.parser.getClass().getName(), setsPerState);
-    }
-
-    FollowSetsHolder followSets = setsPerState.get(startState.stateNumber);
-    if (followSets == null) {
-      followSets = new FollowSetsHolder();
-      setsPerState.put(startState.stateNumber, followSets);
-      RuleStopState stop = this.atn.ruleToStopState[startState.ruleIndex];
-      followSets.sets = this.determineFollowSets(startState, stop);
-
-      // Sets are split by path to allow translating them to preferred rules. But for quick hit tests
-      // it is also useful to have a set with all symbols combined.
-      IntervalSet combined = new IntervalSet();
-      for (FollowSetWithPath set: followSets.sets) {
-        combined.addAll(set.intervals);
-      }
-      followSets.combined = combined;
-    }
+    FollowSetsHolder followSets = getFollowSets(startState);
 
-    callStack.addLast(startState.ruleIndex);
-    int currentSymbol = this.tokens.get(tokenIndex).getType();
+    callStack.add(startState.ruleIndex);
+    int currentSymbol = this.tokenTypes[tokenIndex];
 
-    if (tokenIndex >= this.tokens.size() - 1) { // At caret?
-      if (this.preferredRules.contains(startState.ruleIndex)) {
+    if (tokenIndex >= this.tokenTypes.length - 1) { // At caret?
+      if (this.isPreferredRule(startState.ruleIndex)) {
         // No need to go deeper when collecting entries and we reach a rule that we want to collect anyway.
-        this.translateToRuleIndex(callStack);
+        this.translateToRuleIndex(callStack, EMPTY_PATH);
       } else {
         // Convert all follow sets to either single symbols or their associated preferred rule and add
         // the result to our candidates list.
         for (FollowSetWithPath set: followSets.sets) {
-          LinkedList<Integer> fullPath = new LinkedList<>(callStack);
-          fullPath.addAll(set.path);
-          if (!this.translateToRuleIndex(fullPath)) {
-            for (int symbol : set.intervals.toList()) {
-              if (!this.ignoredTokens.contains(symbol)) {
-                if (showDebugOutput && logger.isLoggable(Level.FINE)) {
-                  logger.fine("=====> collected: " + this.vocabulary.getDisplayName(symbol));
-                }
-                if (!this.candidates.tokens.containsKey(symbol))
-                  this.candidates.tokens.put(symbol, set.following); // Following is empty if there is more than one entry in the set.
-                else {
-                  // More than one following list for the same symbol.
-                  if (!this.candidates.tokens.get(symbol).equals(set.following)) { // XXX js uses !=
-                    this.candidates.tokens.put(symbol, new LinkedList<Integer>());
-                  }
+          if (!this.translateToRuleIndex(callStack, set.path)) {
+            for (Interval interval : set.intervals.getIntervals()) {
+              for (int symbol = interval.a; symbol <= interval.b; symbol++) {
+                if (!this.isIgnoredToken(symbol)) {
+                  // Following is empty if there is more than one entry in the set.
+                  this.collectToken(symbol, set.following);
+                } else {
+                  logger.fine("====> collection: Ignoring token: " + symbol);
                 }
-              } else {
-                logger.fine("====> collection: Ignoring token: " + symbol);
               }
             }
           }
@@ -474,7 +674,7 @@ public class CodeCompletionCore {
       }
 
       callStack.removeLast();
-      return result;
+      return NO_POSITIONS;
 
     } else {
       // Process the rule if we either could pass it without consuming anything (epsilon transition)
@@ -482,20 +682,25 @@ public class CodeCompletionCore {
       // Otherwise stop here.
       if (!followSets.combined.contains(Token.EPSILON) && !followSets.combined.contains(currentSymbol)) {
         callStack.removeLast();
-        return result;
+        return NO_POSITIONS;
       }
     }
 
+    IntList result = new IntList();
+
     // The current state execution pipeline contains all yet-to-be-processed ATN states in this rule.
     // For each such state we store the token index + a list of rules that lead to it.
-    LinkedList<PipelineEntry> statePipeline = new LinkedList<>();
-    PipelineEntry currentEntry;
+    // KJJ: Held as parallel lists of state numbers and token indexes rather than entry objects.
+    IntList pipelineStates = new IntList();
+    IntList pipelineTokens = new IntList();
 
     // Bootstrap the pipeline.
-    statePipeline.add(new PipelineEntry(startState, tokenIndex));
+    pipelineStates.add(startState.stateNumber);
+    pipelineTokens.add(tokenIndex);
 
-    while (!statePipeline.isEmpty()) {
-      currentEntry = statePipeline.removeLast();
+    while (!pipelineStates.isEmpty()) {
+      ATNState currentState = this.atn.states.get(pipelineStates.removeLast());
+      int currentTokenIndex = pipelineTokens.removeLast();
       ++this.statesProcessed;
 
       /* KJJ: Protection against run away processing */
@@ -503,24 +708,26 @@ public class CodeCompletionCore {
         break;
       }
 
-      currentSymbol = this.tokens.get(currentEntry.tokenIndex).getType();
+      currentSymbol = this.tokenTypes[currentTokenIndex];
 
-      boolean atCaret = currentEntry.tokenIndex >= this.tokens.size() - 1;
-      if (logger.isLoggable(Level.FINE)) {
-        printDescription(indentation, currentEntry.state, this.generateBaseDescription(currentEntry.state), currentEntry.tokenIndex);
+      boolean atCaret = currentTokenIndex >= this.tokenTypes.length - 1;
+      if (this.debugging) {
+        printDescription(indentation, currentState, this.generateBaseDescription(currentState), currentTokenIndex);
         if (this.showRuleStack) {
           printRuleState(callStack);
         }
       }
 
-      switch (currentEntry.state.getStateType()) {
+      switch (currentState.getStateType()) {
         case ATNState.RULE_START: // Happens only for the first state in this rule, not subrules.
-          indentation += "  ";
+          if (this.debugging) {
+            indentation += "  ";
+          }
           break;
 
         case ATNState.RULE_STOP: {
           // Record the token index we are at, to report it to the caller.
-          result.add(currentEntry.tokenIndex);
+          result.addUnique(currentTokenIndex);
           continue;
         }
 
@@ -528,35 +735,39 @@ public class CodeCompletionCore {
           break;
       }
 
-      Transition[] transitions = currentEntry.state.getTransitions();
+      Transition[] transitions = currentState.getTransitions();
       for (Transition transition : transitions) {
         switch (transition.getSerializationType()) {
           case Transition.RULE: {
-            Set<Integer> endStatus = this.processRule(transition.target, currentEntry.tokenIndex, callStack, indentation, maxStates);
-            for (Integer position : endStatus) {
-              statePipeline.addLast(new PipelineEntry(((RuleTransition) transition).followState, position));
+            IntList endStatus = this.processRule(transition.target, currentTokenIndex, callStack, indentation, maxStates);
+            int followState = ((RuleTransition) transition).followState.stateNumber;
+            for (int i = 0; i < endStatus.size(); i++) {
+              pipelineStates.add(followState);
+              pipelineTokens.add(endStatus.get(i));
             }
             break;
           }
 
           case Transition.PREDICATE: {
             if (this.checkPredicate((PredicateTransition)transition)) {
-              statePipeline.addLast(new PipelineEntry(transition.target, currentEntry.tokenIndex));
+              pipelineStates.add(transition.target.stateNumber);
+              pipelineTokens.add(currentTokenIndex);
             }
             break;
           }
 
           case Transition.WILDCARD: {
             if (atCaret) {
-              if (!this.translateToRuleIndex(callStack)) {
-                for (Integer token : IntervalSet.of(Token.MIN_USER_TOKEN_TYPE, this.atn.maxTokenType).toList()) {
-                  if (!this.ignoredTokens.contains(token)) {
-                    this.candidates.tokens.put(token, new LinkedList<Integer>());
+              if (!this.translateToRuleIndex(callStack, EMPTY_PATH)) {
+                for (int token = Token.MIN_USER_TOKEN_TYPE; token <= this.atn.maxTokenType; token++) {
+                  if (!this.isIgnoredToken(token)) {
+                    this.candidates.tokens.put(token, Collections.emptyList());
                   }
                 }
               }
             } else {
-              statePipeline.addLast(new PipelineEntry(transition.target, currentEntry.tokenIndex + 1));
+              pipelineStates.add(transition.target.stateNumber);
+              pipelineTokens.add(currentTokenIndex + 1);
             }
             break;
           }
@@ -564,7 +775,8 @@ public class CodeCompletionCore {
           default: {
             if (transition.isEpsilon()) {
               // Jump over simple states with a single outgoing epsilon transition.
-              statePipeline.addLast(new PipelineEntry(transition.target, currentEntry.tokenIndex));
+              pipelineStates.add(transition.target.stateNumber);
+              pipelineTokens.add(currentTokenIndex);
               continue;
             }
 
@@ -574,30 +786,32 @@ public class CodeCompletionCore {
                 set = set.complement(IntervalSet.of(Token.MIN_USER_TOKEN_TYPE, this.atn.maxTokenType));
               }
               if (atCaret) {
-                if (!this.translateToRuleIndex(callStack)) {
-                  List<Integer> list = set.toList();
-                  boolean addFollowing = list.size() == 1;
-                  for (Integer symbol: list) {
-                    if (!this.ignoredTokens.contains(symbol)) {
-                      if (showDebugOutput && logger.isLoggable(Level.FINE)) {
-                        logger.fine("=====> collected: " + this.vocabulary.getDisplayName(symbol));
-                      }
-                      if (addFollowing) {
-                        this.candidates.tokens.put(symbol, this.getFollowingTokens(transition));
+                if (!this.translateToRuleIndex(callStack, EMPTY_PATH)) {
+                  boolean addFollowing = set.size() == 1;
+                  for (Interval interval : set.getIntervals()) {
+                    for (int symbol = interval.a; symbol <= interval.b; symbol++) {
+                      if (!this.isIgnoredToken(symbol)) {
+                        if (showDebugOutput && this.debugging) {
+                          logger.fine("=====> collected: " + this.vocabulary.getDisplayName(symbol));
+                        }
+                        if (addFollowing) {
+                          this.candidates.tokens.put(symbol, this.getFollowingTokens(transition));
+                        } else {
+                          this.candidates.tokens.put(symbol, Collections.emptyList());
+                        }
                       } else {
-                        this.candidates.tokens.put(symbol, new LinkedList<>());
+                        logger.fine("====> collected: Ignoring token: " + symbol);
                       }
-                    } else {
-                      logger.fine("====> collected: Ignoring token: " + symbol);
                     }
                   }
                 }
               } else {
                 if (set.contains(currentSymbol)) {
-                  if (showDebugOutput && logger.isLoggable(Level.FINE)) {
+                  if (showDebugOutput && this.debugging) {
                     logger.fine("=====> consumed: " + this.vocabulary.getDisplayName(currentSymbol));
                   }
-                  statePipeline.addLast(new PipelineEntry(transition.target, currentEntry.tokenIndex + 1));
+                  pipelineStates.add(transition.target.stateNumber);
+                  pipelineTokens.add(currentTokenIndex + 1);
                 }
               }
             }
@@ -680,7 +894,7 @@ public class CodeCompletionCore {
     }
   }
 
-  private void printRuleState(LinkedList<Integer> stack) {
+  private void printRuleState(IntList stack) {
     if (stack.isEmpty()) {
       logger.fine("<empty stack>");
       return;
@@ -688,8 +902,8 @@ public class CodeCompletionCore {
 
     if (logger.isLoggable(Level.FINER)) {
       StringBuilder sb = new StringBuilder();
-      for (Integer rule : stack) {
-        sb.append("  ").append(this.ruleNames[rule]).append("\n");
+      for (int i = 0; i < stack.size(); i++) {
+        sb.append("  ").append(this.ruleNames[stack.get(i)]).append("\n");
       }
       logger.log(Level.FINER, sb.toString());
     }
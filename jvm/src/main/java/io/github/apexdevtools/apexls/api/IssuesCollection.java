@@ -57,4 +57,11 @@ public interface IssuesCollection {
    * updated issues tracking when called for all files processed.
    */
   Issue[] issuesForFiles(String[] paths, boolean includeWarnings, int maxErrorsPerFile);
+
+  /**
+   * Issues added and removed since a version returned by an earlier call, pass 0 to obtain all current issues.
+   * The delta is marked as a reset if the changes since the version are no longer held. This does not reset the
+   * updated issues tracking.
+   */
+  IssuesDelta issuesSince(long version);
 }
@@ -0,0 +1,45 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package io.github.apexdevtools.apexls.api;
+
+import io.github.apexdevtools.api.Issue;
+
+/**
+ * Issues added and removed from an IssuesCollection since an earlier version. Apply the removals and then the
+ * additions to a copy of the issues held at the earlier version to bring it up to date.
+ */
+public interface IssuesDelta {
+
+  /**
+   * Version of the collection the delta brings a copy up to, pass this to the next call of issuesSince().
+   */
+  long version();
+
+  /**
+   * True when the changes since the requested version were no longer available. The added issues are then all
+   * the current issues and any issues held should be discarded before they are applied.
+   */
+  boolean isReset();
+
+  /**
+   * Array of Issues added since the requested version.
+   */
+  Issue[] added();
+
+  /**
+   * Array of Issues removed since the requested version.
+   */
+  Issue[] removed();
+}
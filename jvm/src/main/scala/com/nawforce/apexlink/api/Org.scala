@@ -14,7 +14,7 @@
 
 package com.nawforce.apexlink.api
 
-import com.nawforce.apexlink.org.{OPM, RefreshListener}
+import com.nawforce.apexlink.org.{OPM, ReferenceIndex, RefreshListener}
 import com.nawforce.apexlink.rpc.{DependencyCount => _, _}
 import com.nawforce.pkgforce.diagnostics.LoggerOps
 import com.nawforce.pkgforce.names.TypeIdentifier
@@ -63,6 +63,14 @@ trait Org {
     */
   def isDirty(): Boolean
 
+  /** Detect workspace changes not yet reported by the file watcher and queue refreshes for them.
+    *
+    * The watcher waits for a quiet period before re-scanning after a burst of changes. Call this
+    * before flush() when changes just made to the workspace must be processed. It does nothing
+    * when the watcher is disabled, see [[IndexerConfiguration]].
+    */
+  def rescan(): Unit
+
   /** Add or remove a listener which is called when all metadata changes have been processed.
     *
     * Similar to polling until isDirty = false, though the action will run on the same thread as
@@ -332,7 +340,12 @@ object Org {
         issueManager,
         workspace,
         unusedEnabled = options.unused.getOrElse(true),
-        unusedOnError = options.unusedOnError.getOrElse(false)
+        unusedOnError = options.unusedOnError.getOrElse(false),
+        parallelValidation = options.parallelValidation.getOrElse(false),
+        segmentCache = options.segmentCache.getOrElse(false),
+        referenceIndexBudget =
+          options.referenceIndexBudget.getOrElse(ReferenceIndex.DEFAULT_BUDGET_MB) * 1024L * 1024L,
+        declarationBudget = options.declarationBudget.getOrElse(0) * 1024L * 1024L
       )
     }
   }
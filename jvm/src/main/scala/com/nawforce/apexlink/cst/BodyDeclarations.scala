@@ -64,6 +64,15 @@ abstract class ClassBodyDeclaration(modifierResults: ModifierResults)
     propagateDependencies()
   }
 
+  /** Record the dependencies found by validation. A validation that only collects expression
+    * results, such as to locate a definition, may run concurrently with other queries so it
+    * leaves the recorded dependencies unchanged.
+    */
+  protected def setDepends(context: BodyDeclarationVerifyContext): Unit = {
+    if (!context.isSaving)
+      setDepends(context.dependencies)
+  }
+
   def collectDependencies(dependsOn: mutable.Set[Dependent]): Unit = {
     dependencies().foreach(dependsOn.add)
   }
@@ -219,7 +228,7 @@ final case class ApexInitializerBlock(_modifiers: ModifierResults, block: Block,
     block.verify(blockContext)
     context.typePlugin.foreach(_.onScopeValidated(isStatic, blockContext))
 
-    setDepends(context.dependencies)
+    setDepends(context)
   }
 }
 
@@ -290,7 +299,7 @@ class ApexMethodDeclaration(
     })
     blockContext.logControlFlowIssues()
 
-    setDepends(context.dependencies)
+    setDepends(context)
   }
 }
 
@@ -377,7 +386,7 @@ final case class ApexFieldDeclaration(
       ExprContext(staticContext, context.thisType),
       new OuterScopeVerifyContext(context, modifiers.contains(STATIC_MODIFIER))
     )
-    setDepends(context.dependencies)
+    setDepends(context)
   }
 }
 
@@ -436,7 +445,7 @@ final case class ApexConstructorDeclaration(
     block.verify(blockContext)
     context.typePlugin.foreach(_.onScopeValidated(isStatic = false, blockContext))
 
-    setDepends(context.dependencies)
+    setDepends(context)
   }
 }
 
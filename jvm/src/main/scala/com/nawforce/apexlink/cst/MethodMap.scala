@@ -33,6 +33,7 @@ import com.nawforce.pkgforce.names.{Name, Names, TypeName}
 import com.nawforce.pkgforce.parsers.{CLASS_NATURE, INTERFACE_NATURE}
 import com.nawforce.pkgforce.path.{Location, PathLocation}
 
+import java.util.concurrent.ConcurrentHashMap
 import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
 
@@ -42,10 +43,115 @@ case object NO_MATCH_ERROR extends MethodCallError("No matching method found")
 
 case object AMBIGUOUS_ERROR extends MethodCallError("Ambiguous method call")
 
+/** Methods grouped by name and then by parameter count. Lookups index an array by parameter count
+  * so do not need to allocate a key. Iteration is in the order of the map used for construction.
+  */
+final class MethodsByName private (
+  entries: Array[((Name, Int), Array[MethodDeclaration])],
+  byName: java.util.HashMap[Name, Array[Array[MethodDeclaration]]]
+) {
+
+  /** Methods with a name and parameter count, empty if there are none. */
+  def get(name: Name, parameterCount: Int): Array[MethodDeclaration] = {
+    val byCount = byName.get(name)
+    if (byCount == null || parameterCount >= byCount.length || byCount(parameterCount) == null)
+      MethodsByName.noMethods
+    else
+      byCount(parameterCount)
+  }
+
+  /** The first method group with a name, regardless of parameter count. */
+  def findNamed(name: Name): Option[Array[MethodDeclaration]] = {
+    entries.find(_._1._1 == name).map(_._2)
+  }
+
+  def foreach(op: (((Name, Int), Array[MethodDeclaration])) => Unit): Unit = entries.foreach(op)
+
+  def values: Iterator[Array[MethodDeclaration]] = entries.iterator.map(_._2)
+}
+
+object MethodsByName {
+  private val noMethods: Array[MethodDeclaration] = Array()
+
+  val empty: MethodsByName = MethodsByName(Map())
+
+  def apply(methods: Map[(Name, Int), Array[MethodDeclaration]]): MethodsByName = {
+    val byName = new java.util.HashMap[Name, Array[Array[MethodDeclaration]]]()
+    methods.foreach { case ((name, parameterCount), group) =>
+      var byCount = byName.get(name)
+      if (byCount == null || byCount.length <= parameterCount) {
+        val resized = new Array[Array[MethodDeclaration]](parameterCount + 1)
+        if (byCount != null)
+          System.arraycopy(byCount, 0, resized, 0, byCount.length)
+        byCount = resized
+        byName.put(name, byCount)
+      }
+      byCount(parameterCount) = group
+    }
+    new MethodsByName(methods.toArray, byName)
+  }
+}
+
+/** Cache of method call resolutions made from a module, keyed on the method map searched along with
+  * the method name, argument types and static context. Resolution depends on the types visible
+  * from the module, so this must be cleared whenever types are replaced.
+  */
+final class MethodCallCache {
+  private val cache =
+    new ConcurrentHashMap[MethodCallCache.Key, Either[MethodCallError, MethodDeclaration]]()
+
+  def getOrElseUpdate(
+    methodMap: MethodMap,
+    name: Name,
+    params: ArraySeq[TypeName],
+    staticContext: Option[Boolean]
+  )(
+    op: => Either[MethodCallError, MethodDeclaration]
+  ): Either[MethodCallError, MethodDeclaration] = {
+    val key    = new MethodCallCache.Key(methodMap, name, params, staticContext)
+    val cached = cache.get(key)
+    if (cached != null) {
+      cached
+    } else {
+      // Not computeIfAbsent, resolving may recurse into the cache for super & outer types
+      val result = op
+      cache.put(key, result)
+      result
+    }
+  }
+
+  def size: Int = cache.size()
+
+  def clear(): Unit = cache.clear()
+}
+
+object MethodCallCache {
+  private final class Key(
+    val methodMap: MethodMap,
+    val name: Name,
+    val params: ArraySeq[TypeName],
+    val staticContext: Option[Boolean]
+  ) {
+    // Method maps are compared by identity, each replacement of a type creates a new one
+    override val hashCode: Int =
+      ((System.identityHashCode(methodMap) * 31 + name.hashCode) * 31 + params.hashCode) * 31 +
+        staticContext.hashCode
+
+    override def equals(that: Any): Boolean = {
+      that match {
+        case other: Key =>
+          (other.methodMap eq methodMap) && other.name == name &&
+          other.staticContext == staticContext && other.params == params
+        case _ => false
+      }
+    }
+  }
+}
+
 final case class MethodMap private (
   typeName: Option[TypeName],
   td: Option[ApexClassDeclaration],
-  methodsByName: Map[(Name, Int), Array[MethodDeclaration]],
+  methodsByName: MethodsByName,
   errors: List[Issue]
 ) {
 
@@ -59,7 +165,7 @@ final case class MethodMap private (
   /** Find a method, without concern for the calling context so must be an exact match. */
   def findMethod(name: Name, params: ArraySeq[TypeName]): Option[MethodDeclaration] = {
     methodsByName
-      .getOrElse((name, params.length), Array())
+      .get(name, params.length)
       .find(method => method.parameters.map(_.typeName) == params)
   }
 
@@ -70,7 +176,7 @@ final case class MethodMap private (
     staticContext: Option[Boolean],
     context: VerifyContext
   ): Either[String, MethodDeclaration] = {
-    findMethodCall(name, params, staticContext, context) match {
+    cachedFindMethodCall(name, params, staticContext, context) match {
       case Right(method) => Right(method)
       case Left(err) =>
         val callee = typeName.map(_.toString).getOrElse("Unknown")
@@ -89,11 +195,11 @@ final case class MethodMap private (
     params: ArraySeq[TypeName],
     staticContext: Option[Boolean]
   ): Option[String] = {
-    val matched = methodsByName.get((name, params.length)).flatMap(_.headOption)
+    val matched = methodsByName.get(name, params.length).headOption
     if (matched.isEmpty) {
       methodsByName
-        .find(_._1._1 == name)
-        .map(sameName => s", did you mean to call '${sameName._2.head.toString()}'?")
+        .findNamed(name)
+        .map(sameName => s", did you mean to call '${sameName.head.toString()}'?")
     } else if (staticContext.nonEmpty && matched.exists(_.isStatic != staticContext.get)) {
       Some(
         s", are you trying to call the instance method '${matched.get.toString()}' from a static context?"
@@ -103,6 +209,27 @@ final case class MethodMap private (
     }
   }
 
+  /** Find a method call via the calling module's cache, method calls with the same argument types
+    * repeat heavily so we avoid re-evaluating assignability for each one. Calls made from types
+    * not held by the module, such as those created to validate source for completion, are not
+    * cached as the cache would retain them until it is next cleared.
+    */
+  private def cachedFindMethodCall(
+    name: Name,
+    params: ArraySeq[TypeName],
+    staticContext: Option[Boolean],
+    context: VerifyContext
+  ): Either[MethodCallError, MethodDeclaration] = {
+    val thisType = context.thisType
+    if (context.module.moduleType(thisType.typeName).exists(_ eq thisType)) {
+      context.module.methodCalls.getOrElseUpdate(this, name, params, staticContext) {
+        findMethodCall(name, params, staticContext, context)
+      }
+    } else {
+      findMethodCall(name, params, staticContext, context)
+    }
+  }
+
   private def findMethodCall(
     name: Name,
     params: ArraySeq[TypeName],
@@ -110,7 +237,7 @@ final case class MethodMap private (
     context: VerifyContext
   ): Either[MethodCallError, MethodDeclaration] = {
 
-    val matches = methodsByName.getOrElse((name, params.length), Array())
+    val matches = methodsByName.get(name, params.length)
 
     // Filter for right static context
     val staticContextMatches = staticContext match {
@@ -177,7 +304,7 @@ final case class MethodMap private (
   ): Either[MethodCallError, MethodDeclaration] = {
     td match {
       case Some(td: ApexClassDeclaration) =>
-        td.methodMap.findMethodCall(name, params, Some(true), context)
+        td.methodMap.cachedFindMethodCall(name, params, Some(true), context)
       case _ =>
         Left(NO_MATCH_ERROR)
     }
@@ -242,11 +369,11 @@ object MethodMap {
     Set(Names("addAll"), Names("removeAll"), Names("retainAll"))
 
   def empty(): MethodMap = {
-    new MethodMap(None, None, Map(), Nil)
+    new MethodMap(None, None, MethodsByName.empty, Nil)
   }
 
-  private def toMap(workingMap: WorkingMap): Map[(Name, Int), Array[MethodDeclaration]] = {
-    workingMap.map(kv => (kv._1, kv._2.toArray)).toMap
+  private def toMap(workingMap: WorkingMap): MethodsByName = {
+    MethodsByName(workingMap.map(kv => (kv._1, kv._2.toArray)).toMap)
   }
 
   /** Construct for an arbitrary type declaration. This is just for simple type
@@ -94,7 +94,7 @@ final case class ApexPropertyDeclaration(
       context.logError(location, "Getter visibility must be same or less than property")
     }
 
-    setDepends(context.dependencies)
+    setDepends(context)
   }
 }
 
@@ -145,40 +145,42 @@ private final case class OuterBlock(
     context.typePlugin.foreach(_.onScopeValidated(context.isStatic, blockContext))
   }
 
-  override def statements(context: Option[ScopeVerifyContext] = None): Seq[Statement] = {
-    var statements = Option(statementsRef).map(_.get).orNull
-
-    // If the statement WeakRef has gone stale we need to re-build them
-    if (statements == null) {
-      // If the block AST WeakRef has gone stale as well we need to re-parse first
-      var statementContext = if (blockContextRef != null) blockContextRef.get else null
-      if (statementContext == null) {
-        val parser = new CodeParser(source)
-        val result = parser.parseBlock()
-        context.foreach(c => result.issues.foreach(c.log))
-        statementContext = result.value
-        // Only cache the BlockContext if parsing succeeded without errors,
-        // otherwise we need to re-parse on subsequent validations to re-report the errors
-        if (result.issues.isEmpty) {
-          blockContextRef = new WeakReference(statementContext)
-          parseErrors = ArraySeq.empty
-        } else {
-          parseErrors = result.issues
+  // Synchronized as the same block may be validated by concurrent queries
+  override def statements(context: Option[ScopeVerifyContext] = None): Seq[Statement] =
+    synchronized {
+      var statements = Option(statementsRef).map(_.get).orNull
+
+      // If the statement WeakRef has gone stale we need to re-build them
+      if (statements == null) {
+        // If the block AST WeakRef has gone stale as well we need to re-parse first
+        var statementContext = if (blockContextRef != null) blockContextRef.get else null
+        if (statementContext == null) {
+          val parser = new CodeParser(source)
+          val result = parser.parseBlock()
+          context.foreach(c => result.issues.foreach(c.log))
+          statementContext = result.value
+          // Only cache the BlockContext if parsing succeeded without errors,
+          // otherwise we need to re-parse on subsequent validations to re-report the errors
+          if (result.issues.isEmpty) {
+            blockContextRef = new WeakReference(statementContext)
+            parseErrors = ArraySeq.empty
+          } else {
+            parseErrors = result.issues
+          }
+          reParsed = true
         }
-        reParsed = true
-      }
 
-      // Now rebuild, making sure we put correct source in scope for CST to use
-      val parsedSource = if (reParsed) source else source.outer.get
-      CST.sourceContext.withValue(Some(parsedSource)) {
-        withContext(statementContext)
-        val parser = new CodeParser(parsedSource)
-        statementsRef = createStatements(statementContext, parser)
-        statements = statementsRef.get
+        // Now rebuild, making sure we put correct source in scope for CST to use
+        val parsedSource = if (reParsed) source else source.outer.get
+        CST.sourceContext.withValue(Some(parsedSource)) {
+          withContext(statementContext)
+          val parser = new CodeParser(parsedSource)
+          statementsRef = createStatements(statementContext, parser)
+          statements = statementsRef.get
+        }
       }
+      statements
     }
-    statements
-  }
 
   override def statementsOrErrors(
     context: Option[ScopeVerifyContext] = None
@@ -125,37 +125,20 @@ object ClassDeclaration {
       .getOrElse(ArraySeq())
     val typeContext = new RelativeTypeContext
 
+    val classOwnerInfo =
+      ClassOwnerInfo(modifiers.modifiers, extendType != TypeNames.InternalObject)
     val bodyDeclarations =
       classBodyDeclarations
         .flatMap(cbd =>
-          Option(cbd.block())
-            .map(x =>
-              ArraySeq(
-                ApexInitializerBlock.construct(
-                  parser,
-                  thisType,
-                  ApexModifiers
-                    .initializerBlockModifiers(Option(cbd.STATIC()).isDefined),
-                  x
-                )
-              )
-            )
-            .orElse(
-              Option(cbd.memberDeclaration())
-                .map(x =>
-                  ClassBodyDeclaration.construct(
-                    parser,
-                    thisType,
-                    typeContext,
-                    ClassOwnerInfo(modifiers.modifiers, extendType != TypeNames.InternalObject),
-                    outerTypeName.isEmpty,
-                    CodeParser.toScala(cbd.modifier()),
-                    x
-                  )
-                )
-            )
+          constructBodyDeclaration(
+            parser,
+            thisType,
+            typeContext,
+            classOwnerInfo,
+            outerTypeName.isEmpty,
+            cbd
+          )
         )
-        .flatten
 
     val td = ClassDeclaration(
       parser.source,
@@ -175,6 +158,45 @@ object ClassDeclaration {
     td
   }
 
+  /** Construct the declarations of a single class body declaration, such as an initializer block
+    * or a member. This is also used to re-construct a single member of an existing class.
+    */
+  def constructBodyDeclaration(
+    parser: CodeParser,
+    thisType: ThisType,
+    typeContext: RelativeTypeContext,
+    classOwnerInfo: ClassOwnerInfo,
+    isOuter: Boolean,
+    classBodyDeclaration: ClassBodyDeclarationContext
+  ): Seq[ClassBodyDeclaration] = {
+    Option(classBodyDeclaration.block())
+      .map(block =>
+        Seq(
+          ApexInitializerBlock.construct(
+            parser,
+            thisType,
+            ApexModifiers
+              .initializerBlockModifiers(Option(classBodyDeclaration.STATIC()).isDefined),
+            block
+          )
+        )
+      )
+      .orElse(
+        Option(classBodyDeclaration.memberDeclaration())
+          .map(memberDeclaration =>
+            ClassBodyDeclaration.construct(
+              parser,
+              thisType,
+              typeContext,
+              classOwnerInfo,
+              isOuter,
+              CodeParser.toScala(classBodyDeclaration.modifier()),
+              memberDeclaration
+            )
+          )
+      )
+      .getOrElse(Seq())
+  }
 }
 
 final case class InterfaceDeclaration(
@@ -27,6 +27,55 @@ object ReferencingCollector {
     results.values.toSet
   }
 
+  /** As [[testReferences]] for a single type, also returning every declaration that the search
+    * considered, whether or not it was expanded.
+    */
+  def testReferencesFrom(source: NodeInfo): (Set[TestInfo], Set[ApexDeclaration]) = {
+    val results = mutable.Map[String, TestInfo]()
+    val touched = mutable.Set[ApexDeclaration]()
+    visitApexReferences(
+      Set(source),
+      (primary, path) => {
+        touched.add(path.head)
+        testClassVisit(results, primary, path)
+      }
+    )
+    (results.values.toSet, touched.toSet)
+  }
+
+  /** Reverse of [[testReferences]] from a single test class. The search moves from holders to the
+    * declarations they depend on, the dependencies function returning the declarations the passed
+    * declaration is a dependency holder of. Each declaration passed to consider has been examined,
+    * whether or not it was reached. The result maps each declaration reached to the next one on the
+    * path back to the test class, the test class maps to itself. A [[testReferences]] search from a
+    * reached declaration with the same primary flag finds the test class through that path.
+    */
+  def testDependencies(
+    testClass: ApexDeclaration,
+    primary: Boolean,
+    dependencies: ApexDeclaration => Set[ApexDeclaration],
+    consider: ApexDeclaration => Unit
+  ): Map[ApexDeclaration, ApexDeclaration] = {
+    val next        = mutable.Map[ApexDeclaration, ApexDeclaration](testClass -> testClass)
+    val searchQueue = mutable.Queue[ApexDeclaration](testClass)
+
+    while (searchQueue.nonEmpty) {
+      val holder = searchQueue.dequeue()
+      dependencies(holder).foreach(dependent => {
+        consider(dependent)
+        // Matches testClassVisit, holders between the source and test class must use the dependent
+        if (
+          !next.contains(dependent) &&
+          (primary || (holder eq testClass) || doesUse(holder, dependent))
+        ) {
+          next.put(dependent, holder)
+          searchQueue.enqueue(dependent)
+        }
+      })
+    }
+    next.toMap
+  }
+
   /** Visitor for locating @isTest classes */
   private def testClassVisit(
     accum: mutable.Map[String, TestInfo],
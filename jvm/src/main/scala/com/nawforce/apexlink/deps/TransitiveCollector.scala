@@ -15,49 +15,24 @@
 package com.nawforce.apexlink.deps
 
 import com.nawforce.apexlink.api.Org
-import com.nawforce.pkgforce.names.{Name, Names, TypeIdentifier}
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.pkgforce.names.TypeIdentifier
 
-import scala.collection.mutable
-
-/** Transitive dependency helper */
+/** Transitive dependency helper, queries are answered from the org's shared [[TransitiveGraph]] */
 class TransitiveCollector(org: Org, isSamePackage: Boolean, apexOnly: Boolean) {
-  private val packagesByNamespace =
-    org.getPackages().map(pkg => (Name(pkg.getNamespaces(!isSamePackage).head), pkg)).toMap
+  private val graph = org match {
+    case orgImpl: OPM.OrgImpl => orgImpl.transitiveGraphs(isSamePackage, apexOnly)
+    case _                    => new TransitiveGraph(org, isSamePackage, apexOnly)
+  }
 
   def count(id: TypeIdentifier, ignoring: Array[TypeIdentifier]): Int = {
-    transitives(id, ignoring).length
+    graph.count(id, ignoring)
   }
 
   def transitives(
     id: TypeIdentifier,
     ignoring: Array[TypeIdentifier] = Array()
   ): Array[TypeIdentifier] = {
-    val pkgNamespace = id.namespace.getOrElse(Names.Empty)
-    val pkgs =
-      if (isSamePackage) packagesByNamespace.get(pkgNamespace).toArray
-      else packagesByNamespace.values.toArray
-
-    val depsSeen = mutable.Set[TypeIdentifier]()
-    depsSeen.add(id)
-    ignoring.foreach(i => depsSeen.add(i))
-    val deps = mutable.ArrayBuffer[TypeIdentifier]()
-    deps.append(id)
-    var current = 0
-    while (current < deps.size) {
-      pkgs.foreach(pkg => {
-        Option(pkg.getDependencies(deps(current), outerInheritanceOnly = false, apexOnly))
-          .getOrElse(Array.empty[TypeIdentifier])
-          .filterNot(depsSeen.contains)
-          .foreach(t => {
-            if (!isSamePackage || t.namespace.getOrElse(Names.Empty) == pkgNamespace) {
-              deps.append(t)
-              depsSeen.add(t)
-            }
-          })
-      })
-      current += 1
-    }
-    deps.remove(0)
-    deps.toArray
+    graph.transitives(id, ignoring)
   }
 }
@@ -0,0 +1,334 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.deps
+
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.apexlink.types.core.DependentType
+import com.nawforce.pkgforce.names.{Name, Names, TypeIdentifier}
+import com.nawforce.runtime.platform.Parallel
+
+import java.util
+import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedQueue}
+import scala.collection.mutable
+import scala.collection.mutable.ArrayBuffer
+
+/** Type dependency graph of an org used to answer transitive dependency queries without walking
+  * the packages for each type queried.
+  *
+  * Types are numbered densely and their direct dependencies held as arrays of those numbers, these
+  * are read from the packages once and then only re-read for types that have been invalidated.
+  * Transitive counts are computed for every type together by collapsing strongly connected
+  * components and combining bitsets of reachable types over the resulting DAG, components of the
+  * same height do not depend on each other so are combined in parallel.
+  *
+  * The dependencies followed are those that `Package.getDependencies` reports, when isSamePackage
+  * is set only dependencies within the namespace of the dependent type are followed.
+  */
+final class TransitiveGraph(org: Org, isSamePackage: Boolean, apexOnly: Boolean) {
+  private val packagesByNamespace =
+    org.getPackages().map(pkg => (Name(pkg.getNamespaces(!isSamePackage).head), pkg)).toMap
+
+  private val ids         = mutable.HashMap[TypeIdentifier, Int]()
+  private val identifiers = ArrayBuffer[TypeIdentifier]()
+  private val edges       = ArrayBuffer[Array[Int]]()
+
+  // Types whose direct dependencies need re-reading, may be added to while holding a refresh
+  private val pending = new ConcurrentLinkedQueue[TypeIdentifier]()
+
+  // Condensation, counts are excluding the type itself, null when needing to be recomputed
+  private var counts: Array[Int] = _
+
+  /** Number of types reachable from id, not including id or passing through ignored types. */
+  def count(id: TypeIdentifier, ignoring: Array[TypeIdentifier] = Array()): Int = {
+    if (ignoring.nonEmpty)
+      transitives(id, ignoring).length
+    else
+      query {
+        val node = nodeOf(id)
+        if (counts == null) counts = condense()
+        counts(node)
+      }
+  }
+
+  /** Types reachable from id in breadth first order, not including id or passing through ignored
+    * types.
+    */
+  def transitives(
+    id: TypeIdentifier,
+    ignoring: Array[TypeIdentifier] = Array()
+  ): Array[TypeIdentifier] = {
+    query {
+      val root = nodeOf(id)
+      val seen = new util.BitSet(identifiers.length)
+      seen.set(root)
+      ignoring.foreach(ignored => ids.get(ignored).foreach(seen.set))
+
+      val found   = ArrayBuffer[Int](root)
+      var current = 0
+      while (current < found.length) {
+        edges(found(current)).foreach(dependency => {
+          if (!seen.get(dependency)) {
+            seen.set(dependency)
+            found.append(dependency)
+          }
+        })
+        current += 1
+      }
+      found.iterator.drop(1).map(identifiers).toArray
+    }
+  }
+
+  /** Mark types as needing their direct dependencies to be re-read before the next query. */
+  def invalidate(typeIds: Iterable[TypeIdentifier]): Unit = {
+    typeIds.foreach(pending.add)
+  }
+
+  /** Number of types held in the graph. */
+  def size: Int = synchronized { identifiers.length }
+
+  // Queries share the refresh lock so that dependencies are read from a consistent org, it is
+  // taken before the monitor as invalidation is made while refreshing.
+  private def query[T](op: => T): T = {
+    def locked: T = synchronized {
+      if (identifiers.isEmpty) load(initialTypes)
+      update()
+      op
+    }
+
+    org match {
+      case orgImpl: OPM.OrgImpl => orgImpl.refreshLock.read { locked }
+      case _                    => locked
+    }
+  }
+
+  private def initialTypes: Iterator[TypeIdentifier] = {
+    packagesByNamespace.values.iterator
+      .collect { case pkg: OPM.PackageImpl => pkg }
+      .flatMap(_.orderedModules.iterator.flatMap(_.types.values()))
+      .collect { case td: DependentType if td.outerTypeName.isEmpty => td.typeId.asTypeIdentifier }
+  }
+
+  private def update(): Unit = {
+    val invalidated = mutable.LinkedHashSet[TypeIdentifier]()
+    var next        = pending.poll()
+    while (next != null) {
+      invalidated.add(next)
+      next = pending.poll()
+    }
+    if (invalidated.nonEmpty) {
+      val start          = identifiers.length
+      val (known, added) = invalidated.partition(ids.contains)
+      known.foreach(id => edges(ids(id)) = dependenciesOf(id))
+      added.foreach(add)
+      loadFrom(start)
+      counts = null
+    }
+  }
+
+  private def nodeOf(id: TypeIdentifier): Int = {
+    ids.get(id) match {
+      case Some(node) => node
+      case None =>
+        load(Iterator(id))
+        counts = null
+        ids(id)
+    }
+  }
+
+  /** Add types and then any further types reachable from them. */
+  private def load(types: Iterator[TypeIdentifier]): Unit = {
+    val start = identifiers.length
+    types.foreach(add)
+    loadFrom(start)
+  }
+
+  /** Read the dependencies of types added from start, including those found while reading. */
+  private def loadFrom(start: Int): Unit = {
+    var current = start
+    while (current < identifiers.length) {
+      edges(current) = dependenciesOf(identifiers(current))
+      current += 1
+    }
+  }
+
+  private def add(id: TypeIdentifier): Int = {
+    ids.getOrElseUpdate(
+      id, {
+        identifiers.append(id)
+        edges.append(null)
+        identifiers.length - 1
+      }
+    )
+  }
+
+  private def dependenciesOf(id: TypeIdentifier): Array[Int] = {
+    val namespace = id.namespace.getOrElse(Names.Empty)
+    packagesByNamespace
+      .get(namespace)
+      .flatMap(pkg => Option(pkg.getDependencies(id, outerInheritanceOnly = false, apexOnly)))
+      .getOrElse(Array.empty[TypeIdentifier])
+      .filter(dependency =>
+        !isSamePackage || dependency.namespace.getOrElse(Names.Empty) == namespace
+      )
+      .map(add)
+      .distinct
+  }
+
+  /** Count the types reachable from each type, strongly connected components are found with an
+    * iterative form of Tarjan's algorithm. This numbers components so that any component a
+    * component depends on has a lower number, which gives the order for combining reachable sets.
+    */
+  private def condense(): Array[Int] = {
+    val size      = identifiers.length
+    val index     = Array.fill(size)(-1)
+    val low       = new Array[Int](size)
+    val onStack   = new Array[Boolean](size)
+    val stack     = new Array[Int](size)
+    val calls     = new Array[Int](size)
+    val edgeIndex = new Array[Int](size)
+    val component = new Array[Int](size)
+    var counter   = 0
+    var stackTop  = 0
+    var comps     = 0
+
+    def visit(node: Int): Unit = {
+      index(node) = counter
+      low(node) = counter
+      counter += 1
+      edgeIndex(node) = 0
+      stack(stackTop) = node
+      stackTop += 1
+      onStack(node) = true
+    }
+
+    (0 until size).foreach(root => {
+      if (index(root) < 0) {
+        visit(root)
+        calls(0) = root
+        var depth = 0
+        while (depth >= 0) {
+          val node = calls(depth)
+          val out  = edges(node)
+          if (edgeIndex(node) < out.length) {
+            val dependency = out(edgeIndex(node))
+            edgeIndex(node) += 1
+            if (index(dependency) < 0) {
+              visit(dependency)
+              depth += 1
+              calls(depth) = dependency
+            } else if (onStack(dependency)) {
+              low(node) = Math.min(low(node), index(dependency))
+            }
+          } else {
+            if (low(node) == index(node)) {
+              var member = -1
+              while (member != node) {
+                stackTop -= 1
+                member = stack(stackTop)
+                onStack(member) = false
+                component(member) = comps
+              }
+              comps += 1
+            }
+            depth -= 1
+            if (depth >= 0) {
+              val caller = calls(depth)
+              low(caller) = Math.min(low(caller), low(node))
+            }
+          }
+        }
+      }
+    })
+
+    // Members and distinct dependency components of each component
+    val members    = Array.fill(comps)(ArrayBuffer[Int]())
+    val dependsOn  = Array.fill(comps)(mutable.Set[Int]())
+    val cyclic     = new Array[Boolean](comps)
+    val dependents = new Array[Int](comps)
+    (0 until size).foreach(node => {
+      val comp = component(node)
+      members(comp).append(node)
+      edges(node).foreach(dependency => {
+        if (component(dependency) == comp) cyclic(comp) = true
+        else dependsOn(comp).add(component(dependency))
+      })
+    })
+    members.indices.foreach(comp => {
+      if (members(comp).length > 1) cyclic(comp) = true
+      dependsOn(comp).foreach(dependency => dependents(dependency) += 1)
+    })
+
+    // Group components by height, those at the same height are independent of each other
+    val height = new Array[Int](comps)
+    (0 until comps).foreach(comp =>
+      height(comp) = dependsOn(comp).foldLeft(0)((acc, dependency) =>
+        Math.max(acc, height(dependency) + 1)
+      )
+    )
+    val byHeight = (0 until comps).groupBy(height(_)).toSeq.sortBy(_._1).map(_._2)
+
+    // Reachable sets, including the component's own members when cyclic. A set is released once
+    // every component depending on it has been combined.
+    val reachable     = new Array[util.BitSet](comps)
+    val reachableSize = new Array[Int](comps)
+    byHeight.foreach(level => {
+      val sets = Parallel.map(level)(comp => {
+        val set = new util.BitSet(size)
+        dependsOn(comp).foreach(dependency => {
+          set.or(reachable(dependency))
+          members(dependency).foreach(set.set)
+        })
+        if (cyclic(comp)) members(comp).foreach(set.set)
+        set
+      })
+      level.zip(sets).foreach { case (comp, set) =>
+        reachable(comp) = set
+        reachableSize(comp) = set.cardinality()
+      }
+      level.foreach(comp => {
+        if (dependents(comp) == 0) reachable(comp) = null
+        dependsOn(comp).foreach(dependency => {
+          dependents(dependency) -= 1
+          if (dependents(dependency) == 0) reachable(dependency) = null
+        })
+      })
+    })
+
+    Array.tabulate(size)(node => {
+      val comp = component(node)
+      if (cyclic(comp)) reachableSize(comp) - 1 else reachableSize(comp)
+    })
+  }
+}
+
+/** Transitive graphs of an org, one for each combination of query options, kept up to date by
+  * invalidating the types changed or re-validated by a refresh.
+  */
+final class TransitiveGraphs(org: Org) {
+  private val graphs = new ConcurrentHashMap[(Boolean, Boolean), TransitiveGraph]()
+
+  def apply(isSamePackage: Boolean, apexOnly: Boolean): TransitiveGraph = {
+    graphs.computeIfAbsent(
+      (isSamePackage, apexOnly),
+      _ => new TransitiveGraph(org, isSamePackage, apexOnly)
+    )
+  }
+
+  def invalidate(typeIds: Iterable[TypeIdentifier]): Unit = {
+    if (typeIds.nonEmpty)
+      graphs.values().forEach(_.invalidate(typeIds))
+  }
+}
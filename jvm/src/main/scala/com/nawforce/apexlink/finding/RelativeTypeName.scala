@@ -28,8 +28,8 @@ import com.nawforce.pkgforce.names.{Name, TypeName}
 import com.nawforce.pkgforce.parsers.Nature
 import com.nawforce.pkgforce.path.PathLocation
 
+import scala.collection.concurrent.TrieMap
 import scala.collection.immutable.ArraySeq
-import scala.collection.mutable
 
 /** Context to aid RelativeTypeName resolve via the originating ApexDeclaration. This needs freezing
   * after RelativeTypeNames are constructed due to the FullDeclaration not being constructed until
@@ -37,7 +37,7 @@ import scala.collection.mutable
   */
 final class RelativeTypeContext {
   var contextTypeDeclaration: TypeDeclaration = _
-  private val typeCache                       = mutable.Map[TypeName, TypeResponse]()
+  private val typeCache                       = TrieMap[TypeName, TypeResponse]()
 
   /** Freeze the RelativeTypeContext by providing access to the enclosing Apex class. */
   def freeze(typeDeclaration: TypeDeclaration): Unit = {
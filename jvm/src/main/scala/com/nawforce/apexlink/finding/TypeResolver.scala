@@ -20,10 +20,11 @@ import com.nawforce.apexlink.types.core.TypeDeclaration
 import com.nawforce.apexlink.types.other.RecordSetDeclaration
 import com.nawforce.apexlink.types.platform.{PlatformTypeDeclaration, PlatformTypes}
 import com.nawforce.apexlink.types.schema.{PlatformObjectNature, SObjectDeclaration}
-import com.nawforce.pkgforce.names.TypeName
+import com.nawforce.pkgforce.names.{EncodedName, TypeName}
 
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
 import scala.collection.immutable.ArraySeq
-import scala.collection.mutable
 
 /** Various forms of TypeDeclaration searches. There are broadly three types of searches used, a
   * local typename can be resolved given a starting declaration to search from. Absolute type names
@@ -36,7 +37,95 @@ import scala.collection.mutable
   */
 object TypeResolver {
   type TypeResponse = Either[TypeError, TypeDeclaration]
-  type TypeCache    = mutable.HashMap[(TypeName, OPM.Module), TypeResponse]
+
+  /** Cache of absolute type name resolutions against a module, one is shared by all operations on
+    * an Org and is safe for concurrent use.
+    *
+    * Changes to types are recorded by name and applied on the next lookup, in a single pass over
+    * the entries however many changes there were. Only entries that could be affected are dropped,
+    * those where the name looked up or the name of the resolved declaration shares a name with a
+    * changed type. Names are compared without namespace or suffix, and over all outer and type
+    * argument names, so that aliased and nested resolutions are also dropped.
+    */
+  final class TypeCache {
+    private val changes           = new AtomicLong()
+    @volatile private var applied = 0L
+    private val changedNames      = ConcurrentHashMap.newKeySet[String]()
+    private val cache = new ConcurrentHashMap[(TypeName, OPM.Module), TypeCacheEntry]()
+
+    /** Count of type changes applied, changes only once the types being resolved may differ. */
+    def version: Long = {
+      applyChanges()
+      applied
+    }
+
+    /** Record a change to a type so resolutions that may depend on it are not reused. */
+    def advance(typeName: TypeName): Unit = {
+      // Name before count so a lookup that sees the count also sees the name
+      TypeCache.matchNames(typeName).foreach(changedNames.add)
+      changes.incrementAndGet()
+    }
+
+    def getOrElseUpdate(key: (TypeName, OPM.Module), op: => TypeResponse): TypeResponse = {
+      // Stamp before resolving so a result that races with a change is not stored
+      val current = version
+      val entry   = cache.get(key)
+      if (entry != null) {
+        entry.response
+      } else {
+        // Not computeIfAbsent, resolving may recurse into the cache
+        val response = op
+        if (changes.get() == current)
+          cache.put(key, new TypeCacheEntry(key._1, response))
+        response
+      }
+    }
+
+    def remove(key: (TypeName, OPM.Module)): Unit = cache.remove(key)
+
+    /** Drop entries made stale by changes so the declarations they hold may be released. */
+    def purge(): Unit = applyChanges()
+
+    def size: Int = cache.size()
+
+    private def applyChanges(): Unit = {
+      if (applied != changes.get()) {
+        synchronized {
+          val target = changes.get()
+          if (applied != target) {
+            val names = changedNames.toArray(new Array[String](0)).toSet
+            names.foreach(changedNames.remove)
+            cache.values().removeIf(_.names.exists(names.contains))
+            applied = target
+          }
+        }
+      }
+    }
+  }
+
+  private object TypeCache {
+
+    /** Names a type name is matched on, each outer & type argument name without namespace or
+      * suffix so an encoded name matches any form of it.
+      */
+    def matchNames(typeName: TypeName): Iterator[String] = {
+      Iterator
+        .iterate(Option(typeName))(_.flatMap(_.outer))
+        .takeWhile(_.nonEmpty)
+        .flatMap(tn =>
+          Iterator(EncodedName(tn.get.name).name.value.toLowerCase) ++
+            tn.get.params.iterator.flatMap(matchNames)
+        )
+    }
+  }
+
+  private final class TypeCacheEntry(typeName: TypeName, val response: TypeResponse) {
+    val names: Array[String] = {
+      val resolved = response.toOption.map(_.typeName).filterNot(_ == typeName)
+      (TypeCache.matchNames(typeName) ++ resolved.iterator.flatMap(TypeCache.matchNames)).toArray
+        .distinct
+    }
+  }
 
   /* Search for TypeDeclaration from a absolute typename from given modules perspective. */
   def apply(typeName: TypeName, module: OPM.Module): TypeResponse = {
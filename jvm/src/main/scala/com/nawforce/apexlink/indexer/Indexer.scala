@@ -70,6 +70,16 @@ abstract class Indexer(path: PathLike, launcher: Monitor) extends Callable[Unit]
     onFileChange(file)
   }
 
+  /* Perform a full scan now to report changes that may not have been reported yet, such as those
+   * awaiting the quiet period of a re-scan. Does nothing if the indexer is not enabled. */
+  def rescan(): Unit = {
+    callbackLock.synchronized {
+      rescanFuture.foreach(_.cancel(false))
+      rescanFuture = None
+      refresh()
+    }
+  }
+
   // Stop the indexer, mostly useful for testing, see also Monitor.stop()
   def stop(): Unit = {
     rescanFuture.foreach(f => f.cancel(false))
@@ -95,8 +105,10 @@ abstract class Indexer(path: PathLike, launcher: Monitor) extends Callable[Unit]
 
   // Timer callback for detect end of quiet period after mass change
   def call(): Unit = {
-    rescanFuture = None
-    refresh()
+    callbackLock.synchronized {
+      rescanFuture = None
+      refresh()
+    }
   }
 
   // Perform a full scan of the directory to capture all changes
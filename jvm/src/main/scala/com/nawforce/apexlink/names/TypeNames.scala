@@ -385,7 +385,7 @@ object TypeNames extends InternCache[TypeName] {
         TypeNames.System
       ) && typeName.params.size == 1
 
-    def asListOf: TypeName = new TypeName(Names.List$, Seq(typeName), Some(TypeNames.System))
+    def asListOf: TypeName = TypeName(Names.List$, Seq(typeName), Some(TypeNames.System))
 
     def isRecordSet: Boolean =
       typeName.name == Names.RecordSet$ && typeName.outer.contains(
@@ -34,6 +34,8 @@ import scala.util.matching.Regex
 trait CompletionProvider {
   this: OPM.PackageImpl =>
 
+  private val completionSessions = new CompletionSessions()
+
   def getCompletionItems(
     path: PathLike,
     line: Int,
@@ -44,18 +46,20 @@ trait CompletionProvider {
     // Get basic context of what we are looking at
     val module            = getPackageModule(path)
     val terminatedContent = injectStatementTerminator(line, offset, content)
-    val classDetails = MetadataDocument(path)
+    val parsed = MetadataDocument(path)
       .collect {
-        case _: ApexClassDocument   => loadClass(path, terminatedContent._1)
-        case _: ApexTriggerDocument => loadTrigger(path, terminatedContent._1)
+        case _: ApexClassDocument => parseClass(path, terminatedContent._1)
+        case _: ApexTriggerDocument =>
+          val (parserAndTU, td) = loadTrigger(path, terminatedContent._1)
+          parserAndTU.map(parserAndTU => CompletionParse(parserAndTU._1, parserAndTU._2, td))
       }
-      .getOrElse((None, None))
+      .flatten
 
-    if (classDetails._1.isEmpty)
+    if (parsed.isEmpty)
       /* Bail if we did not at least parse the content */
       return emptyCompletions
-    val parserAndCU     = classDetails._1.get
-    val fromDeclaration = classDetails._2
+    val parse           = parsed.get
+    val fromDeclaration = parse.declaration
     val adjustedOffset  = terminatedContent._2
 
     // Attempt to find a searchTerm for dealing with dot expressions
@@ -66,7 +70,7 @@ trait CompletionProvider {
     lazy val validationResult: Option[ValidationResult] = {
       if (fromDeclaration.nonEmpty && searchTerm.nonEmpty) {
         val searchEnd     = searchTerm.get.location.endPosition
-        val resultMap     = fromDeclaration.get.getValidationMap(line, searchEnd)
+        val resultMap     = parse.validationMap(line, searchEnd)
         val exprLocations = resultMap.keys.filter(_.contains(line, searchEnd))
         val targetExpression =
           exprLocations.find(exprLocation => exprLocations.forall(_.contains(exprLocation)))
@@ -81,14 +85,14 @@ trait CompletionProvider {
 
     // Run C3 to get our keywords & rule matches
     val tokenAndIndex =
-      findTokenAndIndex(parserAndCU._1, line, adjustedOffset, offset != adjustedOffset)
-    val core = new CodeCompletionCore(parserAndCU._1, preferredRules.asJava, ignoredTokens.asJava)
-    val candidates = core.collectCandidates(tokenAndIndex._2, parserAndCU._2, MAX_STATES)
+      findTokenAndIndex(parse.parser, line, adjustedOffset, offset != adjustedOffset)
+    val core = new CodeCompletionCore(parse.parser, preferredRules.asJava, ignoredTokens.asJava)
+    val candidates = core.collectCandidates(tokenAndIndex._2, parse.context, MAX_STATES)
 
     // Generate a list of possible keyword matches
     val keywords = candidates.tokens.asScala
       .filter(_._1 >= 1)
-      .map(kv => parserAndCU._1.getVocabulary.getDisplayName(kv._1))
+      .map(kv => parse.parser.getVocabulary.getDisplayName(kv._1))
       .map(keyword => stripQuotes(keyword))
       .map(keyword => CompletionItemLink(keyword, "Keyword"))
       .toArray
@@ -155,7 +159,7 @@ trait CompletionProvider {
                       )
                     )
                     .toArray ++
-                    classDetails._2
+                    fromDeclaration
                       .map(td => getAllCompletionItems(Some(td), td, None, searchTerm.residualExpr))
                       .getOrElse(Array()) ++
                     (if (haveTypes) Array[CompletionItemLink]()
@@ -173,7 +177,7 @@ trait CompletionProvider {
           case ApexParser.RULE_creator =>
             module
               .map(m => m.matchTdsForModule(terminatedContent._3, offset))
-              .map(_.flatMap(td => getAllCreatorCompletionItems(td, classDetails._2)))
+              .map(_.flatMap(td => getAllCreatorCompletionItems(td, fromDeclaration)))
               .getOrElse(emptyCompletions)
 
           case _ => emptyCompletions
@@ -187,6 +191,36 @@ trait CompletionProvider {
        keywords.filterNot(_.label == "?.")) ++ dotCompletions ++ rules
   }
 
+  /** Parse a class for completion. Where the content has only changed within a method or
+    * constructor body since the last full parse of the class only that member is re-parsed.
+    */
+  private def parseClass(path: PathLike, content: String): Option[CompletionParse] = {
+    completionSessions
+      .get(path)
+      .flatMap(session => org.issueManager.discarding(path) { session.reparse(path, content) })
+      .orElse {
+        val (parserAndCU, td) = loadClass(path, content)
+        parserAndCU.map(parserAndCU => {
+          val (parser, cu) = parserAndCU
+          val parse        = CompletionParse(parser, cu, td)
+          CompletionSession(content, parse, cu) match {
+            case Some(session) => completionSessions.put(path, session)
+            case None          => completionSessions.remove(path)
+          }
+          parse
+        })
+      }
+  }
+
+  // Test use only
+  private[org] def getCompletionSession(path: PathLike): Option[CompletionSession] =
+    completionSessions.get(path)
+
+  /** Drop retained completion parses, such as after types have been refreshed. */
+  def clearCompletionSessions(): Unit = {
+    completionSessions.clear()
+  }
+
   private def findTokenAndIndex(
     parser: ApexParser,
     line: Int,
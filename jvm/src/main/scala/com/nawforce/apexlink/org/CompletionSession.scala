@@ -0,0 +1,293 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.cst.{CST, ClassDeclaration, ValidationResult}
+import com.nawforce.apexlink.names.TypeNames
+import com.nawforce.apexlink.types.apex.{ApexFullDeclaration, FullDeclaration, ThisType}
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.pkgforce.modifiers.ClassOwnerInfo
+import com.nawforce.pkgforce.path.{Location, PathLike}
+import com.nawforce.runtime.parsers.{CodeParser, Source, SourceData}
+import io.github.apexdevtools.apexparser.{ApexLexer, ApexParser}
+import org.antlr.v4.runtime.{ParserRuleContext, Token}
+
+import java.nio.charset.StandardCharsets
+import java.util
+import scala.collection.concurrent.TrieMap
+import scala.collection.immutable.ArraySeq
+import scala.collection.mutable
+
+/** The result of parsing content for completion. The parser and context may cover the whole file
+  * or only the member being edited. Validation maps are computed on demand and retained.
+  */
+final class CompletionParse(
+  val parser: ApexParser,
+  val context: ParserRuleContext,
+  val declaration: Option[ApexFullDeclaration],
+  validator: (Int, Int) => Map[Location, ValidationResult]
+) {
+  private val validationMaps = TrieMap[(Int, Int), Map[Location, ValidationResult]]()
+
+  /** Obtain the validation results for the body declaration at a position. */
+  def validationMap(line: Int, offset: Int): Map[Location, ValidationResult] =
+    validationMaps.getOrElseUpdate((line, offset), validator(line, offset))
+}
+
+object CompletionParse {
+  def apply(
+    parser: ApexParser,
+    context: ParserRuleContext,
+    declaration: Option[ApexFullDeclaration]
+  ): CompletionParse = {
+    new CompletionParse(
+      parser,
+      context,
+      declaration,
+      (line, offset) => declaration.map(_.getValidationMap(line, offset)).getOrElse(Map.empty)
+    )
+  }
+}
+
+/** Parse state retained between completion requests on a class so that an edit made within a
+  * method or constructor body only needs that member re-parsing and re-validating. Edits are
+  * located by comparing with the content of the last full parse, an edit that is not contained
+  * within a single body requires a new full parse and session.
+  */
+final class CompletionSession private (
+  val content: String,
+  val full: CompletionParse,
+  members: ArraySeq[CompletionSession.Member]
+) {
+  import CompletionSession._
+
+  // Last member parse, reused while the content is unchanged
+  @volatile private var last: Option[(String, CompletionParse)] = None
+
+  /** Obtain a parse of new content, None if a full parse is required. */
+  def reparse(path: PathLike, newContent: String): Option[CompletionParse] = {
+    if (newContent == content)
+      return Some(full)
+
+    last.filter(_._1 == newContent).map(_._2).orElse {
+      val result = editedMember(newContent).flatMap(member =>
+        reparseMember(path, member, newContent.length - content.length, newContent)
+      )
+      result.foreach(parse => last = Some((newContent, parse)))
+      result
+    }
+  }
+
+  /** Find the member whose body contains all the differences between the contents. */
+  private def editedMember(newContent: String): Option[Member] = {
+    val limit  = Math.min(content.length, newContent.length)
+    var prefix = 0
+    while (prefix < limit && content.charAt(prefix) == newContent.charAt(prefix))
+      prefix += 1
+    var suffix = 0
+    while (
+      suffix < limit - prefix &&
+      content.charAt(content.length - 1 - suffix) == newContent.charAt(
+        newContent.length - 1 - suffix
+      )
+    ) suffix += 1
+
+    val editEnd = content.length - suffix
+    members.find(member => prefix > member.blockStart && editEnd <= member.blockStop)
+  }
+
+  private def reparseMember(
+    path: PathLike,
+    member: Member,
+    delta: Int,
+    newContent: String
+  ): Option[CompletionParse] = {
+    val text = newContent.substring(member.start, member.stop + 1 + delta)
+    val source = Source(
+      path,
+      SourceData(text.getBytes(StandardCharsets.UTF_8)),
+      0,
+      0,
+      None,
+      Some(member.line),
+      Some(member.column)
+    )
+    val parser = new CodeParser(source)
+    val (apexParser, context) = parser.parseReturningParser(_.classBodyDeclaration()).value
+    if (!isWholeMember(apexParser, context))
+      return None
+
+    val declaration = member.declaration
+    try {
+      val bodies = CST.sourceContext.withValue(Some(source)) {
+        ClassDeclaration.constructBodyDeclaration(
+          parser,
+          ThisType(declaration.module, declaration.typeName, declaration.inTest),
+          declaration.typeContext,
+          ClassOwnerInfo(
+            declaration.modifiers,
+            declaration.superClass.exists(_ != TypeNames.InternalObject)
+          ),
+          declaration.outerTypeName.isEmpty,
+          context
+        )
+      }
+      bodies match {
+        case Seq(body) =>
+          lazy val validationMap = declaration.getValidationMap(body)
+          Some(new CompletionParse(apexParser, context, full.declaration, (_, _) => validationMap))
+        case _ => None
+      }
+    } catch {
+      case ex: Throwable =>
+        LoggerOps.info(s"Member CST construction failed for $path", ex)
+        None
+    }
+  }
+}
+
+object CompletionSession {
+
+  /** A method or constructor with a body, by character index in the content. */
+  private final case class Member(
+    declaration: FullDeclaration,
+    start: Int,
+    stop: Int,
+    blockStart: Int,
+    blockStop: Int,
+    line: Int,
+    column: Int
+  )
+
+  /** Create a session from a full parse of a class, None if the content does not support
+    * re-parsing members. Character indexes are only used where they match the content, i.e.
+    * for ASCII only content.
+    */
+  def apply(
+    content: String,
+    full: CompletionParse,
+    compilationUnit: ApexParser.CompilationUnitContext
+  ): Option[CompletionSession] = {
+    full.declaration match {
+      case Some(declaration: FullDeclaration) if content.forall(_ < 128) =>
+        val members = mutable.ArrayBuffer[Member]()
+        Option(compilationUnit.typeDeclaration())
+          .flatMap(td => Option(td.classDeclaration()))
+          .flatMap(cd => Option(cd.classBody()))
+          .foreach(classBody => collectMembers(declaration, classBody, members))
+        Some(new CompletionSession(content, full, ArraySeq.from(members)))
+      case _ => None
+    }
+  }
+
+  private def collectMembers(
+    declaration: FullDeclaration,
+    classBody: ApexParser.ClassBodyContext,
+    members: mutable.ArrayBuffer[Member]
+  ): Unit = {
+    CodeParser
+      .toScala(classBody.classBodyDeclaration())
+      .foreach(cbd => {
+        Option(cbd.memberDeclaration()).foreach(md => {
+          Option(md.methodDeclaration())
+            .flatMap(method => Option(method.block()))
+            .orElse(Option(md.constructorDeclaration()).flatMap(ctor => Option(ctor.block())))
+            .filter(block => isClosed(cbd) && block.stop.getType == ApexLexer.RBRACE)
+            .foreach(block => {
+              declaration
+                .getBodyDeclarationFromLocation(
+                  block.start.getLine,
+                  block.start.getCharPositionInLine
+                )
+                .collect { case (td: ClassDeclaration, _) =>
+                  members.append(
+                    Member(
+                      td,
+                      cbd.start.getStartIndex,
+                      cbd.stop.getStopIndex,
+                      block.start.getStartIndex,
+                      block.stop.getStartIndex,
+                      cbd.start.getLine,
+                      cbd.start.getCharPositionInLine
+                    )
+                  )
+                }
+            })
+
+          Option(md.classDeclaration())
+            .flatMap(cd => Option(cd.classBody()))
+            .foreach(innerBody => collectMembers(declaration, innerBody, members))
+        })
+      })
+  }
+
+  private def isClosed(context: ParserRuleContext): Boolean =
+    context.start != null && context.stop != null && context.exception == null
+
+  /** Test if a member parse consumed all the tokens, with balanced braces, so that the edit has
+    * not changed where the member ends.
+    */
+  private def isWholeMember(parser: ApexParser, context: ParserRuleContext): Boolean = {
+    if (!isClosed(context))
+      return false
+
+    val tokens = parser.getInputStream
+    var depth  = 0
+    var last   = -1
+    var i      = 0
+    while (i < tokens.size()) {
+      val token = tokens.get(i)
+      if (token.getChannel == Token.DEFAULT_CHANNEL && token.getType != Token.EOF) {
+        if (token.getType == ApexLexer.LBRACE) depth += 1
+        else if (token.getType == ApexLexer.RBRACE) depth -= 1
+        last = i
+      }
+      i += 1
+    }
+    depth == 0 && context.stop.getTokenIndex == last
+  }
+}
+
+/** Completion sessions of a package by path, the least recently used are dropped beyond a limit.
+  */
+final class CompletionSessions {
+  private val sessions =
+    new util.LinkedHashMap[PathLike, CompletionSession](16, 0.75f, true) {
+      override def removeEldestEntry(
+        eldest: util.Map.Entry[PathLike, CompletionSession]
+      ): Boolean = size() > CompletionSessions.MAX_SESSIONS
+    }
+
+  def get(path: PathLike): Option[CompletionSession] = synchronized {
+    Option(sessions.get(path))
+  }
+
+  def put(path: PathLike, session: CompletionSession): Unit = synchronized {
+    sessions.put(path, session)
+  }
+
+  def remove(path: PathLike): Unit = synchronized {
+    sessions.remove(path)
+  }
+
+  def clear(): Unit = synchronized {
+    sessions.clear()
+  }
+}
+
+object CompletionSessions {
+
+  /** Maximum number of files with retained sessions. */
+  final val MAX_SESSIONS = 8
+}
@@ -0,0 +1,122 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.types.apex.FullDeclaration
+import com.nawforce.apexlink.types.core.TypeId
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+
+import scala.collection.mutable
+
+/** Least recently used tracking of the full declarations held by an org so that, when their
+  * approximate size exceeds a budget, the least recently used can be demoted back to the summary
+  * declarations that would be loaded from the cache. Declarations are used when validated and when
+  * loaded for API queries such as finding definitions. Demoted types are replaced by full types
+  * again by refresh when they are re-validated, see PackageAPI.reValidate.
+  *
+  * Sizes are estimated from the source length of each declaration, the estimate will not match the
+  * heap used exactly but is stable so demotion is predictable.
+  */
+final class DeclarationBudget(org: OPM.OrgImpl, budget: Long) {
+  import DeclarationBudget._
+
+  // Approximate bytes of full declarations by TypeId, iteration order is least recently used first
+  private val held = mutable.LinkedHashMap[TypeId, Long]()
+
+  // Approximate bytes of all held declarations
+  private var used = 0L
+
+  /** Record use of a full declaration, nested & declarations not added to a module are ignored. */
+  def touch(td: FullDeclaration): Unit = {
+    if (td.outerTypeName.isEmpty && td.module.types.get(td.typeName).exists(_ eq td)) {
+      val size = ESTIMATE_OVERHEAD + td.source.code.length * ESTIMATE_SOURCE_FACTOR
+      synchronized {
+        held.remove(td.typeId).foreach(used -= _)
+        held.put(td.typeId, size)
+        used += size
+      }
+    }
+  }
+
+  /** Approximate bytes of the full declarations held. */
+  def usedBytes: Long = synchronized { used }
+
+  /** Number of full declarations held. */
+  def size: Int = synchronized { held.size }
+
+  /** Demote least recently used declarations until those held are within budget. Types that can
+    * not currently be demoted are treated as recently used so they are retried later, such as those
+    * with full holders which may become demotable once their holders are demoted. Must be called
+    * holding the org refresh write lock, returns the number of types demoted.
+    */
+  def demote(): Int = {
+    var demoted = 0
+    var before  = -1
+    while (demoted > before) {
+      before = demoted
+      overBudget().foreach(typeId => {
+        typeId.module.types.get(typeId.typeName) match {
+          case Some(td: FullDeclaration) if td.module eq typeId.module =>
+            if (td.module.pkg.demote(td)) {
+              remove(typeId)
+              demoted += 1
+            } else {
+              touch(td)
+            }
+          case _ => remove(typeId)
+        }
+      })
+    }
+
+    if (demoted > 0) {
+      // Drop cached resolutions that may still reference the demoted declarations
+      org.typeCache.purge()
+      org.packages.foreach(pkg => {
+        pkg.modules.foreach(_.methodCalls.clear())
+        pkg.clearCompletionSessions()
+      })
+      LoggerOps.debug(
+        s"Demoted $demoted full declarations, approximately $usedBytes bytes held by $size"
+      )
+    }
+    demoted
+  }
+
+  /** Least recently used TypeIds that would need removing for those held to be within budget. */
+  private def overBudget(): Seq[TypeId] = synchronized {
+    var excess   = used - budget
+    val selected = mutable.ArrayBuffer[TypeId]()
+    val iterator = held.iterator
+    while (excess > 0 && iterator.hasNext) {
+      val (typeId, size) = iterator.next()
+      selected.append(typeId)
+      excess -= size
+    }
+    selected.toSeq
+  }
+
+  private def remove(typeId: TypeId): Unit = synchronized {
+    held.remove(typeId).foreach(used -= _)
+  }
+}
+
+object DeclarationBudget {
+
+  /** Approximate heap bytes per source byte of a full declaration, including its CST. */
+  private final val ESTIMATE_SOURCE_FACTOR = 24L
+
+  /** Approximate fixed heap bytes of a full declaration. */
+  private final val ESTIMATE_OVERHEAD = 2048L
+}
@@ -28,128 +28,206 @@ trait RefreshListener {
 
 case class RefreshRequest(pkg: OPM.PackageImpl, path: PathLike, highPriority: Boolean)
 
+/** Queue of refresh requests and the processing of them. The queue is guarded by its own monitor
+  * so that requests may be queued while a refresh is in progress, processing holds the org
+  * refresh lock exclusively. Flushing serialises dirty types under the refresh lock but writes
+  * them to the cache after it has been released so API calls are not blocked on file IO.
+  */
 class Flusher(org: OPM.OrgImpl, parsedCache: Option[ParsedCache]) {
   protected val refreshQueue                    = new mutable.Queue[RefreshRequest]()
   protected var skippedQueue                    = false
+  private var refreshing                        = false
   private var expired                           = false
   private var listener: Option[RefreshListener] = None
 
+  // Serialises flushes so cache writes are made in the order the types were serialised
+  private val writer = new Object()
+
   def setListener(rl: Option[RefreshListener]): Unit = listener = rl
 
   def isDirty: Boolean = {
-    org.refreshLock.synchronized { refreshQueue.nonEmpty }
+    refreshQueue.synchronized { refreshQueue.nonEmpty }
+  }
+
+  /** Wait until queued refresh requests, including any being processed, have been completed. */
+  def awaitRefreshed(): Unit = {
+    refreshQueue.synchronized {
+      while (refreshQueue.nonEmpty || refreshing) refreshQueue.wait()
+    }
   }
 
   def queue(request: RefreshRequest): Unit = {
-    if (!request.highPriority || refreshQueue.nonEmpty) {
-      refreshQueue.enqueue(request)
-    } else {
-      org.refreshLock.synchronized {
+    val enqueued = refreshQueue.synchronized {
+      if (!request.highPriority || refreshQueue.nonEmpty) {
+        refreshQueue.enqueue(request)
+        queued()
+        true
+      } else {
+        false
+      }
+    }
+
+    if (!enqueued) {
+      org.refreshLock.write {
         val updated = request.pkg.refreshBatched(Seq(request))
         // Notify of updated path
         if (updated) listener.foreach(_.onRefreshOne(org.path, request.path))
 
         // Tell auto flush we skipped the queue
-        skippedQueue |= updated
+        if (updated) {
+          refreshQueue.synchronized {
+            skippedQueue = true
+            queued()
+          }
+        }
       }
     }
   }
 
   def queueAll(request: Iterable[RefreshRequest]): Unit = {
-    refreshQueue.enqueueAll(request)
+    refreshQueue.synchronized {
+      refreshQueue.enqueueAll(request)
+      queued()
+    }
   }
 
+  /** Called holding the queue monitor after a request is queued or has skipped the queue. */
+  protected def queued(): Unit = {}
+
   def refreshAndFlush(): Boolean = {
     OrgInfo.current.withValue(org) {
-      org.refreshLock.synchronized {
-        var updated      = false
-        val updatedPaths = mutable.Set[PathLike]()
-        val packages     = org.packages
-
-        // Process in chunks, new requests may be queued during processing
-        while (refreshQueue.nonEmpty) {
-          val toProcess = refreshQueue.dequeueAll(_ => true)
-          LoggerOps.debug(s"Batched refresh starting for ${toProcess.length} items")
-          packages
-            .foreach(pkg => {
-              val reqs = toProcess.filter(_.pkg == pkg)
-              updated |= pkg.refreshBatched(reqs)
-
-              if (updated) updatedPaths.addAll(reqs.map(_.path))
-            })
-          LoggerOps.debug(s"Batched refresh completed")
+      val updated =
+        try {
+          org.refreshLock.write {
+            var updated      = false
+            val updatedPaths = mutable.Set[PathLike]()
+            val packages     = org.packages
+
+            // Process in chunks, new requests may be queued during processing
+            var toProcess = dequeueAll()
+            while (toProcess.nonEmpty) {
+              LoggerOps.debug(s"Batched refresh starting for ${toProcess.length} items")
+              packages
+                .foreach(pkg => {
+                  val reqs = toProcess.filter(_.pkg == pkg)
+                  updated |= pkg.refreshBatched(reqs)
+
+                  if (updated) updatedPaths.addAll(reqs.map(_.path))
+                })
+              LoggerOps.debug(s"Batched refresh completed")
+              toProcess = dequeueAll()
+            }
+
+            // Notify of updated paths
+            if (updated) listener.foreach(_.onRefreshMany(org.path, updatedPaths.toSeq))
+
+            updated
+          }
+        } finally {
+          // Wake anything waiting for the refresh to complete
+          refreshQueue.synchronized {
+            refreshing = false
+            refreshQueue.notifyAll()
+          }
         }
 
-        // Flush to cache
-        flush()
+      // Flush to cache
+      flush()
 
-        // Notify of updated paths
-        if (updated) listener.foreach(_.onRefreshMany(org.path, updatedPaths.toSeq))
+      updated
+    }
+  }
 
-        updated
-      }
+  private def dequeueAll(): Seq[RefreshRequest] = {
+    refreshQueue.synchronized {
+      refreshing = true
+      refreshQueue.dequeueAll(_ => true)
     }
   }
 
   protected def flush(): Unit = {
-    OrgInfo.current.withValue(org) {
-      org.refreshLock.synchronized {
-        val packages = org.packages
+    writer.synchronized {
+      val upserts = OrgInfo.current.withValue(org) {
+        org.refreshLock.write {
+          // Reset skip status to prevent more flushes
+          refreshQueue.synchronized { skippedQueue = false }
+
+          val upserts = parsedCache.map(_ => org.packages.flatMap(_.flush())).getOrElse(Seq.empty)
+
+          // Once flushed, full declarations over budget can be demoted to summaries
+          org.fullDeclarations.foreach(_.demote())
 
-        // Reset skip status to prevent more flushes
-        skippedQueue = false
+          // Clean registered caches to reduce memory
+          Cleanable.clean()
 
-        parsedCache.foreach(pc => {
-          packages.foreach(pkg => {
-            pkg.flush(pc)
-          })
+          upserts
+        }
+      }
+
+      parsedCache.foreach(pc => {
+        LoggerOps.debugTime(s"Flushed ${upserts.length} types to cache") {
+          upserts.foreach(_(pc))
+          org.sourceManifest.foreach(_.save())
+          org.testImpactIndex.save()
           if (!expired) {
             pc.expire()
             expired = true
           }
-        })
-
-        // Clean registered caches to reduce memory
-        Cleanable.clean()
-      }
+        }
+      })
     }
   }
 
 }
 
+/** Flusher that refreshes & flushes on a background thread once the queue has been quiet for a
+  * short period, writes to the cache are also made on this thread.
+  */
 class CacheFlusher(org: OPM.OrgImpl, parsedCache: Option[ParsedCache])
     extends Flusher(org, parsedCache)
     with Runnable {
 
+  // Time of the last request being queued, guarded by the queue monitor
+  private var lastQueued = 0L
+
   private val t = new Thread(this)
   t.setDaemon(true)
   t.setName("apex-link cache flusher")
   t.start()
 
-  override def run(): Unit = {
-    def queueSize: Int   = org.refreshLock.synchronized { refreshQueue.size }
-    def skipped: Boolean = org.refreshLock.synchronized { skippedQueue }
+  override protected def queued(): Unit = {
+    lastQueued = System.currentTimeMillis()
+    refreshQueue.notifyAll()
+  }
 
+  override def run(): Unit = {
     while (true) {
-      // Wait for non-zero queue to be stable
-      // Or with an empty queue and a priority/single update
-      var stable = false
-      var skip   = false
-      while (!stable && !skip) {
-        val start = queueSize
-        Thread.sleep(1000)
-        val end = queueSize
-        stable = start > 0 && start == end
-        skip = skipped
+      val refresh = refreshQueue.synchronized {
+        // Wait for a queued request or a priority/single update
+        while (refreshQueue.isEmpty && !skippedQueue) refreshQueue.wait()
+
+        // Debounce until no requests have been queued for the quiet period
+        var remaining = lastQueued + CacheFlusher.QUIET_PERIOD - System.currentTimeMillis()
+        while (remaining > 0) {
+          refreshQueue.wait(remaining)
+          remaining = lastQueued + CacheFlusher.QUIET_PERIOD - System.currentTimeMillis()
+        }
+        refreshQueue.nonEmpty
       }
 
-      if (stable) {
+      if (refresh) {
         // Process refresh requests & flush
         refreshAndFlush()
-      } else if (skip) {
+      } else {
         // Already refreshed, just flush
         flush()
       }
     }
   }
 }
+
+object CacheFlusher {
+
+  /** Milliseconds without new requests before refreshing. */
+  final val QUIET_PERIOD = 250L
+}
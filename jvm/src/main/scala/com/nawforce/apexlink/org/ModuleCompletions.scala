@@ -32,7 +32,7 @@ trait ModuleCompletions {
     val accum = ArrayBuffer[CompletionItemLink]()
     accum.addAll(matchTypeNameForModule(this, searchTerm))
     baseModules.foreach(module => accum.addAll(matchTypeNameForModule(module, searchTerm)))
-    accum.toArray
+    accum.take(ModuleCompletions.MAX_TYPE_COMPLETIONS).toArray
   }
 
   def matchTypeNameForModule(
@@ -68,30 +68,24 @@ trait ModuleCompletions {
     module: OPM.Module,
     searchTerm: Option[String]
   ): Array[ApexClassDeclaration] = {
+    val limit = ModuleCompletions.MAX_TYPE_COMPLETIONS
     searchTerm
       .map(searchTerm => {
         val parts = searchTerm.split('.')
         val partCount =
           parts.length + (if (searchTerm.length > 1 && searchTerm.endsWith(".")) 1 else 0)
         if (partCount == 1) {
-          // Match on first character of only part against any class name
-          module.types
-            .filter(kv =>
-              parts.head.isEmpty || kv._1.name.value.take(1).equalsIgnoreCase(parts.head.take(1))
-            )
-            .collect { case (_, td: ApexClassDeclaration) => td }
-            .toArray
+          // Match by prefix or camel humps of only part against any class name
+          module.types.findApexClasses(parts.headOption.getOrElse(""), limit)
         } else if (partCount == 2) {
-          // Match on first character of inner type, if we can find the outer
+          // Match by prefix or camel humps of inner type, if we can find the outer
           val typeName = TypeName(Name(parts.head), Seq(), namespace.map(ns => TypeName(ns)))
           module.types
             .get(typeName)
             .collect { case td: ApexClassDeclaration => td }
             .map(td => {
               val innerName = if (parts.length == 2) parts(1) else ""
-              td.nestedTypes.filter(itd =>
-                innerName.isEmpty || itd.name.value.take(1).equalsIgnoreCase(innerName.take(1))
-              )
+              TypeNameIndex.rank(innerName, td.nestedTypes)(_.name.value).take(limit)
             })
             .getOrElse(ArraySeq.empty)
             .toArray
@@ -100,7 +94,13 @@ trait ModuleCompletions {
         }
       })
       .getOrElse {
-        module.types.collect { case (_, td: ApexClassDeclaration) => td }.toArray
+        module.types.findApexClasses("", limit)
       }
   }
 }
+
+object ModuleCompletions {
+
+  /** Maximum number of type names offered for completion. */
+  final val MAX_TYPE_COMPLETIONS = 100
+}
@@ -22,8 +22,13 @@ import com.nawforce.apexlink.api.{
   ServerOps,
   TypeSummary
 }
-import com.nawforce.apexlink.cst.CompilationUnit
-import com.nawforce.apexlink.deps.{DownWalker, MaxDependencyCountParser, TransitiveCollector}
+import com.nawforce.apexlink.cst.{CompilationUnit, MethodCallCache}
+import com.nawforce.apexlink.deps.{
+  DownWalker,
+  MaxDependencyCountParser,
+  TransitiveCollector,
+  TransitiveGraphs
+}
 import com.nawforce.apexlink.finding.TypeFinder
 import com.nawforce.apexlink.finding.TypeResolver.TypeCache
 import com.nawforce.apexlink.indexer.{Indexer, Monitor}
@@ -56,8 +61,6 @@ import io.github.apexdevtools.apexparser.ApexParser
 import java.io.{PrintWriter, StringWriter}
 import java.nio.charset.StandardCharsets
 import java.util
-import java.util.concurrent.locks.ReentrantLock
-import scala.annotation.unused
 import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
 import scala.collection.mutable.ArrayBuffer
@@ -72,11 +75,29 @@ object OPM {
     val issueManager: IssueLogger,
     initWorkspace: Option[Workspace],
     private[nawforce] val unusedEnabled: Boolean = true,
-    private[nawforce] val unusedOnError: Boolean = false
+    private[nawforce] val unusedOnError: Boolean = false,
+    private[nawforce] val parallelValidation: Boolean = false,
+    private[nawforce] val segmentCache: Boolean = false,
+    referenceIndexBudget: Long = 0,
+    declarationBudget: Long = 0
   ) extends Org
       with OrgTestClasses {
     // Acquire lock for all operations that may be impacted by refresh
-    val refreshLock = new ReentrantLock(true)
+    val refreshLock = new RefreshLock()
+
+    /** Type resolutions shared across operations, made stale as types change. */
+    private[nawforce] val typeCache = new TypeCache()
+
+    /** Index of references made by validated classes, only available when given a budget. */
+    private[nawforce] val referenceIndex: Option[ReferenceIndex] =
+      if (referenceIndexBudget > 0) Some(new ReferenceIndex(referenceIndexBudget)) else None
+
+    /** Use of full declarations for demotion to summaries, only available when given a budget. */
+    private[nawforce] val fullDeclarations: Option[DeclarationBudget] =
+      if (declarationBudget > 0) Some(new DeclarationBudget(this, declarationBudget)) else None
+
+    /** Type dependency graphs for transitive queries, invalidated for types changed by refresh. */
+    private[nawforce] val transitiveGraphs = new TransitiveGraphs(this)
 
     // The workspace loaded into this Org
     val workspace: Workspace =
@@ -92,11 +113,24 @@ object OPM {
     /** Parsed Apex data cache, the cache holds summary information about Apex types to speed
       * startup
       */
-    private[nawforce] val parsedCache =
-      ParsedCache.create(MurmurHash3.stringHash(BuildInfo.implementationBuild)) match {
+    private[nawforce] val parsedCache: Option[ParsedCache] = {
+      val version = MurmurHash3.stringHash(BuildInfo.implementationBuild)
+      val created =
+        if (segmentCache) SegmentParsedCache.create(version) else ParsedCache.create(version)
+      created match {
         case Right(pc) => Some(pc)
         case Left(err) => LoggerOps.info(err); None
       }
+    }
+
+    /** Manifest of class content hashes used to avoid reading unchanged classes during cache
+      * lookups, only available when there is a parsedCache.
+      */
+    private[nawforce] val sourceManifest: Option[SourceManifest] =
+      parsedCache.map(pc => SourceManifest.open(pc.path, path))
+
+    /** Test classes found to reference types, saved with the parsedCache when available. */
+    private[nawforce] val testImpactIndex: TestImpactIndex = TestImpactIndex(this)
 
     /** Is this Org using auto-flushing of the parsedCache. */
     private val autoFlush = ServerOps.isAutoFlushEnabled
@@ -188,6 +222,14 @@ object OPM {
     /** Check to see if cache has been flushed */
     override def isDirty(): Boolean = flusher.isDirty
 
+    /** Queue refreshes for workspace changes not yet reported by the file watcher */
+    override def rescan(): Unit = {
+      packages.foreach(_.modules.foreach(_.rescan()))
+    }
+
+    /** Wait for queued metadata refreshes to complete, see [[Flusher.awaitRefreshed]] */
+    private[nawforce] def awaitRefreshed(): Unit = flusher.awaitRefreshed()
+
     /** Write dirty metadata to the cache, only works for manual flush orgs */
     def flush(): Boolean = {
       if (!autoFlush)
@@ -210,14 +252,14 @@ object OPM {
     }
 
     def getPackageForPath(path: String): Package = {
-      refreshLock.synchronized {
+      refreshLock.read {
         packages.find(_.isPackagePath(path)).orNull
       }
     }
 
     /** Get a array of type identifiers available across all packages. */
     def getTypeIdentifiers(apexOnly: Boolean): Array[TypeIdentifier] = {
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           packages.foldLeft(Array[TypeIdentifier]())((acc, pkg) =>
             acc ++ pkg.getTypeIdentifiers(apexOnly)
@@ -228,7 +270,7 @@ object OPM {
 
     /** Extract all dependencies */
     override def getDependencies: java.util.Map[String, Array[String]] = {
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           val dependencies = new util.HashMap[String, Array[String]]()
           packages
@@ -241,7 +283,7 @@ object OPM {
 
     /** Find a location for an identifier */
     override def getIdentifierLocation(identifier: TypeIdentifier): PathLocation = {
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           (findTypeIdentifier(identifier) match {
             case Some(ad: ApexDeclaration) => Some(PathLocation(ad.location.path, ad.idLocation))
@@ -266,7 +308,7 @@ object OPM {
       apexOnly: Boolean,
       ignoring: Array[TypeIdentifier]
     ): DependencyGraph = {
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           val depWalker = new DownWalker(this, apexOnly)
           val nodeData = depWalker
@@ -324,7 +366,7 @@ object OPM {
       if (path == null)
         return Array.empty
 
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           packages
             .find(_.isPackagePath(path))
@@ -340,7 +382,7 @@ object OPM {
       offset: Int,
       content: String
     ): Array[LocationLink] = {
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           packages
             .find(_.isPackagePath(path))
@@ -351,7 +393,7 @@ object OPM {
     }
 
     override def getHover(path: String, line: Int, offset: Int, content: String): HoverItem = {
-      refreshLock.synchronized {
+      refreshLock.read {
         OrgInfo.current.withValue(this) {
           packages
             .find(_.isPackagePath(path))
@@ -367,7 +409,7 @@ object OPM {
       offset: Int,
       content: String
     ): Array[Rename] = {
-      refreshLock.synchronized {
+      refreshLock.write {
         OrgInfo.current.withValue(this) {
           packages
             .find(_.isPackagePath(path))
@@ -381,14 +423,24 @@ object OPM {
       if (path == null)
         return Array.empty
 
-      refreshLock.synchronized {
+      // Indexed references can be looked up while sharing the lock with other queries, otherwise
+      // the holders are re-validated which excludes them until complete
+      val indexed = refreshLock.read {
+        OrgInfo.current.withValue(this) {
+          packages
+            .find(_.isPackagePath(path))
+            .flatMap(_.getIndexedReferences(Path(path), line, offset))
+        }
+      }
+
+      indexed.getOrElse(refreshLock.write {
         OrgInfo.current.withValue(this) {
           packages
             .find(_.isPackagePath(path))
             .map(_.getReferences(Path(path), line, offset))
             .getOrElse(Array.empty)
         }
-      }
+      })
     }
 
     override def getCompletionItems(
@@ -397,7 +449,7 @@ object OPM {
       offset: Int,
       content: String
     ): Array[CompletionItemLink] = {
-      refreshLock.synchronized {
+      refreshLock.read {
         getCompletionItemsInternal(Path(path), line, offset, content)
       }
     }
@@ -420,7 +472,7 @@ object OPM {
     }
 
     def getDependencyBombs(count: Int): Array[BombScore] = {
-      refreshLock.synchronized {
+      refreshLock.read {
         val maxBombs   = Math.max(0, count)
         val allClasses = packages.flatMap(_.orderedModules.flatMap(_.nonTestClasses.toSeq))
         val bombs      = mutable.PriorityQueue[BombScore]()(Ordering.by(1000 - _.score))
@@ -504,13 +556,6 @@ object OPM {
           )
           .headOption
 
-      def countTransitiveDependencies(
-        typeId: TypeIdentifier,
-        transitiveDependencies: Array[TypeIdentifier]
-      ): Int = {
-        transitiveDependencies.count(t => t != typeId)
-      }
-
       def getTypeIdOfPath(path: PathLike): Option[TypeId] =
         packages.view
           .flatMap(pkg => pkg.getTypeOfPathInternal(path))
@@ -518,6 +563,7 @@ object OPM {
 
       val collector =
         new TransitiveCollector(this, isSamePackage = !packages.exists(_.isGulped), true)
+      val maxDependencyCountParser = new MaxDependencyCountParser(this)
 
       paths
         .flatMap { path =>
@@ -527,14 +573,11 @@ object OPM {
               !excludeTestClasses || !ApexModifiers.hasTestClassModifier(summary.modifiers)
             }
             .map { case (typeId, _) =>
-              (typeId, collector.transitives(typeId))
-            }
-            .map { case (typeId, transitiveDependencies) =>
               DependencyCount(
                 path.toString,
-                countTransitiveDependencies(typeId, transitiveDependencies),
+                collector.count(typeId, Array()),
                 getTypeIdOfPath(path)
-                  .map(id => new MaxDependencyCountParser(this).count(id))
+                  .map(id => maxDependencyCountParser.count(id))
                   .getOrElse(Left(Some(s"Could not find type for path $path")))
               )
             }
@@ -642,22 +685,22 @@ object OPM {
         case Some(doc: ApexClassDocument) =>
           getPackageModule(path)
             .map(module => {
-              val existingIssues = org.issueManager.pop(path)
-              val parser = CodeParser(doc.path, SourceData(source.getBytes(StandardCharsets.UTF_8)))
-              val result = parser.parseClassReturningParser()
-              try {
-                (
-                  Some(result.value),
-                  CompilationUnit
-                    .construct(parser, module, doc.name, result.value._2)
-                    .map(_.typeDeclaration)
-                )
-              } catch {
-                case ex: Throwable =>
-                  LoggerOps.info(s"CST construction failed for ${doc.path}", ex)
-                  (None, None)
-              } finally {
-                org.issueManager.push(path, existingIssues)
+              org.issueManager.discarding(path) {
+                val parser =
+                  CodeParser(doc.path, SourceData(source.getBytes(StandardCharsets.UTF_8)))
+                val result = parser.parseClassReturningParser()
+                try {
+                  (
+                    Some(result.value),
+                    CompilationUnit
+                      .construct(parser, module, doc.name, result.value._2)
+                      .map(_.typeDeclaration)
+                  )
+                } catch {
+                  case ex: Throwable =>
+                    LoggerOps.info(s"CST construction failed for ${doc.path}", ex)
+                    (None, None)
+                }
               }
             })
             .getOrElse((None, None))
@@ -673,17 +716,20 @@ object OPM {
         case Some(doc: ApexTriggerDocument) =>
           getPackageModule(path)
             .map(module => {
-              val existingIssues = org.issueManager.pop(path)
-              val parser = CodeParser(doc.path, SourceData(source.getBytes(StandardCharsets.UTF_8)))
-              val result = parser.parseTriggerReturningParser()
-              try {
-                (Some(result.value), TriggerDeclaration.construct(parser, module, result.value._2))
-              } catch {
-                case ex: Throwable =>
-                  LoggerOps.info(s"CST construction failed for ${doc.path}", ex)
-                  (None, None)
-              } finally {
-                org.issueManager.push(path, existingIssues)
+              org.issueManager.discarding(path) {
+                val parser =
+                  CodeParser(doc.path, SourceData(source.getBytes(StandardCharsets.UTF_8)))
+                val result = parser.parseTriggerReturningParser()
+                try {
+                  (
+                    Some(result.value),
+                    TriggerDeclaration.construct(parser, module, result.value._2)
+                  )
+                } catch {
+                  case ex: Throwable =>
+                    LoggerOps.info(s"CST construction failed for ${doc.path}", ex)
+                    (None, None)
+                }
               }
             })
             .getOrElse((None, None))
@@ -715,10 +761,12 @@ object OPM {
 
     val isGulped: Boolean = pkg.isGulped
 
-    private[nawforce] val types = new TypeDeclarationCache()
+    private[nawforce] val types = new TypeDeclarationCache(pkg.org.typeCache)
     private val schemaManager   = SchemaSObjectType(this)
 
-    @unused
+    /** Method call resolutions made from this module, cleared when types are refreshed */
+    private[nawforce] val methodCalls = new MethodCallCache()
+
     private val indexer = new Indexer(index.path, pkg.org.monitorLauncher) {
       override def onFilesChanged(paths: Array[String], rescan: Boolean): Unit = {
         val docPaths = paths.flatMap(path => MetadataDocument(Path(path)).map(_.path))
@@ -729,6 +777,9 @@ object OPM {
       }
     }
 
+    /** Queue refreshes for changes to the module files not yet reported by the file watcher. */
+    def rescan(): Unit = indexer.rescan()
+
     def freeze(): Unit = {
       // FUTURE: Have return types, currently can't be done because class loading code needs access to in-flight types
       upsertMetadata(AnyDeclaration(this))
@@ -831,7 +882,7 @@ object OPM {
 
     // Add dependencies for Apex types to a map
     def populateDependencies(dependencies: java.util.Map[String, Array[String]]): Unit = {
-      val typeCache = new TypeCache()
+      val typeCache = pkg.org.typeCache
       types.values().foreach {
         case td: ApexClassDeclaration =>
           val depends = mutable.Set[TypeId]()
@@ -155,10 +155,12 @@ trait OrgTestClasses {
         )
     })
 
-    // Locate tests for the sourceIds
-    val refs = ReferencingCollector
-      .testReferences(accum.toSet)
-      .filter(_.testClass.outerTypeName.isEmpty) // Safety check, we only want outer types here
+    // Locate tests for the sourceIds, the index holds the walks from each test class
+    val refs = refreshLock.read {
+      testImpactIndex
+        .testReferences(accum.toSet)
+        .filter(_.testClass.outerTypeName.isEmpty) // Safety check, we only want outer types here
+    }
     refs
   }
 
@@ -16,25 +16,31 @@ package com.nawforce.apexlink.org
 
 import com.nawforce.apexlink.api.{Package, TypeSummary}
 import com.nawforce.apexlink.finding.TypeResolver
-import com.nawforce.apexlink.finding.TypeResolver.TypeCache
 import com.nawforce.apexlink.names.TypeNames
 import com.nawforce.apexlink.types.apex._
-import com.nawforce.apexlink.types.core.{DependentType, TypeDeclaration, TypeId}
+import com.nawforce.apexlink.types.core.{Dependent, DependentType, TypeDeclaration, TypeId}
 import com.nawforce.apexlink.types.other.{LabelDeclaration, Page}
 import com.nawforce.apexlink.types.schema.SObjectDeclaration
-import com.nawforce.pkgforce.diagnostics.{IssueAnalysis, LoggerOps}
+import com.nawforce.pkgforce.diagnostics.{IssueAnalysis, LoggerOps, MISSING_CATEGORY}
 import com.nawforce.pkgforce.documents._
 import com.nawforce.pkgforce.names.{TypeIdentifier, TypeName}
 import com.nawforce.pkgforce.path.PathLike
 import com.nawforce.runtime.platform.Path
 import upickle.default._
 
+import java.util.concurrent.ConcurrentHashMap
 import scala.annotation.tailrec
+import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
+import scala.jdk.CollectionConverters._
 
 trait PackageAPI extends Package {
   this: OPM.PackageImpl =>
 
+  // Types validated since they were last flushed, may be marked during parallel validation. Only
+  // flushes with a parsedCache drain this, so it is left empty when there is no cache.
+  private val dirtyTypes = ConcurrentHashMap.newKeySet[ApexDeclaration]()
+
   override def getNamespaces(withDependents: Boolean): Array[String] = {
     OrgInfo.current.withValue(org) {
       val ns = namespace.map(_.value).getOrElse("")
@@ -46,7 +52,7 @@ trait PackageAPI extends Package {
   }
 
   override def isPackagePath(path: String): Boolean = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       isPackagePathInternal(Path(path))
     }
   }
@@ -56,7 +62,7 @@ trait PackageAPI extends Package {
   }
 
   override def getTypeIdentifier(typeName: TypeName): TypeIdentifier = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       orderedModules.headOption
         .flatMap(module =>
           TypeResolver(typeName, module) match {
@@ -69,7 +75,7 @@ trait PackageAPI extends Package {
   }
 
   override def getTypeOfPath(path: String): TypeIdentifier = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       getTypeOfPathInternal(Path.safeApply(path)).map(_.asTypeIdentifier).orNull
     }
   }
@@ -100,7 +106,7 @@ trait PackageAPI extends Package {
   }
 
   override def getPathsOfType(typeId: TypeIdentifier): Array[String] = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       if (typeId != null && typeId.namespace == namespace) {
         orderedModules.view
           .flatMap(module => {
@@ -129,7 +135,7 @@ trait PackageAPI extends Package {
   }
 
   override def getSummaryOfType(typeId: TypeIdentifier): TypeSummary = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       if (typeId != null && typeId.namespace == namespace) {
         orderedModules
           .flatMap(_.types.get(typeId.typeName))
@@ -144,7 +150,7 @@ trait PackageAPI extends Package {
   }
 
   override def getSummaryOfTypeAsJSON(typeId: TypeIdentifier): String = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       Option(getSummaryOfType(typeId)).map(summary => write(summary)).orNull
     }
   }
@@ -154,7 +160,7 @@ trait PackageAPI extends Package {
     outerInheritanceOnly: Boolean,
     apexOnly: Boolean
   ): Array[TypeIdentifier] = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       if (typeId != null && typeId.namespace == namespace) {
         getDependentType(typeId.typeName)
           .map(td => {
@@ -171,7 +177,7 @@ trait PackageAPI extends Package {
                 case _ => Array[TypeIdentifier]()
               }
             } else {
-              val typeCache    = new TypeCache()
+              val typeCache    = org.typeCache
               val dependencies = mutable.Set[TypeId]()
               td.gatherDependencies(dependencies, apexOnly, outerTypesOnly = true, typeCache)
               dependencies.map(_.asTypeIdentifier).toArray
@@ -197,7 +203,7 @@ trait PackageAPI extends Package {
     typeId: TypeIdentifier,
     apexOnly: Boolean
   ): Array[TypeIdentifier] = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       if (typeId != null && typeId.namespace == namespace) {
         getDependentType(typeId.typeName)
           .map(
@@ -217,12 +223,12 @@ trait PackageAPI extends Package {
   }
 
   override def hasDependency(typeId: TypeIdentifier, dependencyTypeId: TypeIdentifier): Boolean = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       if (typeId == null || typeId.namespace != namespace) return false
 
       getDependentType(typeId.typeName) match {
         case Some(decl: ApexDeclaration) =>
-          val typeCache    = new TypeCache()
+          val typeCache    = org.typeCache
           val dependencies = mutable.Set[TypeId]()
           decl.gatherDependencies(dependencies, apexOnly = true, outerTypesOnly = false, typeCache)
           dependencies.map(_.asTypeIdentifier).toArray.contains(dependencyTypeId)
@@ -233,7 +239,7 @@ trait PackageAPI extends Package {
 
   /** Get a array of type identifiers from this packages modules. */
   override def getTypeIdentifiers(apexOnly: Boolean): Array[TypeIdentifier] = {
-    org.refreshLock.synchronized {
+    org.refreshLock.read {
       modules
         .foldLeft(Set[TypeIdentifier]())((acc, module) =>
           acc ++ module.getMetadataDefinedTypeIdentifiers(apexOnly)
@@ -242,17 +248,116 @@ trait PackageAPI extends Package {
     }
   }
 
-  /** Flush all types to the passed cache */
-  def flush(pc: ParsedCache): Unit = {
+  /** Record that a type has been validated and so needs flushing to the cache, if there is one */
+  private[nawforce] def markDirty(td: ApexDeclaration): Unit = {
+    if (org.parsedCache.nonEmpty)
+      dirtyTypes.add(td)
+  }
+
+  /** Number of types waiting to be flushed to the cache. */
+  private[nawforce] def dirtyCount: Int = dirtyTypes.size
+
+  /** Serialise the types needing flushing for upserting to the cache. Types that have been
+    * replaced since they were marked dirty, or were never added to a module, are discarded.
+    */
+  def flush(): Seq[CacheUpsert] = {
     val context = packageContext
-    modules.foreach(module => {
-      module.types
-        .values()
-        .foreach({
-          case ad: ApexClassDeclaration => ad.flush(pc, context)
-          case _                        => ()
-        })
-    })
+    val dirty   = dirtyTypes.asScala.toSeq
+    dirty.foreach(dirtyTypes.remove)
+
+    dirty
+      .filter(td => td.moduleDeclaration.exists(_.types.get(td.typeName).exists(_ eq td)))
+      .flatMap({
+        case ad: ApexClassDeclaration   => ad.flush(context)
+        case td: ApexTriggerDeclaration => td.flush(context)
+        case _                          => None
+      })
+  }
+
+  /** Replace a full declaration by a summary of it, as would be loaded from the cache, so the
+    * memory held by the full declaration may be released. The summary takes over the type and
+    * member dependency holders of the full declaration and summary holders of it re-resolve their
+    * dependencies. A type is not demoted while it has full holders, as they would continue to
+    * reference the full declaration, if it has not yet been flushed to the cache, has missing
+    * dependencies or its summary can not be validated, as for the cache.
+    * Must be called holding the org refresh write lock, returns true if the type was demoted.
+    */
+  private[nawforce] def demote(td: FullDeclaration): Boolean = {
+    val path      = td.location.path
+    val typeCache = org.typeCache
+    if (
+      td.outerTypeName.nonEmpty || !td.module.types.get(td.typeName).exists(_ eq td) ||
+      dirtyTypes.contains(td) ||
+      org.issues.issuesForFileInternal(path).exists(_.diagnostic.category == MISSING_CATEGORY) ||
+      hasFullHolders(td)
+    )
+      return false
+
+    val summary = new SummaryDeclaration(path, td.module, None, td.summary)
+    if (!summary.hasValidDependencies(typeCache))
+      return false
+
+    dirtyTypes.remove(td)
+    summary.setTypeDependencyHolders(td.getTypeDependencyHolders)
+    transferDependencyHolders(td, summary)
+    td.module.replaceType(summary.typeName, Some(summary))
+    markDead(td)
+    summary.propagateDependencies()
+
+    summary.getTypeDependencyHolders.toSet.foreach(holder =>
+      holder.module.moduleType(holder.typeName) match {
+        case Some(sd: SummaryDeclaration) =>
+          sd.releaseDependencies()
+          sd.propagateDependencies()
+        case _ => ()
+      }
+    )
+    true
+  }
+
+  /** Test if a full declaration, other than the passed one or its nested types, depends on it. */
+  private def hasFullHolders(td: FullDeclaration): Boolean = {
+    val types = td +: td.nestedTypes
+    types.exists(
+      _.getTypeDependencyHolders.toSet.exists(holder =>
+        holder.module.moduleType(holder.typeName).exists {
+          case _: SummaryDeclaration | _: SummaryTriggerDeclaration => false
+          case holderTd                                             => !types.exists(_ eq holderTd)
+        }
+      )
+    )
+  }
+
+  /** Add the dependency holders of a full declaration and its members to the matching summary. */
+  private def transferDependencyHolders(from: FullDeclaration, to: SummaryDeclaration): Unit = {
+    def transfer(from: Dependent, to: Dependent): Unit =
+      from.getDependencyHolders.foreach(to.addDependencyHolder)
+
+    transfer(from, to)
+
+    val fields = to.localFields.map(field => (field.name, field)).toMap
+    from.localFields.foreach(field => fields.get(field.name).foreach(transfer(field, _)))
+
+    val constructors =
+      to.localConstructors.map(ctor => (ctor.parameters.map(_.typeName), ctor)).toMap
+    from.localConstructors.foreach(ctor =>
+      constructors.get(ctor.parameters.map(_.typeName)).foreach(transfer(ctor, _))
+    )
+
+    def signature(method: ApexMethodLike) = (method.name, method.parameters.map(_.typeName))
+    val methods = to.localMethods.map(method => (signature(method), method)).toMap
+    from.localMethods.foreach(method => methods.get(signature(method)).foreach(transfer(method, _)))
+
+    val nested = to.nestedTypes.map(td => (td.typeName, td)).toMap
+    from.nestedTypes.foreach(td =>
+      nested.get(td.typeName).foreach(transferDependencyHolders(td, _))
+    )
+  }
+
+  /** Mark a replaced declaration and its nested types as dead so cached resolutions are dropped. */
+  private def markDead(td: FullDeclaration): Unit = {
+    td.dead = true
+    td.nestedTypes.foreach(markDead)
   }
 
   override def refresh(path: String, highPriority: Boolean): Unit = {
@@ -318,6 +423,9 @@ trait PackageAPI extends Package {
       .filter(r => orderedModules.exists(_.isVisibleFile(r._1)))
       .groupBy(r => !r._1.exists)
 
+    // Cached method call resolutions may depend on any of the types being replaced
+    org.packages.foreach(_.modules.foreach(_.methodCalls.clear()))
+
     // Do removals first to avoid duplicate type issues if source is being moved
     val references = mutable.Set[TypeId]()
     val removed    = mutable.Set[TypeId]()
@@ -325,6 +433,7 @@ trait PackageAPI extends Package {
       .getOrElse(true, Seq())
       .foreach(r => {
         LoggerOps.debug(s"Removing ${r._1}")
+        org.referenceIndex.foreach(_.remove(r._1))
         try {
           refreshInternal(r._1).map(refreshResult => {
             removed += refreshResult._1
@@ -337,11 +446,13 @@ trait PackageAPI extends Package {
     removed.foreach(references.remove)
 
     // Then additions or modifications
+    val upserted = mutable.Set[TypeId]()
     val toUpsert = splitRequests.getOrElse(false, Seq())
     toUpsert.foreach(r => {
       LoggerOps.debug(s"Refreshing ${r._1}")
       try {
         refreshInternal(r._1).map(refreshResult => {
+          upserted += refreshResult._1
           references ++= refreshResult._2
           references.remove(refreshResult._1)
         })
@@ -354,6 +465,13 @@ trait PackageAPI extends Package {
     // FUTURE: We could remove the handled requests from the missing but don't know if a type was added
     // since a missing was last validated, so for now we need to revalidate them all just in case.
     reValidate(references.toSet ++ typesWithMissingDiagnostics)
+    invalidateIndexes(removed ++ upserted)
+
+    // Redo test impact walks through the changed types so later queries remain lookups
+    org.testImpactIndex.update()
+
+    // Retained completion parses may hold declarations from before the refresh
+    org.packages.foreach(_.clearCompletionSessions())
 
     // Close any open plugins
     org.pluginsManager.closePlugins()
@@ -389,12 +507,22 @@ trait PackageAPI extends Package {
     )
     collectedTypes.addAll(tds)
 
-    // Revalidate the expanded set of types
-    collectedTypes.foreach(td => {
-      td.paths.foreach(path => org.issues.pop(path))
-      td.preReValidate()
-    })
-    collectedTypes.foreach(_.safeValidate())
+    // Revalidate the expanded set of types, dependency layers may be validated concurrently. The
+    // new issues replace the old once all are complete so readers do not see a partial set.
+    val types = ArraySeq.from(collectedTypes)
+    org.issues.replacing(types.flatMap(_.paths)) {
+      types.foreach(_.preReValidate())
+      ParallelValidator.run(org, types, org.parallelValidation)(_.safeValidate())
+    }
+
+    // Dependencies are re-established by validation so may now differ
+    invalidateIndexes(references ++ types.collect { case dt: DependentType => dt.outerTypeId })
+  }
+
+  /** Drop derived dependency information held for changed types. */
+  private def invalidateIndexes(typeIds: Iterable[TypeId]): Unit = {
+    org.transitiveGraphs.invalidate(typeIds.map(_.asTypeIdentifier))
+    org.testImpactIndex.invalidate(typeIds)
   }
 
   /* Collect all classes in a super class hierarchy that have an abstract ancestor */
@@ -0,0 +1,119 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.org.OPM.OrgImpl
+import com.nawforce.apexlink.types.core.TypeDeclaration
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+
+import java.util
+import java.util.concurrent.ForkJoinPool
+import scala.collection.immutable.ArraySeq
+import scala.collection.parallel.CollectionConverters._
+import scala.collection.parallel.ForkJoinTaskSupport
+import scala.reflect.ClassTag
+
+/** Validation of a collection of types split into dependency layers. A type is placed in a later
+  * layer than the types it extends, implements or is nested within so that, when a layer is being
+  * validated, the types it depends on structurally have already completed validation. Types
+  * within a layer are validated concurrently on a shared fork-join pool.
+  *
+  * Layering only considers dependencies within the collection being validated, anything outside
+  * of it is assumed to already be available.
+  */
+object ParallelValidator {
+
+  private lazy val taskSupport = new ForkJoinTaskSupport(
+    new ForkJoinPool(Math.max(1, Runtime.getRuntime.availableProcessors()))
+  )
+
+  /** Run an operation over the types, either sequentially in the passed order or concurrently by
+    * layer. The org is made current for each operation as worker threads do not inherit it.
+    */
+  def run[T <: TypeDeclaration](org: OrgImpl, types: ArraySeq[T], parallel: Boolean)(
+    op: T => Unit
+  ): Unit = {
+    if (!parallel || types.length < 2) {
+      types.foreach(op)
+    } else {
+      val layered = layers(types)
+      LoggerOps.debug(s"Validating ${types.length} types in ${layered.length} layers")
+      layered.foreach(layer => {
+        val parLayer = layer.par
+        parLayer.tasksupport = taskSupport
+        parLayer.foreach(td => OrgInfo.current.withValue(org) { op(td) })
+      })
+    }
+  }
+
+  /** Map an operation over independent items, either sequentially or concurrently on the shared
+    * pool. Results retain the passed order so that callers can merge them deterministically.
+    */
+  def map[T, R: ClassTag](org: OrgImpl, items: ArraySeq[T], parallel: Boolean)(
+    op: T => R
+  ): ArraySeq[R] = {
+    if (!parallel || items.length < 2) {
+      items.map(op)
+    } else {
+      val parItems = items.par
+      parItems.tasksupport = taskSupport
+      ArraySeq.from(parItems.map(item => OrgInfo.current.withValue(org) { op(item) }).seq)
+    }
+  }
+
+  /** Split the types into dependency layers, types within a layer retain their passed order. */
+  def layers[T <: TypeDeclaration](types: ArraySeq[T]): ArraySeq[ArraySeq[T]] = {
+    val indexes = new util.IdentityHashMap[TypeDeclaration, Integer]()
+    types.indices.foreach(i => indexes.put(types(i), i))
+
+    // Depth of each type, -1 unassigned, -2 in progress to break cycles in invalid hierarchies
+    val depths = Array.fill(types.length)(-1)
+
+    def inCollection(td: TypeDeclaration): Option[Int] = {
+      Option(indexes.get(td))
+        .orElse(Option(indexes.get(td.outermostTypeDeclaration)))
+        .map(_.intValue())
+    }
+
+    def dependsOn(index: Int): Iterator[Int] = {
+      val td = types(index)
+      ((td +: td.nestedTypes).iterator
+        .flatMap(t => t.superClassDeclaration.iterator ++ t.interfaceDeclarations.iterator) ++
+        td.outerTypeDeclaration.iterator)
+        .flatMap(inCollection)
+        .filterNot(_ == index)
+    }
+
+    def depth(index: Int): Int = {
+      depths(index) match {
+        case -1 =>
+          depths(index) = -2
+          val result = dependsOn(index).foldLeft(0)((acc, dep) => {
+            val d = depth(dep)
+            if (d < 0) acc else Math.max(acc, d + 1)
+          })
+          depths(index) = result
+          result
+        case d => d
+      }
+    }
+
+    types.indices.foreach(depth)
+    val maxDepth = if (depths.isEmpty) -1 else depths.max
+    val indexed  = types.zipWithIndex
+    ArraySeq.tabulate(maxDepth + 1)(layer =>
+      indexed.collect { case (td, index) if depths(index) == layer => td }
+    )
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.rpc.TargetLocation
+import com.nawforce.pkgforce.path.{IdLocatable, Location, PathLike, PathLocation}
+
+import scala.collection.mutable
+
+/** Reverse index from the id locations of Referenceable declarations to the locations that
+  * reference them. References are recorded per source file while the file is being validated and
+  * replace those previously held for the file, so the index tracks refreshes without a separate
+  * invalidation step.
+  *
+  * Paths are interned and each reference is packed into a fixed number of ints. When the
+  * approximate size exceeds the budget the least recently indexed files are dropped, callers
+  * should treat files that are not indexed as needing validation before their references are
+  * known.
+  */
+final class ReferenceIndex(budget: Long) {
+  import ReferenceIndex._
+
+  // Interned paths, referenced by position
+  private val pathIds = mutable.HashMap[String, Int]()
+  private val paths   = mutable.ArrayBuffer[String]()
+
+  // Packed references by source path id, iteration order is least recently indexed first
+  private val sources = mutable.LinkedHashMap[Int, Array[Int]]()
+
+  // Source path ids referencing a packed target key
+  private val targets = mutable.LongMap[Array[Int]]()
+
+  // Approximate bytes held by sources & targets
+  private var used = 0L
+
+  /** Run a validation of a source file, recording the references it makes. On success the
+    * recorded references replace those held for the file, otherwise the file is dropped.
+    */
+  def indexing[T](path: PathLike)(op: => T): T = {
+    val outer    = recorder.get()
+    val recorded = new Recorder(path)
+    recorder.set(recorded)
+    var success = false
+    try {
+      val result = op
+      success = true
+      result
+    } finally {
+      recorder.set(outer)
+      if (success) replace(path, recorded.references) else remove(path)
+    }
+  }
+
+  /** Test if the references made from a file are held. */
+  def isIndexed(path: PathLike): Boolean = synchronized {
+    pathIds.get(path.toString).exists(sources.contains)
+  }
+
+  /** Drop the references made from a file, such as when it has been deleted. */
+  def remove(path: PathLike): Unit = synchronized {
+    pathIds.get(path.toString).foreach(removeSource)
+  }
+
+  /** Find the locations referencing the declaration with the passed id location. */
+  def find(target: PathLocation): Set[TargetLocation] = synchronized {
+    pathIds.get(target.path.toString) match {
+      case None => Set.empty
+      case Some(targetPathId) =>
+        val line     = target.location.startLine
+        val position = target.location.startPosition
+        val found    = mutable.Set[TargetLocation]()
+        targets
+          .getOrElse(targetKey(targetPathId, line, position), Array.emptyIntArray)
+          .foreach(sourceId => {
+            val packed = sources(sourceId)
+            var i      = 0
+            while (i < packed.length) {
+              if (
+                packed(i) == targetPathId && packed(i + 1) == line && packed(i + 2) == position
+              ) {
+                found.add(
+                  TargetLocation(
+                    paths(sourceId),
+                    Location(packed(i + 3), packed(i + 4), packed(i + 5), packed(i + 6))
+                  )
+                )
+              }
+              i += RECORD_SIZE
+            }
+          })
+        found.toSet
+    }
+  }
+
+  /** Approximate bytes held by the index. */
+  def usedBytes: Long = synchronized { used }
+
+  private def replace(path: PathLike, references: mutable.ArrayBuffer[Reference]): Unit =
+    synchronized {
+      val sourceId = intern(path.toString)
+      removeSource(sourceId)
+
+      val packed = new Array[Int](references.length * RECORD_SIZE)
+      val keys   = mutable.LongMap[Unit]()
+      var i      = 0
+      references.foreach(reference => {
+        val targetPathId = intern(reference.target.path.toString)
+        val targetIdLoc  = reference.target.location
+        packed(i) = targetPathId
+        packed(i + 1) = targetIdLoc.startLine
+        packed(i + 2) = targetIdLoc.startPosition
+        packed(i + 3) = reference.location.startLine
+        packed(i + 4) = reference.location.startPosition
+        packed(i + 5) = reference.location.endLine
+        packed(i + 6) = reference.location.endPosition
+        keys.update(targetKey(targetPathId, targetIdLoc.startLine, targetIdLoc.startPosition), ())
+        i += RECORD_SIZE
+      })
+
+      sources.put(sourceId, packed)
+      used += SOURCE_OVERHEAD + packed.length * 4L
+      keys.keys.foreach(key => {
+        targets.get(key) match {
+          case Some(sourceIds) => targets.update(key, sourceIds :+ sourceId)
+          case None =>
+            targets.update(key, Array(sourceId))
+            used += TARGET_OVERHEAD
+        }
+        used += 4
+      })
+
+      // Drop least recently indexed files to stay within budget
+      while (used > budget && sources.nonEmpty)
+        removeSource(sources.head._1)
+    }
+
+  private def removeSource(sourceId: Int): Unit = {
+    sources.remove(sourceId).foreach(packed => {
+      used -= SOURCE_OVERHEAD + packed.length * 4L
+      var i = 0
+      while (i < packed.length) {
+        val key = targetKey(packed(i), packed(i + 1), packed(i + 2))
+        targets.get(key).foreach(sourceIds => {
+          if (sourceIds.contains(sourceId)) {
+            used -= 4
+            if (sourceIds.length == 1) {
+              targets.remove(key)
+              used -= TARGET_OVERHEAD
+            } else {
+              targets.update(key, sourceIds.filterNot(_ == sourceId))
+            }
+          }
+        })
+        i += RECORD_SIZE
+      }
+    })
+  }
+
+  private def intern(path: String): Int = {
+    pathIds.getOrElseUpdate(
+      path, {
+        paths.append(path)
+        paths.length - 1
+      }
+    )
+  }
+}
+
+object ReferenceIndex {
+
+  /** Megabytes of the budget used when not configured, around a million references. */
+  final val DEFAULT_BUDGET_MB = 32
+
+  /** Ints per reference: target path id, target line & position, reference location. */
+  private final val RECORD_SIZE = 7
+
+  /** Approximate per entry overhead in bytes of the source and target maps. */
+  private final val SOURCE_OVERHEAD = 64L
+  private final val TARGET_OVERHEAD = 48L
+
+  private final case class Reference(target: PathLocation, location: Location)
+
+  private final class Recorder(val path: PathLike) {
+    val references: mutable.ArrayBuffer[Reference] = mutable.ArrayBuffer()
+  }
+
+  // The file being indexed by the current thread, if any
+  private val recorder = new ThreadLocal[Recorder]()
+
+  /** Record a reference to a declaration. References are only recorded while the referencing
+    * file is being indexed, so those made while validating unsaved content, such as for
+    * completion, are ignored.
+    */
+  def record(target: IdLocatable, location: PathLocation): Unit = {
+    val current = recorder.get()
+    if (current != null && location.path == current.path && target.location.path != null)
+      current.references.append(Reference(target.idPathLocation, location.location))
+  }
+
+  private def targetKey(pathId: Int, line: Int, position: Int): Long =
+    (pathId.toLong << 40) | ((line & 0xfffffL) << 20) | (position & 0xfffffL)
+}
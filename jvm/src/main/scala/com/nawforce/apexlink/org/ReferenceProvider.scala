@@ -37,19 +37,25 @@ trait Referenceable extends IdLocatable {
     */
   def addReferencingLocation(referencingLocation: PathLocation): Unit = {
     if (Referenceable.allowReferenceCollection) {
-      if (referenceLocations == null) {
-        referenceLocations = new SkinnySet[TargetLocation]()
-      }
       if (referencingLocation.path == null) {
         LoggerOps.debug(
           s"Referenceable.addReferencingLocation: No referencing path provided to $this, location: $referencingLocation"
         )
       }
-      referenceLocations.add(
-        TargetLocation(referencingLocation.path.toString, referencingLocation.location)
-      )
+      // Types may be re-validated concurrently while collecting
+      synchronized {
+        if (referenceLocations == null) {
+          referenceLocations = new SkinnySet[TargetLocation]()
+        }
+        referenceLocations.add(
+          TargetLocation(referencingLocation.path.toString, referencingLocation.location)
+        )
+      }
       Referenceable.addReference(this)
     }
+
+    // Record into the org reference index when the referencing file is being indexed
+    ReferenceIndex.record(this, referencingLocation)
   }
 
   /** Collect all the referenceable elements that are related to this class. Override this
@@ -57,11 +63,50 @@ trait Referenceable extends IdLocatable {
     */
   def collectRelatedReferencable(): Set[_ <: Referenceable] = Set[Referenceable](this)
 
-  /** Collect all reference locations for this Referencable. The basic approach here
-    * is to collect references to things during a revalidation pass. The ReferenceProvider
-    * uses this.
+  /** Collect all reference locations for this Referencable. When the org has a reference index
+    * the holder classes that have not been indexed, such as those loaded from the cache, are
+    * re-validated and the locations looked up. Without an index, or if the index could not hold
+    * all the holders, references are collected during a re-validation of all the holders. The
+    * ReferenceProvider uses this.
     */
   def getCurrentReferences(refresh: Seq[PathLike] => Unit): Set[TargetLocation] = {
+    val holderPaths = collectHolderTypeIds(collectRelatedReferencable())
+      .flatMap(_.toTypeDeclaration[ApexClassDeclaration])
+      .map(_.paths.head)
+      .toSeq
+
+    thisTypeId.module.pkg.org.referenceIndex match {
+      case Some(index) =>
+        val unindexed = holderPaths.filterNot(index.isIndexed)
+        if (unindexed.nonEmpty)
+          refresh(unindexed)
+
+        if (holderPaths.forall(index.isIndexed)) {
+          findCurrentReferenceable()
+            .map(_.collectRelatedReferencable().flatMap(ref => index.find(ref.idPathLocation)))
+            .getOrElse(Set.empty)
+        } else {
+          collectCurrentReferences(holderPaths, refresh)
+        }
+      case None =>
+        collectCurrentReferences(holderPaths, refresh)
+    }
+  }
+
+  /** Can a lookup of the references be made without re-validating any holder classes. */
+  def hasIndexedReferences: Boolean = {
+    thisTypeId.module.pkg.org.referenceIndex.exists(index =>
+      collectHolderTypeIds(collectRelatedReferencable())
+        .flatMap(_.toTypeDeclaration[ApexClassDeclaration])
+        .forall(td => index.isIndexed(td.paths.head))
+    )
+  }
+
+  /** Collect references by re-validating the holder classes with reference collection enabled. */
+  private def collectCurrentReferences(
+    holderPaths: Seq[PathLike],
+    refresh: Seq[PathLike] => Unit
+  ): Set[TargetLocation] = {
 
     try {
       Referenceable.allowReferenceCollection = true
@@ -69,28 +114,12 @@ trait Referenceable extends IdLocatable {
       // Re-validate to remove summary types and build up the references
       // We used to cache here but as we expand the number of Referenceable things that
       // would cause some memory bloat, this will be slower but hopefully OK
-      refresh(
-        collectHolderTypeIds(collectRelatedReferencable())
-          .flatMap(_.toTypeDeclaration[ApexClassDeclaration])
-          .map(_.paths.head)
-          .toSeq
-      )
-
-      // Find the target Referencable as it may have been replaced during the refresh
-      thisTypeId
-        .toTypeDeclaration[FullDeclaration]
-        .flatMap(td => {
-          if (td.idLocation.contains(idLocation.startLine, idLocation.startPosition))
-            Some(td)
-          else
-            td.getBodyDeclarationFromLocation(idLocation.startLine, idLocation.startPosition)
-              .map(_._2)
-        })
-        .flatMap({
-          case newRef: Referenceable =>
-            // Now gather the created references as the result
-            Some(newRef.collectRelatedReferencable().flatMap(_.getReferencingLocations))
-          case _ => Some(Set[TargetLocation]())
+      refresh(holderPaths)
+
+      findCurrentReferenceable()
+        .map(newRef => {
+          // Now gather the created references as the result
+          newRef.collectRelatedReferencable().flatMap(_.getReferencingLocations)
         })
         .getOrElse(Set.empty)
 
@@ -100,6 +129,20 @@ trait Referenceable extends IdLocatable {
     }
   }
 
+  /** Find the target Referencable as it may have been replaced during a refresh */
+  private def findCurrentReferenceable(): Option[Referenceable] = {
+    thisTypeId
+      .toTypeDeclaration[FullDeclaration]
+      .flatMap(td => {
+        if (td.idLocation.contains(idLocation.startLine, idLocation.startPosition))
+          Some(td)
+        else
+          td.getBodyDeclarationFromLocation(idLocation.startLine, idLocation.startPosition)
+            .map(_._2)
+      })
+      .collect({ case newRef: Referenceable => newRef })
+  }
+
   /** Collects all the dependency holder classes for the passed Referencable set */
   private def collectHolderTypeIds(referenceable: Set[_ <: Referenceable]): Set[TypeId] = {
     referenceable
@@ -126,7 +169,7 @@ trait Referenceable extends IdLocatable {
 object Referenceable {
 
   /** Gate controlling if reference collection is enabled. */
-  private var allowReferenceCollection: Boolean = false
+  @volatile private var allowReferenceCollection: Boolean = false
 
   /** Set of all references that have recorded reference locations so we can
     * clear them after processing.
@@ -169,7 +212,7 @@ object Referenceable {
   }
 
   /** Add a Referenceable that has recorded a reference location */
-  private def addReference(ref: Referenceable): Unit = {
+  private def addReference(ref: Referenceable): Unit = collectedReferences.synchronized {
     collectedReferences.add(ref)
   }
 
@@ -192,6 +235,21 @@ trait ReferenceProvider extends SourceOps {
       }).toArray)
       .getOrElse(emptyTargetLocations)
   }
+
+  /** Lookup references when they are all held by the org reference index, this does not need to
+    * re-validate any types.
+    */
+  def getIndexedReferences(
+    path: PathLike,
+    line: Int,
+    offset: Int
+  ): Option[Array[TargetLocation]] = {
+    loadTypeFromModule(path)
+      .collect({ case td: ApexClassDeclaration => td })
+      .flatMap(_.findReferenceableFromLocation(line, offset))
+      .filter(_.hasIndexedReferences)
+      .map(_.getCurrentReferences(_ => ()).toArray)
+  }
 }
 
 object ReferenceProvider {
@@ -0,0 +1,39 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import java.util.concurrent.locks.ReentrantReadWriteLock
+
+/** Lock for org state that may be impacted by refresh. Operations that replace or re-validate
+  * types, such as refreshing, flushing or collecting references, hold it exclusively. Queries
+  * share it so they may run concurrently with each other but not with a refresh.
+  *
+  * The lock is fair and re-entrant, a read may be nested within a write but a write must not be
+  * started while holding a read as the upgrade would deadlock.
+  */
+final class RefreshLock {
+  private val lock = new ReentrantReadWriteLock(true)
+
+  def read[T](op: => T): T = {
+    lock.readLock().lock()
+    try op
+    finally lock.readLock().unlock()
+  }
+
+  def write[T](op: => T): T = {
+    lock.writeLock().lock()
+    try op
+    finally lock.writeLock().unlock()
+  }
+}
@@ -18,7 +18,13 @@ import com.nawforce.apexlink.diagnostics.IssueOps
 import com.nawforce.apexlink.names.TypeNames.TypeNameUtils
 import com.nawforce.apexlink.names.XNames.NameUtils
 import com.nawforce.apexlink.names.{TypeNames, XNames}
-import com.nawforce.apexlink.org.SObjectDeployer.{feedFieldsFor, historyFieldsFor, shareFieldsFor}
+import com.nawforce.apexlink.org.SObjectDeployer.{
+  BuiltObjects,
+  ObjectEvents,
+  feedFieldsFor,
+  historyFieldsFor,
+  shareFieldsFor
+}
 import com.nawforce.apexlink.types.core.{FieldDeclaration, TypeDeclaration}
 import com.nawforce.apexlink.types.platform.PlatformTypes
 import com.nawforce.apexlink.types.schema.{SObjectNature, _}
@@ -54,57 +60,81 @@ class SObjectDeployer(module: OPM.Module) {
       events
     ).iterator.buffered
 
-    val createdSObjects = mutable.Map[TypeName, SObjectLikeDeclaration]()
-    val derivedFields   = ArrayBuffer[(TypeName, CustomFieldEvent)]()
-
+    // Group events by object, the stream holds each SObjectEvent followed by its parts
+    val objects = ArrayBuffer[ObjectEvents]()
     while (objectsEvents.hasNext) {
       val sObjectEvent = objectsEvents.next().asInstanceOf[SObjectEvent]
-      val encodedName  = EncodedName(sObjectEvent.name, module.namespace)
-      val typeName     = TypeName(encodedName.fullName, Nil, Some(TypeNames.Schema))
-      val nature       = SObjectNature(sObjectEvent.name, sObjectEvent)
-
-      val fieldEvents         = bufferEvents[CustomFieldEvent](objectsEvents)
-      val fieldSetEvents      = bufferEvents[FieldsetEvent](objectsEvents)
-      val sharingReasonEvents = bufferEvents[SharingReasonEvent](objectsEvents)
-      val fieldSets           = fieldSetEvents.map(_.name)
-      val sharingReasons      = sharingReasonEvents.map(_.name)
-
-      val sources: Array[SourceInfo] =
-        sObjectEvent.sourceInfo.toArray ++
-          fieldEvents.map(_.sourceInfo) ++
-          fieldSetEvents.map(_.sourceInfo) ++
-          sharingReasonEvents.map(_.sourceInfo)
-
-      val (derived, nonDerived) = fieldEvents.partitionMap {
-        case e if SObjectDeployer.derivedFieldTypes.contains(e.rawType) =>
-          Left((typeName, e))
-        case f => Right(f)
-      }
+      objects.append(
+        ObjectEvents(
+          sObjectEvent,
+          bufferEvents[CustomFieldEvent](objectsEvents),
+          bufferEvents[FieldsetEvent](objectsEvents),
+          bufferEvents[SharingReasonEvent](objectsEvents)
+        )
+      )
+    }
 
-      derivedFields.addAll(derived)
-      val fields = nonDerived.flatMap(createCustomField)
+    // Build each object independently, then merge in stream order so the result is deterministic
+    val built = ParallelValidator.map(
+      module.pkg.org,
+      ArraySeq.from(objects),
+      module.pkg.org.parallelValidation
+    )(buildSObjects)
 
-      val sobjects =
-        if (encodedName.ext.nonEmpty)
-          createCustomObject(
-            sources,
-            sObjectEvent,
-            typeName,
-            nature,
-            fields,
-            fieldSets,
-            sharingReasons
-          )
-        else
-          createReplacementSObject(sources, typeName, nature, fields, fieldSets, sharingReasons)
-      sobjects.foreach(sobject => createdSObjects.put(sobject.typeName, sobject))
-    }
+    val createdSObjects = mutable.Map[TypeName, SObjectLikeDeclaration]()
+    val derivedFields   = ArrayBuffer[(TypeName, CustomFieldEvent)]()
+    built.foreach(objects => {
+      derivedFields.addAll(objects.derivedFields)
+      objects.sobjects.foreach(sobject => createdSObjects.put(sobject.typeName, sobject))
+    })
 
     addDerivedFieldsToObjects(derivedFields, createdSObjects)
 
     createdSObjects.values.toArray
   }
 
+  /** Build the SObjects for the events of a single object. Fields derived from other objects are
+    * returned for handling once all objects have been built.
+    */
+  private def buildSObjects(events: ObjectEvents): BuiltObjects = {
+    val sObjectEvent = events.sobject
+    val encodedName  = EncodedName(sObjectEvent.name, module.namespace)
+    val typeName     = TypeName(encodedName.fullName, Nil, Some(TypeNames.Schema))
+    val nature       = SObjectNature(sObjectEvent.name, sObjectEvent)
+
+    val fieldSets      = events.fieldSets.map(_.name)
+    val sharingReasons = events.sharingReasons.map(_.name)
+
+    val sources: Array[SourceInfo] =
+      sObjectEvent.sourceInfo.toArray ++
+        events.fields.map(_.sourceInfo) ++
+        events.fieldSets.map(_.sourceInfo) ++
+        events.sharingReasons.map(_.sourceInfo)
+
+    val (derived, nonDerived) = events.fields.partitionMap {
+      case e if SObjectDeployer.derivedFieldTypes.contains(e.rawType) =>
+        Left((typeName, e))
+      case f => Right(f)
+    }
+
+    val fields = nonDerived.flatMap(createCustomField)
+
+    val sobjects =
+      if (encodedName.ext.nonEmpty)
+        createCustomObject(
+          sources,
+          sObjectEvent,
+          typeName,
+          nature,
+          fields,
+          fieldSets,
+          sharingReasons
+        )
+      else
+        createReplacementSObject(sources, typeName, nature, fields, fieldSets, sharingReasons)
+    BuiltObjects(sobjects, derived)
+  }
+
   private def createCustomField(field: CustomFieldEvent): Array[FieldDeclaration] = {
     val name         = defaultNamespace(field.name)
     val location     = field.sourceInfo.location
@@ -639,6 +669,20 @@ class SObjectDeployer(module: OPM.Module) {
 
 object SObjectDeployer {
 
+  /** Events for a single object in stream order. */
+  private[org] final case class ObjectEvents(
+    sobject: SObjectEvent,
+    fields: ArraySeq[CustomFieldEvent],
+    fieldSets: ArraySeq[FieldsetEvent],
+    sharingReasons: ArraySeq[SharingReasonEvent]
+  )
+
+  /** SObjects built from a single object & the derived fields still to be added to them. */
+  private[org] final case class BuiltObjects(
+    sobjects: Array[SObjectDeclaration],
+    derivedFields: ArraySeq[(TypeName, CustomFieldEvent)]
+  )
+
   /** Standard fields for custom objects, this is a superset, filtering may be needed to trim do to
     * available.
     */
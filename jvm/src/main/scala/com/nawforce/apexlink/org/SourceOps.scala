@@ -20,7 +20,9 @@ trait SourceOps {
       // If we don't have new source we can assume the loaded type is current, but it could be a summary
       val sourceAndType = if (content.isEmpty) {
         loadTypeFromModule(path) match {
-          case Some(fd: FullDeclaration)     => Some((source, fd))
+          case Some(fd: FullDeclaration) =>
+            org.fullDeclarations.foreach(_.touch(fd))
+            Some((source, fd))
           case Some(atd: TriggerDeclaration) => Some((source, atd))
           case _                             => None
         }
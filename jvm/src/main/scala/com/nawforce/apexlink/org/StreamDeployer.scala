@@ -15,16 +15,22 @@
 package com.nawforce.apexlink.org
 
 import com.nawforce.apexlink.api._
-import com.nawforce.apexlink.finding.TypeResolver.TypeCache
 import com.nawforce.apexlink.names.TypeNames.TypeNameUtils
 import com.nawforce.apexlink.opcst.OutlineParserFullDeclaration
-import com.nawforce.apexlink.types.apex.{FullDeclaration, SummaryApex, TriggerDeclaration}
+import com.nawforce.apexlink.types.apex.{
+  FullDeclaration,
+  SummaryApex,
+  SummaryTrigger,
+  TriggerDeclaration
+}
 import com.nawforce.apexlink.types.other._
 import com.nawforce.apexlink.types.platform.PlatformTypes
 import com.nawforce.pkgforce.diagnostics._
 import com.nawforce.pkgforce.documents._
 import com.nawforce.pkgforce.names._
+import com.nawforce.pkgforce.path.PathLike
 import com.nawforce.pkgforce.stream._
+import com.nawforce.runtime.parsers.SourceData
 
 import java.util.concurrent.{ConcurrentHashMap, ConcurrentLinkedQueue}
 import scala.collection.immutable.ArraySeq
@@ -45,6 +51,11 @@ class StreamDeployer(
   events: Iterator[PackageEvent],
   types: TypeDeclarationCache
 ) {
+  private val parallelValidation = module.pkg.org.parallelValidation
+
+  /** Source read while looking up classes in the cache, retained for parsing those not found. */
+  private val sourceRead = new ConcurrentHashMap[PathLike, Array[Byte]]()
+
   load()
 
   private def load(): Unit = {
@@ -115,7 +126,9 @@ class StreamDeployer(
     })
 
     // Run custom validation to setup dependencies
-    sobjects.foreach(_.safeValidate())
+    ParallelValidator.run(module.pkg.org, ArraySeq.unsafeWrapArray(sobjects), parallelValidation)(
+      _.safeValidate()
+    )
   }
 
   /** Consume Apex class events, this is a bit more involved as we try and load first via cache and
@@ -144,7 +157,7 @@ class StreamDeployer(
     LoggerOps.debugTime(s"Parsed ${docs.length} classes", docs.nonEmpty) {
       val decls = docs
         .flatMap(doc =>
-          doc.path.readSourceData() match {
+          readSourceData(doc) match {
             case Left(_) => None
             case Right(data) =>
               LoggerOps.debugTime(s"Parsed ${doc.path}") {
@@ -159,7 +172,7 @@ class StreamDeployer(
         )
 
       // Validate the classes, this must be last due to mutual dependence
-      decls.foreach { _.safeValidate() }
+      ParallelValidator.run(module.pkg.org, decls, parallelValidation)(_.safeValidate())
     }
   }
 
@@ -169,7 +182,7 @@ class StreamDeployer(
 
     val classes       = summaryClasses.toArray
     val rejected      = mutable.Set[SummaryApex]()
-    val typeCache     = new TypeCache()
+    val typeCache     = module.pkg.org.typeCache
     var hasRejections = true
     var rejectCycles  = 0
 
@@ -183,7 +196,6 @@ class StreamDeployer(
       rejects.foreach(reject => {
         val typeName = reject.declaration.typeName
         types.remove(typeName)
-        typeCache.remove((typeName, module))
         LoggerOps.info(s"Cached type $typeName rejected due to invalid dependencies")
       })
       rejected.addAll(rejects)
@@ -193,13 +205,18 @@ class StreamDeployer(
     if (rejectCycles > 1)
       LoggerOps.info(s"Used $rejectCycles rejection cycles")
 
-    // For those not rejected, complete processing
+    // For those not rejected, complete processing, the type cache is safe to share when parallel
     val survivors = classes.filterNot(rejected.contains)
-    survivors.foreach(cls => {
+    ParallelValidator.run(
+      module.pkg.org,
+      ArraySeq.unsafeWrapArray(survivors.map(_.declaration)),
+      parallelValidation
+    )(declaration => {
       // Re-establish dependencies
-      cls.declaration.propagateOuterDependencies(typeCache)
-      cls.declaration.propagateDependencies()
-
+      declaration.propagateOuterDependencies(typeCache)
+      declaration.propagateDependencies()
+    })
+    survivors.foreach(cls => {
       // Report any (existing) diagnostics
       val path = cls.declaration.location.path
       cls.diagnostics
@@ -229,10 +246,13 @@ class StreamDeployer(
         val localAccum = new ConcurrentHashMap[TypeName, SummaryApex]()
 
         classes.par.foreach(doc => {
-          val value = parsedCache.get(pkgContext, doc.name.value, contentHash(doc))
-          val ad    = value.map(v => SummaryApex(doc.path, module, v))
+          val (hash, source) = contentHash(doc)
+          val value          = parsedCache.get(pkgContext, doc.name.value, hash)
+          val ad             = value.map(v => SummaryApex(doc.path, module, v))
           if (ad.nonEmpty && !ad.get.diagnostics.exists(_.category == MISSING_CATEGORY)) {
             localAccum.put(ad.get.declaration.typeName, ad.get)
+          } else {
+            source.foreach(bytes => sourceRead.put(doc.path, bytes))
           }
         })
 
@@ -245,11 +265,28 @@ class StreamDeployer(
       .getOrElse(Iterator())
   }
 
-  private def contentHash(doc: ApexClassDocument): Int = {
-    ParsedCache.classMetaHash(
-      doc.path.parent.join(s"${doc.name.toString}.cls-meta.xml"),
-      MurmurHash3.bytesHash(doc.path.readBytes().getOrElse(Array.empty))
-    )
+  /** Content hash for a class cache key, using the source manifest to avoid reading unchanged
+    * classes. Returns the class source if it had to be read.
+    */
+  private def contentHash(doc: ApexClassDocument): (Int, Option[Array[Byte]]) = {
+    val metaFile = doc.path.parent.join(s"${doc.name.toString}.cls-meta.xml")
+    module.pkg.org.sourceManifest match {
+      case Some(manifest) => manifest.classHash(doc.path, metaFile)
+      case None =>
+        val source = doc.path.readBytes().toOption
+        (
+          ParsedCache.classMetaHash(metaFile, MurmurHash3.bytesHash(source.getOrElse(Array.empty))),
+          source
+        )
+    }
+  }
+
+  /** Read source, preferring any source already read during cache lookup. */
+  private def readSourceData(doc: MetadataDocument): Either[String, SourceData] = {
+    Option(sourceRead.remove(doc.path)) match {
+      case Some(bytes) => Right(SourceData(bytes))
+      case None        => doc.path.readSourceData()
+    }
   }
 
   private def loadClassesWithOutlineParser(
@@ -266,7 +303,7 @@ class StreamDeployer(
 
     LoggerOps.debugTime(s"Parsed ${classes.length} classes", classes.nonEmpty) {
       clsItr.foreach(cls => {
-        cls.path.readSourceData() match {
+        readSourceData(cls) match {
           case Left(error) =>
             LoggerOps.info(s"Failed reading source $error")
           case Right(srcData) =>
@@ -284,38 +321,124 @@ class StreamDeployer(
       localAccum.entrySet.forEach(kv => {
         types.put(kv.getKey, kv.getValue)
       })
-      localAccum
-        .values()
-        .asScala
-        .foreach(td => {
-          if (!td.tryValidate()) {
-            types.remove(td.typeName)
-            Option(docsByType.get(td.typeName)).foreach(failedDocuments.add)
-          }
-        })
+      // Failed types are removed as soon as they fail, as when validating sequentially
+      ParallelValidator.run(
+        module.pkg.org,
+        ArraySeq.from(localAccum.values().asScala),
+        parallelValidation
+      )(td => {
+        if (!td.tryValidate()) {
+          types.remove(td.typeName)
+          Option(docsByType.get(td.typeName)).foreach(failedDocuments.add)
+        }
+      })
     }
     ArraySeq.from(failedDocuments.asScala.toSeq)
   }
 
-  /** Consume trigger events, these could be cached, but they don't consume much time to for we load
-    * from disk and parse each time.
+  /** Consume trigger events, as with classes we try and load first via the cache and then parse
+    * any remaining. Triggers are parsed in parallel but validated sequentially as validation
+    * temporarily registers the trigger context type with the module.
     */
   private def consumeTriggers(events: BufferedIterator[PackageEvent]): Unit = {
     val docs = bufferEvents[TriggerEvent](events).map(e => ApexTriggerDocument(e.path))
-    LoggerOps.debugTime(s"Parsed ${docs.length} triggers", docs.nonEmpty) {
-      docs
+
+    // Load summary triggers from the cache
+    val cached = LoggerOps.debugTime(s"Loaded summary triggers", docs.nonEmpty) {
+      validateSummaryTriggers(loadTriggersFromCache(docs))
+    }
+
+    val missingTriggers = docs.filterNot(doc => cached.contains(doc.path))
+    LoggerOps.debug(
+      s"${missingTriggers.length} of ${docs.length} triggers not available from cache"
+    )
+
+    LoggerOps.debugTime(s"Parsed ${missingTriggers.length} triggers", missingTriggers.nonEmpty) {
+      val org = module.pkg.org
+      missingTriggers.par
         .flatMap(doc => {
-          doc.path.readSourceData() match {
-            case Left(_) => None
-            case Right(data) =>
-              TriggerDeclaration
-                .create(module, doc.path, data)
-                .map(td => {
-                  types.put(td)
-                  td.safeValidate()
-                })
+          OrgInfo.current.withValue(org) {
+            readSourceData(doc) match {
+              case Left(_)     => None
+              case Right(data) => TriggerDeclaration.create(module, doc.path, data)
+            }
           }
         })
+        .seq
+        .foreach(td => {
+          types.put(td)
+          td.safeValidate()
+        })
+    }
+  }
+
+  /** Load triggers from the code cache, the content hash used for the key and any source read to
+    * calculate it are handled in the same way as for classes.
+    */
+  private def loadTriggersFromCache(
+    triggers: ArraySeq[ApexTriggerDocument]
+  ): Array[SummaryTrigger] = {
+    module.pkg.org.parsedCache
+      .map(parsedCache => {
+        val pkgContext = module.pkg.packageContext
+        triggers.par
+          .flatMap(doc => {
+            val (hash, source) = triggerContentHash(doc)
+            val value = parsedCache.get(pkgContext, TriggerDeclaration.cacheName(doc, module), hash)
+            val summary = value.map(v => SummaryTrigger(doc.path, module, v))
+            if (summary.isEmpty || summary.get.diagnostics.exists(_.category == MISSING_CATEGORY)) {
+              source.foreach(bytes => sourceRead.put(doc.path, bytes))
+              None
+            } else {
+              summary
+            }
+          })
+          .seq
+          .toArray
+      })
+      .getOrElse(Array())
+  }
+
+  /** Validate summary triggers & log diagnostics, those with any invalid dependents are discarded.
+    * Triggers can not be depended on so, unlike classes, a single pass is sufficient. Returns the
+    * paths of the triggers that were accepted.
+    */
+  private def validateSummaryTriggers(triggers: Array[SummaryTrigger]): Set[PathLike] = {
+    val typeCache = module.pkg.org.typeCache
+    val (accepted, rejected) = triggers.partition(_.declaration.hasValidDependencies(typeCache))
+    rejected.foreach(reject => {
+      val typeName = reject.declaration.typeName
+      LoggerOps.info(s"Cached trigger $typeName rejected due to invalid dependencies")
+    })
+
+    accepted.foreach(trigger => {
+      val declaration = trigger.declaration
+      types.put(declaration)
+      declaration.propagateDependencies()
+
+      // Report any (existing) diagnostics
+      val path = declaration.location.path
+      trigger.diagnostics
+        .filter(diagnostic =>
+          module.pkg.org.unusedEnabled || diagnostic.category != UNUSED_CATEGORY
+        )
+        .foreach(diagnostic => module.pkg.org.issues.add(Issue(path, diagnostic)))
+
+      // Seed for unused analysis of the types the trigger depends on, see validateSummaryClasses
+      module.pkg.org.pluginsManager.createPlugin(declaration)
+    })
+    accepted.map(_.declaration.location.path).toSet
+  }
+
+  private def triggerContentHash(doc: ApexTriggerDocument): (Int, Option[Array[Byte]]) = {
+    module.pkg.org.sourceManifest match {
+      case Some(manifest) => manifest.classHash(doc.path, TriggerDeclaration.metaFile(doc))
+      case None =>
+        val source = doc.path.readBytes().toOption
+        (
+          TriggerDeclaration.contentHash(doc, MurmurHash3.bytesHash(source.getOrElse(Array.empty))),
+          source
+        )
     }
   }
 }
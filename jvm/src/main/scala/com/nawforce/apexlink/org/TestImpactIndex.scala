@@ -0,0 +1,352 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.deps.ReferencingCollector
+import com.nawforce.apexlink.deps.ReferencingCollector.{NodeInfo, TestInfo}
+import com.nawforce.apexlink.types.apex.ApexDeclaration
+import com.nawforce.apexlink.types.core.{DependentType, TypeId}
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.pkgforce.modifiers.ApexModifiers
+import com.nawforce.pkgforce.names.TypeIdentifier
+import com.nawforce.pkgforce.path.PathLike
+import upickle.default.{macroRW, readBinary, writeBinary, ReadWriter => RW}
+
+import scala.annotation.tailrec
+import scala.collection.mutable
+import scala.util.hashing.MurmurHash3
+
+/** Types reached by walking from a test class, see [[ReferencingCollector.testDependencies]].
+  * Primary and secondary map each type reached to the next type on the path back to the test
+  * class for primary and non-primary searches. Touched holds the outer types the walks examined.
+  */
+final case class TestImpactWalk(
+  primary: Map[TypeIdentifier, TypeIdentifier],
+  secondary: Map[TypeIdentifier, TypeIdentifier],
+  touched: Array[TypeIdentifier]
+)
+
+object TestImpactWalk {
+  implicit val rw: RW[TestImpactWalk] = macroRW
+}
+
+final case class TestImpactKey(typeId: TypeIdentifier, primary: Boolean)
+
+final case class TestImpactData(
+  version: Int,
+  hashes: Map[TypeIdentifier, Int],
+  walks: Map[TypeIdentifier, TestImpactWalk]
+)
+
+object TestImpactData {
+  implicit val rw: RW[TestImpactData] = macroRW
+}
+
+/** Index from types to the test classes that reach them through references.
+  *
+  * The index is built by walking from each test class through the types it depends on and
+  * inverting the result, so that finding the tests impacted by some types is a lookup. It is built
+  * in full when first needed. After that a refresh marks the outer types it changed and the walks
+  * from test classes that touched them, or are declared in them, are redone before the refresh
+  * completes.
+  *
+  * When the org has a [[com.nawforce.pkgforce.documents.ParsedCache]] the walks are saved to it on
+  * flush along with the source hash of each outer Apex type. When loaded, walks that touched a type
+  * whose hash has changed, or a holder of one, are redone as if the type had been refreshed.
+  */
+final class TestImpactIndex(org: OPM.OrgImpl, file: Option[PathLike]) {
+  import TestImpactIndex._
+
+  private val walks     = mutable.HashMap[TypeIdentifier, TestImpactWalk]()
+  private val tests     = mutable.HashMap[TestImpactKey, mutable.Set[TypeIdentifier]]()
+  private val touchedBy = mutable.HashMap[TypeIdentifier, mutable.Set[TypeIdentifier]]()
+  private val changed   = mutable.Set[TypeIdentifier]()
+  private var built     = false
+  private var dirty     = false
+  private var walked    = 0
+
+  /** Find test classes referencing the sources. Where a test is reached from more than one source
+    * the shortest explanation is returned.
+    */
+  def testReferences(sources: Set[NodeInfo]): Set[TestInfo] = synchronized {
+    update()
+
+    val found = mutable.Map[String, TestInfo]()
+    sources.foreach(source => {
+      val typeId = source.td.typeId.asTypeIdentifier
+      tests
+        .get(TestImpactKey(typeId, source.primary))
+        .foreach(_.flatMap(testClass => explain(testClass, typeId, source.primary)).foreach(test => {
+          val name = test.testClass.typeName.toString
+          if (found.get(name).forall(existing => precedes(test, existing)))
+            found.put(name, test)
+        }))
+    })
+    found.values.toSet
+  }
+
+  /** Mark types as changed, walks impacted by them are redone on the next update. */
+  def invalidate(typeIds: Iterable[TypeId]): Unit = synchronized {
+    if (built)
+      typeIds.foreach(typeId => changed.add(outerIdentifier(typeId)))
+  }
+
+  /** Build the index if needed and redo walks impacted by changed types. */
+  def update(): Unit = synchronized {
+    if (!built) {
+      built = true
+      load() match {
+        case Some(data) =>
+          data.walks.foreach { case (testClass, walk) => put(testClass, walk) }
+          changed.addAll(changedSince(data.hashes))
+        case None =>
+          val dependencies = holding()
+          testClasses(org.packages.flatMap(_.modules.flatMap(_.types.values())))
+            .foreach(walk(_, dependencies))
+          dirty = true
+      }
+    }
+
+    if (changed.nonEmpty) {
+      val testIds = mutable.Set[TypeIdentifier]()
+      changed.foreach(typeId => {
+        touchedBy.get(typeId).foreach(testIds.addAll)
+        declaration(typeId)
+          .map(td => testClasses(td +: td.nestedTypes))
+          .foreach(_.foreach(td => testIds.add(td.typeId.asTypeIdentifier)))
+      })
+      changed.clear()
+
+      val dependencies = holding()
+      testIds.foreach(testId => {
+        remove(testId)
+        declaration(testId).filter(isTestClass).foreach(walk(_, dependencies))
+      })
+    }
+  }
+
+  /** Number of test classes walked from. */
+  def size: Int = synchronized { walks.size }
+
+  /** Number of walks performed since the index was created. */
+  private[org] def walkCount: Int = synchronized { walked }
+
+  /** Write the walks if they have changed, ignores storage errors. Walks are not written while
+    * changes are waiting for an update as they may not match the current sources.
+    */
+  def save(): Unit = {
+    org.refreshLock.read {
+      synchronized {
+        if (dirty && changed.isEmpty) {
+          file.foreach(file => {
+            val data = TestImpactData(FORMAT_VERSION, sourceHashes(), walks.toMap)
+            file.write(writeBinary(data)) match {
+              case Some(err) => LoggerOps.debug(s"Failed writing test impact index $file: $err")
+              case None      => dirty = false
+            }
+          })
+        }
+      }
+    }
+  }
+
+  private def load(): Option[TestImpactData] = {
+    file
+      .filter(_.isFile)
+      .flatMap(file =>
+        try {
+          file.readBytes().toOption.map(readBinary[TestImpactData](_))
+        } catch {
+          case ex: Exception =>
+            LoggerOps.debug(s"Caught exception loading test impact index $file: $ex")
+            None
+        }
+      )
+      .filter(_.version == FORMAT_VERSION)
+  }
+
+  /** Outer types that differ from the saved hashes, with the current holders of those types as
+    * these would be re-validated had the types been refreshed.
+    */
+  private def changedSince(hashes: Map[TypeIdentifier, Int]): Set[TypeIdentifier] = {
+    val current = sourceHashes()
+    val differ =
+      (current.keySet ++ hashes.keySet).filter(typeId => current.get(typeId) != hashes.get(typeId))
+    differ ++ differ
+      .flatMap(declaration)
+      .flatMap(td => (td +: td.nestedTypes).flatMap(_.getDependencyHolders))
+      .flatMap(_.thisTypeIdOpt)
+      .map(outerIdentifier)
+  }
+
+  private def walk(
+    testClass: ApexDeclaration,
+    dependencies: ApexDeclaration => Set[ApexDeclaration]
+  ): Unit = {
+    val touched = mutable.Set[TypeIdentifier](testClass.outerTypeId.asTypeIdentifier)
+    def search(primary: Boolean): Map[TypeIdentifier, TypeIdentifier] = {
+      ReferencingCollector
+        .testDependencies(
+          testClass,
+          primary,
+          dependencies,
+          td => touched.add(td.outerTypeId.asTypeIdentifier)
+        )
+        .map { case (td, next) => (td.typeId.asTypeIdentifier, next.typeId.asTypeIdentifier) }
+    }
+
+    put(
+      testClass.typeId.asTypeIdentifier,
+      TestImpactWalk(search(primary = true), search(primary = false), touched.toArray)
+    )
+    walked += 1
+    dirty = true
+  }
+
+  /** Construct the explanation for a test class from the walk from it, fails if any of the types
+    * can no longer be found.
+    */
+  private def explain(
+    testClass: TypeIdentifier,
+    source: TypeIdentifier,
+    primary: Boolean
+  ): Option[TestInfo] = {
+    walks
+      .get(testClass)
+      .flatMap(walk => {
+        val next = if (primary) walk.primary else walk.secondary
+
+        @tailrec
+        def path(acc: List[TypeIdentifier]): Option[List[TypeIdentifier]] = {
+          if (acc.head == testClass) Some(acc)
+          else if (acc.length > next.size) None
+          else
+            next.get(acc.head) match {
+              case Some(typeId) => path(typeId :: acc)
+              case None         => None
+            }
+        }
+
+        path(List(source))
+      })
+      .flatMap(path => {
+        val explain = path.map(declaration)
+        if (explain.forall(_.nonEmpty)) Some(TestInfo(explain.head.get, explain.flatten)) else None
+      })
+  }
+
+  private def put(testClass: TypeIdentifier, walk: TestImpactWalk): Unit = {
+    remove(testClass)
+    walks.put(testClass, walk)
+    walk.primary.keys.foreach(typeId =>
+      tests.getOrElseUpdate(TestImpactKey(typeId, primary = true), mutable.Set()).add(testClass)
+    )
+    walk.secondary.keys.foreach(typeId =>
+      tests.getOrElseUpdate(TestImpactKey(typeId, primary = false), mutable.Set()).add(testClass)
+    )
+    walk.touched.foreach(typeId =>
+      touchedBy.getOrElseUpdate(typeId, mutable.Set()).add(testClass)
+    )
+  }
+
+  private def remove(testClass: TypeIdentifier): Unit = {
+    def drop[K](map: mutable.HashMap[K, mutable.Set[TypeIdentifier]], key: K): Unit = {
+      map
+        .get(key)
+        .foreach(testClasses => {
+          testClasses.remove(testClass)
+          if (testClasses.isEmpty) map.remove(key)
+        })
+    }
+
+    walks
+      .remove(testClass)
+      .foreach(walk => {
+        walk.primary.keys.foreach(typeId => drop(tests, TestImpactKey(typeId, primary = true)))
+        walk.secondary.keys.foreach(typeId => drop(tests, TestImpactKey(typeId, primary = false)))
+        walk.touched.foreach(typeId => drop(touchedBy, typeId))
+        dirty = true
+      })
+  }
+
+  /** Declarations that a declaration is a dependency holder of, retained for the walks of a single
+    * update. Candidates are the Apex dependencies of the outer type, these are then checked against
+    * the dependency holders that a [[ReferencingCollector.testReferences]] search would follow.
+    */
+  private def holding(): ApexDeclaration => Set[ApexDeclaration] = {
+    val retained = mutable.HashMap[ApexDeclaration, Set[ApexDeclaration]]()
+    td =>
+      retained.getOrElseUpdate(
+        td, {
+          val candidates = mutable.Set[TypeId]()
+          td.outerTypeDeclaration
+            .collect { case outer: ApexDeclaration => outer }
+            .getOrElse(td)
+            .gatherDependencies(candidates, apexOnly = true, outerTypesOnly = false, org.typeCache)
+          candidates
+            .flatMap(typeId => typeId.module.findType(typeId.typeName).toOption)
+            .collect { case dependent: ApexDeclaration => dependent }
+            .filter(_.getDependencyHolders.exists(_.thisTypeIdOpt.contains(td.typeId)))
+            .toSet
+        }
+      )
+  }
+
+  private def declaration(id: TypeIdentifier): Option[ApexDeclaration] = {
+    org.findTypeIdentifier(id).collect { case td: ApexDeclaration => td }
+  }
+
+  private def outerIdentifier(typeId: TypeId): TypeIdentifier = {
+    typeId.module
+      .moduleType(typeId.typeName)
+      .collect { case dt: DependentType => dt.outerTypeId }
+      .getOrElse(typeId)
+      .asTypeIdentifier
+  }
+
+  /** Source hash of each outer Apex type, saved walks are only valid for the same sources. */
+  private def sourceHashes(): Map[TypeIdentifier, Int] = {
+    org.packages
+      .flatMap(_.modules.flatMap(_.types.values().collect {
+        case td: ApexDeclaration if td.outerTypeName.isEmpty =>
+          (td.typeId.asTypeIdentifier, td.sourceHash)
+      }))
+      .toMap
+  }
+}
+
+object TestImpactIndex {
+  private val FORMAT_VERSION: Int = 2
+
+  /** Open the index for an org, walks are saved to the cache directory when one is available. */
+  def apply(org: OPM.OrgImpl): TestImpactIndex = {
+    val key = MurmurHash3.stringHash(org.path.toString)
+    new TestImpactIndex(org, org.parsedCache.map(_.path.join(f"test-impact-$key%08x")))
+  }
+
+  private def isTestClass(td: ApexDeclaration): Boolean =
+    ApexModifiers.hasTestClassModifier(td.modifiers)
+
+  private def testClasses(types: Iterable[_]): Iterable[ApexDeclaration] =
+    types.collect { case td: ApexDeclaration if isTestClass(td) => td }
+
+  /** Order tests reached by more than one route, shortest explanation and then by name. */
+  private def precedes(test: TestInfo, existing: TestInfo): Boolean = {
+    val length = test.explain.length - existing.explain.length
+    length < 0 || (length == 0 && names(test) < names(existing))
+  }
+
+  private def names(test: TestInfo): String = test.explain.map(_.typeName.toString).mkString(" ")
+}
@@ -4,20 +4,44 @@
 
 package com.nawforce.apexlink.org
 
+import com.nawforce.apexlink.finding.TypeResolver.TypeCache
+import com.nawforce.apexlink.types.apex.ApexClassDeclaration
 import com.nawforce.apexlink.types.core.TypeDeclaration
 import com.nawforce.pkgforce.names.TypeName
 import com.nawforce.pkgforce.names.TypeNameFuncs.TypeNameFuncs
 
+import java.util.concurrent.locks.ReentrantReadWriteLock
+import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
 
 /** Cache of TypeDeclarations against their TypeName. Provided to speed up Schema namespace
   * searched by avoiding the need to construct a new TypeName for each search.
+  *
+  * The cache is safe for concurrent use, lookups share a read lock so that parallel validation is
+  * not serialised on type resolution. Bulk accessors return a snapshot of the current entries.
+  * Apex class names are also indexed to support completion without scanning all entries. Changes
+  * are recorded against the passed TypeCache so resolutions that may depend on them are not
+  * reused.
   */
-class TypeDeclarationCache {
+class TypeDeclarationCache(typeCache: TypeCache = new TypeCache()) {
   private val allTypes    = mutable.Map[TypeName, TypeDeclaration]()
   private val schemaTypes = mutable.Map[TypeName, TypeDeclaration]()
+  private val apexNames   = new TypeNameIndex()
+  private val lock        = new ReentrantReadWriteLock()
 
-  def size: Int = {
+  private def read[T](op: => T): T = {
+    lock.readLock().lock()
+    try op
+    finally lock.readLock().unlock()
+  }
+
+  private def write[T](op: => T): T = {
+    lock.writeLock().lock()
+    try op
+    finally lock.writeLock().unlock()
+  }
+
+  def size: Int = read {
     allTypes.size
   }
 
@@ -27,48 +51,70 @@ class TypeDeclarationCache {
 
   /** Upsert an entry. Beware, assumes the TypeName is fully qualified. */
   def put(typeName: TypeName, td: TypeDeclaration): Unit = {
-    allTypes.put(typeName, td)
     val stripped = typeName.replaceTail(TypeName.Schema, None)
-    if (stripped ne typeName)
-      schemaTypes.put(stripped, td)
+    write {
+      typeCache.advance(typeName)
+      allTypes.put(typeName, td)
+      if (stripped ne typeName)
+        schemaTypes.put(stripped, td)
+      td match {
+        case _: ApexClassDeclaration => apexNames.add(typeName)
+        case _                       => apexNames.remove(typeName)
+      }
+    }
   }
 
-  def get(typeName: TypeName): Option[TypeDeclaration] = {
+  def get(typeName: TypeName): Option[TypeDeclaration] = read {
     allTypes.get(typeName)
   }
 
-  def getUnsafe(typeName: TypeName): TypeDeclaration = {
+  def getUnsafe(typeName: TypeName): TypeDeclaration = read {
     allTypes(typeName)
   }
 
-  def getWithSchema(typeName: TypeName): Option[TypeDeclaration] = {
+  def getWithSchema(typeName: TypeName): Option[TypeDeclaration] = read {
     schemaTypes.get(typeName)
   }
 
-  def contains(typeName: TypeName): Boolean = {
+  def contains(typeName: TypeName): Boolean = read {
     allTypes.contains(typeName)
   }
 
-  def values(): Iterable[TypeDeclaration] = {
-    allTypes.values
+  def values(): Iterable[TypeDeclaration] = read {
+    ArraySeq.unsafeWrapArray(allTypes.values.toArray[TypeDeclaration])
   }
 
   def filter(
     pred: ((TypeName, TypeDeclaration)) => Boolean
-  ): mutable.Map[TypeName, TypeDeclaration] = {
+  ): mutable.Map[TypeName, TypeDeclaration] = read {
     allTypes.filter(pred)
   }
 
-  def collect[T](pf: PartialFunction[(TypeName, TypeDeclaration), T]): mutable.Iterable[T] = {
+  def collect[T](pf: PartialFunction[(TypeName, TypeDeclaration), T]): mutable.Iterable[T] = read {
     allTypes.collect(pf)
   }
 
+  /** Find up to limit Apex classes with names matching the term by prefix or camel humps, see
+    * TypeNameIndex for the ordering.
+    */
+  def findApexClasses(term: String, limit: Int): Array[ApexClassDeclaration] = read {
+    apexNames
+      .find(term, limit)
+      .flatMap(allTypes.get)
+      .collect { case td: ApexClassDeclaration => td }
+      .toArray
+  }
+
   def remove(typeName: TypeName): Option[TypeDeclaration] = {
-    val result   = allTypes.remove(typeName)
     val stripped = typeName.replaceTail(TypeName.Schema, None)
-    if (stripped != typeName) {
-      schemaTypes.remove(stripped)
+    write {
+      typeCache.advance(typeName)
+      val result = allTypes.remove(typeName)
+      apexNames.remove(typeName)
+      if (stripped != typeName) {
+        schemaTypes.remove(stripped)
+      }
+      result
     }
-    result
   }
 }
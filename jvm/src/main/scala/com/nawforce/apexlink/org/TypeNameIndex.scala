@@ -0,0 +1,137 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.pkgforce.names.TypeName
+
+import java.util
+import scala.collection.mutable
+
+/** Case-insensitive index of type names for completion. Names are held sorted so that those
+  * starting with a prefix can be found without scanning, a second map keyed on the initials of
+  * the camel humps in a name supports matching terms such as 'AccS' against 'AccountService'.
+  *
+  * The index is not synchronised, the owner is expected to guard access.
+  */
+final class TypeNameIndex {
+  import TypeNameIndex._
+
+  private val byName  = new util.TreeMap[String, mutable.Set[TypeName]]()
+  private val byHumps = new util.TreeMap[String, mutable.Set[TypeName]]()
+
+  def add(typeName: TypeName): Unit = {
+    val name = typeName.name.value
+    byName.computeIfAbsent(name.toLowerCase, _ => mutable.Set[TypeName]()).add(typeName)
+    byHumps.computeIfAbsent(initials(humps(name)), _ => mutable.Set[TypeName]()).add(typeName)
+  }
+
+  def remove(typeName: TypeName): Unit = {
+    val name = typeName.name.value
+    removeFrom(byName, name.toLowerCase, typeName)
+    removeFrom(byHumps, initials(humps(name)), typeName)
+  }
+
+  /** Find up to limit type names matching the term. Prefix matches are returned in name order
+    * before any camel hump matches. An empty term matches all names.
+    */
+  def find(term: String, limit: Int): Seq[TypeName] = {
+    val found = mutable.LinkedHashSet[TypeName]()
+
+    val prefixMatches = prefixRange(byName, term.toLowerCase).iterator()
+    while (found.size < limit && prefixMatches.hasNext)
+      prefixMatches.next().foreach(typeName => if (found.size < limit) found.add(typeName))
+
+    val termHumps = humps(term)
+    if (termHumps.length > 1) {
+      val humpMatches = prefixRange(byHumps, initials(termHumps)).iterator()
+      while (found.size < limit && humpMatches.hasNext) {
+        humpMatches
+          .next()
+          .toSeq
+          .sortBy(_.name.value.toLowerCase)
+          .foreach(typeName => {
+            if (found.size < limit && humpsMatch(termHumps, humps(typeName.name.value)))
+              found.add(typeName)
+          })
+      }
+    }
+    found.toSeq
+  }
+
+  private def prefixRange(
+    map: util.TreeMap[String, mutable.Set[TypeName]],
+    prefix: String
+  ): util.Collection[mutable.Set[TypeName]] = {
+    map.subMap(prefix, true, prefix + Char.MaxValue, false).values()
+  }
+
+  private def removeFrom(
+    map: util.TreeMap[String, mutable.Set[TypeName]],
+    key: String,
+    typeName: TypeName
+  ): Unit = {
+    Option(map.get(key)).foreach(typeNames => {
+      typeNames.remove(typeName)
+      if (typeNames.isEmpty)
+        map.remove(key)
+    })
+  }
+}
+
+object TypeNameIndex {
+
+  /** Test if a name matches a term by prefix or camel humps, ignoring case. */
+  def matches(term: String, name: String): Boolean = {
+    if (name.toLowerCase.startsWith(term.toLowerCase)) {
+      true
+    } else {
+      val termHumps = humps(term)
+      termHumps.length > 1 && humpsMatch(termHumps, humps(name))
+    }
+  }
+
+  /** Order names by how well they match a term, prefix matches first, then name order. */
+  def rank[T](term: String, values: Seq[T])(name: T => String): Seq[T] = {
+    val lowerTerm = term.toLowerCase
+    values
+      .filter(value => matches(term, name(value)))
+      .sortBy(value => {
+        val lowerName = name(value).toLowerCase
+        (!lowerName.startsWith(lowerTerm), lowerName)
+      })
+  }
+
+  /** Split a name into humps, each starting with an upper case letter or following an '_'. */
+  private def humps(name: String): Array[String] = {
+    val starts = name.indices.filter(i =>
+      i == 0 || name.charAt(i).isUpper || (name.charAt(i - 1) == '_' && name.charAt(i) != '_')
+    )
+    starts.indices
+      .map(i => {
+        val end = if (i + 1 < starts.length) starts(i + 1) else name.length
+        name.substring(starts(i), end).reverse.dropWhile(_ == '_').reverse
+      })
+      .filter(_.nonEmpty)
+      .toArray
+  }
+
+  private def initials(humps: Array[String]): String =
+    humps.map(_.charAt(0).toLower).mkString
+
+  /** Each term hump must be a prefix of the name hump in the same position. */
+  private def humpsMatch(termHumps: Array[String], nameHumps: Array[String]): Boolean = {
+    termHumps.length <= nameHumps.length &&
+    termHumps.indices.forall(i => nameHumps(i).toLowerCase.startsWith(termHumps(i).toLowerCase))
+  }
+}
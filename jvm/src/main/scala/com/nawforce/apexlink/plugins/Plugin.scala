@@ -15,19 +15,19 @@ package com.nawforce.apexlink.plugins
 
 import com.nawforce.apexlink.cst._
 import com.nawforce.apexlink.plugins.Plugin.emptyTypes
-import com.nawforce.apexlink.types.apex.{SummaryDeclaration, TriggerDeclaration}
+import com.nawforce.apexlink.types.apex.{ApexTriggerDeclaration, SummaryDeclaration}
 import com.nawforce.apexlink.types.core.DependentType
 
 class Plugin(td: DependentType, isLibrary: Boolean) {
 
   def onTypeValidated(): Seq[DependentType] = {
     td match {
-      case td: ClassDeclaration     => onClassValidated(td)
-      case td: InterfaceDeclaration => onInterfaceValidated(td)
-      case td: EnumDeclaration      => onEnumValidated(td)
-      case td: TriggerDeclaration   => onTriggerValidated(td)
-      case td: SummaryDeclaration   => onSummaryValidated(td)
-      case _                        => emptyTypes
+      case td: ClassDeclaration       => onClassValidated(td)
+      case td: InterfaceDeclaration   => onInterfaceValidated(td)
+      case td: EnumDeclaration        => onEnumValidated(td)
+      case td: ApexTriggerDeclaration => onTriggerValidated(td)
+      case td: SummaryDeclaration     => onSummaryValidated(td)
+      case _                          => emptyTypes
     }
   }
 
@@ -37,7 +37,7 @@ class Plugin(td: DependentType, isLibrary: Boolean) {
 
   def onEnumValidated(td: EnumDeclaration): Seq[DependentType] = emptyTypes
 
-  def onTriggerValidated(td: TriggerDeclaration): Seq[DependentType] = emptyTypes
+  def onTriggerValidated(td: ApexTriggerDeclaration): Seq[DependentType] = emptyTypes
 
   def onSummaryValidated(td: SummaryDeclaration): Seq[DependentType] = emptyTypes
 
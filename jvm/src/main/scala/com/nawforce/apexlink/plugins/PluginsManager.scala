@@ -23,6 +23,8 @@ import scala.collection.mutable
   * to normal validation to limit GC costs while also supporting type level analysis after all types
   * have been validated. Plugins may dynamically add additional types for analysis as part of the
   * close handling.
+  *
+  * Plugins may be created from concurrent validation so access to the live plugins is synchronized.
   */
 class PluginsManager(isLibrary: Boolean = false, unusedEnabled: Boolean = true) {
   private val availablePlugins = activePlugins().filter(constructor =>
@@ -31,14 +33,14 @@ class PluginsManager(isLibrary: Boolean = false, unusedEnabled: Boolean = true)
   private val livePlugins = new mutable.HashMap[DependentType, Option[Plugin]]()
 
   /** Create a new plugin dispatcher for a DependentType. */
-  def createPlugin(td: DependentType): Plugin = {
+  def createPlugin(td: DependentType): Plugin = synchronized {
     val plugin = PluginDispatcher(availablePlugins, td, isLibrary)
     livePlugins.put(td, Some(plugin))
     plugin
   }
 
   /** Close all open plugins. */
-  def closePlugins(): Unit = {
+  def closePlugins(): Unit = synchronized {
     val toClose = livePlugins.filter(_._2.nonEmpty)
     toClose.keys.foreach(dt => livePlugins.put(dt, None))
 
@@ -20,9 +20,9 @@ import com.nawforce.apexlink.types.apex.{
   ApexClassDeclaration,
   ApexFieldLike,
   ApexMethodLike,
+  ApexTriggerDeclaration,
   FullDeclaration,
-  SummaryDeclaration,
-  TriggerDeclaration
+  SummaryDeclaration
 }
 import com.nawforce.apexlink.types.core.{
   Dependent,
@@ -55,7 +55,7 @@ class UnusedPlugin(td: DependentType, isLibrary: Boolean) extends Plugin(td, isL
 
   override def onInterfaceValidated(td: InterfaceDeclaration): Seq[DependentType] = reportUnused(td)
 
-  override def onTriggerValidated(td: TriggerDeclaration): Seq[DependentType] = {
+  override def onTriggerValidated(td: ApexTriggerDeclaration): Seq[DependentType] = {
     // Return Apex types the trigger depends on so they can be evaluated for unused warnings.
     // This is needed when dependent types are loaded from cache as SummaryDeclarations and are
     // not otherwise present in livePlugins for unused analysis.
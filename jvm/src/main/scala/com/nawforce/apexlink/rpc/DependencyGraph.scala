@@ -30,6 +30,28 @@ object DependencyGraph {
   implicit val rwName: RW[Name]                     = macroRW
 }
 
+/** A page of the nodes of a dependency graph along with the links from those nodes. Link source and
+  * target values index the nodes of the whole graph so pages can be concatenated. The version
+  * changes whenever org types are added, removed or refreshed, pages with different versions
+  * should not be combined.
+  */
+case class DependencyGraphPage(
+  version: Long,
+  offset: Int,
+  total: Int,
+  nodeData: Array[DependencyNode],
+  linkData: Array[DependencyLink]
+)
+
+object DependencyGraphPage {
+  implicit val rw: RW[DependencyGraphPage]          = macroRW
+  implicit val rwNode: RW[DependencyNode]           = macroRW
+  implicit val rwLink: RW[DependencyLink]           = macroRW
+  implicit val rwTypeIdentifier: RW[TypeIdentifier] = macroRW
+  implicit val rwTypeName: RW[TypeName]             = macroRW
+  implicit val rwName: RW[Name]                     = macroRW
+}
+
 /** Node of a dependency graph, represents some kind of type declaration. */
 case class DependencyNode(
   identifier: TypeIdentifier,
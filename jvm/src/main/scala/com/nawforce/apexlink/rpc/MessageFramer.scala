@@ -0,0 +1,124 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.rpc
+
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+
+import java.io.OutputStream
+import java.nio.channels.{Channels, ReadableByteChannel}
+import java.nio.charset.{CodingErrorAction, StandardCharsets}
+import java.nio.{ByteBuffer, CharBuffer}
+
+/** Splits a byte stream into NUL terminated messages. Bytes are read directly into a buffer which
+  * is only scanned from where the last scan stopped. Each message is decoded from the buffer in
+  * place and the bytes of any partial message are moved to the start of the buffer before the
+  * next read, the buffer is grown when it is filled by a single partial message. NUL can only
+  * appear in UTF-8 as itself so framing on bytes is safe for multi-byte characters.
+  */
+final class MessageFramer(channel: ReadableByteChannel, initialCapacity: Int = 64 * 1024) {
+  private var buffer  = ByteBuffer.allocate(initialCapacity)
+  private var start   = 0
+  private var scanned = 0
+
+  /** The next message, blocking until one is available, or None at the end of the stream. */
+  def next(): Option[String] = {
+    while (true) {
+      val terminator = scan()
+      if (terminator != -1) {
+        val message =
+          new String(buffer.array(), start, terminator - start, StandardCharsets.UTF_8)
+        start = terminator + 1
+        scanned = start
+        return Some(message)
+      }
+
+      makeSpace()
+      val read = channel.read(buffer)
+      if (read == -1)
+        return None
+      LoggerOps.trace(s"RPCServer Received $read bytes")
+    }
+    None
+  }
+
+  /** Find the next terminator between the last scan position and the end of the read data. */
+  private def scan(): Int = {
+    val bytes = buffer.array()
+    val end   = buffer.position()
+    while (scanned < end) {
+      if (bytes(scanned) == 0)
+        return scanned
+      scanned += 1
+    }
+    -1
+  }
+
+  /** Move any partial message to the start of the buffer, growing it if that leaves no room. */
+  private def makeSpace(): Unit = {
+    val length = buffer.position() - start
+    if (start > 0) {
+      System.arraycopy(buffer.array(), start, buffer.array(), 0, length)
+      buffer.position(length)
+      scanned -= start
+      start = 0
+    }
+    if (!buffer.hasRemaining) {
+      val grown = ByteBuffer.allocate(buffer.capacity() * 2)
+      grown.put(buffer.array(), 0, length)
+      buffer = grown
+    }
+  }
+}
+
+/** Writes NUL terminated messages to an output stream. Messages are encoded as UTF-8 through a
+  * fixed size buffer so large messages are not copied into a byte array before being written.
+  * Writes are synchronized so that messages from different threads are not interleaved.
+  */
+final class MessageWriter(output: OutputStream, capacity: Int = 64 * 1024) {
+  private val channel = Channels.newChannel(output)
+  private val buffer  = ByteBuffer.allocate(capacity)
+  private val encoder = StandardCharsets.UTF_8
+    .newEncoder()
+    .onMalformedInput(CodingErrorAction.REPLACE)
+    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+
+  def write(message: CharSequence): Unit = synchronized {
+    val chars = CharBuffer.wrap(message)
+    encoder.reset()
+    var done = false
+    while (!done) {
+      val result = encoder.encode(chars, buffer, true)
+      if (result.isOverflow)
+        drain()
+      else if (result.isUnderflow)
+        done = true
+      else
+        result.throwException()
+    }
+    while (encoder.flush(buffer).isOverflow) drain()
+
+    if (!buffer.hasRemaining)
+      drain()
+    buffer.put(0.toByte)
+    drain()
+    output.flush()
+  }
+
+  private def drain(): Unit = {
+    buffer.flip()
+    while (buffer.hasRemaining) channel.write(buffer)
+    buffer.clear()
+  }
+}
@@ -56,6 +56,21 @@ object GetIssuesResult {
     JSONRPCPickler.readwriter[String].bimap[PathLike](_.toString, Path(_))
 }
 
+/** A page of the issues that would be returned by getIssues. The version is that of the issues the
+  * page was taken from, pages with different versions should not be combined.
+  */
+case class GetIssuesPageResult(version: Long, offset: Int, total: Int, issues: Array[Issue])
+
+object GetIssuesPageResult {
+  implicit val rw: RW[GetIssuesPageResult]                          = macroRW
+  implicit val rwIssue: RW[com.nawforce.pkgforce.diagnostics.Issue] = macroRW
+  implicit val rwDiagnostic: RW[Diagnostic]                         = macroRW
+  implicit val rwDiagnosticCategory: RW[DiagnosticCategory]         = macroRW
+  implicit val rwLocation: RW[Location]                             = macroRW
+  implicit val rwPathLike: RW[PathLike] =
+    JSONRPCPickler.readwriter[String].bimap[PathLike](_.toString, Path(_))
+}
+
 case class IssuesResult(issues: Array[Issue])
 
 object IssuesResult {
@@ -68,6 +83,42 @@ object IssuesResult {
     JSONRPCPickler.readwriter[String].bimap[PathLike](_.toString, Path(_))
 }
 
+/** Issues added and removed since a version, see IssueDelta. */
+case class IssuesDeltaResult(
+  since: Long,
+  version: Long,
+  reset: Boolean,
+  added: Array[Issue],
+  removed: Array[Issue]
+)
+
+object IssuesDeltaResult {
+  implicit val rw: RW[IssuesDeltaResult]                            = macroRW
+  implicit val rwIssue: RW[com.nawforce.pkgforce.diagnostics.Issue] = macroRW
+  implicit val rwDiagnostic: RW[Diagnostic]                         = macroRW
+  implicit val rwDiagnosticCategory: RW[DiagnosticCategory]         = macroRW
+  implicit val rwLocation: RW[Location]                             = macroRW
+  implicit val rwPathLike: RW[PathLike] =
+    JSONRPCPickler.readwriter[String].bimap[PathLike](_.toString, Path(_))
+
+  def apply(delta: IssueDelta): IssuesDeltaResult = {
+    new IssuesDeltaResult(
+      delta.since,
+      delta.toVersion,
+      delta.reset,
+      delta.addedIssues.toArray,
+      delta.removedIssues.toArray
+    )
+  }
+}
+
+/** Receiver for notifications sent to the client outside of request responses. */
+trait ClientNotifier {
+
+  /** Issues have changed following a refresh. */
+  def issuesChanged(delta: IssuesDeltaResult): Unit
+}
+
 case class GetTypeIdentifiersResult(identifiers: Array[TypeIdentifier])
 
 object GetTypeIdentifiersResult {
@@ -77,6 +128,24 @@ object GetTypeIdentifiersResult {
   implicit val rwName: RW[Name]                     = macroRW
 }
 
+/** A page of the identifiers that would be returned by getTypeIdentifiers. The version changes
+  * whenever org types are added, removed or refreshed, pages with different versions should not be
+  * combined.
+  */
+case class GetTypeIdentifiersPageResult(
+  version: Long,
+  offset: Int,
+  total: Int,
+  identifiers: Array[TypeIdentifier]
+)
+
+object GetTypeIdentifiersPageResult {
+  implicit val rw: RW[GetTypeIdentifiersPageResult] = macroRW
+  implicit val rwTypeIdentifier: RW[TypeIdentifier] = macroRW
+  implicit val rwTypeName: RW[TypeName]             = macroRW
+  implicit val rwName: RW[Name]                     = macroRW
+}
+
 case class IdentifierLocationResult(pathLocation: PathLocation)
 
 object IdentifierLocationResult {
@@ -196,7 +265,12 @@ case class OpenOptions private (
   indexerConfiguration: Option[(Long, Long)] = None,
   autoFlush: Option[Boolean] = None,
   unused: Option[Boolean] = None,
-  unusedOnError: Option[Boolean] = None
+  unusedOnError: Option[Boolean] = None,
+  parallelValidation: Option[Boolean] = None,
+  segmentCache: Option[Boolean] = None,
+  referenceIndexBudget: Option[Int] = None,
+  issueNotifications: Option[Boolean] = None,
+  declarationBudget: Option[Int] = None
 ) {
   def withParser(name: String): OpenOptions = {
     copy(parser = Some(name))
@@ -245,6 +319,45 @@ case class OpenOptions private (
   def withUnusedOnError(enabled: Boolean): OpenOptions = {
     copy(unusedOnError = Some(enabled))
   }
+
+  /** Configure whether loaded types are validated concurrently. Types are grouped into layers by
+    * their super class, interfaces and outer types and each layer is validated on a fork-join pool.
+    * Disabled by default, when enabled the reported issues are the same as for sequential loading.
+    */
+  def withParallelValidation(enabled: Boolean): OpenOptions = {
+    copy(parallelValidation = Some(enabled))
+  }
+
+  /** Configure whether the parsed class cache is held in memory mapped segment files rather than
+    * a file per class. Segments reduce the file system overhead of loading from the cache.
+    */
+  def withSegmentCache(enabled: Boolean): OpenOptions = {
+    copy(segmentCache = Some(enabled))
+  }
+
+  /** Configure the index of the references made by validated classes so finding references does
+    * not need to re-validate every class that may reference the target. The index is limited to
+    * approximately the passed number of megabytes, 32 by default, zero disables the index.
+    */
+  def withReferenceIndex(budgetMb: Int): OpenOptions = {
+    copy(referenceIndexBudget = Some(budgetMb))
+  }
+
+  /** Configure whether an 'issuesChanged' notification holding the issues added and removed is
+    * sent to the client after each refresh. Disabled by default.
+    */
+  def withIssueNotifications(enabled: Boolean): OpenOptions = {
+    copy(issueNotifications = Some(enabled))
+  }
+
+  /** Configure a budget for the full class declarations held after they are parsed by a refresh or
+    * loaded without the cache. When their approximate size exceeds the passed number of megabytes
+    * the least recently used are replaced by summaries on the next flush, as if they had been
+    * loaded from the cache. Zero disables the budget which is the default.
+    */
+  def withDeclarationBudget(budgetMb: Int): OpenOptions = {
+    copy(declarationBudget = Some(budgetMb))
+  }
 }
 
 object OpenOptions {
@@ -288,6 +401,15 @@ trait OrgAPI {
   @api.JSONRPCMethod(name = "getIssues")
   def getIssues(includeWarnings: Boolean, maxIssuesPerFile: Int): Future[GetIssuesResult]
 
+  /** Page through the issues of getIssues, a limit of zero returns all issues from the offset. */
+  @api.JSONRPCMethod(name = "getIssuesPage")
+  def getIssuesPage(
+    includeWarnings: Boolean,
+    maxIssuesPerFile: Int,
+    offset: Int,
+    limit: Int
+  ): Future[GetIssuesPageResult]
+
   @api.JSONRPCMethod(name = "hasUpdatedIssues")
   def hasUpdatedIssues: Future[Array[String]]
 
@@ -304,6 +426,9 @@ trait OrgAPI {
     maxErrorsPerFile: Int
   ): Future[IssuesResult]
 
+  @api.JSONRPCMethod(name = "issuesSince")
+  def issuesSince(version: Long): Future[IssuesDeltaResult]
+
   @api.JSONRPCMethod(name = "refresh")
   def refresh(path: String, highPriority: Boolean): Future[Unit]
 
@@ -318,6 +443,29 @@ trait OrgAPI {
     ignoring: IdentifiersRequest
   ): Future[DependencyGraph]
 
+  /** Page through the identifiers of getTypeIdentifiers, a limit of zero returns all identifiers
+    * from the offset.
+    */
+  @api.JSONRPCMethod(name = "getTypeIdentifiersPage")
+  def typeIdentifiersPage(
+    apexOnly: Boolean,
+    offset: Int,
+    limit: Int
+  ): Future[GetTypeIdentifiersPageResult]
+
+  /** Page through the nodes of dependencyGraph, see DependencyGraphPage. A limit of zero returns
+    * all nodes from the offset.
+    */
+  @api.JSONRPCMethod(name = "dependencyGraphPage")
+  def dependencyGraphPage(
+    identifiers: IdentifiersRequest,
+    depth: Int,
+    apexOnly: Boolean,
+    ignoring: IdentifiersRequest,
+    offset: Int,
+    limit: Int
+  ): Future[DependencyGraphPage]
+
   @api.JSONRPCMethod(name = "identifierLocation")
   def identifierLocation(identifier: IdentifierRequest): Future[IdentifierLocationResult]
 
@@ -15,25 +15,46 @@
 package com.nawforce.apexlink.rpc
 
 import com.nawforce.apexlink.api.{Org, ServerOps}
-import com.nawforce.apexlink.org.{OPM, OrgInfo}
-import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.apexlink.org.{OPM, OrgInfo, RefreshListener}
+import com.nawforce.pkgforce.diagnostics.{Issue, IssueLogger, LoggerOps}
 import com.nawforce.pkgforce.names.TypeIdentifier
 import com.nawforce.pkgforce.path.PathLike
 import com.nawforce.runtime.platform.{Environment, Path}
 
-import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{Executors, LinkedBlockingQueue, ThreadFactory}
 import scala.concurrent.ExecutionContext.Implicits.global
 import scala.concurrent.{Future, Promise}
 
 trait APIRequest {
   def process(org: OrgQueue): Unit
+
+  /** Reads may be processed concurrently with each other, other requests are processed alone.
+    * Reads must not change the types held by the org, although they may validate source such as
+    * when finding definitions or completions as this leaves the types unchanged. Finding
+    * references is a read as it is normally answered by the org reference index, when it is not
+    * the types are re-validated holding the org lock exclusively.
+    */
+  def isRead: Boolean = false
 }
 
-class OrgQueue(path: String, options: OpenOptions) {
+/** Queue of API requests against an org. Requests are dispatched in the order they are queued
+  * once any queued metadata refresh has completed. Reads are handed to a fixed size pool so a
+  * slow request does not hold up those behind it. Other requests wait for running reads to
+  * complete and then run alone.
+  */
+class OrgQueue(path: String, options: OpenOptions, notifier: Option[ClientNotifier] = None) {
   self =>
   val org: Org = Org.newOrg(Path(path), options)
 
+  if (options.issueNotifications.contains(true))
+    notifier.foreach(notifier => {
+      val issues = org.asInstanceOf[OPM.OrgImpl].issues
+      org.setRefreshListener(Some(new IssuesChangedListener(issues, notifier)))
+    })
+
   private val queue      = new LinkedBlockingQueue[APIRequest]()
+  private val readers    = Executors.newFixedThreadPool(OrgQueue.readers, OrgQueue.threadFactory)
   private val dispatcher = new APIRequestDispatcher()
   new Thread(dispatcher).start()
 
@@ -43,16 +64,72 @@ class OrgQueue(path: String, options: OpenOptions) {
       while (true) {
         val request = queue.take()
 
-        while (org.isDirty()) Thread.sleep(50)
-
-        request.process(self)
+        org.asInstanceOf[OPM.OrgImpl].awaitRefreshed()
+
+        if (request.isRead) {
+          running.started()
+          readers.execute(() =>
+            try process(request)
+            finally running.completed()
+          )
+        } else {
+          running.await()
+          process(request)
+        }
       }
     }
   }
 
+  /** Count of reads being processed. */
+  private object running {
+    private var count = 0
+
+    def started(): Unit = synchronized { count += 1 }
+
+    def completed(): Unit = synchronized {
+      count -= 1
+      if (count == 0) notifyAll()
+    }
+
+    def await(): Unit = synchronized { while (count > 0) wait() }
+  }
+
+  private def process(request: APIRequest): Unit = {
+    try {
+      request.process(self)
+    } catch {
+      case ex: Throwable =>
+        LoggerOps.info(s"API request ${request.getClass.getSimpleName} failed", ex)
+    }
+  }
+
   def add(request: APIRequest): Unit =
     queue.add(request)
 
+  /** The last results paged through, reused for following pages of the same request. */
+  private[rpc] val pagedIssues      = new PagedSnapshot[(Boolean, Int), Array[Issue]]()
+  private[rpc] val pagedIdentifiers = new PagedSnapshot[Boolean, Array[TypeIdentifier]]()
+  private val pagedGraph            = new PagedSnapshot[DependencyGraphKey, DependencyGraph]()
+
+  /** Obtain a dependency graph for paging, the graph is reused for following pages of the same
+    * request while the org types are unchanged.
+    */
+  def pagedDependencyGraph(key: DependencyGraphKey): (Long, DependencyGraph) = {
+    val orgImpl = org.asInstanceOf[OPM.OrgImpl]
+    orgImpl.refreshLock.read {
+      val version = orgImpl.typeCache.version
+      val graph = pagedGraph(key, version) {
+        org.getDependencyGraph(
+          key.identifiers.toArray,
+          key.depth,
+          key.apexOnly,
+          key.ignoring.toArray
+        )
+      }
+      (version, graph)
+    }
+  }
+
   def refresh(path: String, highPriority: Boolean): Unit = {
     Option(org.getPackageForPath(path)).foreach(_.refresh(path, highPriority))
   }
@@ -83,6 +160,8 @@ case class GetIssues(
   includeWarnings: Boolean,
   maxIssuesPerFile: Int
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
 
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
@@ -110,7 +189,76 @@ object GetIssues {
   }
 }
 
+/** Offset and end of the items for a page, a limit of zero or less returns all remaining items. */
+private[rpc] object Page {
+  def range(total: Int, offset: Int, limit: Int): (Int, Int) = {
+    val from = offset.max(0).min(total)
+    (from, if (limit > 0) (from.toLong + limit).min(total.toLong).toInt else total)
+  }
+}
+
+/** The last result paged through by a kind of request along with the request arguments and the
+  * version it was built at. Following pages are sliced from it while both are unchanged rather
+  * than building the whole result again for each page.
+  */
+private[rpc] final class PagedSnapshot[K, T] {
+  private var last: Option[(K, Long, T)] = None
+
+  def apply(key: K, version: Long)(build: => T): T = {
+    val cached = synchronized {
+      last.collect { case (`key`, `version`, result) => result }
+    }
+    cached.getOrElse {
+      val result = build
+      synchronized { last = Some((key, version, result)) }
+      result
+    }
+  }
+}
+
+case class GetIssuesPage(
+  promise: Promise[GetIssuesPageResult],
+  includeWarnings: Boolean,
+  maxIssuesPerFile: Int,
+  offset: Int,
+  limit: Int
+) extends APIRequest {
+  override def isRead: Boolean = true
+
+  override def process(queue: OrgQueue): Unit = {
+    val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
+    OrgInfo.current.withValue(orgImpl) {
+      val issues = orgImpl.issueManager
+      val (version, all) = issues.synchronized {
+        val version = issues.version
+        val all = queue.pagedIssues((includeWarnings, maxIssuesPerFile), version) {
+          issues.issuesForFilesInternal(null, includeWarnings, maxIssuesPerFile).toArray
+        }
+        (version, all)
+      }
+      val (from, until) = Page.range(all.length, offset, limit)
+      promise.success(GetIssuesPageResult(version, from, all.length, all.slice(from, until)))
+    }
+  }
+}
+
+object GetIssuesPage {
+  def apply(
+    queue: OrgQueue,
+    includeWarnings: Boolean,
+    maxIssuesPerFile: Int,
+    offset: Int,
+    limit: Int
+  ): Future[GetIssuesPageResult] = {
+    val promise = Promise[GetIssuesPageResult]()
+    queue.add(new GetIssuesPage(promise, includeWarnings, maxIssuesPerFile, offset, limit))
+    promise.future
+  }
+}
+
 case class HasUpdatedIssues(promise: Promise[Array[String]]) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     OrgInfo.current.withValue(orgImpl) {
@@ -145,6 +293,8 @@ object IgnoreUpdatedIssues {
 }
 
 case class IssuesForFile(promise: Promise[IssuesResult], path: String) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     OrgInfo.current.withValue(orgImpl) {
@@ -167,12 +317,53 @@ object IssuesForFile {
   }
 }
 
+case class IssuesSince(promise: Promise[IssuesDeltaResult], version: Long) extends APIRequest {
+  override def isRead: Boolean = true
+
+  override def process(queue: OrgQueue): Unit = {
+    val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
+    OrgInfo.current.withValue(orgImpl) {
+      promise.success(IssuesDeltaResult(orgImpl.issues.issueDeltaSince(version)))
+    }
+  }
+}
+
+object IssuesSince {
+  def apply(queue: OrgQueue, version: Long): Future[IssuesDeltaResult] = {
+    val promise = Promise[IssuesDeltaResult]()
+    queue.add(new IssuesSince(promise, version))
+    promise.future
+  }
+}
+
+/** Sends the issues added and removed by each refresh to the client. Each notification follows on
+  * from the version of the last, starting from the issues held when the listener was created.
+  */
+class IssuesChangedListener(issues: IssueLogger, notifier: ClientNotifier)
+    extends RefreshListener {
+  private var version = issues.version
+
+  override def onRefreshOne(orgPath: PathLike, updatedPath: PathLike): Unit = sendChanges()
+
+  override def onRefreshMany(orgPath: PathLike, updatedPaths: Seq[PathLike]): Unit = sendChanges()
+
+  private def sendChanges(): Unit = synchronized {
+    val delta = issues.issueDeltaSince(version)
+    if (delta.toVersion != version) {
+      version = delta.toVersion
+      notifier.issuesChanged(IssuesDeltaResult(delta))
+    }
+  }
+}
+
 case class IssuesForFiles(
   promise: Promise[IssuesResult],
   paths: Array[String],
   includeWarnings: Boolean,
   maxErrorsPerFile: Int
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     OrgInfo.current.withValue(orgImpl) {
@@ -202,6 +393,8 @@ object IssuesForFiles {
 
 case class TypeIdentifiers(promise: Promise[GetTypeIdentifiersResult], apexOnly: Boolean)
     extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     OrgInfo.current.withValue(orgImpl) {
@@ -218,6 +411,42 @@ object TypeIdentifiers {
   }
 }
 
+case class TypeIdentifiersPage(
+  promise: Promise[GetTypeIdentifiersPageResult],
+  apexOnly: Boolean,
+  offset: Int,
+  limit: Int
+) extends APIRequest {
+  override def isRead: Boolean = true
+
+  override def process(queue: OrgQueue): Unit = {
+    val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
+    OrgInfo.current.withValue(orgImpl) {
+      val (version, all) = orgImpl.refreshLock.read {
+        val version = orgImpl.typeCache.version
+        (version, queue.pagedIdentifiers(apexOnly, version)(orgImpl.getTypeIdentifiers(apexOnly)))
+      }
+      val (from, until) = Page.range(all.length, offset, limit)
+      promise.success(
+        GetTypeIdentifiersPageResult(version, from, all.length, all.slice(from, until))
+      )
+    }
+  }
+}
+
+object TypeIdentifiersPage {
+  def apply(
+    queue: OrgQueue,
+    apexOnly: Boolean,
+    offset: Int,
+    limit: Int
+  ): Future[GetTypeIdentifiersPageResult] = {
+    val promise = Promise[GetTypeIdentifiersPageResult]()
+    queue.add(new TypeIdentifiersPage(promise, apexOnly, offset, limit))
+    promise.future
+  }
+}
+
 case class DependencyGraphRequest(
   promise: Promise[DependencyGraph],
   identifiers: Array[TypeIdentifier],
@@ -244,10 +473,54 @@ object DependencyGraphRequest {
   }
 }
 
+/** Arguments of a dependency graph request, held as Seqs so requests can be compared. */
+case class DependencyGraphKey(
+  identifiers: Seq[TypeIdentifier],
+  depth: Int,
+  apexOnly: Boolean,
+  ignoring: Seq[TypeIdentifier]
+)
+
+case class DependencyGraphPageRequest(
+  promise: Promise[DependencyGraphPage],
+  key: DependencyGraphKey,
+  offset: Int,
+  limit: Int
+) extends APIRequest {
+  override def process(queue: OrgQueue): Unit = {
+    val (version, graph) = queue.pagedDependencyGraph(key)
+    val (from, until)    = Page.range(graph.nodeData.length, offset, limit)
+    promise.success(
+      DependencyGraphPage(
+        version,
+        from,
+        graph.nodeData.length,
+        graph.nodeData.slice(from, until),
+        graph.linkData.filter(link => link.source >= from && link.source < until)
+      )
+    )
+  }
+}
+
+object DependencyGraphPageRequest {
+  def apply(
+    queue: OrgQueue,
+    key: DependencyGraphKey,
+    offset: Int,
+    limit: Int
+  ): Future[DependencyGraphPage] = {
+    val promise = Promise[DependencyGraphPage]()
+    queue.add(new DependencyGraphPageRequest(promise, key, offset, limit))
+    promise.future
+  }
+}
+
 case class IdentifierLocation(
   promise: Promise[IdentifierLocationResult],
   identifier: TypeIdentifier
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     promise.success(IdentifierLocationResult(queue.org.getIdentifierLocation(identifier)))
   }
@@ -263,6 +536,8 @@ object IdentifierLocation {
 
 case class IdentifierForPath(promise: Promise[IdentifierForPathResult], path: String)
     extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     OrgInfo.current.withValue(orgImpl) {
@@ -287,6 +562,8 @@ case class GetDefinition(
   offset: Int,
   content: Option[String]
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     promise.success(orgImpl.getDefinition(path, line, offset, content.orNull))
@@ -314,6 +591,8 @@ case class GetImplementation(
   offset: Int,
   content: Option[String]
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     promise.success(orgImpl.getImplementation(path, line, offset, content.orNull))
@@ -340,6 +619,8 @@ case class GetReferences(
   line: Int,
   offset: Int
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     promise.success(orgImpl.getReferences(path, line, offset))
@@ -456,6 +737,8 @@ case class GetCompletionItems(
   offset: Int,
   content: String
 ) extends APIRequest {
+  override def isRead: Boolean = true
+
   override def process(queue: OrgQueue): Unit = {
     val orgImpl = queue.org.asInstanceOf[OPM.OrgImpl]
     promise.success(orgImpl.getCompletionItems(path, line, offset, content))
@@ -527,9 +810,27 @@ object GetTestMethodItems {
 object OrgQueue {
   private var _instance: Option[OrgQueue] = None
 
-  def open(path: String, options: OpenOptions = OpenOptions.default()): OrgQueue = {
+  /** Number of threads used to process reads. */
+  private val readers: Int = Math.max(2, Math.min(4, Runtime.getRuntime.availableProcessors()))
+
+  private val threadFactory: ThreadFactory = new ThreadFactory {
+    private val count = new AtomicInteger()
+
+    override def newThread(runnable: Runnable): Thread = {
+      val thread = new Thread(runnable)
+      thread.setDaemon(true)
+      thread.setName(s"apex-link request ${count.incrementAndGet()}")
+      thread
+    }
+  }
+
+  def open(
+    path: String,
+    options: OpenOptions = OpenOptions.default(),
+    notifier: Option[ClientNotifier] = None
+  ): OrgQueue = {
     synchronized {
-      _instance = Some(new OrgQueue(path, options))
+      _instance = Some(new OrgQueue(path, options, notifier))
       _instance.get
     }
   }
@@ -541,7 +842,7 @@ object OrgQueue {
   }
 }
 
-class OrgAPIImpl extends OrgAPI {
+class OrgAPIImpl(notifier: Option[ClientNotifier] = None) extends OrgAPI {
   override def version(): Future[String] = {
     Future(classOf[OrgAPIImpl].getProtectionDomain.getCodeSource.getLocation.getPath)
   }
@@ -571,12 +872,12 @@ class OrgAPIImpl extends OrgAPI {
   }
 
   override def open(directory: String): Future[OpenResult] = {
-    OrgQueue.open(directory)
+    OrgQueue.open(directory, OpenOptions.default(), notifier)
     OpenRequest(OrgQueue.instance())
   }
 
   override def open(directory: String, options: OpenOptions): Future[OpenResult] = {
-    OrgQueue.open(directory, options)
+    OrgQueue.open(directory, options, notifier)
     OpenRequest(OrgQueue.instance())
   }
 
@@ -587,6 +888,15 @@ class OrgAPIImpl extends OrgAPI {
     GetIssues(OrgQueue.instance(), includeWarnings, maxIssuesPerFile)
   }
 
+  override def getIssuesPage(
+    includeWarnings: Boolean,
+    maxIssuesPerFile: Int,
+    offset: Int,
+    limit: Int
+  ): Future[GetIssuesPageResult] = {
+    GetIssuesPage(OrgQueue.instance(), includeWarnings, maxIssuesPerFile, offset, limit)
+  }
+
   override def hasUpdatedIssues: Future[Array[String]] = {
     HasUpdatedIssues(OrgQueue.instance())
   }
@@ -607,6 +917,10 @@ class OrgAPIImpl extends OrgAPI {
     IssuesForFiles(OrgQueue.instance(), paths, includeWarnings, maxErrorsPerFile)
   }
 
+  override def issuesSince(version: Long): Future[IssuesDeltaResult] = {
+    IssuesSince(OrgQueue.instance(), version)
+  }
+
   override def refresh(path: String, highPriority: Boolean): Future[Unit] = {
     Future(OrgQueue.instance().refresh(path, highPriority))
   }
@@ -630,6 +944,35 @@ class OrgAPIImpl extends OrgAPI {
     )
   }
 
+  override def typeIdentifiersPage(
+    apexOnly: Boolean,
+    offset: Int,
+    limit: Int
+  ): Future[GetTypeIdentifiersPageResult] = {
+    TypeIdentifiersPage(OrgQueue.instance(), apexOnly, offset, limit)
+  }
+
+  override def dependencyGraphPage(
+    identifiers: IdentifiersRequest,
+    depth: Int,
+    apexOnly: Boolean,
+    ignoring: IdentifiersRequest,
+    offset: Int,
+    limit: Int
+  ): Future[DependencyGraphPage] = {
+    DependencyGraphPageRequest(
+      OrgQueue.instance(),
+      DependencyGraphKey(
+        identifiers.identifiers.toSeq,
+        depth,
+        apexOnly,
+        ignoring.identifiers.toSeq
+      ),
+      offset,
+      limit
+    )
+  }
+
   override def identifierLocation(request: IdentifierRequest): Future[IdentifierLocationResult] = {
     IdentifierLocation(OrgQueue.instance(), request.identifier)
   }
@@ -16,8 +16,8 @@ package com.nawforce.apexlink.rpc
 
 import com.nawforce.pkgforce.diagnostics.LoggerOps
 
-import java.io.{BufferedReader, InputStreamReader, PrintStream}
-import io.github.shogowada.scala.jsonrpc.serializers.UpickleJSONSerializer
+import java.nio.channels.Channels
+import io.github.shogowada.scala.jsonrpc.serializers.{JSONRPCPickler, UpickleJSONSerializer}
 import io.github.shogowada.scala.jsonrpc.server.JSONRPCServer
 import io.github.shogowada.scala.jsonrpc.serializers.UpickleJSONSerializer._
 
@@ -32,42 +32,44 @@ class RPCTerminatedException(msg: String) extends Exception(msg)
 class RPCServer {
   private val serializer = new UpickleJSONSerializer()
   private val server     = JSONRPCServer(serializer)
+  private val output     = new MessageWriter(System.out)
 
-  server.bindAPI[OrgAPI](new OrgAPIImpl())
+  server.bindAPI[OrgAPI](new OrgAPIImpl(Some(notifier)))
+
+  /** Notifications are written to the output between responses. */
+  private object notifier extends ClientNotifier {
+    override def issuesChanged(delta: IssuesDeltaResult): Unit =
+      sendNotification("issuesChanged", JSONRPCPickler.write(delta), output)
+  }
 
   def run(): Unit = {
-    val input   = new BufferedReader(new InputStreamReader(System.in))
-    var message = new StringBuilder
-    val block   = new Array[Char](1024)
+    val framer = new MessageFramer(Channels.newChannel(System.in))
     while (true) {
-      val read = input.read(block)
-      if (read == -1)
-        throw new RPCTerminatedException("Read -1 from stdin")
-      LoggerOps.trace(s"RPCServer Received $read chars")
-
-      val existingLength = message.length()
-      message.append(new String(block.slice(0, read)))
-      var terminator = message.indexOf('\u0000', existingLength)
-      while (terminator != -1) {
-        val msg = message.slice(0, terminator).mkString
-        LoggerOps.trace(s"RPCServer Terminated message, ${msg.length} chars")
-        handleMessage(msg, System.out)
-        message = message.slice(terminator + 1, message.length)
-        LoggerOps.trace(s"RPCServer Residual data, ${message.length} chars")
-        terminator = message.indexOf('\u0000')
-      }
+      val message =
+        framer.next().getOrElse(throw new RPCTerminatedException("Read -1 from stdin"))
+      LoggerOps.trace(s"RPCServer Terminated message, ${message.length} chars")
+      handleMessage(message, output)
     }
   }
 
-  def handleMessage(message: String, stream: PrintStream): Unit = {
-    LoggerOps.trace(s"RPCServer Handling message, $message")
+  /** Send a JSON-RPC notification, params must already be serialised as a JSON object. */
+  def sendNotification(method: String, params: String, writer: MessageWriter): Unit = {
+    val notification = new java.lang.StringBuilder(params.length + method.length + 40)
+      .append("""{"jsonrpc":"2.0","method":"""")
+      .append(method)
+      .append("""","params":""")
+      .append(params)
+      .append('}')
+    LoggerOps.trace(s"RPCServer Sending notification, $method")
+    writer.write(notification)
+  }
+
+  def handleMessage(message: String, writer: MessageWriter): Unit = {
+    LoggerOps.trace(s"RPCServer Handling message, ${message.length} chars")
     server.receive(message).onComplete {
       case Success(Some(response: String)) =>
-        LoggerOps.trace(s"RPCServer Message handled successfully, $response")
-        synchronized {
-          stream.print(response)
-          stream.print('\u0000')
-        }
+        LoggerOps.trace(s"RPCServer Message handled successfully, ${response.length} chars")
+        writer.write(response)
       case Success(None) =>
         LoggerOps.trace(s"RPCServer No response to message, terminating")
         throw new RPCTerminatedException(s"No response: $message")
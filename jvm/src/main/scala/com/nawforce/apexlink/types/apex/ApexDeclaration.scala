@@ -17,7 +17,6 @@ package com.nawforce.apexlink.types.apex
 import com.nawforce.apexlink.api._
 import com.nawforce.apexlink.cst._
 import com.nawforce.apexlink.finding.TypeResolver
-import com.nawforce.apexlink.finding.TypeResolver.TypeCache
 import com.nawforce.apexlink.memory.SkinnyWeakSet
 import com.nawforce.apexlink.names.TypeNames
 import com.nawforce.apexlink.org.{OPM, OrgInfo, Referenceable}
@@ -85,29 +84,34 @@ trait ApexMethodLike extends ApexVisibleMethodLike with Referenceable {
   // Synthetic methods are generated locally & so can be excluded from issue reporting
   def isSynthetic: Boolean = false
 
-  // Populated by type MethodMap construction
+  // Populated by type MethodMap construction, which may run concurrently for types that share a
+  // super class so access is synchronized on the method
   private var _shadows: SkinnyWeakSet[MethodDeclaration]    = new SkinnyWeakSet()
   private var _shadowedBy: SkinnyWeakSet[MethodDeclaration] = new SkinnyWeakSet()
 
-  def shadows: Set[MethodDeclaration]    = _shadows.toSet
-  def shadowedBy: Set[MethodDeclaration] = _shadowedBy.toSet
+  def shadows: Set[MethodDeclaration]    = synchronized { _shadows.toSet }
+  def shadowedBy: Set[MethodDeclaration] = synchronized { _shadowedBy.toSet }
 
-  def resetShadows(): Unit = {
+  def resetShadows(): Unit = synchronized {
     _shadows = new SkinnyWeakSet()
     _shadowedBy = new SkinnyWeakSet()
   }
 
   def addShadow(method: MethodDeclaration): Unit = {
     if (method ne this) {
-      _shadows.add(method)
+      synchronized { _shadows.add(method) }
 
       method match {
-        case am: ApexMethodLike => am._shadowedBy.add(this)
+        case am: ApexMethodLike => am.addShadowedBy(this)
         case _                  =>
       }
     }
   }
 
+  private def addShadowedBy(method: MethodDeclaration): Unit = synchronized {
+    _shadowedBy.add(method)
+  }
+
   /** Collects all related `Referenceable` instances, including the current method and
     * all parent and child methods in the shadow hierarchy.
     *
@@ -237,8 +241,14 @@ trait ApexFullDeclaration extends ApexDeclaration {
 }
 
 /** Apex defined trigger of either full or summary type */
-trait ApexTriggerDeclaration extends ApexDeclaration {
+trait ApexTriggerDeclaration extends ApexDeclaration with DependencyHolder {
   override val isEntryPoint: Boolean = true
+
+  /** Override to resolve conflict, TypeDeclaration & DependencyHolder both default false */
+  override val inTest: Boolean = false
+
+  /** Override to serialise the trigger for upserting to the cache if dirty */
+  def flush(context: PackageContext): Option[CacheUpsert]
 }
 
 /** Apex defined classes, interfaces, enum of either full or summary type */
@@ -260,14 +270,16 @@ trait ApexClassDeclaration extends ApexDeclaration with DependencyHolder with Re
   /** Override to resolve conflict, TypeDeclaration & DependencyHolder both default false */
   override val inTest: Boolean = false
 
-  /** Override to handle request to flush the type to passed cache if dirty */
-  def flush(pc: ParsedCache, context: PackageContext): Unit
+  /** Override to serialise the type for upserting to the cache if dirty */
+  def flush(context: PackageContext): Option[CacheUpsert]
 
   /** Reset local caches ready for revalidation */
   override def preReValidate(): Unit = {
     super.preReValidate()
-    _methodMap = None
-    _constructorMap = None
+    synchronized {
+      _methodMap = None
+      _constructorMap = None
+    }
     _superClassDeclaration = None
     _interfaceDeclarations = ArraySeq.empty
   }
@@ -365,21 +377,34 @@ trait ApexClassDeclaration extends ApexDeclaration with DependencyHolder with Re
     outerTypeName.isEmpty && isExternallyVisible || hasExternalMembers || isPageController || isAsync
   }
 
+  // Maps are created on first use, types that share a super class may be validated concurrently
+  // so creation is synchronized on the type, see ParallelValidator
   def methodMap: MethodMap = {
-    if (_methodMap.isEmpty)
-      _methodMap = Some(createMethodMap)
-    _methodMap.get
+    val current = _methodMap
+    if (current.nonEmpty)
+      current.get
+    else
+      synchronized {
+        if (_methodMap.isEmpty)
+          _methodMap = Some(createMethodMap)
+        _methodMap.get
+      }
   }
 
   def constructorMap: ConstructorMap = {
-    if (_constructorMap.isEmpty) {
-      _constructorMap = Some(createConstructorMap)
-    }
-    _constructorMap.get
+    val current = _constructorMap
+    if (current.nonEmpty)
+      current.get
+    else
+      synchronized {
+        if (_constructorMap.isEmpty)
+          _constructorMap = Some(createConstructorMap)
+        _constructorMap.get
+      }
   }
 
-  private var _methodMap: Option[MethodMap]           = None
-  private var _constructorMap: Option[ConstructorMap] = None
+  @volatile private var _methodMap: Option[MethodMap]           = None
+  @volatile private var _constructorMap: Option[ConstructorMap] = None
 
   private def createMethodMap: MethodMap = {
     val errorLocation = Some(idPathLocation)
@@ -436,7 +461,7 @@ trait ApexClassDeclaration extends ApexDeclaration with DependencyHolder with Re
   def bombScore(total: Int): (Int, Int, Double) = {
     val magicScale = 1.7306 // Places score 0-100
 
-    val typeCache    = new TypeCache()
+    val typeCache    = module.pkg.org.typeCache
     val dependencies = mutable.Set[TypeId]()
     gatherDependencies(dependencies, apexOnly = true, outerTypesOnly = true, typeCache)
     dependencies.remove(typeId)
@@ -87,9 +87,6 @@ abstract class FullDeclaration(
     */
   var superTypeOccurrences: ArraySeq[SourceTypeOccurrence] = SourceTypeOccurrence.empty
 
-  // Track if this has been flushed to cache yet
-  private var flushedToCache = false
-
   // Local unused diagnostics are source-local and safe to cache, even when this org's presentation
   // policy suppresses them because another error is present. Keeping them here allows a later org
   // using the same parsed cache to opt into unused-on-error without requiring a full parse.
@@ -138,46 +135,44 @@ abstract class FullDeclaration(
     })
   }
 
-  override def flush(pc: ParsedCache, context: PackageContext): Unit = {
-    if (!flushedToCache) {
-      val diagnostics = cacheableDiagnostics(
-        module.pkg.org.issueManager.getDiagnostics(location.path) ++
-          suppressedLocalUnusedDiagnostics
-      ).distinct.toArray
-      pc.upsert(context, name.value, contentHash, writeBinary(ApexSummary(summary, diagnostics)))
-      flushedToCache = true
-    }
-  }
-
-  /** Filter diagnostics before they are written to the parsed cache.
-    *
-    * Holder-based unused warnings (unused methods/fields/types) are a whole-program property and so
-    * are workspace-dependent; caching them leads to stale results being replayed in other
-    * workspaces (issue #477). We drop them here and recompute on cache load instead (see
-    * StreamDeployer seeding + UnusedPlugin.onSummaryValidated). Unused *local variable* warnings are
-    * wholly determined within a single method body, so they remain safe to cache and are preserved.
-    */
-  private def cacheableDiagnostics(diagnostics: Seq[Diagnostic]): Seq[Diagnostic] = {
-    diagnostics.filterNot(d =>
-      d.category == UNUSED_CATEGORY && !d.message.startsWith("Unused local variable")
+  override def flush(context: PackageContext): Option[CacheUpsert] = {
+    val diagnostics = FullDeclaration.cacheableDiagnostics(
+      module.pkg.org.issueManager.getDiagnostics(location.path) ++
+        suppressedLocalUnusedDiagnostics
+    ).distinct.toArray
+    Some(
+      CacheUpsert(context, name.value, contentHash, writeBinary(ApexSummary(summary, diagnostics)))
     )
   }
 
   override protected def validate(): Unit = {
+    // Validation may update diagnostics which then need flushing
+    module.pkg.markDirty(this)
+    module.pkg.org.fullDeclarations.foreach(_.touch(this))
+
     LoggerOps.debugTime(s"Validated ${location.path}") {
-      // Validate inside a parsing context as LazyBlock may call parser
-      CST.sourceContext.withValue(Some(source)) {
-        val context = new TypeVerifyContext(None, this, None, enablePlugins = true)
-        modifierIssues.foreach(context.log)
-        verify(context)
-        propagateOuterDependencies(new TypeCache())
-
-        // Re-validation may update diagnostics which now need flushing
-        flushedToCache = false
+      indexingReferences {
+        // Validate inside a parsing context as LazyBlock may call parser
+        CST.sourceContext.withValue(Some(source)) {
+          val context = new TypeVerifyContext(None, this, None, enablePlugins = true)
+          modifierIssues.foreach(context.log)
+          verify(context)
+          propagateOuterDependencies(module.pkg.org.typeCache)
+        }
       }
     }
   }
 
+  /** Record the references made from the file into the org reference index, if there is one.
+    * Nested types are validated as part of the outer type so only outer types record.
+    */
+  private def indexingReferences(op: => Unit): Unit = {
+    module.pkg.org.referenceIndex match {
+      case Some(index) if outerTypeName.isEmpty => index.indexing(location.path)(op)
+      case _                                    => op
+    }
+  }
+
   /** Reset local caches ready for re-validation */
   override def preReValidate(): Unit = {
     super.preReValidate()
@@ -344,20 +339,28 @@ abstract class FullDeclaration(
     * @return       A map from source locations to their corresponding validation results.
     */
   override def getValidationMap(line: Int, offset: Int): Map[Location, ValidationResult] = {
+    getBodyDeclarationFromLocation(line, offset)
+      .map(typeAndBody => typeAndBody._1.getValidationMap(typeAndBody._2))
+      .getOrElse(Map.empty)
+  }
+
+  /** Returns a map of validation results for a body declaration of this type. The body
+    * declaration need not be one held by this type, so that a re-constructed member may be
+    * validated in the context of an existing type.
+    *
+    * @param body The body declaration to validate.
+    * @return     A map from source locations to their corresponding validation results.
+    */
+  def getValidationMap(body: ClassBodyDeclaration): Map[Location, ValidationResult] = {
     try {
-      getBodyDeclarationFromLocation(line, offset)
-        .map(typeAndBody => {
-          // Validate the body declaration for the side effect of being able to collect a map of expression results
-          val typeContext = new TypeVerifyContext(None, typeAndBody._1, None, enablePlugins = false)
-          val resultMap   = mutable.Map[Location, ValidationResult]()
-          val context =
-            new BodyDeclarationVerifyContext(typeContext, typeAndBody._2, Some(resultMap))
-          context.disableIssueReporting() {
-            typeAndBody._2.validate(context)
-          }
-          resultMap.toMap
-        })
-        .getOrElse(Map.empty)
+      // Validate the body declaration for the side effect of being able to collect a map of expression results
+      val typeContext = new TypeVerifyContext(None, this, None, enablePlugins = false)
+      val resultMap   = mutable.Map[Location, ValidationResult]()
+      val context     = new BodyDeclarationVerifyContext(typeContext, body, Some(resultMap))
+      context.disableIssueReporting() {
+        body.validate(context)
+      }
+      resultMap.toMap
     } catch {
       case ex: Throwable =>
         val at = ex.getStackTrace.headOption.getOrElse("Unknown")
@@ -421,6 +424,20 @@ final case class ThisType(module: OPM.Module, typeName: TypeName, inTest: Boolea
 
 object FullDeclaration {
 
+  /** Filter diagnostics before they are written to the parsed cache.
+    *
+    * Holder-based unused warnings (unused methods/fields/types) are a whole-program property and so
+    * are workspace-dependent; caching them leads to stale results being replayed in other
+    * workspaces (issue #477). We drop them here and recompute on cache load instead (see
+    * StreamDeployer seeding + UnusedPlugin.onSummaryValidated). Unused *local variable* warnings are
+    * wholly determined within a single method body, so they remain safe to cache and are preserved.
+    */
+  private[apex] def cacheableDiagnostics(diagnostics: Seq[Diagnostic]): Seq[Diagnostic] = {
+    diagnostics.filterNot(d =>
+      d.category == UNUSED_CATEGORY && !d.message.startsWith("Unused local variable")
+    )
+  }
+
   def create(
     module: OPM.Module,
     doc: ClassDocument,
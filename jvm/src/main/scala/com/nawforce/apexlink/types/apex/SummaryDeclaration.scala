@@ -38,16 +38,20 @@ import scala.collection.mutable
  */
 object DependentValidation {
 
-  /* Test if all Type dependencies are valid. Ignore other types of dependency since these can't be checked */
+  /* Test if all Type dependencies are valid. Ignore other types of dependency since these can't be checked. If
+   * rejectFull is set any dependency on a type that has been parsed, rather than loaded from the cache, is
+   * considered invalid as its content may have changed.
+   */
   def areTypeDependenciesValid(
     dependents: Array[DependentSummary],
     module: OPM.Module,
-    typeCache: TypeCache
+    typeCache: TypeCache,
+    rejectFull: Boolean = false
   ): Boolean = {
     for (dependent <- dependents) {
       dependent match {
         case d: TypeDependentSummary =>
-          val td = findValidTypeDependent(d, module, typeCache)
+          val td = findValidTypeDependent(d, module, typeCache, rejectFull)
           if (td.isEmpty) {
             LoggerOps.debug(s"Rejected type dependency $dependent")
             return false
@@ -62,7 +66,8 @@ object DependentValidation {
   private def findValidTypeDependent(
     dependent: TypeDependentSummary,
     module: OPM.Module,
-    typeCache: TypeCache
+    typeCache: TypeCache,
+    rejectFull: Boolean
   ): Option[TypeDeclaration] = {
 
     // Fallback to outer type if we are given an inner to find
@@ -74,6 +79,7 @@ object DependentValidation {
     convertToTypeId(module, dependent.typeId).flatMap(typeId => {
       findSummaryType(typeId)
         .filter({
+          case _: FullDeclaration      => !rejectFull
           case d: SummaryDeclaration   => d.sourceHash == dependent.sourceHash
           case d: LabelDeclaration     => d.sourceHash == dependent.sourceHash
           case d: InterviewDeclaration => d.sourceHash == dependent.sourceHash
@@ -219,14 +225,14 @@ trait SummaryDependencyHandler extends DependencyHolder {
   val dependents: Array[DependentSummary]
   private var _dependents: Option[Seq[Dependent]] = None
 
-  /** Check all type dependencies are valid. */
-  def areTypeDependenciesValid(typeCache: TypeCache): Boolean =
-    DependentValidation.areTypeDependenciesValid(dependents, module, typeCache)
+  /** Check all type dependencies are valid, see [[DependentValidation.areTypeDependenciesValid]]. */
+  def areTypeDependenciesValid(typeCache: TypeCache, rejectFull: Boolean = false): Boolean =
+    DependentValidation.areTypeDependenciesValid(dependents, module, typeCache, rejectFull)
 
   /** Get all the dependents, this list is only valid if areTypeDependenciesValid returns true, see
     * also [[populateDependencies]].
     */
-  override lazy val dependencies: Seq[Dependent] = populateDependencies(new TypeCache())
+  override def dependencies(): Seq[Dependent] = populateDependencies(module.pkg.org.typeCache)
 
   /** Manually populate the dependencies. Using this is optional but can improve performance due to
     * type caching.
@@ -239,6 +245,13 @@ trait SummaryDependencyHandler extends DependencyHolder {
     }
     _dependents.get
   }
+
+  /** Drop the populated dependents so they are found again on next use, such as after a type they
+    * refer to has been replaced.
+    */
+  def resetDependencies(): Unit = {
+    _dependents = None
+  }
 }
 
 class SummaryParameter(parameterSummary: ParameterSummary) extends ParameterDeclaration {
@@ -391,12 +404,13 @@ class SummaryDeclaration(
     )
   }
 
-  override def flush(pc: ParsedCache, context: PackageContext): Unit = {
+  override def flush(context: PackageContext): Option[CacheUpsert] = {
     // Nothing to do here
+    None
   }
 
   override protected def validate(): Unit = {
-    propagateOuterDependencies(new TypeCache())
+    propagateOuterDependencies(module.pkg.org.typeCache)
   }
 
   def hasValidDependencies(typeCache: TypeCache): Boolean =
@@ -409,6 +423,20 @@ class SummaryDeclaration(
         .collect { case x: SummaryDeclaration => x }
         .forall(_.hasValidDependencies(typeCache))
 
+  /** Drop the populated dependents of this type, its members and nested types along with cached
+    * super type declarations so they are found again from the current types, see
+    * [[resetDependencies]].
+    */
+  def releaseDependencies(): Unit = {
+    preReValidate()
+    resetDependencies()
+    blocks.foreach(_.resetDependencies())
+    localFields.foreach(_.resetDependencies())
+    localConstructors.foreach(_.resetDependencies())
+    localMethods.foreach(_.resetDependencies())
+    nestedTypes.foreach(_.releaseDependencies())
+  }
+
   override def propagateDependencies(): Unit = {
     super.propagateDependencies()
 
@@ -425,11 +453,11 @@ class SummaryDeclaration(
     * needs in order to ripple to every type this one uses.
     */
   def collectDependencies(dependsOn: mutable.Set[Dependent]): Unit = {
-    dependencies.foreach(dependsOn.add)
-    blocks.foreach(_.dependencies.foreach(dependsOn.add))
-    localFields.foreach(_.dependencies.foreach(dependsOn.add))
-    localConstructors.foreach(_.dependencies.foreach(dependsOn.add))
-    localMethods.foreach(_.dependencies.foreach(dependsOn.add))
+    dependencies().foreach(dependsOn.add)
+    blocks.foreach(_.dependencies().foreach(dependsOn.add))
+    localFields.foreach(_.dependencies().foreach(dependsOn.add))
+    localConstructors.foreach(_.dependencies().foreach(dependsOn.add))
+    localMethods.foreach(_.dependencies().foreach(dependsOn.add))
     nestedTypes.foreach(_.collectDependencies(dependsOn))
   }
 
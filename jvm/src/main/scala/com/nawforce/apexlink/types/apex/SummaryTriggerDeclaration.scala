@@ -0,0 +1,114 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.types.apex
+
+import com.nawforce.apexlink.api._
+import com.nawforce.apexlink.finding.TypeResolver.TypeCache
+import com.nawforce.apexlink.memory.SkinnySet
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.apexlink.types.core._
+import com.nawforce.pkgforce.diagnostics.Diagnostic
+import com.nawforce.pkgforce.documents.{CacheUpsert, PackageContext}
+import com.nawforce.pkgforce.modifiers.{Modifier, ModifierOps}
+import com.nawforce.pkgforce.names.{Name, Names, TypeName}
+import com.nawforce.pkgforce.parsers.{Nature, TRIGGER_NATURE}
+import com.nawforce.pkgforce.path.{Location, PathLike, PathLocation}
+import upickle.default._
+
+import scala.collection.immutable.ArraySeq
+import scala.collection.mutable
+
+/** Trigger loaded from the parsed cache, the summary retains only the dependencies of the trigger
+  * body so that they can be re-established without parsing the trigger.
+  */
+class SummaryTriggerDeclaration(path: PathLike, val module: OPM.Module, typeSummary: TypeSummary)
+    extends ApexTriggerDeclaration
+    with SummaryDependencyHandler {
+
+  override val dependents: Array[DependentSummary] = typeSummary.dependents.map(_.intern)
+
+  override def paths: ArraySeq[PathLike] = ArraySeq(path)
+
+  override val sourceHash: Int        = typeSummary.sourceHash
+  override val location: PathLocation = PathLocation(path, typeSummary.location)
+  override val idLocation: Location   = typeSummary.idLocation
+
+  override val moduleDeclaration: Option[OPM.Module] = Some(module)
+  override val name: Name                            = Names(typeSummary.name)
+  override val typeName: TypeName                    = typeSummary.typeName
+  override val outerTypeName: Option[TypeName]       = None
+  override val nature: Nature                        = TRIGGER_NATURE
+  override val modifiers: ArraySeq[Modifier]         = ModifierOps.emptyModifiers
+  override val isComplete: Boolean                   = true
+
+  override val superClass: Option[TypeName]           = None
+  override val interfaces: ArraySeq[TypeName]         = ArraySeq()
+  override val nestedTypes: ArraySeq[ApexDeclaration] = ArraySeq()
+
+  override val blocks: ArraySeq[BlockDeclaration] = BlockDeclaration.emptyBlockDeclarations
+  override val fields: ArraySeq[FieldDeclaration] = FieldDeclaration.emptyFieldDeclarations
+
+  override val methods: ArraySeq[MethodDeclaration] = MethodDeclaration.emptyMethodDeclarations
+  override val constructors: ArraySeq[ConstructorDeclaration] =
+    ConstructorDeclaration.emptyConstructorDeclarations
+
+  override def getTypeDependencyHolders: SkinnySet[TypeId] =
+    DependentType.emptyTypeDependencyHolders
+
+  override def setTypeDependencyHolders(holders: SkinnySet[TypeId]): Unit = {}
+
+  override def summary: TypeSummary = typeSummary
+
+  override def flush(context: PackageContext): Option[CacheUpsert] = {
+    // Nothing to do here
+    None
+  }
+
+  override protected def validate(): Unit = {
+    propagateOuterDependencies(module.pkg.org.typeCache)
+  }
+
+  /** Check the trigger dependencies are valid. Dependencies on types that have been parsed during
+    * this load are rejected as, unlike summary classes, triggers are validated after all classes
+    * have been loaded so a change to a dependency would otherwise not be detected.
+    */
+  def hasValidDependencies(typeCache: TypeCache): Boolean =
+    areTypeDependenciesValid(typeCache, rejectFull = true)
+
+  override def gatherDependencies(
+    dependents: mutable.Set[TypeId],
+    apexOnly: Boolean,
+    outerTypesOnly: Boolean,
+    typeCache: TypeCache
+  ): Unit = {
+    populateDependencies(typeCache).foreach {
+      case ad: ApexClassDeclaration => dependents.add(ad.outerTypeId)
+      case _                        => ()
+    }
+  }
+}
+
+case class SummaryTrigger(
+  module: OPM.Module,
+  declaration: SummaryTriggerDeclaration,
+  diagnostics: Array[Diagnostic]
+)
+
+object SummaryTrigger {
+  def apply(path: PathLike, module: OPM.Module, data: Array[Byte]): SummaryTrigger = {
+    val summary: ApexSummary = readBinary[ApexSummary](data)
+    val td = new SummaryTriggerDeclaration(path, module, summary.typeSummary)
+    new SummaryTrigger(module, td, summary.diagnostics)
+  }
+}
@@ -23,6 +23,12 @@ import com.nawforce.apexlink.names.TypeNames
 import com.nawforce.apexlink.org.{OPM, OrgInfo}
 import com.nawforce.apexlink.types.core._
 import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.pkgforce.documents.{
+  ApexTriggerDocument,
+  CacheUpsert,
+  PackageContext,
+  ParsedCache
+}
 import com.nawforce.pkgforce.modifiers.{Modifier, ModifierOps}
 import com.nawforce.pkgforce.names.{Name, Names, TypeName}
 import com.nawforce.pkgforce.parsers.{Nature, TRIGGER_NATURE}
@@ -33,6 +39,7 @@ import io.github.apexdevtools.apexparser.ApexParser.{
   TriggerCaseContext,
   TriggerUnitContext
 }
+import upickle.default.writeBinary
 
 import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
@@ -86,7 +93,26 @@ final case class TriggerDeclaration(
   private var depends: Option[SkinnySet[Dependent]] = None
   private val objectTypeName = TypeName(objectNameId.name, Nil, Some(TypeNames.Schema))
 
+  override def flush(context: PackageContext): Option[CacheUpsert] = {
+    val doc = ApexTriggerDocument(location.path)
+    val diagnostics = FullDeclaration
+      .cacheableDiagnostics(module.pkg.org.issueManager.getDiagnostics(location.path))
+      .distinct
+      .toArray
+    Some(
+      CacheUpsert(
+        context,
+        TriggerDeclaration.cacheName(doc, module),
+        TriggerDeclaration.contentHash(doc, sourceHash),
+        writeBinary(ApexSummary(summary, diagnostics))
+      )
+    )
+  }
+
   override protected def validate(): Unit = {
+    // Validation may update diagnostics which then need flushing
+    module.pkg.markDirty(this)
+
     LoggerOps.debugTime(s"Validated ${location.path}") {
       val context = new TypeVerifyContext(None, this, None, enablePlugins = true)
       val tdOpt   = context.getTypeAndAddDependency(objectTypeName, this)
@@ -123,7 +149,7 @@ final case class TriggerDeclaration(
 
       depends = Some(context.dependencies)
       propagateDependencies()
-      propagateOuterDependencies(new TypeCache())
+      propagateOuterDependencies(module.pkg.org.typeCache)
     }
   }
 
@@ -204,6 +230,18 @@ final case class TriggerDeclaration(
 object TriggerDeclaration {
   private val prefix: TypeName = TypeName(Name("__sfdc_trigger"))
 
+  /** Name used for a trigger in the parsed cache, qualified to avoid clashes with class names. */
+  def cacheName(doc: ApexTriggerDocument, module: OPM.Module): String =
+    doc.typeName(module.namespace).toString
+
+  /** Cache content hash for a trigger, combining the hash of the source with the meta file. */
+  def contentHash(doc: ApexTriggerDocument, sourceHash: Int): Int =
+    ParsedCache.classMetaHash(metaFile(doc), sourceHash)
+
+  /** The meta file that accompanies a trigger. */
+  def metaFile(doc: ApexTriggerDocument): PathLike =
+    doc.path.parent.join(s"${doc.name.toString}.trigger-meta.xml")
+
   def create(module: OPM.Module, path: PathLike, data: SourceData): Option[TriggerDeclaration] = {
     val parser = CodeParser(path, data)
     val result = parser.parseTrigger()
@@ -37,14 +37,14 @@ trait Dependent extends IdentityEquality {
   private var dependencyHolders: SkinnyWeakSet[DependencyHolder] = _
 
   // Has any holders
-  def hasHolders: Boolean = {
+  def hasHolders: Boolean = synchronized {
     if (dependencyHolders == null)
       return false
     dependencyHolders.toIterator.exists(holder => !isThis(holder))
   }
 
   // Has a holder from non-test code
-  def hasNonTestHolders: Boolean = {
+  def hasNonTestHolders: Boolean = synchronized {
     if (dependencyHolders == null)
       return false
     dependencyHolders.toIterator.exists(holder => !isThis(holder) && !holder.inTest)
@@ -59,11 +59,12 @@ trait Dependent extends IdentityEquality {
   }
 
   // The set of current holders
-  def getDependencyHolders: Set[DependencyHolder] =
+  def getDependencyHolders: Set[DependencyHolder] = synchronized {
     Option(dependencyHolders).map(_.toSet).getOrElse(DependencyHolder.emptySet)
+  }
 
-  // Add a new holder
-  def addDependencyHolder(dependencyHolder: DependencyHolder): Unit = {
+  // Add a new holder, holders may be added from concurrent validation
+  def addDependencyHolder(dependencyHolder: DependencyHolder): Unit = synchronized {
     if (dependencyHolders == null)
       dependencyHolders = new SkinnyWeakSet[DependencyHolder]()
     dependencyHolders.add(dependencyHolder)
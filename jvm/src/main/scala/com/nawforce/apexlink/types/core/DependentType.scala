@@ -52,20 +52,21 @@ trait DependentType extends TypeDeclaration {
   private var typeDependencyHolders: SkinnySet[TypeId] = _
 
   /** Get current dependency holders */
-  def getTypeDependencyHolders: SkinnySet[TypeId] = {
+  def getTypeDependencyHolders: SkinnySet[TypeId] = synchronized {
     Option(typeDependencyHolders).getOrElse(DependentType.emptyTypeDependencyHolders)
   }
 
   /** Set type dependency holders, useful when carrying forward dependencies when a type if being
     * replaced.
     */
-  def setTypeDependencyHolders(holders: SkinnySet[TypeId]): Unit = {
+  def setTypeDependencyHolders(holders: SkinnySet[TypeId]): Unit = synchronized {
     typeDependencyHolders = holders
   }
 
-  /** Add a single type dependency holders for this type.
+  /** Add a single type dependency holders for this type, this may be called from concurrent
+    * validation.
     */
-  def addTypeDependencyHolder(typeId: TypeId): Unit = {
+  def addTypeDependencyHolder(typeId: TypeId): Unit = synchronized {
     if (typeId != this.typeId) {
       if (
         typeDependencyHolders == null || typeDependencyHolders == DependentType.emptyTypeDependencyHolders
@@ -124,7 +124,7 @@ final case class ComponentDeclaration(
 
   override protected def validate(): Unit = {
     components.foreach(_.safeValidate())
-    propagateOuterDependencies(new TypeCache())
+    propagateOuterDependencies(module.pkg.org.typeCache)
   }
 
   override def gatherDependencies(
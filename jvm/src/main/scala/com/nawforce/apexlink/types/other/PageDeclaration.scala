@@ -112,7 +112,7 @@ final case class PageDeclaration(
     // We only want to validate one of them to avoid duplicate diagnostics
     val uniquePages = pages.map(page => (page.location.path, page)).toMap.values
     uniquePages.foreach(_.validate())
-    propagateOuterDependencies(new TypeCache())
+    propagateOuterDependencies(module.pkg.org.typeCache)
   }
 
   override def gatherDependencies(
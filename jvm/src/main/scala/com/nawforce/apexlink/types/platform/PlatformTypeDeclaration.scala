@@ -36,6 +36,7 @@ import io.github.apexdevtools.standardtypes.Internal.Object$
 
 import java.nio.file.{FileSystemNotFoundException, FileSystems, Files, Paths}
 import java.util
+import scala.collection.concurrent.TrieMap
 import scala.collection.immutable.{ArraySeq, HashMap}
 import scala.collection.mutable
 import scala.jdk.CollectionConverters._
@@ -308,8 +309,8 @@ object PlatformTypeDeclaration {
   private def isPlatformClassName(cname: String): Boolean =
     cname.startsWith(platformPackage) || cname.startsWith(sObjectPackage)
 
-  /* Cache of loaded platform declarations */
-  private val declarationCache = mutable.Map[DotName, Option[PlatformTypeDeclaration]]()
+  /* Cache of loaded platform declarations, concurrent to allow loading during parallel validation */
+  private val declarationCache = TrieMap[DotName, Option[PlatformTypeDeclaration]]()
 
   /* Get a Path that leads to platform classes */
   // Using the system namespace to guarantee standard-types.jar wil be loaded
@@ -391,20 +392,34 @@ object PlatformTypeDeclaration {
     .toSet
 
   /* Map of class names, it's a map just to allow easy recovery of the original case by looking at value */
-  private lazy val classNameMap: HashMap[DotName, DotName] = {
-    val names = mutable.HashMap[DotName, DotName]()
+  private lazy val classNameMap: HashMap[DotName, DotName] =
+    indexClassNames(PlatformTypeIndex.load().getOrElse(scanClassNames().toArray))
+
+  /* Key indexed class names, SObjects are re-mapped so they appear in Schema namespace */
+  private[platform] def indexClassNames(names: Array[DotName]): HashMap[DotName, DotName] = {
+    val builder = HashMap.newBuilder[DotName, DotName]
+    names.foreach(dotName => {
+      if (dotName.names.head == Names.SObjects)
+        builder.addOne(DotName(Names.Schema +: dotName.names.tail) -> dotName)
+      else
+        builder.addOne(dotName -> dotName)
+    })
+    builder.result()
+  }
+
+  /* Find class names by scanning the type jars, used when there is no usable prebuilt index */
+  private[platform] def scanClassNames(): mutable.ArrayBuffer[DotName] = {
+    val names = mutable.ArrayBuffer[DotName]()
     indexDir(platformPackagePath, DotName(Seq()), names)
     indexDir(sObjectPackagePath, DotName(Seq(Names.SObjects)), names)
-    HashMap[DotName, DotName]() ++ names
+    names
   }
 
-  /* Index .class files, we have to index to make sure we get natural case-sensitive names, but also used
-   * to re-map SObject so they appear in Schema namespace.
-   */
+  /* Index .class files, we have to index to make sure we get natural case-sensitive names */
   private def indexDir(
     path: java.nio.file.Path,
     prefix: DotName,
-    accum: mutable.HashMap[DotName, DotName]
+    accum: mutable.ArrayBuffer[DotName]
   ): Unit = {
     Files
       .list(path)
@@ -416,12 +431,7 @@ object PlatformTypeDeclaration {
           Files.isRegularFile(entry) && filename.endsWith(".class") &&
           (filename.endsWith("$.class") || !filename.contains('$'))
         ) {
-          val dotName = prefix.append(Name(filename.dropRight(".class".length)))
-          if (dotName.names.head == Names.SObjects) {
-            accum.put(DotName(Names.Schema +: dotName.names.tail), dotName)
-          } else {
-            accum.put(dotName, dotName)
-          }
+          accum.append(prefix.append(Name(filename.dropRight(".class".length))))
         } else if (Files.isDirectory(entry)) {
           val safeFilename = filename
             .replace("/", "")
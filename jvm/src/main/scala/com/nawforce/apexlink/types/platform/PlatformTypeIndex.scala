@@ -0,0 +1,132 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.types.platform
+
+import com.nawforce.pkgforce.names.DotName
+import io.github.apexdevtools.standardtypes.Internal.Object$
+
+import java.io.InputStream
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.{Paths, StandardOpenOption}
+import java.nio.{BufferUnderflowException, ByteBuffer}
+import scala.util.Try
+
+/** Reader for the platform type index generated at build time (see project/PlatformTypeIndexWriter).
+  *
+  * The index holds the platform class names that would otherwise be found by walking the
+  * standard-types & sobject-types jars through a zip FileSystem. Layout, all big-endian:
+  * {{{
+  * int magic, short version
+  * string standard-types jar name, string sobject-types jar name
+  * int count, string[count] class names
+  * }}}
+  * where a string is a short byte length followed by UTF-8 bytes. The jar names let us ignore an
+  * index built against different type jars to the ones on the runtime classpath.
+  */
+object PlatformTypeIndex {
+  final val Magic: Int     = 0x41505449
+  final val Version: Short = 1
+
+  private final val resourceName = "platform-types.idx"
+
+  /** Load the index, None if missing, unreadable or built for other jar versions. */
+  def load(): Option[Array[DotName]] = {
+    Try(readResource()).toOption.flatten.flatMap(buffer =>
+      read(
+        buffer,
+        jarName("/io/github/apexdevtools/standardtypes/System"),
+        jarName("/io/github/apexdevtools/sobjecttypes")
+      )
+    )
+  }
+
+  /** Decode an index buffer, None if it does not match the expected jar names. */
+  def read(
+    buffer: ByteBuffer,
+    standardTypesJar: String,
+    sObjectTypesJar: String
+  ): Option[Array[DotName]] = {
+    try {
+      if (buffer.getInt() != Magic || buffer.getShort() != Version)
+        return None
+      if (readString(buffer) != standardTypesJar || readString(buffer) != sObjectTypesJar)
+        return None
+
+      val count = buffer.getInt()
+      if (count < 0)
+        return None
+      val names = new Array[DotName](count)
+      var i     = 0
+      while (i < count) {
+        names(i) = DotName(readString(buffer))
+        i += 1
+      }
+      Some(names)
+    } catch {
+      case _: BufferUnderflowException | _: IllegalArgumentException => None
+    }
+  }
+
+  /* Map the index if it's a plain file, otherwise it's inside our jar so has to be read */
+  private def readResource(): Option[ByteBuffer] = {
+    Option(getClass.getResource(resourceName)).map(url => {
+      if (url.getProtocol.equalsIgnoreCase("file")) {
+        val channel = FileChannel.open(Paths.get(url.toURI), StandardOpenOption.READ)
+        try {
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+        } finally {
+          channel.close()
+        }
+      } else {
+        val in = url.openStream()
+        try {
+          ByteBuffer.wrap(readAll(in))
+        } finally {
+          in.close()
+        }
+      }
+    })
+  }
+
+  private def readAll(in: InputStream): Array[Byte] = {
+    val out    = new java.io.ByteArrayOutputStream()
+    val buffer = new Array[Byte](64 * 1024)
+    var read   = in.read(buffer)
+    while (read >= 0) {
+      out.write(buffer, 0, read)
+      read = in.read(buffer)
+    }
+    out.toByteArray
+  }
+
+  private def readString(buffer: ByteBuffer): String = {
+    val length = buffer.getShort() & 0xffff
+    val bytes  = new Array[Byte](length)
+    buffer.get(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+
+  /* Name of the jar holding a resource, empty if not loaded from a jar */
+  private def jarName(resource: String): String = {
+    Option(classOf[Object$].getResource(resource))
+      .map(url => {
+        val path = url.toString
+        val end  = path.indexOf("!/")
+        if (end < 0) "" else path.substring(path.lastIndexOf('/', end) + 1, end)
+      })
+      .getOrElse("")
+  }
+}
@@ -21,7 +21,7 @@ import com.nawforce.apexlink.names.TypeNames.{TypeNameUtils, ambiguousAliasMap}
 import com.nawforce.apexlink.types.core.TypeDeclaration
 import com.nawforce.pkgforce.names.TypeName
 
-import scala.collection.mutable
+import scala.collection.concurrent.TrieMap
 
 object PlatformTypes {
   lazy val nullType: TypeDeclaration               = loadType(TypeNames.Null)
@@ -48,9 +48,10 @@ object PlatformTypes {
   lazy val chatterComponent: TypeDeclaration       = loadType(TypeNames.ChatterComponent)
   lazy val labelType: TypeDeclaration              = loadType(TypeNames.Label)
 
-  private val typeCache                                   = mutable.Map[TypeName, TypeResponse]()
-  private val firedTypes                                  = mutable.Set[TypeName]()
-  private var loadingObservers: Seq[PlatformTypeObserver] = Seq()
+  // Caches are concurrent as platform types may be loaded during parallel validation
+  private val typeCache  = TrieMap[TypeName, TypeResponse]()
+  private val firedTypes = TrieMap[TypeName, Unit]()
+  @volatile private var loadingObservers: Seq[PlatformTypeObserver] = Seq()
 
   private def loadType(typeName: TypeName): TypeDeclaration = {
     PlatformTypeDeclaration.get(typeName, None).getOrElse(throw new NoSuchElementException)
@@ -108,10 +109,8 @@ object PlatformTypes {
 
     response match {
       case Right(td) =>
-        if (!firedTypes.contains(td.typeName)) {
+        if (firedTypes.putIfAbsent(td.typeName, ()).isEmpty)
           fireLoadingEvents(td)
-          firedTypes.add(td.typeName)
-        }
       case _ => ()
     }
 
@@ -134,7 +134,7 @@ final case class SObjectDeclaration(
     // Update dependencies from field types
     fields.map(_.typeName).toSet.filterNot(_ == typeName).foreach(updateDependencies)
     propagateDependencies()
-    propagateOuterDependencies(new TypeCache())
+    propagateOuterDependencies(module.pkg.org.typeCache)
   }
 
   /** Custom validation steps for lookup fields. */
@@ -196,7 +196,7 @@ final case class SObjectDeclaration(
       ArraySeq(),
       ArraySeq()
     )
-    replacement.propagateOuterDependencies(new TypeCache())
+    replacement.propagateOuterDependencies(module.pkg.org.typeCache)
     module.types.put(replacement.typeName, replacement)
     module.schemaSObjectType.add(replacement.typeName.name, hasFieldSets = true)
     replacement
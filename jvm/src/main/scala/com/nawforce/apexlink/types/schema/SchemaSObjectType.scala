@@ -31,6 +31,7 @@ import com.nawforce.pkgforce.modifiers.Modifier
 import com.nawforce.pkgforce.names.{EncodedName, Name, Names, TypeName}
 import com.nawforce.pkgforce.path.PathLike
 
+import scala.collection.concurrent.TrieMap
 import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
 
@@ -51,8 +52,8 @@ final case class SchemaSObjectType(module: OPM.Module)
     extends BasicTypeDeclaration(PathLike.emptyPaths, module, TypeNames.SObjectType)
     with PlatformTypes.PlatformTypeObserver {
 
-  /** Cache of SObject accessible via SObjectType name */
-  private val sobjectFields: mutable.Map[Name, Option[FieldDeclaration]] = mutable.Map()
+  /** Cache of SObject accessible via SObjectType name, may be updated during concurrent validation */
+  private val sobjectFields: mutable.Map[Name, Option[FieldDeclaration]] = TrieMap()
 
   /* Create SObjectFields$<SObject>, to support assignability checks with SObjectField */
   module.upsertMetadata(SObjectFields(TypeNames.SObject, module))
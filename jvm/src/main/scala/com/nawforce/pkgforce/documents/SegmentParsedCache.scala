@@ -0,0 +1,446 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.documents
+
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.platform.Path
+import upickle.default.writeBinary
+
+import java.io.IOException
+import java.nio.ByteBuffer
+import java.nio.channels.{FileChannel, FileLock, OverlappingFileLockException}
+import java.nio.file.{Files, StandardOpenOption, Path => NioPath}
+import java.util.concurrent.ConcurrentHashMap
+import scala.jdk.CollectionConverters._
+import scala.util.Random
+import scala.util.hashing.MurmurHash3
+
+/** Parsed class cache that appends entries as records to a small number of segment files.
+  *
+  * When opened the existing segments are memory mapped and their record headers scanned to build
+  * an in-memory index from key hash to record location, lookups then read directly from the
+  * mapped buffers without touching the file system. New entries are appended to a segment owned
+  * by this instance, which is locked while being written so other processes sharing the cache will
+  * not remove it. Segments are never modified once written, stale and superseded records are
+  * discarded by compaction during [[expire]] which copies live records into a new segment.
+  *
+  * Segments are held in a sub-directory of the cache directory so the cache directory may also be
+  * used by a [[DirectoryParsedCache]].
+  */
+final class SegmentParsedCache private (val path: PathLike, version: Int, directory: NioPath)
+    extends ParsedCache {
+  import SegmentParsedCache._
+
+  /** Record location by key hash, a later record for the same hash replaces an earlier one. */
+  private val index = new ConcurrentHashMap[Integer, Slot]()
+
+  /** Key hashes that have been read or written by this instance, these survive expiry. */
+  private val used = ConcurrentHashMap.newKeySet[Integer]()
+
+  /** Segments available for reading, guarded by this */
+  private var segments: Vector[Segment] = Vector()
+
+  /** Segment being appended to, guarded by this */
+  private var active: Option[ActiveSegment] = None
+
+  LoggerOps.debugTime(s"Loaded cache segments from $directory") {
+    load()
+  }
+
+  override def upsert(
+    packageContext: PackageContext,
+    name: String,
+    contentHash: Int,
+    value: Array[Byte]
+  ): Unit = synchronized {
+    val key     = writeBinary(CacheKey(version, packageContext, name, contentHash))
+    val keyHash = MurmurHash3.bytesHash(key)
+    try {
+      val segment = activeSegment()
+      index.put(keyHash, segment.append(keyHash, key, value, System.currentTimeMillis()))
+      used.add(keyHash)
+      if (segment.size >= SEGMENT_LIMIT)
+        seal()
+    } catch {
+      case ex: IOException =>
+        LoggerOps.debug(s"Caught exception writing to cache segment: $ex")
+    }
+  }
+
+  override def get(
+    packageContext: PackageContext,
+    name: String,
+    contentHash: Int
+  ): Option[Array[Byte]] = {
+    val key     = writeBinary(CacheKey(version, packageContext, name, contentHash))
+    val keyHash = MurmurHash3.bytesHash(key)
+    val slot    = index.get(keyHash)
+    if (slot == null || slot.keyLength != key.length)
+      return None
+
+    try {
+      val data = slot.segment.read(slot.offset + RECORD_HEADER_SIZE, slot.dataSize)
+      if (key.indices.forall(i => data(i) == key(i))) {
+        used.add(keyHash)
+        Some(java.util.Arrays.copyOfRange(data, key.length, data.length))
+      } else {
+        None
+      }
+    } catch {
+      case ex: IOException =>
+        LoggerOps.debug(s"Caught exception reading from ${slot.segment.file}: $ex")
+        None
+    }
+  }
+
+  /** Compact the segments, dropping any entries that have not been used within the expiry window.
+    */
+  override def expire(): Unit = expire(System.currentTimeMillis())
+
+  private[documents] def expire(now: Long): Unit = synchronized {
+    val minTimeStamp = now - ParsedCache.EXPIRE_WINDOW
+    index
+      .entrySet()
+      .removeIf(e => e.getValue.timestamp < minTimeStamp && !used.contains(e.getKey))
+
+    seal()
+    val locked = segments.flatMap(segment => lock(segment.file).map(lock => (segment, lock)))
+    try {
+      val candidates = locked.map(_._1).toSet
+      val totalBytes = candidates.toSeq.map(_.size).sum
+      val liveBytes = index
+        .values()
+        .asScala
+        .filter(slot => candidates.contains(slot.segment))
+        .map(_.recordSize)
+        .sum
+      if (candidates.size > MAX_SEGMENTS || (totalBytes - liveBytes) * 2 > totalBytes)
+        compact(candidates, now)
+    } finally {
+      locked.foreach(_._2.channel().close())
+    }
+  }
+
+  /** Copy live records from the candidate segments into a new segment and remove the candidates. */
+  private def compact(candidates: Set[Segment], now: Long): Unit = {
+    LoggerOps.debugTime(s"Compacted ${candidates.size} cache segments") {
+      val target = newActiveSegment()
+      try {
+        val moved =
+          index.entrySet().asScala.toSeq.filter(e => candidates.contains(e.getValue.segment))
+        val replacements = moved.map(e => {
+          val slot      = e.getValue
+          val data      = slot.segment.read(slot.offset + RECORD_HEADER_SIZE, slot.dataSize)
+          val timestamp = if (used.contains(e.getKey)) now else slot.timestamp
+          (e.getKey, slot, target.append(slot.keyHash, data, slot.keyLength, timestamp))
+        })
+        val compacted = target.seal()
+        replacements.foreach { case (keyHash, slot, replacement) =>
+          index.replace(keyHash, slot, replacement.copy(segment = compacted))
+        }
+        index.entrySet().removeIf(e => candidates.contains(e.getValue.segment))
+        segments = segments.filterNot(candidates.contains) :+ compacted
+        candidates.foreach(segment => delete(segment.file))
+      } catch {
+        case ex: IOException =>
+          LoggerOps.debug(s"Caught exception compacting cache segments: $ex")
+          target.close()
+          delete(target.file)
+      }
+    }
+  }
+
+  override def clear(): Unit = synchronized {
+    active.foreach(_.close())
+    active = None
+    segments = Vector()
+    index.clear()
+    used.clear()
+    ParsedCache.clearContents(path)
+  }
+
+  /** Number of segments available for reading, excluding any being written. */
+  private[documents] def segmentCount: Int = synchronized { segments.size }
+
+  private def load(): Unit = {
+    if (!Files.isDirectory(directory))
+      return
+
+    val files = {
+      val stream = Files.list(directory)
+      try stream.iterator().asScala.filter(isSegmentFile).toArray.sortBy(_.getFileName.toString)
+      finally stream.close()
+    }
+    files.foreach(file => {
+      try {
+        val segment = Segment(file)
+        scan(segment)
+        segments = segments :+ segment
+      } catch {
+        case ex: IOException =>
+          LoggerOps.debug(s"Caught exception loading cache segment $file: $ex")
+      }
+    })
+  }
+
+  /** Add the records of a segment to the index, stopping at the first incomplete record. */
+  private def scan(segment: Segment): Unit = {
+    val buffer = segment.buffer
+    if (buffer.limit() < SEGMENT_HEADER_SIZE || buffer.getLong(0) != SEGMENT_MAGIC)
+      return
+
+    var offset = SEGMENT_HEADER_SIZE
+    var done   = false
+    while (!done && offset + RECORD_HEADER_SIZE <= buffer.limit()) {
+      val keyHash     = buffer.getInt(offset)
+      val keyLength   = buffer.getInt(offset + 4)
+      val valueLength = buffer.getInt(offset + 8)
+      val timestamp   = buffer.getLong(offset + 12)
+      val end         = offset.toLong + RECORD_HEADER_SIZE + keyLength + valueLength
+      if (keyLength < 0 || valueLength < 0 || end > buffer.limit()) {
+        done = true
+      } else {
+        index.put(keyHash, Slot(segment, offset, keyHash, keyLength, valueLength, timestamp))
+        offset = end.toInt
+      }
+    }
+  }
+
+  private def activeSegment(): ActiveSegment = {
+    if (active.isEmpty)
+      active = Some(newActiveSegment())
+    active.get
+  }
+
+  private def newActiveSegment(): ActiveSegment = {
+    Files.createDirectories(directory)
+    val name =
+      f"$SEGMENT_PREFIX${System.currentTimeMillis()}%016x-${Random.nextInt()}%08x$SEGMENT_SUFFIX"
+    ActiveSegment(directory.resolve(name))
+  }
+
+  /** Make the active segment read-only, moving its index entries to the mapped segment. */
+  private def seal(): Unit = {
+    active.foreach(current => {
+      try {
+        val sealedSegment = current.seal()
+        index.replaceAll((_, slot) =>
+          if (slot.segment eq current) slot.copy(segment = sealedSegment) else slot
+        )
+        segments = segments :+ sealedSegment
+      } catch {
+        case ex: IOException =>
+          LoggerOps.debug(s"Caught exception sealing cache segment ${current.file}: $ex")
+          index.entrySet().removeIf(_.getValue.segment eq current)
+          current.close()
+      }
+    })
+    active = None
+  }
+}
+
+object SegmentParsedCache {
+  private val SEGMENT_DIRECTORY   = "segments"
+  private val SEGMENT_PREFIX      = "segment-"
+  private val SEGMENT_SUFFIX      = ".dat"
+  private val SEGMENT_MAGIC: Long = 0x41504c5345473031L // APLSEG01
+  private val SEGMENT_HEADER_SIZE = 8
+  private val RECORD_HEADER_SIZE  = 20
+  private val SEGMENT_LIMIT: Long = 64 * 1024 * 1024
+  private val MAX_SEGMENTS        = 8
+
+  /** Create a segment cache in the cache directory. */
+  def create(version: Int): Either[String, ParsedCache] = {
+    ParsedCache.directory().flatMap(dir => open(dir, version))
+  }
+
+  /** Open a segment cache held within a directory. */
+  def open(path: PathLike, version: Int): Either[String, SegmentParsedCache] = {
+    try {
+      Right(new SegmentParsedCache(path, version, Path(path).native.resolve(SEGMENT_DIRECTORY)))
+    } catch {
+      case ex: IOException => Left(s"Cache segments in '$path' could not be opened, error '$ex'")
+    }
+  }
+
+  private def isSegmentFile(file: NioPath): Boolean = {
+    val name = file.getFileName.toString
+    name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) && Files.isRegularFile(file)
+  }
+
+  /** Try to take an exclusive lock on a segment, fails if it is being written by someone else. */
+  private def lock(file: NioPath): Option[FileLock] = {
+    try {
+      val channel = FileChannel.open(file, StandardOpenOption.WRITE)
+      val lock =
+        try {
+          channel.tryLock()
+        } catch {
+          case _: OverlappingFileLockException | _: IOException => null
+        }
+      if (lock == null) channel.close()
+      Option(lock)
+    } catch {
+      case _: IOException | _: UnsupportedOperationException => None
+    }
+  }
+
+  private def delete(file: NioPath): Unit = {
+    try {
+      Files.deleteIfExists(file)
+    } catch {
+      case ex: IOException =>
+        LoggerOps.debug(s"Caught exception deleting cache segment $file: $ex")
+    }
+  }
+
+  /** Location of a record within a segment. */
+  private final case class Slot(
+    segment: Segment,
+    offset: Int,
+    keyHash: Int,
+    keyLength: Int,
+    valueLength: Int,
+    timestamp: Long
+  ) {
+    def dataSize: Int    = keyLength + valueLength
+    def recordSize: Long = RECORD_HEADER_SIZE.toLong + dataSize
+  }
+
+  /** A segment that can be read via a buffer, memory mapped where supported. */
+  private class Segment(val file: NioPath, val buffer: ByteBuffer) {
+    def size: Long = buffer.limit().toLong
+
+    def read(offset: Int, length: Int): Array[Byte] = {
+      if (offset < 0 || offset.toLong + length > buffer.limit())
+        throw new IOException(s"Record at $offset is outside of segment $file")
+      val data      = new Array[Byte](length)
+      val duplicate = buffer.duplicate()
+      duplicate.position(offset)
+      duplicate.get(data)
+      data
+    }
+  }
+
+  private object Segment {
+    def apply(file: NioPath): Segment = {
+      val channel = FileChannel.open(file, StandardOpenOption.READ)
+      try {
+        val size = channel.size()
+        if (size > Int.MaxValue)
+          throw new IOException(s"Segment $file is too large")
+        val buffer =
+          try {
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+          } catch {
+            // Some file systems, such as in-memory ones, do not support mapping
+            case _: UnsupportedOperationException => ByteBuffer.wrap(Files.readAllBytes(file))
+          }
+        new Segment(file, buffer)
+      } finally {
+        channel.close()
+      }
+    }
+  }
+
+  /** A locked segment being appended to, records are read back via the channel until sealed. */
+  private final class ActiveSegment private (
+    file: NioPath,
+    channel: FileChannel,
+    lock: Option[FileLock]
+  ) extends Segment(file, ByteBuffer.allocate(0)) {
+    private var written: Long = 0
+
+    override def size: Long = written
+
+    override def read(offset: Int, length: Int): Array[Byte] = {
+      if (offset < 0 || offset.toLong + length > written)
+        throw new IOException(s"Record at $offset is outside of segment $file")
+      val data   = ByteBuffer.allocate(length)
+      var cursor = offset.toLong
+      while (data.hasRemaining) {
+        val count = channel.read(data, cursor)
+        if (count < 0) throw new IOException(s"Unexpected end of segment $file")
+        cursor += count
+      }
+      data.array()
+    }
+
+    def append(keyHash: Int, key: Array[Byte], value: Array[Byte], timestamp: Long): Slot = {
+      val data = new Array[Byte](key.length + value.length)
+      System.arraycopy(key, 0, data, 0, key.length)
+      System.arraycopy(value, 0, data, key.length, value.length)
+      append(keyHash, data, key.length, timestamp)
+    }
+
+    def append(keyHash: Int, data: Array[Byte], keyLength: Int, timestamp: Long): Slot = {
+      val buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + data.length)
+      buffer.putInt(keyHash)
+      buffer.putInt(keyLength)
+      buffer.putInt(data.length - keyLength)
+      buffer.putLong(timestamp)
+      buffer.put(data)
+      buffer.flip()
+
+      val offset = written
+      write(buffer)
+      Slot(this, offset.toInt, keyHash, keyLength, data.length - keyLength, timestamp)
+    }
+
+    /** Close for writing and re-open the segment for mapped reads. */
+    def seal(): Segment = {
+      close()
+      Segment(file)
+    }
+
+    def close(): Unit = {
+      try {
+        lock.foreach(_.release())
+        channel.close()
+      } catch {
+        case _: IOException => ()
+      }
+    }
+
+    private def write(buffer: ByteBuffer): Unit = {
+      while (buffer.hasRemaining) {
+        written += channel.write(buffer, written)
+      }
+    }
+  }
+
+  private object ActiveSegment {
+    def apply(file: NioPath): ActiveSegment = {
+      val channel = FileChannel.open(
+        file,
+        StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE
+      )
+      val lock =
+        try {
+          Option(channel.tryLock())
+        } catch {
+          case _: IOException | _: UnsupportedOperationException => None
+        }
+      val segment = new ActiveSegment(file, channel, lock)
+      val header  = ByteBuffer.allocate(SEGMENT_HEADER_SIZE)
+      header.putLong(SEGMENT_MAGIC)
+      header.flip()
+      segment.write(header)
+      segment
+    }
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.documents
+
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.platform.Path
+import upickle.default.{macroRW, readBinary, writeBinary, ReadWriter => RW}
+
+import java.io.IOException
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.{AtomicMoveNotSupportedException, Files, StandardCopyOption, Path => NioPath}
+import java.util.concurrent.ConcurrentHashMap
+import scala.jdk.CollectionConverters._
+import scala.util.hashing.MurmurHash3
+
+/** Recorded state of a class source and its meta file, metaSize is -1 if there was no meta file. */
+final case class ManifestEntry(
+  size: Long,
+  modified: Long,
+  metaSize: Long,
+  metaModified: Long,
+  contentHash: Int,
+  lastSeen: Long
+)
+
+object ManifestEntry {
+  implicit val rw: RW[ManifestEntry] = macroRW
+}
+
+final case class ManifestData(version: Int, entries: Map[String, ManifestEntry])
+
+object ManifestData {
+  implicit val rw: RW[ManifestData] = macroRW
+}
+
+/** Manifest of class content hashes held alongside the [[ParsedCache]].
+  *
+  * Looking up a class in the cache requires a hash of its source & meta file contents. The
+  * manifest records the size and modification time of both files when the hash was calculated so
+  * that, while they remain unchanged, the hash can be reused without reading either file. When a
+  * file does need to be read its contents are returned so the caller can parse them without a
+  * second read.
+  *
+  * Hashes are only recorded for files that were last modified a little while before being read,
+  * as a file modified again within the resolution of the file system timestamps would otherwise
+  * appear to be unchanged. Entries not seen within the cache expiry window are dropped on save.
+  *
+  * The cache directory may be shared by several workspaces, so each workspace has its own manifest
+  * and saves are written via a uniquely named temporary file.
+  */
+final class SourceManifest private (file: NioPath, loaded: Map[String, ManifestEntry]) {
+  import SourceManifest._
+
+  private val entries = new ConcurrentHashMap[String, ManifestEntry](loaded.asJava)
+
+  @volatile private var dirty = false
+
+  /** Obtain the content hash for a class, the source contents are returned if they were read. */
+  def classHash(source: PathLike, meta: PathLike): (Int, Option[Array[Byte]]) = {
+    val now        = System.currentTimeMillis()
+    val key        = source.toString
+    val sourceAttr = attributes(source)
+    val metaAttr   = attributes(meta)
+    val existing   = Option(entries.get(key))
+
+    (sourceAttr, existing) match {
+      case (Some(attr), Some(entry))
+          if entry.size == attr.size() && entry.modified == attr.lastModifiedTime().toMillis &&
+            entry.metaSize == metaAttr.map(_.size()).getOrElse(-1L) &&
+            entry.metaModified == metaAttr.map(_.lastModifiedTime().toMillis).getOrElse(0L) =>
+        if (entry.lastSeen < now - REFRESH_WINDOW) {
+          entries.put(key, entry.copy(lastSeen = now))
+          dirty = true
+        }
+        (entry.contentHash, None)
+      case _ =>
+        val bytes = source.readBytes().toOption
+        val hash =
+          ParsedCache.classMetaHash(meta, MurmurHash3.bytesHash(bytes.getOrElse(Array.empty)))
+        (bytes, sourceAttr) match {
+          case (Some(_), Some(attr)) if isStable(attr, now) && metaAttr.forall(isStable(_, now)) =>
+            entries.put(
+              key,
+              ManifestEntry(
+                attr.size(),
+                attr.lastModifiedTime().toMillis,
+                metaAttr.map(_.size()).getOrElse(-1L),
+                metaAttr.map(_.lastModifiedTime().toMillis).getOrElse(0L),
+                hash,
+                now
+              )
+            )
+            dirty = true
+          case _ =>
+            if (entries.remove(key) != null) dirty = true
+        }
+        (hash, bytes)
+    }
+  }
+
+  /** Write the manifest if it has changed, ignores storage errors. */
+  def save(): Unit = synchronized {
+    if (!dirty) return
+    dirty = false
+
+    val minLastSeen = System.currentTimeMillis() - ParsedCache.EXPIRE_WINDOW
+    val retained    = entries.asScala.filter(_._2.lastSeen >= minLastSeen).toMap
+    var temp: NioPath = null
+    try {
+      temp = Files.createTempFile(file.getParent, file.getFileName.toString, ".tmp")
+      Files.write(temp, writeBinary(ManifestData(FORMAT_VERSION, retained)))
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE)
+      } catch {
+        case _: AtomicMoveNotSupportedException =>
+          Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING)
+      }
+    } catch {
+      case ex: IOException =>
+        LoggerOps.debug(s"Caught exception writing source manifest $file: $ex")
+        dirty = true
+    } finally {
+      // Only remains if the move failed
+      if (temp != null)
+        try Files.deleteIfExists(temp)
+        catch { case _: IOException => () }
+    }
+  }
+
+  private def attributes(path: PathLike): Option[BasicFileAttributes] = {
+    try {
+      Some(Files.readAttributes(Path(path).native, classOf[BasicFileAttributes]))
+        .filter(_.isRegularFile)
+    } catch {
+      case _: IOException => None
+    }
+  }
+
+  private def isStable(attr: BasicFileAttributes, now: Long): Boolean =
+    attr.lastModifiedTime().toMillis < now - STABLE_WINDOW
+}
+
+object SourceManifest {
+  private val MANIFEST_FILE: String = "source-manifest"
+  private val FORMAT_VERSION: Int   = 1
+  private val STABLE_WINDOW: Long   = 2000
+  private val REFRESH_WINDOW: Long  = 24 * 60 * 60 * 1000
+  private val EMPTY: ManifestData   = ManifestData(FORMAT_VERSION, Map())
+
+  /** Open the manifest for a workspace held in a cache directory, a missing or unreadable manifest
+    * is empty.
+    */
+  def open(path: PathLike, workspace: PathLike): SourceManifest = {
+    val key  = MurmurHash3.stringHash(workspace.toString)
+    val file = Path(path).native.resolve(f"$MANIFEST_FILE-$key%08x")
+    val data =
+      try {
+        if (Files.isRegularFile(file)) readBinary[ManifestData](Files.readAllBytes(file)) else EMPTY
+      } catch {
+        case ex: Exception =>
+          LoggerOps.debug(s"Caught exception loading source manifest $file: $ex")
+          EMPTY
+      }
+    new SourceManifest(file, if (data.version == FORMAT_VERSION) data.entries else Map())
+  }
+}
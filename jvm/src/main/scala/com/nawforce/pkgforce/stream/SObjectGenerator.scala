@@ -18,11 +18,12 @@ import com.nawforce.pkgforce.diagnostics._
 import com.nawforce.pkgforce.documents._
 import com.nawforce.pkgforce.names.{DotName, Name}
 import com.nawforce.pkgforce.path.{Location, PathLike, PathLocation}
-import com.nawforce.pkgforce.xml.{XMLDocumentLike, XMLElementLike, XMLException, XMLFactory}
+import com.nawforce.pkgforce.xml.{XMLDocumentLike, XMLElementLike, XMLException}
 import com.nawforce.runtime.xml.XMLDocument
 
 import scala.collection.compat.immutable.ArraySeq
 import scala.collection.mutable
+import scala.collection.parallel.CollectionConverters._
 
 sealed abstract class SharingModel(val value: String)
 case object PrivateSharingModel              extends SharingModel("Private")
@@ -62,13 +63,16 @@ final case class SharingReasonEvent(sourceInfo: SourceInfo, name: Name) extends
 object SObjectGenerator {
 
   def iterator(index: DocumentIndex): Iterator[PackageEvent] = {
-    // Convert SObjectLike things to events
+    // Convert SObjectLike things to events, objects are independent so can be parsed in parallel
     val sObjectEvents: mutable.Map[Name, Array[PackageEvent]] =
       index
         .get(SObjectNature)
+        .toSeq
+        .par
         .map(docInfo =>
           (Name(docInfo._1), toEvents(docInfo._2.flatMap(MetadataDocument(_))).toArray)
         )
+        .seq
         .to(mutable.Map)
 
     // SObjects need ordering so lookup target is output before the object using lookup
@@ -337,7 +341,7 @@ object SObjectGenerator {
               IssuesEvent
                 .iterator(ArraySeq(Issue(doc.path, Diagnostic(ERROR_CATEGORY, Location(0), err))))
             case Right(sourceData) =>
-              XMLFactory.parse(doc.path) match {
+              XMLDocument(doc.path, sourceData) match {
                 case IssuesAnd(issues, content) if content.isEmpty => IssuesEvent.iterator(issues)
                 case IssuesAnd(_, content) =>
                   content.get.rootElement.checkIsOrThrow(rootElement)
@@ -0,0 +1,101 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.runtime.platform
+
+import java.lang.ref.{ReferenceQueue, WeakReference}
+import java.util.concurrent.ConcurrentHashMap
+import scala.annotation.tailrec
+
+/** A concurrent pool of canonical instances. Values are held weakly so an instance is released
+  * once it is no longer referenced outside of the pool.
+  *
+  * @param hash  hash of a value, must be consistent with same
+  * @param same  test if two values are interchangeable
+  */
+final class Interner[T <: AnyRef](hash: T => Int, same: (T, T) => Boolean) {
+
+  private trait Key {
+    def value: T
+    def keyHash: Int
+
+    override def hashCode: Int = keyHash
+
+    override def equals(that: Any): Boolean = {
+      that match {
+        case other: Key @unchecked =>
+          (other eq this) || {
+            val a = value
+            val b = other.value
+            a != null && b != null && ((a eq b) || same(a, b))
+          }
+        case _ => false
+      }
+    }
+  }
+
+  private final class Probe(val value: T, val keyHash: Int) extends Key
+
+  private final class Entry(referent: T, val keyHash: Int, queue: ReferenceQueue[T])
+      extends WeakReference[T](referent, queue)
+      with Key {
+    override def value: T = get()
+  }
+
+  private val queue   = new ReferenceQueue[T]()
+  private val entries = new ConcurrentHashMap[Key, Entry]()
+
+  /** Obtain the canonical instance for a value, the value becomes canonical if there is none. */
+  def intern(value: T): T = {
+    expunge()
+    val keyHash  = hash(value)
+    val existing = entries.get(new Probe(value, keyHash))
+    if (existing != null) {
+      val canonical = existing.get()
+      if (canonical != null)
+        return canonical
+    }
+    add(value, new Entry(value, keyHash, queue))
+  }
+
+  /** Number of canonical instances currently held, may include some that have been released. */
+  def size: Int = entries.size()
+
+  @tailrec
+  private def add(value: T, entry: Entry): T = {
+    val prior = entries.putIfAbsent(entry, entry)
+    if (prior == null) {
+      value
+    } else {
+      val canonical = prior.get()
+      if (canonical != null) {
+        canonical
+      } else {
+        // Released but not yet expunged, replace it
+        entries.remove(prior, prior)
+        add(value, entry)
+      }
+    }
+  }
+
+  private def expunge(): Unit = {
+    var released = queue.poll()
+    while (released != null) {
+      released match {
+        case entry: Entry @unchecked => entries.remove(entry, entry)
+        case _                       => ()
+      }
+      released = queue.poll()
+    }
+  }
+}
@@ -0,0 +1,24 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.runtime.platform
+
+import scala.collection.parallel.CollectionConverters._
+
+object Parallel {
+
+  /** Map an operation over independent items concurrently, results retain the passed order. */
+  def map[T, R](items: Seq[T])(op: T => R): Seq[R] = {
+    if (items.length < 2) items.map(op) else items.par.map(op).seq
+  }
+}
@@ -18,7 +18,7 @@ import com.nawforce.runtime.parsers.SourceData
 
 import java.io.File
 import java.nio.charset.StandardCharsets
-import java.nio.file.{DirectoryStream, Files}
+import java.nio.file.{AtomicMoveNotSupportedException, DirectoryStream, Files, StandardCopyOption}
 import scala.collection.mutable
 
 final class Path(val native: java.nio.file.Path) extends PathLike {
@@ -75,6 +75,28 @@ final class Path(val native: java.nio.file.Path) extends PathLike {
     }
   }
 
+  override def replace(data: Array[Byte]): Option[String] = {
+    var temp: java.nio.file.Path = null
+    try {
+      temp = Files.createTempFile(native.getParent, basename, ".tmp")
+      Files.write(temp, data)
+      try {
+        Files.move(temp, native, StandardCopyOption.ATOMIC_MOVE)
+      } catch {
+        case _: AtomicMoveNotSupportedException =>
+          Files.move(temp, native, StandardCopyOption.REPLACE_EXISTING)
+      }
+      None
+    } catch {
+      case ex: java.io.IOException => Some(ex.toString)
+    } finally {
+      // Only remains if the move failed
+      if (temp != null)
+        try Files.deleteIfExists(temp)
+        catch { case _: java.io.IOException => () }
+    }
+  }
+
   override def delete(): Option[String] = {
     try {
       Files.delete(native)
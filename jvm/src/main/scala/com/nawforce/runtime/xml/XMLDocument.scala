@@ -15,153 +15,344 @@ package com.nawforce.runtime.xml
 
 import com.nawforce.pkgforce.diagnostics._
 import com.nawforce.pkgforce.path.{Location, PathLike}
-import com.nawforce.pkgforce.xml.{
-  XMLDocumentLike,
-  XMLElementLike,
-  XMLName,
-  XMLSourceElement,
-  XMLSourceRange
-}
+import com.nawforce.pkgforce.xml.{XMLDocumentLike, XMLElementLike, XMLName}
 import com.nawforce.runtime.parsers.SourceData
-import org.xml.sax.Locator
 
 import java.io.ByteArrayInputStream
-import javax.xml.parsers.SAXParserFactory
+import javax.xml.stream.{XMLInputFactory, XMLStreamConstants, XMLStreamException, XMLStreamReader}
 import scala.collection.immutable.ArraySeq
 import scala.collection.mutable
-import scala.xml._
-import scala.xml.parsing.NoBindingFactoryAdapter
-
-final class XMLElement private[xml] (element: Elem, sourceElement: Option[XMLSourceElement])
-    extends XMLElementLike {
-  def this(element: Elem) = this(element, None)
 
-  override lazy val line: Int =
-    sourceElement.fold(element.attribute("line").get.toString().toInt)(_.location.startLine)
+/** Element built by [[XMLDocument]]. The text of an element is the concatenation of all of its
+  * descendant character data, this is held as a range of a buffer shared by the whole document so
+  * nested elements do not duplicate it.
+  */
+final class XMLElement private[xml] (
+  override val name: XMLName,
+  override val line: Int,
+  sourceLocation: Option[Location],
+  textBuffer: java.lang.StringBuilder,
+  textStart: Int,
+  textEnd: Int,
+  children: ArraySeq[XMLElement]
+) extends XMLElementLike {
 
-  override lazy val location: Location = sourceElement.fold(Location(line))(_.location)
+  override val location: Location = sourceLocation.getOrElse(Location(line))
 
-  override lazy val name: XMLName = XMLName(element.namespace, element.label)
-
-  override lazy val text: String = element.text
+  override lazy val text: String = textBuffer.substring(textStart, textEnd)
 
   override def getChildren(name: String): Seq[XMLElementLike] = {
-    val sourceChildren = sourceElement.map(_.children)
-    element.child.collect { case child: Elem => child }.zipWithIndex.collect {
-      case (child, index) if child.namespace == XMLDocument.sfNamespace && child.label == name =>
-        new XMLElement(child, sourceChildren.map(_(index)))
-    }
+    children.filter(child =>
+      child.name.namespace == XMLDocument.sfNamespace && child.name.label == name
+    )
   }
 }
 
-final class XMLDocument private[xml] (
-  path: PathLike,
-  elem: Elem,
-  sourceElement: Option[XMLSourceElement]
-) extends XMLDocumentLike(path) {
-  def this(path: PathLike, elem: Elem) = this(path, elem, None)
-
-  override lazy val rootElement: XMLElementLike = new XMLElement(elem, sourceElement)
+final class XMLDocument private[xml] (path: PathLike, root: XMLElement)
+    extends XMLDocumentLike(path) {
+  override val rootElement: XMLElementLike = root
 }
 
+/** Streaming XML document construction.
+  *
+  * The document is read with a StAX parser in a single pass over the UTF-8 source, creating a
+  * compact element tree holding only names, locations & text rather than a general purpose DOM.
+  * Alongside the parser a [[SourceFollower]] scans the same bytes to find the exact lexical range
+  * of each element, as the positions reported by StAX only identify where an event ended.
+  */
 object XMLDocument {
   val sfNamespace = "http://soap.sforce.com/2006/04/metadata"
 
+  private val inputFactory = new ThreadLocal[XMLInputFactory] {
+    override def initialValue(): XMLInputFactory = {
+      val factory = XMLInputFactory.newInstance()
+      factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true)
+      factory.setProperty(XMLInputFactory.IS_COALESCING, false)
+      factory
+    }
+  }
+
   def apply(path: PathLike, sourceData: SourceData): IssuesAnd[Option[XMLDocument]] = {
     val bytes = sourceData.asUTF8
     if (bytes.nonEmpty && bytes.forall(isXmlWhitespace))
       return IssuesAnd(None)
 
     try {
-      val elem = XMLLineLoader.load(new ByteArrayInputStream(trimLeadingXmlWhitespace(bytes)))
-      val sourceElement = XMLSourceRange
-        .index(sourceData.asString)
-        .filter(matchesTree(elem, _))
-      IssuesAnd(Some(new XMLDocument(path, elem, sourceElement)))
+      IssuesAnd(Some(new XMLDocument(path, new Builder(bytes).build())))
     } catch {
-      case e: SAXParseException =>
-        IssuesAnd(
-          ArraySeq(
-            Issue(
-              path,
-              Diagnostic(
-                ERROR_CATEGORY,
-                Location(e.getLineNumber, e.getColumnNumber - 1),
-                e.getLocalizedMessage
-              )
-            )
-          ),
-          None
-        )
+      case e: XMLStreamException =>
+        val location = Option(e.getLocation)
+          .map(l => Location(l.getLineNumber, Math.max(0, l.getColumnNumber - 1)))
+          .getOrElse(Location(1))
+        IssuesAnd(ArraySeq(Issue(path, Diagnostic(ERROR_CATEGORY, location, message(e)))), None)
     }
   }
 
-  private def trimLeadingXmlWhitespace(bytes: Array[Byte]): Array[Byte] = {
-    val start = bytes.indexWhere(!isXmlWhitespace(_))
-    if (start > 0)
-      bytes.drop(start)
-    else
-      bytes
+  /** Strip the position prefix StAX adds to messages, it is duplicated in the diagnostic. */
+  private def message(e: XMLStreamException): String = {
+    val msg    = Option(e.getMessage).getOrElse("")
+    val marker = "Message: "
+    val at     = msg.indexOf(marker)
+    if (msg.startsWith("ParseError") && at >= 0) msg.substring(at + marker.length) else msg
   }
 
   private def isXmlWhitespace(byte: Byte): Boolean = {
     byte == ' ' || byte == '\t' || byte == '\r' || byte == '\n'
   }
 
-  private def matchesTree(element: Elem, sourceElement: XMLSourceElement): Boolean = {
-    val qualifiedName = Option(element.prefix).fold(element.label)(_ + ":" + element.label)
-    val children      = element.child.collect { case child: Elem => child }
-    sourceElement.qualifiedName == qualifiedName &&
-    children.length == sourceElement.children.length &&
-    children.zip(sourceElement.children).forall { case (child, sourceChild) =>
-      matchesTree(child, sourceChild)
-    }
+  private final class OpenElement(
+    val name: XMLName,
+    val line: Int,
+    val tag: Option[SourceTag],
+    val textStart: Int
+  ) {
+    val children: mutable.ArrayBuffer[XMLElement] = mutable.ArrayBuffer()
   }
 
-}
+  private final class Builder(bytes: Array[Byte]) {
+    private val text     = new java.lang.StringBuilder()
+    private val elements = mutable.Stack[OpenElement]()
+    private val follower = new SourceFollower(bytes)
 
-trait WithLocation extends NoBindingFactoryAdapter {
-  private var locator: org.xml.sax.Locator = _
-  private val startLines                   = mutable.Stack[Int]()
+    // Leading whitespace is not passed to the parser as it rejects it before an XML declaration
+    private val start        = bytes.indexWhere(!isXmlWhitespace(_)).max(0)
+    private val skippedLines = follower.linesBefore(start)
 
-  final override def setDocumentLocator(locator: Locator): Unit = {
-    this.locator = locator
-    super.setDocumentLocator(locator)
-  }
+    def build(): XMLElement = {
+      val reader = inputFactory
+        .get()
+        .createXMLStreamReader(new ByteArrayInputStream(bytes, start, bytes.length - start))
+      try {
+        var root: Option[XMLElement] = None
+        while (reader.hasNext) {
+          reader.next() match {
+            case XMLStreamConstants.START_ELEMENT =>
+              startElement(reader)
+            case XMLStreamConstants.END_ELEMENT =>
+              val element = endElement()
+              if (elements.isEmpty) root = Some(element) else elements.top.children.append(element)
+            case XMLStreamConstants.CHARACTERS | XMLStreamConstants.CDATA |
+                XMLStreamConstants.SPACE if elements.nonEmpty =>
+              text.append(reader.getTextCharacters, reader.getTextStart, reader.getTextLength)
+            case _ => ()
+          }
+        }
+        root.getOrElse(throw new XMLStreamException("Missing root element", reader.getLocation))
+      } finally {
+        reader.close()
+      }
+    }
 
-  final override def createNode(
-    pre: String,
-    label: String,
-    attrs: MetaData,
-    scope: NamespaceBinding,
-    children: List[Node]
-  ): Elem = {
-    val newAttrs = attrs.append(Attribute("line", Text(startLines.pop().toString), Null))
-    super.createNode(pre, label, newAttrs, scope, children)
-  }
+    private def startElement(reader: XMLStreamReader): Unit = {
+      val prefix = reader.getPrefix
+      val label  = reader.getLocalName
+      val qualifiedName =
+        if (prefix == null || prefix.isEmpty) label else s"$prefix:$label"
+      val tag = follower.startTag(qualifiedName)
+      elements.push(
+        new OpenElement(
+          XMLName(reader.getNamespaceURI, label),
+          tag.map(_.start.line).getOrElse(reader.getLocation.getLineNumber + skippedLines),
+          tag,
+          text.length()
+        )
+      )
+    }
 
-  final override def startElement(
-    uri: scala.Predef.String,
-    _localName: scala.Predef.String,
-    name: scala.Predef.String,
-    attributes: org.xml.sax.Attributes
-  ): scala.Unit = {
-    startLines.push(locator.getLineNumber)
-    super.startElement(uri, _localName, name, attributes)
+    private def endElement(): XMLElement = {
+      val open = elements.pop()
+      val end = open.tag.flatMap(tag =>
+        if (tag.selfClosing) Some(tag.end) else follower.endTag(tag.qualifiedName)
+      )
+      val location = open.tag.zip(end).map { case (tag, end) =>
+        Location(tag.start.line, tag.start.column, end.line, end.column)
+      }
+      new XMLElement(
+        open.name,
+        open.line,
+        location,
+        text,
+        open.textStart,
+        text.length(),
+        ArraySeq.from(open.children)
+      )
+    }
   }
-}
 
-object XMLLineLoader extends factory.XMLLoader[Elem] {
-  override def adapter = new parsing.NoBindingFactoryAdapter with WithLocation
+  private final case class SourcePosition(line: Int, column: Int)
 
-  private lazy val cachedParser = {
-    val f = SAXParserFactory.newInstance()
-    f.setNamespaceAware(false)
-    f.newSAXParser()
-  }
+  private final case class SourceTag(
+    qualifiedName: String,
+    start: SourcePosition,
+    end: SourcePosition,
+    selfClosing: Boolean
+  )
+
+  /** Tracks the lexical position of elements in the UTF-8 source as the parser reports them. As the
+    * parser has already checked the document is well-formed this only needs to skip over markup
+    * which is not an element tag. Lines are one-based and columns are zero-based code-point offsets.
+    * If a tag can not be matched to the reported element, such as for an element introduced by an
+    * entity reference, tracking stops and later elements are only located by line.
+    */
+  private final class SourceFollower(bytes: Array[Byte]) {
+    private var offset = 0
+    private var line   = 1
+    private var column = 0
+    private var lost   = false
+
+    // A byte order mark is not counted as a column
+    if (
+      bytes.length >= 3 && bytes(0) == 0xef.toByte && bytes(1) == 0xbb.toByte &&
+      bytes(2) == 0xbf.toByte
+    )
+      offset = 3
+
+    /** Count of lines before an offset, used to correct parser lines when tracking is lost. */
+    def linesBefore(end: Int): Int = {
+      var lines = 0
+      var index = 0
+      while (index < end) {
+        if (bytes(index) == '\n' || (bytes(index) == '\r' && !isByte(index + 1, '\n'))) lines += 1
+        index += 1
+      }
+      lines
+    }
+
+    def startTag(qualifiedName: String): Option[SourceTag] = {
+      if (lost || !skipToTag(closing = false)) return track(None)
+
+      val start = position
+      advance()
+      if (readName() != qualifiedName) return track(None)
+      val selfClosing = skipTagBody()
+      track(Some(SourceTag(qualifiedName, start, position, selfClosing)))
+    }
+
+    def endTag(qualifiedName: String): Option[SourcePosition] = {
+      if (lost || !skipToTag(closing = true)) return track(None)
+
+      advance(2)
+      if (readName() != qualifiedName) return track(None)
+      while (offset < bytes.length && bytes(offset) != '>') advance()
+      if (offset == bytes.length) return track(None)
+      advance()
+      track(Some(position))
+    }
+
+    private def track[T](result: Option[T]): Option[T] = {
+      if (result.isEmpty) lost = true
+      result
+    }
+
+    private def position: SourcePosition = SourcePosition(line, column)
+
+    /** Skip text & non-element markup until the start of a tag of the expected kind. */
+    private def skipToTag(closing: Boolean): Boolean = {
+      while (offset < bytes.length) {
+        if (bytes(offset) != '<') advance()
+        else if (startsWith("<!--")) skipPast("-->")
+        else if (startsWith("<![CDATA[")) skipPast("]]>")
+        else if (startsWith("<?")) skipPast("?>")
+        else if (startsWith("<!")) skipDoctype()
+        else return isByte(offset + 1, '/') == closing
+      }
+      false
+    }
+
+    private def skipPast(terminator: String): Unit = {
+      while (offset < bytes.length && !startsWith(terminator)) advance()
+      advance(terminator.length)
+    }
+
+    private def skipDoctype(): Unit = {
+      var quote: Byte = 0
+      var subset      = 0
+      advance(2)
+      while (offset < bytes.length) {
+        val byte = bytes(offset)
+        if (quote != 0) {
+          if (byte == quote) quote = 0
+          advance()
+        } else if (startsWith("<!--")) {
+          skipPast("-->")
+        } else if (startsWith("<?")) {
+          skipPast("?>")
+        } else {
+          advance()
+          byte match {
+            case '\'' | '"'         => quote = byte
+            case '['                => subset += 1
+            case ']'                => subset -= 1
+            case '>' if subset <= 0 => return
+            case _                  => ()
+          }
+        }
+      }
+    }
+
+    /** Skip attributes to the end of a start tag, returns true if the tag was self-closing. */
+    private def skipTagBody(): Boolean = {
+      var quote: Byte = 0
+      while (offset < bytes.length) {
+        val byte = bytes(offset)
+        if (quote != 0) {
+          if (byte == quote) quote = 0
+        } else if (byte == '\'' || byte == '"') {
+          quote = byte
+        } else if (byte == '>') {
+          val selfClosing = bytes(offset - 1) == '/'
+          advance()
+          return selfClosing
+        }
+        advance()
+      }
+      false
+    }
+
+    private def readName(): String = {
+      val start = offset
+      while (offset < bytes.length && !isNameDelimiter(bytes(offset))) advance()
+      new String(bytes, start, offset - start, java.nio.charset.StandardCharsets.UTF_8)
+    }
+
+    private def advance(): Unit = {
+      val byte = bytes(offset)
+      offset += 1
+      if (byte == '\n') {
+        line += 1
+        column = 0
+      } else if (byte == '\r') {
+        if (isByte(offset, '\n')) offset += 1
+        line += 1
+        column = 0
+      } else if ((byte & 0xc0) != 0x80) {
+        // Count only leading bytes so that multi-byte characters are a single column
+        column += 1
+      }
+    }
+
+    private def advance(count: Int): Unit = {
+      var remaining = count
+      while (remaining > 0 && offset < bytes.length) {
+        advance()
+        remaining -= 1
+      }
+    }
+
+    private def isByte(index: Int, value: Char): Boolean =
+      index < bytes.length && bytes(index) == value
+
+    private def startsWith(value: String): Boolean = {
+      if (offset + value.length > bytes.length) return false
+      var index = 0
+      while (index < value.length) {
+        if (bytes(offset + index) != value.charAt(index).toByte) return false
+        index += 1
+      }
+      true
+    }
 
-  override def parser: SAXParser = {
-    cachedParser.reset()
-    cachedParser
+    private def isNameDelimiter(byte: Byte): Boolean =
+      isXmlWhitespace(byte) || byte == '/' || byte == '>' || byte == '='
   }
 }
@@ -28,7 +28,7 @@ object Batch {
   private final val StatusArgument = 1
   private final val StatusInternal = 3
 
-  private val commands: Seq[BatchCommand] =
+  private[apexls] val commands: Seq[BatchCommand] =
     Seq(
       PingCommand,
       DependencyReportCommand,
@@ -38,7 +38,10 @@ object Batch {
     )
 
   def main(args: Array[String]): Unit = {
-    System.exit(run(args, System.out, System.err))
+    if (args.headOption.contains(BatchDaemon.Mode))
+      BatchDaemon.main(args.tail)
+    else
+      System.exit(run(args, System.out, System.err))
   }
 
   /** Run a batch invocation, writing exactly one UTF-8 JSON document and newline to stdout. */
@@ -68,17 +71,7 @@ object Batch {
     System.setOut(diagnosticStream)
     System.setErr(diagnosticStream)
     val (envelope, status) =
-      try {
-        Console.withOut(diagnosticStream) {
-          Console.withErr(diagnosticStream) {
-            dispatch(args.toIndexedSeq, availableCommands, workspaceLoader)
-          }
-        }
-      } catch {
-        case NonFatal(exception) =>
-          exception.printStackTrace(diagnosticStream)
-          failure("", "INTERNAL_ERROR", message(exception), StatusInternal)
-      }
+      execute(args.toIndexedSeq, availableCommands, workspaceLoader, diagnosticStream)
 
     val (json, finalStatus) =
       try {
@@ -106,6 +99,28 @@ object Batch {
     finalStatus
   }
 
+  /** Dispatch a command without touching process wide state, diagnostic output from the command is
+    * sent to the passed stream. Used directly by [[BatchDaemon]] to run commands concurrently.
+    */
+  private[apexls] def execute(
+    args: IndexedSeq[String],
+    availableCommands: Seq[BatchCommand],
+    workspaceLoader: BatchWorkspaceLoader,
+    diagnosticStream: PrintStream
+  ): (BatchEnvelope, Int) = {
+    try {
+      Console.withOut(diagnosticStream) {
+        Console.withErr(diagnosticStream) {
+          dispatch(args, availableCommands, workspaceLoader)
+        }
+      }
+    } catch {
+      case NonFatal(exception) =>
+        exception.printStackTrace(diagnosticStream)
+        failure("", "INTERNAL_ERROR", message(exception), StatusInternal)
+    }
+  }
+
   private def dispatch(
     args: IndexedSeq[String],
     availableCommands: Seq[BatchCommand],
@@ -198,7 +213,7 @@ object Batch {
     (BatchProtocol.failure(command, BatchError(code, errorMessage)), status)
   }
 
-  private def message(exception: Throwable): String = {
+  private[apexls] def message(exception: Throwable): String = {
     Option(exception.getMessage).filter(_.nonEmpty).getOrElse(exception.getClass.getSimpleName)
   }
 }
@@ -0,0 +1,237 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package io.github.apexdevtools.apexls
+
+import java.io.{BufferedReader, InputStream, InputStreamReader, OutputStream, PrintStream}
+import java.net.{InetAddress, ServerSocket}
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.{ExecutorService, Executors, Phaser}
+import scala.util.Try
+import scala.util.control.NonFatal
+
+/** Long-lived batch mode that answers many requests against orgs kept loaded between calls.
+  *
+  * Each request is one line holding a JSON object, `{"id": <any>, "args": ["command", ...]}`, where
+  * args are the same as for a one-shot [[Batch]] invocation. Each response is one line holding the
+  * [[BatchEnvelope]] fields, the request `id` and the `status` a one-shot invocation would have
+  * exited with. Requests are run concurrently so responses may be written out of request order.
+  *
+  * Requests are read from stdin, or with `--port` from connections on a loopback socket. Orgs are
+  * shared across connections and are refreshed from workspace file changes between requests.
+  */
+object BatchDaemon {
+  final val Mode = "daemon"
+
+  private final val StatusArgument = 1
+  private final val StatusInternal = 3
+
+  // Workspace indexer settings, see IndexerConfiguration
+  private final val RescanTriggerTimeMs    = 50L
+  private final val QuietPeriodForRescanMs = 500L
+
+  def main(args: Array[String]): Unit = {
+    // Keep stdout for responses, diagnostic output from loading and analysis goes to stderr
+    val responseStream = System.out
+    System.setOut(System.err)
+
+    DaemonOptions.parse(args.toIndexedSeq) match {
+      case Left(error) =>
+        System.err.println(error.message)
+        System.exit(StatusArgument)
+      case Right(options) =>
+        val loader = new CachingBatchWorkspaceLoader(
+          new DefaultBatchWorkspaceLoader(Some((RescanTriggerTimeMs, QuietPeriodForRescanMs)))
+        )
+        val daemon = new BatchDaemon(Batch.commands, loader, options.threads, System.err)
+        try {
+          options.port match {
+            case Some(port) => daemon.listen(port)
+            case None       => daemon.serve(System.in, responseStream)
+          }
+        } catch {
+          case NonFatal(exception) =>
+            exception.printStackTrace(System.err)
+            System.exit(StatusInternal)
+        }
+        daemon.shutdown()
+        System.exit(0)
+    }
+  }
+
+  private final case class DaemonOptions(port: Option[Int], threads: Int)
+
+  private object DaemonOptions {
+    def parse(args: IndexedSeq[String]): Either[BatchError, DaemonOptions] = {
+      var port    = Option.empty[Int]
+      var threads = Runtime.getRuntime.availableProcessors()
+      var index   = 0
+
+      def value(option: String, min: Int): Either[BatchError, Int] = {
+        index += 1
+        args
+          .lift(index)
+          .flatMap(candidate => Try(candidate.toInt).toOption)
+          .filter(_ >= min)
+          .toRight(BatchError("INVALID_ARGUMENT", s"Option '$option' requires a number >= $min"))
+      }
+
+      while (index < args.length) {
+        args(index) match {
+          case "--port" =>
+            value("--port", 1) match {
+              case Left(error)      => return Left(error)
+              case Right(candidate) => port = Some(candidate)
+            }
+          case "--threads" =>
+            value("--threads", 1) match {
+              case Left(error)      => return Left(error)
+              case Right(candidate) => threads = candidate
+            }
+          case token =>
+            return Left(BatchError("INVALID_ARGUMENT", s"Unexpected argument '$token'"))
+        }
+        index += 1
+      }
+      Right(DaemonOptions(port, threads))
+    }
+  }
+}
+
+private[apexls] final class BatchDaemon(
+  availableCommands: Seq[BatchCommand],
+  workspaceLoader: BatchWorkspaceLoader,
+  threads: Int,
+  diagnosticStream: PrintStream
+) {
+  private final val StatusArgument = 1
+  private final val StatusInternal = 3
+
+  private val executor: ExecutorService = Executors.newFixedThreadPool(
+    threads,
+    (runnable: Runnable) => {
+      val thread = new Thread(runnable)
+      thread.setDaemon(true)
+      thread.setName("apex-ls batch daemon")
+      thread
+    }
+  )
+
+  /** Answer each request line read from input until it ends, returns once all responses have been
+    * written to output.
+    */
+  def serve(input: InputStream, output: OutputStream): Unit = {
+    val reader  = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))
+    val pending = new Phaser(1)
+    var line    = reader.readLine()
+    while (line != null) {
+      if (line.trim.nonEmpty) {
+        val request = line
+        pending.register()
+        executor.execute(() => {
+          try {
+            respond(output, handle(request))
+          } catch {
+            case NonFatal(exception) => exception.printStackTrace(diagnosticStream)
+          } finally {
+            pending.arriveAndDeregister()
+          }
+        })
+      }
+      line = reader.readLine()
+    }
+    pending.arriveAndAwaitAdvance()
+  }
+
+  /** Serve connections made to a loopback socket on port, does not return. */
+  def listen(port: Int): Unit = {
+    val server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress)
+    diagnosticStream.println(s"Batch daemon listening on ${server.getLocalSocketAddress}")
+    while (true) {
+      val socket = server.accept()
+      val thread = new Thread(() => {
+        try {
+          serve(socket.getInputStream, socket.getOutputStream)
+        } catch {
+          case NonFatal(exception) => exception.printStackTrace(diagnosticStream)
+        } finally {
+          socket.close()
+        }
+      })
+      thread.setDaemon(true)
+      thread.setName(s"apex-ls batch daemon ${socket.getRemoteSocketAddress}")
+      thread.start()
+    }
+  }
+
+  /** Run a single request line, returning the tagged response line without a newline. */
+  def handle(request: String): String = {
+    val (id, args) = parse(request)
+    val (envelope, status) = args match {
+      case Left(error) => (BatchProtocol.failure("", error), StatusArgument)
+      case Right(commandArgs) =>
+        Batch.execute(commandArgs, availableCommands, workspaceLoader, diagnosticStream)
+    }
+
+    try {
+      BatchProtocol.writeTagged(id, status, envelope)
+    } catch {
+      case NonFatal(exception) =>
+        exception.printStackTrace(diagnosticStream)
+        val serializationFailure = BatchProtocol.failure(
+          envelope.command,
+          BatchError("SERIALIZATION_FAILED", Batch.message(exception))
+        )
+        BatchProtocol.writeTagged(id, StatusInternal, serializationFailure)
+    }
+  }
+
+  def shutdown(): Unit = {
+    executor.shutdown()
+  }
+
+  private def parse(request: String): (ujson.Value, Either[BatchError, IndexedSeq[String]]) = {
+    val json =
+      try {
+        ujson.read(request)
+      } catch {
+        case NonFatal(exception) =>
+          return (ujson.Null, Left(BatchError("INVALID_REQUEST", Batch.message(exception))))
+      }
+
+    json.objOpt match {
+      case None =>
+        (ujson.Null, Left(BatchError("INVALID_REQUEST", "A request must be a JSON object")))
+      case Some(fields) =>
+        val id = fields.getOrElse("id", ujson.Null)
+        fields.get("args").flatMap(_.arrOpt) match {
+          case Some(args) if args.forall(_.strOpt.nonEmpty) =>
+            (id, Right(args.map(_.str).toIndexedSeq))
+          case _ =>
+            (
+              id,
+              Left(BatchError("INVALID_REQUEST", "A request must provide 'args' as string array"))
+            )
+        }
+    }
+  }
+
+  private def respond(output: OutputStream, response: String): Unit = {
+    output.synchronized {
+      output.write(response.getBytes(StandardCharsets.UTF_8))
+      output.write('\n')
+      output.flush()
+    }
+  }
+}
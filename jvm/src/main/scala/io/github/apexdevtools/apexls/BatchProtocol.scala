@@ -42,6 +42,20 @@ private[apexls] object BatchProtocol {
   }
 
   def write(envelope: BatchEnvelope): String = {
+    ujson.write(toJson(envelope))
+  }
+
+  /** Write an envelope tagged with the id of the daemon request it answers and the status a
+    * one-shot invocation would have exited with.
+    */
+  def writeTagged(id: ujson.Value, status: Int, envelope: BatchEnvelope): String = {
+    val json = toJson(envelope)
+    json("id") = id
+    json("status") = status
+    ujson.write(json)
+  }
+
+  private def toJson(envelope: BatchEnvelope): ujson.Obj = {
     val result = envelope.result match {
       case Some(value) => value
       case None        => ujson.Null
@@ -51,14 +65,12 @@ private[apexls] object BatchProtocol {
       case None        => ujson.Null
     }
 
-    ujson.write(
-      ujson.Obj(
-        "protocolVersion" -> envelope.protocolVersion,
-        "command"         -> envelope.command,
-        "ok"              -> envelope.ok,
-        "result"          -> result,
-        "error"           -> error
-      )
+    ujson.Obj(
+      "protocolVersion" -> envelope.protocolVersion,
+      "command"         -> envelope.command,
+      "ok"              -> envelope.ok,
+      "result"          -> result,
+      "error"           -> error
     )
   }
 }
@@ -18,6 +18,7 @@ import com.nawforce.apexlink.api.Org
 import com.nawforce.apexlink.rpc.OpenOptions
 import com.nawforce.runtime.platform.Path
 
+import java.util.concurrent.ConcurrentHashMap
 import scala.util.control.NonFatal
 
 private[apexls] final case class BatchDispatchFailure(error: BatchError, status: Int)
@@ -26,7 +27,11 @@ private[apexls] trait BatchWorkspaceLoader {
   def load(options: BatchOptions): Either[BatchDispatchFailure, Org]
 }
 
-private[apexls] object DefaultBatchWorkspaceLoader extends BatchWorkspaceLoader {
+/** Loads a fresh org for each request. When an indexer configuration is provided the org watches
+  * its workspace for file changes, queueing refreshes that are applied on the next [[Org.flush]].
+  */
+private[apexls] class DefaultBatchWorkspaceLoader(indexerConfiguration: Option[(Long, Long)])
+    extends BatchWorkspaceLoader {
   private final val StatusArgument = 1
   private final val StatusInternal = 3
 
@@ -59,7 +64,12 @@ private[apexls] object DefaultBatchWorkspaceLoader extends BatchWorkspaceLoader
         .withAutoFlush(enabled = false)
         .withCache(options.cacheEnabled)
         .withCacheDirectory(options.cacheDirectory.getOrElse(""))
-      val org = Org.newOrg(workspace, openOptions)
+      val org = Org.newOrg(
+        workspace,
+        indexerConfiguration
+          .map(config => openOptions.withIndexerConfiguration(config._1, config._2))
+          .getOrElse(openOptions)
+      )
       if (org.getProjectConfig().isEmpty) {
         return Left(
           BatchDispatchFailure(
@@ -88,3 +98,47 @@ private[apexls] object DefaultBatchWorkspaceLoader extends BatchWorkspaceLoader
     }
   }
 }
+
+private[apexls] object DefaultBatchWorkspaceLoader extends DefaultBatchWorkspaceLoader(None)
+
+/** Keeps loaded orgs open between [[BatchDaemon]] requests, keyed by workspace and cache options.
+  *
+  * Orgs are created through the wrapped loader one at a time as org creation configures process
+  * wide settings. Before an already loaded org is returned its workspace is re-scanned and any
+  * changes applied, so a request sees edits made just before it was sent rather than only those
+  * the workspace indexer has already reported. This requires the wrapped loader to enable the
+  * indexer. Failed loads are not retained so a corrected workspace can be loaded by a later
+  * request.
+  */
+private[apexls] final class CachingBatchWorkspaceLoader(loader: BatchWorkspaceLoader)
+    extends BatchWorkspaceLoader {
+  private val orgs = new ConcurrentHashMap[BatchOptions, Org]()
+
+  override def load(options: BatchOptions): Either[BatchDispatchFailure, Org] = {
+    val key = options.copy(workspace = Path(options.workspace).toString)
+    Option(orgs.get(key)) match {
+      case Some(org) => Right(refreshed(org))
+      case None =>
+        synchronized {
+          Option(orgs.get(key)) match {
+            case Some(org) => Right(refreshed(org))
+            case None =>
+              loader.load(key).map { org =>
+                orgs.put(key, org)
+                org
+              }
+          }
+        }
+    }
+  }
+
+  /** Number of orgs currently held open. */
+  def size: Int = orgs.size()
+
+  private def refreshed(org: Org): Org = {
+    org.rescan()
+    if (org.isDirty())
+      org.flush()
+    org
+  }
+}
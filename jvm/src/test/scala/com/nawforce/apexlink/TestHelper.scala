@@ -24,7 +24,7 @@ import com.nawforce.apexlink.types.schema.SObjectDeclaration
 import com.nawforce.pkgforce.names.{Name, Names, TypeName}
 import com.nawforce.pkgforce.path.{Location, PathLike}
 import com.nawforce.runtime.FileSystemHelper
-import com.nawforce.runtime.platform.Path
+import com.nawforce.runtime.platform.{Environment, Path}
 
 import scala.collection.immutable.ArraySeq
 
@@ -336,6 +336,17 @@ trait TestHelper {
 object TestHelper {
   final val CURSOR                                       = "$"
   def locToString(source: String, loc: Location): String = Location.extract(source, loc)
+
+  /** Run an operation that may change the cache directory or auto flush, restoring both after. */
+  def withIsolatedRuntime[T](op: => T): T = {
+    val originalCache     = Environment.getCacheDirOverride
+    val originalAutoFlush = ServerOps.isAutoFlushEnabled
+    try op
+    finally {
+      Environment.setCacheDirOverride(originalCache)
+      ServerOps.setAutoFlush(originalAutoFlush)
+    }
+  }
 }
 
 case class TargetLocationString(targetPath: String, target: String)
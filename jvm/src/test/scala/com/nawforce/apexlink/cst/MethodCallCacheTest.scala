@@ -0,0 +1,133 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.cst
+
+import com.nawforce.apexlink.TestHelper
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.pkgforce.names.Name
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import org.scalatest.funsuite.AnyFunSuite
+
+class MethodCallCacheTest extends AnyFunSuite with TestHelper {
+
+  private def refresh(pkg: OPM.PackageImpl, path: PathLike, source: String): Unit = {
+    path.write(source)
+    pkg.refresh(path, highPriority = false)
+  }
+
+  private def methodCalls(org: OPM.OrgImpl): MethodCallCache = {
+    org.unmanaged.modules.head.methodCalls
+  }
+
+  test("Repeated calls are resolved once") {
+    FileSystemHelper.run(
+      Map(
+        "Builder.cls" ->
+          "public class Builder { public Builder add(String a) {return this;} public Builder add(Integer a) {return this;} }",
+        "Dummy.cls" ->
+          "public class Dummy { { new Builder().add('a').add('b').add(1).add('c').add(2).add('d'); } }"
+      )
+    ) { root: PathLike =>
+      val org = createHappyOrg(root)
+      assert(methodCalls(org).size == 2)
+    }
+  }
+
+  test("Calls from source validated for a request are not cached") {
+    FileSystemHelper.run(
+      Map(
+        "Builder.cls" ->
+          "public class Builder { public Builder add(String a) {return this;} public Builder add(Integer a) {return this;} }",
+        "Dummy.cls" -> "public class Dummy { { new Builder().add('a').add(1); } }"
+      )
+    ) { root: PathLike =>
+      val org = createHappyOrg(root)
+      assert(methodCalls(org).size == 2)
+
+      val content =
+        "public class Dummy { { new Builder().add('a').add(1); other(); } static void other() {} }"
+      org.getDefinition(root.join("Dummy.cls").toString, 1, 40, content)
+      assert(methodCalls(org).size == 2)
+    }
+  }
+
+  test("Cache is cleared when an argument type hierarchy changes") {
+    withManualFlush {
+      FileSystemHelper.run(
+        Map(
+          "Base.cls"  -> "public virtual class Base {}",
+          "Child.cls" -> "public class Child extends Base {}",
+          "Foo.cls"   -> "public class Foo { public static void take(Base b) {} }",
+          "Dummy.cls" -> "public class Dummy { { Foo.take(new Child()); } }"
+        )
+      ) { root: PathLike =>
+        val org = createHappyOrg(root)
+        assert(methodCalls(org).size > 0)
+
+        refresh(org.unmanaged, root.join("Child.cls"), "public class Child {}")
+        assert(org.flush())
+        assert(
+          getMessages(root.join("Dummy.cls"))
+            .contains("No matching method found for 'take' on 'Foo' taking arguments 'Child'")
+        )
+
+        refresh(org.unmanaged, root.join("Child.cls"), "public class Child extends Base {}")
+        assert(org.flush())
+        assert(getMessages(root.join("Dummy.cls")).isEmpty)
+      }
+    }
+  }
+
+  test("Cache is cleared when a callee super class changes") {
+    withManualFlush {
+      FileSystemHelper.run(
+        Map(
+          "Base.cls"  -> "public virtual class Base { public void greet() {} }",
+          "Sub.cls"   -> "public class Sub extends Base {}",
+          "Dummy.cls" -> "public class Dummy { { new Sub().greet(); } }"
+        )
+      ) { root: PathLike =>
+        val org = createHappyOrg(root)
+
+        // Dummy is not a dependency holder of Base so refresh it once Sub has been re-validated
+        refresh(org.unmanaged, root.join("Base.cls"), "public virtual class Base {}")
+        assert(org.flush())
+        refresh(
+          org.unmanaged,
+          root.join("Dummy.cls"),
+          "public class Dummy { { new Sub().greet(); } }"
+        )
+        assert(org.flush())
+        assert(getMessages(root.join("Dummy.cls")).contains("No matching method found for 'greet'"))
+      }
+    }
+  }
+
+  test("Methods by name lookup") {
+    FileSystemHelper.run(
+      Map("Dummy.cls" -> "public class Dummy { void f() {} void f(String a) {} void g(String a) {} }")
+    ) { root: PathLike =>
+      createHappyOrg(root)
+      val methods = unmanagedClass("Dummy").get.methodMap.methodsByName
+      assert(methods.get(Name("f"), 0).map(_.name.toString).sameElements(Seq("f")))
+      assert(methods.get(Name("F"), 1).length == 1)
+      assert(methods.get(Name("f"), 2).isEmpty)
+      assert(methods.get(Name("g"), 0).isEmpty)
+      assert(methods.get(Name("h"), 0).isEmpty)
+      assert(methods.findNamed(Name("g")).exists(_.forall(_.name == Name("g"))))
+      assert(methods.findNamed(Name("h")).isEmpty)
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.deps
+
+import com.nawforce.apexlink.TestHelper
+import com.nawforce.pkgforce.names.{Name, TypeIdentifier, TypeName}
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import org.scalatest.funsuite.AnyFunSuite
+
+class TransitiveGraphTest extends AnyFunSuite with TestHelper {
+
+  private def id(name: String): TypeIdentifier = TypeIdentifier(None, TypeName(Name(name)))
+
+  private def names(ids: Array[TypeIdentifier]): Set[String] = ids.map(_.typeName.toString).toSet
+
+  test("Chain counts exclude the type itself") {
+    FileSystemHelper.run(
+      Map(
+        "A.cls" -> "public class A { B b; }",
+        "B.cls" -> "public class B { C c; }",
+        "C.cls" -> "public class C { D d; }",
+        "D.cls" -> "public class D {}"
+      )
+    ) { root: PathLike =>
+      val org   = createHappyOrg(root)
+      val graph = new TransitiveGraph(org, isSamePackage = true, apexOnly = true)
+
+      assert(Seq("A", "B", "C", "D").map(name => graph.count(id(name))) == Seq(3, 2, 1, 0))
+      assert(graph.transitives(id("A")).toSeq == Seq(id("B"), id("C"), id("D")))
+    }
+  }
+
+  test("Cycle members reach each other but not themselves") {
+    FileSystemHelper.run(
+      Map(
+        "A.cls" -> "public class A { B b; }",
+        "B.cls" -> "public class B { C c; }",
+        "C.cls" -> "public class C { A a; D d; }",
+        "D.cls" -> "public class D {}",
+        "E.cls" -> "public class E { A a; }"
+      )
+    ) { root: PathLike =>
+      val org   = createHappyOrg(root)
+      val graph = new TransitiveGraph(org, isSamePackage = true, apexOnly = true)
+
+      assert(Seq("A", "B", "C", "D", "E").map(name => graph.count(id(name))) == Seq(3, 3, 3, 0, 4))
+      assert(names(graph.transitives(id("B"))) == Set("A", "C", "D"))
+    }
+  }
+
+  test("Ignored types are not followed") {
+    FileSystemHelper.run(
+      Map(
+        "A.cls" -> "public class A { B b; D d; }",
+        "B.cls" -> "public class B { C c; }",
+        "C.cls" -> "public class C {}",
+        "D.cls" -> "public class D {}"
+      )
+    ) { root: PathLike =>
+      val org   = createHappyOrg(root)
+      val graph = new TransitiveGraph(org, isSamePackage = true, apexOnly = true)
+
+      assert(graph.count(id("A"), Array(id("B"))) == 1)
+      assert(names(graph.transitives(id("A"), Array(id("B")))) == Set("D"))
+      assert(graph.count(id("A")) == 3)
+    }
+  }
+
+  test("Condensed counts agree with walked transitives") {
+    FileSystemHelper.run(
+      Map(
+        "A.cls" -> "public class A extends B { C c; }",
+        "B.cls" -> "public virtual class B { C c; }",
+        "C.cls" -> "public class C { D d; public class Inner { A a; } }",
+        "D.cls" -> "public class D { C.Inner i; }",
+        "E.cls" -> "public class E {}"
+      )
+    ) { root: PathLike =>
+      val org   = createHappyOrg(root)
+      val graph = new TransitiveGraph(org, isSamePackage = true, apexOnly = true)
+
+      Seq("A", "B", "C", "D", "E").foreach(name => {
+        assert(graph.count(id(name)) == graph.transitives(id(name)).length)
+      })
+    }
+  }
+
+  test("Refresh invalidates changed types") {
+    withManualFlush {
+      FileSystemHelper.run(
+        Map(
+          "A.cls" -> "public class A { B b; }",
+          "B.cls" -> "public class B {}",
+          "C.cls" -> "public class C {}"
+        )
+      ) { root: PathLike =>
+        val org       = createHappyOrg(root)
+        val collector = new TransitiveCollector(org, isSamePackage = true, apexOnly = true)
+        assert(collector.count(id("A"), Array()) == 1)
+
+        val path = root.join("B.cls")
+        path.write("public class B { C c; }")
+        org.unmanaged.refresh(path, highPriority = false)
+        org.flush()
+
+        assert(collector.count(id("A"), Array()) == 2)
+        assert(org.transitiveGraphs(isSamePackage = true, apexOnly = true).size >= 3)
+      }
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.finding
+
+import com.nawforce.apexlink.TestHelper
+import com.nawforce.apexlink.finding.TypeResolver.{TypeCache, TypeResponse}
+import com.nawforce.apexlink.org.{OPM, TypeDeclarationCache}
+import com.nawforce.pkgforce.names.{Name, TypeName}
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import org.scalatest.funsuite.AnyFunSuite
+
+class TypeCacheTest extends AnyFunSuite with TestHelper {
+
+  private val fooTypeName = TypeName(Name("Foo"))
+
+  private def withModule[T](op: OPM.Module => T): T = {
+    FileSystemHelper.run(Map("Foo.cls" -> "public class Foo {}")) { root: PathLike =>
+      op(createHappyOrg(root).unmanaged.modules.head)
+    }
+  }
+
+  private def counting(cache: TypeCache, module: OPM.Module): (() => TypeResponse, () => Int) = {
+    var resolved = 0
+    val lookup = () =>
+      cache.getOrElseUpdate(
+        (fooTypeName, module), {
+          resolved += 1
+          TypeResolver(fooTypeName, module)
+        }
+      )
+    (lookup, () => resolved)
+  }
+
+  test("Resolutions are reused until changed") {
+    withModule { module =>
+      val cache              = new TypeCache()
+      val (lookup, resolved) = counting(cache, module)
+      assert(lookup().isRight)
+      assert(lookup().isRight)
+      assert(resolved() == 1)
+      assert(cache.size == 1)
+    }
+  }
+
+  test("Changing a type makes resolutions of it stale") {
+    withModule { module =>
+      val cache              = new TypeCache()
+      val (lookup, resolved) = counting(cache, module)
+      lookup()
+      cache.advance(fooTypeName)
+      lookup()
+      lookup()
+      assert(resolved() == 2)
+      assert(cache.size == 1)
+    }
+  }
+
+  test("Changing an unrelated type keeps resolutions") {
+    withModule { module =>
+      val cache              = new TypeCache()
+      val (lookup, resolved) = counting(cache, module)
+      lookup()
+      cache.advance(TypeName(Name("Bar")))
+      cache.advance(TypeName(Name("Foo2")))
+      lookup()
+      assert(resolved() == 1)
+      assert(cache.size == 1)
+    }
+  }
+
+  test("Changing an encoded or outer form of a type makes resolutions of it stale") {
+    withModule { module =>
+      val cache              = new TypeCache()
+      val (lookup, resolved) = counting(cache, module)
+      lookup()
+      cache.advance(TypeName(Name("ns__Foo")))
+      lookup()
+      cache.advance(TypeName(Name("Inner"), Nil, Some(fooTypeName)))
+      lookup()
+      assert(resolved() == 3)
+    }
+  }
+
+  test("A run of changes is applied once and drops stale resolutions") {
+    withModule { module =>
+      val cache              = new TypeCache()
+      val (lookup, resolved) = counting(cache, module)
+      lookup()
+      val before = cache.version
+      cache.advance(fooTypeName)
+      cache.advance(fooTypeName)
+      cache.advance(TypeName(Name("Bar")))
+      assert(cache.size == 1)
+      cache.purge()
+      assert(cache.size == 0)
+      assert(cache.version == before + 3)
+      lookup()
+      assert(resolved() == 2)
+      assert(cache.version == before + 3)
+    }
+  }
+
+  test("Removed resolutions are resolved again") {
+    withModule { module =>
+      val cache              = new TypeCache()
+      val (lookup, resolved) = counting(cache, module)
+      lookup()
+      cache.remove((fooTypeName, module))
+      lookup()
+      assert(resolved() == 2)
+    }
+  }
+
+  test("Type declaration changes advance the version") {
+    val cache = new TypeCache()
+    val types = new TypeDeclarationCache(cache)
+
+    types.put(fooTypeName, null)
+    assert(cache.version == 1)
+    types.remove(fooTypeName)
+    assert(cache.version == 2)
+    assert(types.get(fooTypeName).isEmpty)
+  }
+
+  test("Refresh only drops resolutions of the refreshed type") {
+    withManualFlush {
+      FileSystemHelper.run(
+        Map(
+          "Foo.cls" -> "public class Foo {}",
+          "Bar.cls" -> "public class Bar { Foo f; }",
+          "Baz.cls" -> "public class Baz {}"
+        )
+      ) { root: PathLike =>
+        val org         = createHappyOrg(root)
+        val module      = org.unmanaged.modules.head
+        val bazTypeName = TypeName(Name("Baz"))
+
+        var resolved = Map[TypeName, Int]().withDefaultValue(0)
+        def lookup(typeName: TypeName): TypeResponse =
+          org.typeCache.getOrElseUpdate(
+            (typeName, module), {
+              resolved = resolved.updated(typeName, resolved(typeName) + 1)
+              TypeResolver(typeName, module)
+            }
+          )
+        val foo = lookup(fooTypeName).toOption.get
+        val baz = lookup(bazTypeName).toOption.get
+
+        val before = org.typeCache.version
+        val path   = root.join("Foo.cls")
+        path.write("public class Foo { public String s; }")
+        org.unmanaged.refresh(path, highPriority = false)
+        assert(org.flush())
+        assert(org.typeCache.version > before)
+        assert(getMessages(root.join("Bar.cls")).isEmpty)
+
+        assert(lookup(bazTypeName).toOption.get eq baz)
+        assert(resolved(bazTypeName) == 1)
+        assert(!(lookup(fooTypeName).toOption.get eq foo))
+        assert(resolved(fooTypeName) == 2)
+      }
+    }
+  }
+}
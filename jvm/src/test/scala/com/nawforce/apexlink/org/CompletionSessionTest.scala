@@ -0,0 +1,105 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.TestHelper
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import io.github.apexdevtools.apexparser.ApexParser
+import org.scalatest.funsuite.AnyFunSuite
+
+class CompletionSessionTest extends AnyFunSuite with TestHelper {
+
+  private val source =
+    "public class Dummy { public void func() { Integer a = 1; } public void other() { } }"
+
+  private def withSession[T](op: (PathLike, CompletionSession) => T): T = {
+    FileSystemHelper.run(Map("Dummy.cls" -> source)) { root: PathLike =>
+      val org    = createOrg(root)
+      val path   = root.join("Dummy.cls")
+      val offset = source.indexOf("1;") + 2
+      org.getCompletionItemsInternal(path, line = 1, offset, source)
+      op(path, org.unmanaged.getCompletionSession(path).get)
+    }
+  }
+
+  private def complete(
+    root: PathLike,
+    org: OPM.OrgImpl,
+    content: String,
+    at: String
+  ): Set[String] = {
+    org
+      .getCompletionItemsInternal(
+        root.join("Dummy.cls"),
+        line = 1,
+        content.indexOf(at) + at.length,
+        content
+      )
+      .map(_.label)
+      .toSet
+  }
+
+  test("Unchanged content re-uses full parse") {
+    withSession { (path, session) =>
+      assert(session.reparse(path, session.content).exists(_ eq session.full))
+    }
+  }
+
+  test("Edit within a method body re-parses the member") {
+    withSession { (path, session) =>
+      val edited = session.content.replace("Integer a = 1;", "Integer a = 1; a++;")
+      val parse  = session.reparse(path, edited)
+      assert(parse.nonEmpty)
+      assert(parse.get.context.getRuleIndex == ApexParser.RULE_classBodyDeclaration)
+      assert(parse.get.declaration == session.full.declaration)
+      assert(session.reparse(path, edited).exists(_ eq parse.get))
+    }
+  }
+
+  test("Edit within a later method body re-parses the member") {
+    withSession { (path, session) =>
+      val edited = session.content.replace("other() { }", "other() { Integer b; }")
+      assert(session.reparse(path, edited).nonEmpty)
+    }
+  }
+
+  test("Edit of a method signature requires a full parse") {
+    withSession { (path, session) =>
+      assert(session.reparse(path, session.content.replace("func()", "func2()")).isEmpty)
+    }
+  }
+
+  test("Edit closing a method body requires a full parse") {
+    withSession { (path, session) =>
+      assert(session.reparse(path, session.content.replace("a = 1;", "a = 1; }")).isEmpty)
+    }
+  }
+
+  test("Completions after a member edit match a full parse") {
+    val first  = "public class Dummy { public void func() { String a; } }"
+    val second = "public class Dummy { public void func() { String a; a. } }"
+    FileSystemHelper.run(Map("Dummy.cls" -> first)) { root: PathLike =>
+      val org = createOrg(root)
+      complete(root, org, first, "String a;")
+      val incremental = complete(root, org, second, "a.")
+      assert(org.unmanaged.getCompletionSession(root.join("Dummy.cls")).nonEmpty)
+
+      org.unmanaged.clearCompletionSessions()
+      val full = complete(root, org, second, "a.")
+      assert(incremental.nonEmpty)
+      assert(incremental == full)
+    }
+  }
+}
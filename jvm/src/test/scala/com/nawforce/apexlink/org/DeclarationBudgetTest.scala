@@ -0,0 +1,139 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.TestHelper.withIsolatedRuntime
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.apexlink.types.apex.{FullDeclaration, SummaryDeclaration}
+import com.nawforce.apexlink.types.core.{DependentType, TypeDeclaration}
+import com.nawforce.pkgforce.names.{Name, TypeName}
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import org.scalatest.funsuite.AnyFunSuite
+
+class DeclarationBudgetTest extends AnyFunSuite {
+
+  private val sources = Map(
+    "Util.cls" -> "public class Util { public static void run() {} }",
+    "UseA.cls" -> "public class UseA { { Util.run(); } }",
+    "UseB.cls" -> "public class UseB { public class Inner {} { Util.run(); } }"
+  )
+
+
+  private def openOrg(root: PathLike, budgetMb: Int): OPM.OrgImpl = {
+    val options = OpenOptions
+      .default()
+      .withAutoFlush(enabled = false)
+      .withCache(false)
+      .withDeclarationBudget(budgetMb)
+    Org.newOrg(root, options).asInstanceOf[OPM.OrgImpl]
+  }
+
+  private def moduleType(org: OPM.OrgImpl, name: String): Option[TypeDeclaration] =
+    org.unmanaged.orderedModules.head.findModuleType(TypeName(Name(name)))
+
+  private def holders(org: OPM.OrgImpl, name: String): Set[String] =
+    moduleType(org, name)
+      .collect { case td: DependentType => td.getTypeDependencyHolders.toSet }
+      .getOrElse(Set())
+      .map(_.typeName.toString)
+
+  test("budget is disabled by default") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org = openOrg(root, budgetMb = 0)
+        assert(org.fullDeclarations.isEmpty)
+        assert(moduleType(org, "Util").exists(_.isInstanceOf[FullDeclaration]))
+      }
+    }
+  }
+
+  test("validated declarations are held within budget") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org    = openOrg(root, budgetMb = 16)
+        val budget = org.fullDeclarations.get
+        assert(budget.size == 3)
+        assert(budget.usedBytes > 0)
+        org.flush()
+        assert(budget.size == 3)
+        assert(moduleType(org, "UseA").exists(_.isInstanceOf[FullDeclaration]))
+      }
+    }
+  }
+
+  test("over budget declarations are demoted to summaries") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org    = openOrg(root, budgetMb = 16)
+        val budget = new DeclarationBudget(org, 0)
+        Seq("Util", "UseA", "UseB").foreach(name =>
+          moduleType(org, name).collect { case td: FullDeclaration => budget.touch(td) }
+        )
+        assert(budget.size == 3)
+        val issues = org.issues.issuesForFilesInternal(null).map(_.toString)
+
+        assert(org.refreshLock.write { budget.demote() } == 3)
+        assert(budget.size == 0)
+        assert(budget.usedBytes == 0)
+        Seq("Util", "UseA", "UseB").foreach(name =>
+          assert(moduleType(org, name).exists(_.isInstanceOf[SummaryDeclaration]))
+        )
+        assert(
+          moduleType(org, "UseB").exists(_.nestedTypes.exists(_.isInstanceOf[SummaryDeclaration]))
+        )
+        assert(holders(org, "Util") == Set("UseA", "UseB"))
+        assert(org.issues.issuesForFilesInternal(null).map(_.toString) == issues)
+      }
+    }
+  }
+
+  test("demoted declarations are promoted on refresh") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org    = openOrg(root, budgetMb = 16)
+        val budget = new DeclarationBudget(org, 0)
+        moduleType(org, "UseA").collect { case td: FullDeclaration => budget.touch(td) }
+        assert(org.refreshLock.write { budget.demote() } == 1)
+        assert(moduleType(org, "UseA").exists(_.isInstanceOf[SummaryDeclaration]))
+
+        org.unmanaged.refresh(root.join("UseA.cls"), highPriority = false)
+        assert(org.flush())
+        assert(moduleType(org, "UseA").exists(_.isInstanceOf[FullDeclaration]))
+        assert(holders(org, "Util").contains("UseA"))
+      }
+    }
+  }
+
+  test("declarations with full holders are not demoted") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org    = openOrg(root, budgetMb = 16)
+        val budget = new DeclarationBudget(org, 0)
+        moduleType(org, "Util").collect { case td: FullDeclaration => budget.touch(td) }
+        assert(org.refreshLock.write { budget.demote() } == 0)
+        assert(moduleType(org, "Util").exists(_.isInstanceOf[FullDeclaration]))
+        assert(budget.size == 1)
+
+        Seq("UseA", "UseB").foreach(name =>
+          moduleType(org, name).collect { case td: FullDeclaration => budget.touch(td) }
+        )
+        assert(org.refreshLock.write { budget.demote() } == 3)
+        assert(moduleType(org, "Util").exists(_.isInstanceOf[SummaryDeclaration]))
+      }
+    }
+  }
+}
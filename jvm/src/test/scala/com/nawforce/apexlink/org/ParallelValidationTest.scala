@@ -0,0 +1,255 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.TestHelper.withIsolatedRuntime
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.apexlink.types.apex.{ApexClassDeclaration, ApexMethodLike, SummaryDeclaration}
+import com.nawforce.apexlink.types.core.{DependentType, MethodDeclaration, TypeDeclaration}
+import com.nawforce.pkgforce.names.{Name, TypeName}
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import org.scalatest.funsuite.AnyFunSuite
+
+import scala.collection.immutable.ArraySeq
+
+class ParallelValidationTest extends AnyFunSuite {
+
+  private val sources = Map(
+    "Base.cls" -> "public virtual class Base { public virtual void run() {} }",
+    "Middle.cls" ->
+      "public virtual class Middle extends Base implements Api { public void call() {} }",
+    "Leaf.cls"   -> "public class Leaf extends Middle { public override void run() { call(); } }",
+    "Api.cls"    -> "public interface Api { void call(); }",
+    "Outer.cls"  -> "public class Outer { public class Inner extends Leaf {} }",
+    "User.cls"   -> "public class User { { new Leaf().run(); new Outer.Inner().call(); } }",
+    "Broken.cls" -> "public class Broken extends Missing { { String s = 1; } }",
+    "NotVirtual.cls" -> "public class NotVirtual extends User { { Foo.bar(); } }"
+  )
+
+  private def openOrg(root: PathLike, parallel: Boolean, cacheEnabled: Boolean): OPM.OrgImpl = {
+    val options = OpenOptions
+      .default()
+      .withAutoFlush(enabled = false)
+      .withCacheDirectory(if (cacheEnabled) root.join(".cache").toString else "")
+      .withCache(cacheEnabled)
+      .withParallelValidation(parallel)
+    Org.newOrg(root, options).asInstanceOf[OPM.OrgImpl]
+  }
+
+  private def issues(org: OPM.OrgImpl): Seq[String] =
+    org.issueManager.issuesForFilesInternal(null).map(_.toString)
+
+  private def declaration(org: OPM.OrgImpl, name: String): TypeDeclaration =
+    org.unmanaged.orderedModules.head.moduleType(TypeName(Name(name))).get
+
+  private def runMethod(org: OPM.OrgImpl, name: String): ApexMethodLike = {
+    declaration(org, name) match {
+      case td: ApexClassDeclaration =>
+        td.methodMap
+          .findMethod(Name("run"), ArraySeq())
+          .collect { case am: ApexMethodLike => am }
+          .get
+      case td => fail(s"Unexpected declaration $td")
+    }
+  }
+
+  // More sub classes than SkinnyWeakSet holds before switching representation
+  private val siblingCount = 100
+  private val siblings = (0 until siblingCount).map(i => s"Sub$i").map(name =>
+    s"$name.cls" -> s"public class $name extends Base { public override void run() {} }"
+  )
+
+  private def assertSiblingShadows(org: OPM.OrgImpl): Unit = {
+    OrgInfo.current.withValue(org) {
+      val base = runMethod(org, "Base")
+      val subs = (0 until siblingCount).map(i => runMethod(org, s"Sub$i"))
+      assert(base.shadowedBy == subs.toSet[MethodDeclaration])
+      subs.foreach(sub => assert(sub.shadows == Set[MethodDeclaration](base)))
+    }
+  }
+
+  test("parallel validation reports the same issues as sequential") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val sequential = openOrg(root, parallel = false, cacheEnabled = false)
+        val parallel   = openOrg(root, parallel = true, cacheEnabled = false)
+        assert(issues(sequential).nonEmpty)
+        assert(issues(parallel) == issues(sequential))
+      }
+    }
+  }
+
+  test("parallel validation of cached classes reports the same issues as sequential") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val initial = openOrg(root, parallel = false, cacheEnabled = true)
+        initial.flush()
+
+        val sequential = openOrg(root, parallel = false, cacheEnabled = true)
+        val parallel   = openOrg(root, parallel = true, cacheEnabled = true)
+        assert(issues(sequential) == issues(initial))
+        assert(issues(parallel) == issues(sequential))
+      }
+    }
+  }
+
+  test("dependency holders are the same after parallel validation") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val sequential = openOrg(root, parallel = false, cacheEnabled = false)
+        val parallel   = openOrg(root, parallel = true, cacheEnabled = false)
+        Seq("Base", "Middle", "Leaf", "Api", "Outer").foreach(name => {
+          def holders(org: OPM.OrgImpl) =
+            OrgInfo.current.withValue(org) {
+              declaration(org, name) match {
+                case dt: DependentType =>
+                  dt.getTypeDependencyHolders.toSet.map(_.typeName.toString)
+                case _ => Set[String]()
+              }
+            }
+          assert(holders(parallel) == holders(sequential), name)
+        })
+      }
+    }
+  }
+
+  test("parallel re-validation after a refresh reports the same issues as sequential") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val sequential = openOrg(root, parallel = false, cacheEnabled = false)
+        val parallel   = openOrg(root, parallel = true, cacheEnabled = false)
+        val before     = issues(sequential)
+
+        val path = root.join("Base.cls")
+        path.write("public virtual class Base { public virtual void run(Integer a) {} }")
+        Seq(sequential, parallel).foreach(org => {
+          org.unmanaged.refresh(path, highPriority = false)
+          org.flush()
+        })
+
+        assert(issues(sequential) != before)
+        assert(issues(parallel) == issues(sequential))
+      }
+    }
+  }
+
+  test("parallel SObject deployment creates the same objects as sequential") {
+    def metadata(root: String, body: String) =
+      s"<$root xmlns=\"http://soap.sforce.com/2006/04/metadata\">$body</$root>"
+    def field(name: String, body: String) =
+      metadata("CustomField", s"<fullName>$name</fullName>$body")
+
+    val objects = (0 until 8).flatMap(i => {
+      val dir  = s"objects/Obj${i}__c"
+      val next = s"Obj${(i + 1) % 8}__c"
+      Seq(
+        s"$dir/Obj${i}__c.object-meta.xml"      -> metadata("CustomObject", "<label>X</label>"),
+        s"$dir/fields/Amount__c.field-meta.xml" -> field("Amount__c", "<type>Number</type>"),
+        s"$dir/fields/Parent__c.field-meta.xml" -> field(
+          "Parent__c",
+          s"<type>Lookup</type><referenceTo>$next</referenceTo>" +
+            s"<relationshipName>Children$i</relationshipName>"
+        ),
+        s"$dir/fields/Total__c.field-meta.xml" -> field(
+          "Total__c",
+          s"<type>Summary</type><summarizedField>$next.Amount__c</summarizedField>"
+        ),
+        s"$dir/fields/Bad__c.field-meta.xml" -> field("Bad__c", "<type>Unknown</type>")
+      )
+    })
+
+    withIsolatedRuntime {
+      FileSystemHelper.run(objects.toMap) { root: PathLike =>
+        val sequential = openOrg(root, parallel = false, cacheEnabled = false)
+        val parallel   = openOrg(root, parallel = true, cacheEnabled = false)
+        assert(issues(sequential).nonEmpty)
+        assert(issues(parallel) == issues(sequential))
+
+        (0 until 8).foreach(i => {
+          def fields(org: OPM.OrgImpl) =
+            OrgInfo.current.withValue(org) {
+              val td = org.unmanaged.orderedModules.head
+                .moduleType(TypeName(Name(s"Obj${i}__c"), Nil, Some(TypeName.Schema)))
+                .get
+              td.fields.map(f => (f.name.toString, f.typeName.toString)).sorted
+            }
+          assert(fields(parallel) == fields(sequential))
+          assert(fields(parallel).contains(("Total__c", "System.Decimal")))
+        })
+      }
+    }
+  }
+
+  test("sibling sub classes validated concurrently record all shadows") {
+    withIsolatedRuntime {
+      FileSystemHelper.run((siblings :+ ("Base.cls" -> sources("Base.cls"))).toMap) {
+        root: PathLike =>
+          val org = openOrg(root, parallel = true, cacheEnabled = false)
+          assertSiblingShadows(org)
+      }
+    }
+  }
+
+  test("sibling sub classes of a cached super class validated concurrently record all shadows") {
+    withIsolatedRuntime {
+      FileSystemHelper.run((siblings :+ ("Base.cls" -> sources("Base.cls"))).toMap) {
+        root: PathLike =>
+          openOrg(root, parallel = false, cacheEnabled = true).flush()
+
+          // Only Base is loaded from the cache, so its method map is first used by the siblings
+          siblings.foreach { case (file, source) => root.join(file).write(s"$source // Edited") }
+          val org = openOrg(root, parallel = true, cacheEnabled = true)
+          assert(declaration(org, "Base").isInstanceOf[SummaryDeclaration])
+          assertSiblingShadows(org)
+      }
+    }
+  }
+
+  test("sibling sub classes re-validated concurrently after a refresh record all shadows") {
+    withIsolatedRuntime {
+      FileSystemHelper.run((siblings :+ ("Base.cls" -> sources("Base.cls"))).toMap) {
+        root: PathLike =>
+          val org  = openOrg(root, parallel = true, cacheEnabled = false)
+          val path = root.join("Base.cls")
+          path.write("public virtual class Base { public virtual void run() {} void other() {} }")
+          org.unmanaged.refresh(path, highPriority = false)
+          assert(org.flush())
+          assertSiblingShadows(org)
+      }
+    }
+  }
+
+  test("types are layered after their super types, interfaces and outer types") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org = openOrg(root, parallel = false, cacheEnabled = false)
+        OrgInfo.current.withValue(org) {
+          val types =
+            ArraySeq("User", "Leaf", "Outer", "Middle", "Api", "Base").map(declaration(org, _))
+          val layers = ParallelValidator.layers(types).map(_.map(_.name.toString))
+          assert(
+            layers == ArraySeq(
+              ArraySeq("User", "Api", "Base"),
+              ArraySeq("Middle"),
+              ArraySeq("Leaf"),
+              ArraySeq("Outer")
+            )
+          )
+        }
+      }
+    }
+  }
+}
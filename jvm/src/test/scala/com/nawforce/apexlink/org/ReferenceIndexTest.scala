@@ -0,0 +1,139 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.TargetLocationString
+import com.nawforce.apexlink.TestHelper.withIsolatedRuntime
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import com.nawforce.runtime.platform.Path
+import org.scalatest.funsuite.AnyFunSuite
+
+class ReferenceIndexTest extends AnyFunSuite {
+
+  // Cursor on 'run' in Util.cls
+  private val sources = Map(
+    "Util.cls"  -> "public class Util { public static void run() {} }",
+    "UseA.cls"  -> "public class UseA { { Util.run(); } }",
+    "UseB.cls"  -> "public class UseB { { Util.run(); Util.run(); } }",
+    "Other.cls" -> "public class Other { }"
+  )
+  private val runOffset = 39
+
+  private def openOrg(root: PathLike, budgetMb: Int, cacheEnabled: Boolean): OPM.OrgImpl = {
+    val options = OpenOptions
+      .default()
+      .withAutoFlush(enabled = false)
+      .withCacheDirectory(if (cacheEnabled) root.join(".cache").toString else "")
+      .withCache(cacheEnabled)
+      .withReferenceIndex(budgetMb)
+    Org.newOrg(root, options).asInstanceOf[OPM.OrgImpl]
+  }
+
+  private def references(org: OPM.OrgImpl, root: PathLike): Set[TargetLocationString] = {
+    org
+      .getReferences(root.join("Util.cls").toString, 1, runOffset)
+      .map(TargetLocationString(root, _))
+      .toSet
+  }
+
+  private def expected(root: PathLike): Set[TargetLocationString] =
+    Set(
+      TargetLocationString(root.join("UseA.cls").toString, "Util.run()"),
+      TargetLocationString(root.join("UseB.cls").toString, "Util.run()")
+    )
+
+  test("validation indexes references") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org   = openOrg(root, budgetMb = 16, cacheEnabled = false)
+        val index = org.referenceIndex.get
+        assert(index.isIndexed(root.join("UseA.cls")))
+        assert(index.isIndexed(root.join("Other.cls")))
+        assert(org.unmanaged.getIndexedReferences(root.join("Util.cls"), 1, runOffset).nonEmpty)
+        assert(references(org, root) == expected(root))
+      }
+    }
+  }
+
+  test("indexed references match collected references") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val indexed   = openOrg(root, budgetMb = 16, cacheEnabled = false)
+        val collected = openOrg(root, budgetMb = 0, cacheEnabled = false)
+        assert(collected.referenceIndex.isEmpty)
+        assert(references(indexed, root) == references(collected, root))
+      }
+    }
+  }
+
+  test("refresh replaces references of a file") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        val org = openOrg(root, budgetMb = 16, cacheEnabled = false)
+        root.join("UseB.cls").write("public class UseB { }")
+        org.unmanaged.refresh(root.join("UseB.cls"), highPriority = true)
+        assert(
+          references(org, root) ==
+            Set(TargetLocationString(root.join("UseA.cls").toString, "Util.run()"))
+        )
+
+        root.join("UseA.cls").delete()
+        org.unmanaged.refresh(root.join("UseA.cls"), highPriority = true)
+        assert(!org.referenceIndex.get.isIndexed(root.join("UseA.cls")))
+        assert(references(org, root).isEmpty)
+      }
+    }
+  }
+
+  test("classes loaded from cache are indexed on first use") {
+    withIsolatedRuntime {
+      FileSystemHelper.run(sources) { root: PathLike =>
+        openOrg(root, budgetMb = 16, cacheEnabled = true).flush()
+
+        val org = openOrg(root, budgetMb = 16, cacheEnabled = true)
+        assert(!org.referenceIndex.get.isIndexed(root.join("UseA.cls")))
+        assert(org.unmanaged.getIndexedReferences(root.join("Util.cls"), 1, runOffset).isEmpty)
+        assert(references(org, root) == expected(root))
+        assert(org.referenceIndex.get.isIndexed(root.join("UseA.cls")))
+      }
+    }
+  }
+
+  test("budget drops least recently indexed files") {
+    val index = new ReferenceIndex(150)
+    index.indexing(Path("/tmp/A.cls")) {}
+    index.indexing(Path("/tmp/B.cls")) {}
+    assert(index.isIndexed(Path("/tmp/A.cls")))
+
+    index.indexing(Path("/tmp/C.cls")) {}
+    assert(!index.isIndexed(Path("/tmp/A.cls")))
+    assert(index.isIndexed(Path("/tmp/B.cls")))
+    assert(index.isIndexed(Path("/tmp/C.cls")))
+    assert(index.usedBytes <= 150)
+  }
+
+  test("failed validation drops the file") {
+    val index = new ReferenceIndex(1024)
+    val path  = Path("/tmp/Failed.cls")
+    index.indexing(path) {}
+    assert(index.isIndexed(path))
+    assertThrows[IllegalStateException] {
+      index.indexing(path) { throw new IllegalStateException() }
+    }
+    assert(!index.isIndexed(path))
+  }
+}
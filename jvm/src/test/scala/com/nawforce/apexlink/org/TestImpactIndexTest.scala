@@ -0,0 +1,169 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.org
+
+import com.nawforce.apexlink.TestHelper
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import org.scalatest.funsuite.AnyFunSuite
+
+class TestImpactIndexTest extends AnyFunSuite with TestHelper {
+
+  private val files = Map(
+    "Service.cls"     -> "public class Service {}",
+    "ServiceImpl.cls" -> "public class ServiceImpl { Service service; }",
+    "ServiceTest.cls" -> "@isTest public class ServiceTest { ServiceImpl service; }",
+    "Other.cls"       -> "public class Other {}"
+  )
+
+  private def impacted(
+    org: OPM.OrgImpl,
+    root: PathLike,
+    names: String*
+  ): Map[String, Seq[String]] = {
+    org
+      .getImpactedTestClasses(names.map(name => root.join(name).toString).toArray)
+      .map(test => (test.name, test.explanation.toSeq))
+      .toMap
+  }
+
+  test("Index is built once by walking from test classes") {
+    FileSystemHelper.run(files) { root: PathLike =>
+      val org = createHappyOrg(root)
+
+      val first = impacted(org, root, "Service.cls")
+      assert(first == Map("ServiceTest" -> Seq("ServiceTest", "ServiceImpl", "Service")))
+      assert(org.testImpactIndex.size == 1)
+      assert(org.testImpactIndex.walkCount == 1)
+
+      assert(impacted(org, root, "Service.cls") == first)
+      assert(impacted(org, root, "Other.cls").isEmpty)
+      assert(org.testImpactIndex.walkCount == 1)
+    }
+  }
+
+  test("Shortest explanation is returned for tests reached from several sources") {
+    FileSystemHelper.run(files) { root: PathLike =>
+      val org = createHappyOrg(root)
+
+      assert(
+        impacted(org, root, "Service.cls", "ServiceImpl.cls") ==
+          Map("ServiceTest" -> Seq("ServiceTest", "ServiceImpl"))
+      )
+      assert(org.testImpactIndex.size == 1)
+    }
+  }
+
+  test("Refresh redoes walks through changed types") {
+    withManualFlush {
+      FileSystemHelper.run(files) { root: PathLike =>
+        val org = createHappyOrg(root)
+        assert(impacted(org, root, "Service.cls").keySet == Set("ServiceTest"))
+
+        val path = root.join("ServiceImpl.cls")
+        path.write("public class ServiceImpl {}")
+        org.unmanaged.refresh(path, highPriority = false)
+        org.flush()
+
+        assert(impacted(org, root, "Service.cls").isEmpty)
+      }
+    }
+  }
+
+  test("Queries after a refresh of the queried types do no walk") {
+    withManualFlush {
+      FileSystemHelper.run(files) { root: PathLike =>
+        val org = createHappyOrg(root)
+        assert(impacted(org, root, "Service.cls").keySet == Set("ServiceTest"))
+
+        val path = root.join("ServiceImpl.cls")
+        path.write("public class ServiceImpl { Service service; Other other; }")
+        org.unmanaged.refresh(path, highPriority = false)
+        org.flush()
+        assert(org.testImpactIndex.walkCount == 2)
+
+        assert(
+          impacted(org, root, "Service.cls", "ServiceImpl.cls", "Other.cls") ==
+            Map("ServiceTest" -> Seq("ServiceTest", "ServiceImpl"))
+        )
+        assert(
+          impacted(org, root, "Other.cls") ==
+            Map("ServiceTest" -> Seq("ServiceTest", "ServiceImpl", "Other"))
+        )
+        assert(org.testImpactIndex.walkCount == 2)
+      }
+    }
+  }
+
+  test("Refresh walks from new test classes") {
+    withManualFlush {
+      FileSystemHelper.run(files) { root: PathLike =>
+        val org = createHappyOrg(root)
+        assert(impacted(org, root, "Other.cls").isEmpty)
+        assert(org.testImpactIndex.size == 1)
+
+        val path = root.join("OtherTest.cls")
+        root.join("OtherTest.cls-meta.xml").write("")
+        path.write("@isTest public class OtherTest { Other other; }")
+        org.unmanaged.refresh(path, highPriority = false)
+        org.flush()
+
+        assert(
+          impacted(org, root, "Other.cls") == Map("OtherTest" -> Seq("OtherTest", "Other"))
+        )
+      }
+    }
+  }
+
+  test("Walks are saved with the cache") {
+    withManualFlush {
+      FileSystemHelper.run(files) { root: PathLike =>
+        val org = createHappyOrg(root)
+        assert(impacted(org, root, "Service.cls").keySet == Set("ServiceTest"))
+        org.flush()
+
+        val reloaded = createHappyOrg(root)
+        assert(impacted(reloaded, root, "Other.cls").isEmpty)
+        assert(reloaded.testImpactIndex.size == 1)
+        assert(
+          impacted(reloaded, root, "Service.cls") ==
+            Map("ServiceTest" -> Seq("ServiceTest", "ServiceImpl", "Service"))
+        )
+        assert(reloaded.testImpactIndex.walkCount == 0)
+      }
+    }
+  }
+
+  test("Saved walks through types with changed sources are redone") {
+    withManualFlush {
+      FileSystemHelper.run(
+        files + ("OtherTest.cls" -> "@isTest public class OtherTest { Other other; }")
+      ) { root: PathLike =>
+        val org = createHappyOrg(root)
+        assert(impacted(org, root, "Service.cls").keySet == Set("ServiceTest"))
+        org.flush()
+
+        root.join("ServiceImpl.cls").write("public class ServiceImpl {}")
+        val reloaded = createHappyOrg(root)
+        assert(impacted(reloaded, root, "Service.cls").isEmpty)
+        assert(
+          impacted(reloaded, root, "Other.cls") == Map("OtherTest" -> Seq("OtherTest", "Other"))
+        )
+        assert(reloaded.testImpactIndex.size == 2)
+        assert(reloaded.testImpactIndex.walkCount == 1)
+      }
+    }
+  }
+}
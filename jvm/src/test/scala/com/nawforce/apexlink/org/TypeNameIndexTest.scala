@@ -0,0 +1,89 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.org
+
+import com.nawforce.pkgforce.names.{Name, TypeName}
+import org.scalatest.funsuite.AnyFunSuite
+
+class TypeNameIndexTest extends AnyFunSuite {
+
+  private def typeName(name: String): TypeName = TypeName(Name(name))
+
+  private def index(names: String*): TypeNameIndex = {
+    val index = new TypeNameIndex()
+    names.foreach(name => index.add(typeName(name)))
+    index
+  }
+
+  private def find(index: TypeNameIndex, term: String, limit: Int = 100): Seq[String] =
+    index.find(term, limit).map(_.name.value)
+
+  test("Prefix matches ignore case and are in name order") {
+    val names = index("AccountService", "Accounts", "accountHelper", "Contact")
+    assert(find(names, "acc") == Seq("accountHelper", "Accounts", "AccountService"))
+    assert(find(names, "ACCOUNTS") == Seq("Accounts", "AccountService"))
+    assert(find(names, "Z").isEmpty)
+  }
+
+  test("Empty term matches all names") {
+    assert(find(index("B", "A", "C"), "") == Seq("A", "B", "C"))
+  }
+
+  test("Camel hump matches follow prefix matches") {
+    val names = index("AccountService", "AccSetup", "AccountSelector", "AssetService")
+    assert(find(names, "AccS") == Seq("AccSetup", "AccountSelector", "AccountService"))
+    assert(
+      find(names, "AS") == Seq("AssetService", "AccountSelector", "AccountService", "AccSetup")
+    )
+    assert(find(names, "ASer") == Seq("AccountService", "AssetService"))
+  }
+
+  test("Underscores separate humps") {
+    val names = index("Account_Service", "My_Foo_Bar")
+    assert(find(names, "AS") == Seq("Account_Service"))
+    assert(find(names, "MyFB") == Seq("My_Foo_Bar"))
+  }
+
+  test("Results are limited") {
+    val names = index("A1", "A2", "A3", "AbCd")
+    assert(find(names, "A", 2) == Seq("A1", "A2"))
+    assert(find(names, "AC", 1) == Seq("AbCd"))
+  }
+
+  test("Removed names are not found") {
+    val names = index("AccountService", "Accounts")
+    names.remove(typeName("AccountService"))
+    assert(find(names, "Acc") == Seq("Accounts"))
+    assert(find(names, "AS").isEmpty)
+    names.remove(typeName("Missing"))
+    assert(find(names, "") == Seq("Accounts"))
+  }
+
+  test("Same name in different namespaces") {
+    val names  = new TypeNameIndex()
+    val first  = TypeName(Name("Service"), Nil, Some(TypeName(Name("ns1"))))
+    val second = TypeName(Name("Service"), Nil, Some(TypeName(Name("ns2"))))
+    names.add(first)
+    names.add(second)
+    assert(names.find("Ser", 10).toSet == Set(first, second))
+    names.remove(first)
+    assert(names.find("Ser", 10) == Seq(second))
+  }
+
+  test("Rank orders prefix matches first") {
+    val ranked =
+      TypeNameIndex.rank("AS", Seq("AssetService", "Other", "AccountSelector", "Asset"))(identity)
+    assert(ranked == Seq("Asset", "AssetService", "AccountSelector"))
+  }
+}
@@ -14,12 +14,19 @@
 package com.nawforce.apexlink.pkg
 
 import com.nawforce.apexlink.TestHelper
-import com.nawforce.apexlink.api.ServerOps
+import com.nawforce.apexlink.api.{Org, ServerOps}
 import com.nawforce.apexlink.names.TypeNames
 import com.nawforce.apexlink.names.TypeNames.TypeNameUtils
 import com.nawforce.apexlink.org.OPM
 import com.nawforce.apexlink.plugins.UnusedPlugin
-import com.nawforce.apexlink.types.apex.{FullDeclaration, SummaryDeclaration}
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.apexlink.types.apex.{
+  FullDeclaration,
+  SummaryDeclaration,
+  SummaryTriggerDeclaration,
+  TriggerDeclaration
+}
+import com.nawforce.apexlink.types.core.TypeDeclaration
 import com.nawforce.pkgforce.PathInterpolator.PathInterpolator
 import com.nawforce.pkgforce.names.{Name, TypeIdentifier, TypeName}
 import com.nawforce.pkgforce.path.PathLike
@@ -788,4 +795,99 @@ class CachedTest extends AnyFunSuite with TestHelper with BeforeAndAfter {
       }
     }
   }
+
+  test("Cached with segment store") {
+    FileSystemHelper.run(
+      Map("Bar.cls" -> "public virtual class Bar {}", "Foo.cls" -> "public class Foo extends Bar {}")
+    ) { root: PathLike =>
+      val options = OpenOptions.default().withAutoFlush(false).withSegmentCache(true)
+      val org     = Org.newOrg(root, options).asInstanceOf[OPM.OrgImpl]
+      assert(org.issues.isEmpty)
+      assertIsFullDeclaration(org.unmanaged, "Bar")
+      assertIsFullDeclaration(org.unmanaged, "Foo")
+      org.flush()
+
+      val org2 = Org.newOrg(root, options).asInstanceOf[OPM.OrgImpl]
+      assert(org2.issues.isEmpty)
+      assertIsSummaryDeclaration(org2.unmanaged, "Bar")
+      assertIsSummaryDeclaration(org2.unmanaged, "Foo")
+    }
+  }
+
+  private def trigger(pkg: OPM.PackageImpl, name: String): Option[TypeDeclaration] =
+    pkg.orderedModules.head.findModuleType(TypeName(Name(s"__sfdc_trigger/$name")))
+
+  test("Cached trigger") {
+    FileSystemHelper.run(
+      Map(
+        "Bar.cls"     -> "public class Bar {public static void run() {}}",
+        "Foo.trigger" -> "trigger Foo on Account (before insert) {Bar.run();}"
+      )
+    ) { root: PathLike =>
+      val org = createOrg(root)
+      assert(org.issues.isEmpty)
+      assert(trigger(org.unmanaged, "Foo").exists(_.isInstanceOf[TriggerDeclaration]))
+      org.flush()
+
+      // Reload from cache
+      val org2 = createOrg(root)
+      assert(org2.issues.isEmpty)
+      assert(trigger(org2.unmanaged, "Foo").exists(_.isInstanceOf[SummaryTriggerDeclaration]))
+      assertIsSummaryDeclaration(org2.unmanaged, "Bar")
+      assert(
+        org2.unmanaged.hasDependency(
+          TypeIdentifier(None, TypeName(Name("__sfdc_trigger/Foo"))),
+          TypeIdentifier(None, TypeName(Name("Bar")))
+        )
+      )
+      org2.flush()
+
+      // Change the class the trigger depends on
+      root.createFile("Bar.cls", "public class Bar {public static void run() {} /* Changed */}")
+      val org3 = createOrg(root)
+      assert(org3.issues.isEmpty)
+      assert(trigger(org3.unmanaged, "Foo").exists(_.isInstanceOf[TriggerDeclaration]))
+    }
+  }
+
+  test("Cached trigger with error") {
+    FileSystemHelper.run(
+      Map("Foo.trigger" -> "trigger Foo on Account (before insert) {Integer a = '';}")
+    ) { root: PathLike =>
+      val org      = createOrg(root)
+      val messages = getMessages(org)
+      assert(messages.nonEmpty)
+      org.flush()
+
+      val org2 = createOrg(root)
+      assert(trigger(org2.unmanaged, "Foo").exists(_.isInstanceOf[SummaryTriggerDeclaration]))
+      assert(getMessages(org2) == messages)
+    }
+  }
+
+  test("Refreshed class is flushed without its dependents") {
+    FileSystemHelper.run(
+      Map("Bar.cls" -> "public class Bar {}", "Foo.cls" -> "public class Foo {}")
+    ) { root: PathLike =>
+      val org = createOrg(root)
+      assert(org.issues.isEmpty)
+      org.flush()
+
+      // Refresh Foo with an error, only Foo should be serialised
+      val pkg = org.unmanaged
+      root.createFile("Foo.cls", "public class Foo {Integer a = '';}")
+      pkg.refresh(root.join("Foo.cls"), highPriority = true)
+      val upserts = pkg.flush()
+      assert(upserts.map(_.name) == Seq("Foo"))
+      upserts.foreach(_(org.parsedCache.get))
+      assert(pkg.flush().isEmpty)
+
+      // Reload from cache, both summaries, Foo with its error
+      val org2 = createOrg(root)
+      assertIsSummaryDeclaration(org2.unmanaged, "Bar")
+      assertIsSummaryDeclaration(org2.unmanaged, "Foo")
+      assert(getMessages(org2) == getMessages(org))
+      assert(getMessages(org2).nonEmpty)
+    }
+  }
 }
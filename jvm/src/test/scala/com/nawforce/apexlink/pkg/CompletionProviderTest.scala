@@ -20,6 +20,10 @@ import com.nawforce.runtime.FileSystemHelper
 import org.scalatest.Inspectors.forAll
 import org.scalatest.funsuite.AnyFunSuite
 
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.DurationInt
+import scala.concurrent.{Await, Future}
+
 class CompletionProviderTest extends AnyFunSuite with TestHelper {
 
   private val bodyContent = """
@@ -477,6 +481,28 @@ class CompletionProviderTest extends AnyFunSuite with TestHelper {
     }
   }
 
+  test("Concurrent completions match sequential completions") {
+    FileSystemHelper.run(Map("Dummy.cls" -> dummyContent)) { root: PathLike =>
+      val org = createOrg(root)
+      val sources = Seq(
+        "",
+        "public class Dummy { public void func() { String a; a.",
+        "public class Dummy { public void func() { Integer a = n",
+        "public class Dummy { public void func() { fo"
+      )
+      def complete(testSrc: String): Seq[String] =
+        org
+          .getCompletionItemsInternal(root.join("Dummy.cls"), 1, testSrc.length, testSrc)
+          .map(_.label)
+          .toSeq
+
+      val expected = sources.map(complete)
+      val results =
+        Future.sequence((0 until 8).flatMap(_ => sources.map(src => Future(complete(src)))))
+      Await.result(results, 2.minutes).grouped(sources.length).foreach(r => assert(r == expected))
+    }
+  }
+
   test("Class Declaration Completions") {
     FileSystemHelper.run(Map("Dummy.cls" -> "")) { root: PathLike =>
       val org     = createOrg(root)
@@ -20,6 +20,10 @@ import com.nawforce.pkgforce.path.PathLike
 import com.nawforce.runtime.FileSystemHelper
 import org.scalatest.funsuite.AnyFunSuite
 
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration.DurationInt
+import scala.concurrent.{Await, Future}
+
 class DefinitionProviderTest extends AnyFunSuite with TestHelper {
 
   test("Outer class match") {
@@ -268,6 +272,37 @@ class DefinitionProviderTest extends AnyFunSuite with TestHelper {
     }
   }
 
+  test("Concurrent definitions from content do not add dependency holders") {
+    val contentAndCursorPos =
+      withCursor(s"public class Dummy {void func() {Foo.m${CURSOR}ethod();}}")
+    FileSystemHelper.run(
+      Map(
+        "Dummy.cls" -> contentAndCursorPos._1,
+        "Foo.cls"   -> "public class Foo { public static void method() {} }"
+      )
+    ) { root: PathLike =>
+      val org     = createHappyOrg(root)
+      val method  = unmanagedClass("Foo").get.localMethods.head
+      val holders = method.getDependencyHolders
+      def definition(): Seq[LocationLinkString] =
+        org.unmanaged
+          .getDefinition(
+            root.join("Dummy.cls"),
+            line = 1,
+            offset = contentAndCursorPos._2,
+            Some(contentAndCursorPos._1)
+          )
+          .map(LocationLinkString(root, contentAndCursorPos._1, _))
+          .toSeq
+
+      val expected = definition()
+      assert(expected.map(_.targetSelection) == Seq("method"))
+      val results = Future.sequence((0 until 16).map(_ => Future(definition())))
+      Await.result(results, 2.minutes).foreach(r => assert(r == expected))
+      assert(method.getDependencyHolders == holders)
+    }
+  }
+
   test("Static field") {
     val contentAndCursorPos = withCursor(s"public class Dummy {{String a = Foo.F${CURSOR}OO;}}")
     FileSystemHelper.run(
@@ -19,6 +19,7 @@ import com.nawforce.pkgforce.PathInterpolator.PathInterpolator
 import com.nawforce.pkgforce.names.{Name, Names, TypeName}
 import com.nawforce.pkgforce.path.PathLike
 import com.nawforce.runtime.FileSystemHelper
+import com.nawforce.runtime.platform.Environment
 import org.scalatest.funsuite.AnyFunSuite
 
 import scala.collection.mutable
@@ -1215,4 +1216,26 @@ class RefreshTest extends AnyFunSuite with TestHelper {
     }
   }
 
+  test("Refreshing without a cache does not retain validated types") {
+    withManualFlush {
+      val cacheDir = Environment.getCacheDirOverride
+      Environment.setCacheDirOverride(Some(None))
+      try {
+        FileSystemHelper.run(Map("pkg/Foo.cls" -> "public class Foo {}")) { root: PathLike =>
+          val org = createOrg(root)
+          val pkg = org.unmanaged
+          assert(org.parsedCache.isEmpty)
+
+          (0 until 20).foreach(i => {
+            refresh(pkg, root.join("pkg/Foo.cls"), s"public class Foo {Integer a$i;}")
+            assert(org.flush())
+            assert(pkg.dirtyCount == 0)
+          })
+          assert(org.issues.isEmpty)
+        }
+      } finally {
+        Environment.setCacheDirOverride(cacheDir)
+      }
+    }
+  }
 }
@@ -0,0 +1,104 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.rpc
+
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.nio.channels.ReadableByteChannel
+import java.nio.charset.StandardCharsets
+
+class MessageFramerTest extends AnyFunSuite {
+
+  /** Channel returning each chunk from a separate read. */
+  private class ChunkedChannel(chunks: Seq[Array[Byte]]) extends ReadableByteChannel {
+    private val remaining = scala.collection.mutable.Queue(chunks: _*)
+
+    override def read(dst: ByteBuffer): Int = {
+      if (remaining.isEmpty) return -1
+      val chunk = remaining.head
+      val count = chunk.length.min(dst.remaining())
+      dst.put(chunk, 0, count)
+      remaining.dequeue()
+      if (count < chunk.length)
+        remaining.prepend(chunk.drop(count))
+      count
+    }
+
+    override def isOpen: Boolean = true
+
+    override def close(): Unit = {}
+  }
+
+  private def bytes(value: String): Array[Byte] = value.getBytes(StandardCharsets.UTF_8)
+
+  private def messages(framer: MessageFramer): Seq[String] =
+    Iterator.continually(framer.next()).takeWhile(_.nonEmpty).flatten.toSeq
+
+  test("Messages in one read") {
+    val framer = new MessageFramer(new ChunkedChannel(Seq(bytes("one\u0000two\u0000"))))
+    assert(messages(framer) == Seq("one", "two"))
+  }
+
+  test("Message split across reads") {
+    val framer =
+      new MessageFramer(new ChunkedChannel(Seq(bytes("o"), bytes("ne\u0000tw"), bytes("o\u0000"))))
+    assert(messages(framer) == Seq("one", "two"))
+  }
+
+  test("Multi-byte character split across reads") {
+    val encoded = bytes("café\u0000")
+    val framer  = new MessageFramer(new ChunkedChannel(Seq(encoded.take(4), encoded.drop(4))))
+    assert(messages(framer) == Seq("café"))
+  }
+
+  test("Unterminated message is not returned") {
+    val framer = new MessageFramer(new ChunkedChannel(Seq(bytes("one\u0000tw"))))
+    assert(messages(framer) == Seq("one"))
+  }
+
+  test("Buffer grows for large message") {
+    val large   = "x" * 1000
+    val channel = new ChunkedChannel(Seq(bytes(s"a\u0000$large\u0000b\u0000")))
+    val framer  = new MessageFramer(channel, 16)
+    assert(messages(framer) == Seq("a", large, "b"))
+  }
+
+  test("Writer terminates messages") {
+    val output = new ByteArrayOutputStream()
+    val writer = new MessageWriter(output)
+    writer.write("one")
+    writer.write("café")
+    assert(output.toByteArray sameElements bytes("one\u0000café\u0000"))
+  }
+
+  test("Writer encodes message larger than buffer") {
+    val large  = "é" * 1000
+    val output = new ByteArrayOutputStream()
+    val writer = new MessageWriter(output, 16)
+    writer.write(large)
+    assert(output.toByteArray sameElements bytes(s"$large\u0000"))
+  }
+
+  test("Writer output can be framed") {
+    val output = new ByteArrayOutputStream()
+    val writer = new MessageWriter(output, 16)
+    val sent   = Seq("{}", "x" * 100, "café")
+    sent.foreach(writer.write)
+    val framer = new MessageFramer(new ChunkedChannel(Seq(output.toByteArray)), 16)
+    assert(messages(framer) == sent)
+  }
+}
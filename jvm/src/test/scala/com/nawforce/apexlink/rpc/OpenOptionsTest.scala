@@ -33,4 +33,24 @@ class OpenOptionsTest extends AnyFunSuite {
     val options = read[OpenOptions](legacyJson.render())
     assert(options.unusedOnError.isEmpty)
   }
+
+  test("issue notifications are disabled unless requested") {
+    assert(OpenOptions.default().issueNotifications.isEmpty)
+    assert(
+      OpenOptions.default().withIssueNotifications(enabled = true).issueNotifications.contains(true)
+    )
+
+    val legacyJson = ujson.read(write(OpenOptions.default()))
+    legacyJson.obj.remove("issueNotifications")
+    assert(read[OpenOptions](legacyJson.render()).issueNotifications.isEmpty)
+  }
+
+  test("declaration budget is disabled unless requested") {
+    assert(OpenOptions.default().declarationBudget.isEmpty)
+    assert(OpenOptions.default().withDeclarationBudget(64).declarationBudget.contains(64))
+
+    val legacyJson = ujson.read(write(OpenOptions.default()))
+    legacyJson.obj.remove("declarationBudget")
+    assert(read[OpenOptions](legacyJson.render()).declarationBudget.isEmpty)
+  }
 }
@@ -231,6 +231,23 @@ class OrgAPITest extends AsyncFunSuite with BeforeAndAfterEach with TestHelper {
     }
   }
 
+  test("Get Issues Page") {
+    val workspace = samplesDir.join("sfdx-ns-test")
+    val orgAPI    = OrgAPI()
+    for {
+      result <- orgAPI.open(workspace.toString)
+      all    <- orgAPI.getIssues(includeWarnings = true, maxIssuesPerFile = 0)
+      first  <- orgAPI.getIssuesPage(includeWarnings = true, maxIssuesPerFile = 0, 0, 2)
+      second <- orgAPI.getIssuesPage(includeWarnings = true, maxIssuesPerFile = 0, 2, 2)
+    } yield {
+      assert(result.error.isEmpty)
+      assert(first.total == 3 && second.total == 3)
+      assert(first.offset == 0 && second.offset == 2)
+      assert(first.version == second.version)
+      assert((first.issues ++ second.issues) sameElements all.issues)
+    }
+  }
+
   test("Get Dependency Graph (zero depth)") {
     val workspace = samplesDir.join("mdapi-test")
     val orgAPI    = OrgAPI()
@@ -364,6 +381,57 @@ class OrgAPITest extends AsyncFunSuite with BeforeAndAfterEach with TestHelper {
     }
   }
 
+  test("Get Type Identifiers Page") {
+    val workspace = samplesDir.join("mdapi-test")
+    val orgAPI    = OrgAPI()
+    for {
+      result <- orgAPI.open(workspace.toString)
+      all    <- orgAPI.typeIdentifiers(apexOnly = true)
+      first  <- orgAPI.typeIdentifiersPage(apexOnly = true, 0, 1)
+      rest   <- orgAPI.typeIdentifiersPage(apexOnly = true, 1, 0)
+      beyond <- orgAPI.typeIdentifiersPage(apexOnly = true, 1000, 1)
+    } yield {
+      assert(result.error.isEmpty)
+      assert(first.total == all.identifiers.length && first.identifiers.length == 1)
+      assert(first.version == rest.version)
+      assert((first.identifiers ++ rest.identifiers) sameElements all.identifiers)
+      assert(beyond.offset == all.identifiers.length && beyond.identifiers.isEmpty)
+    }
+  }
+
+  test("Get Dependency Graph Page") {
+    val workspace   = samplesDir.join("mdapi-test")
+    val orgAPI      = OrgAPI()
+    val identifiers = IdentifiersRequest(Array(TypeIdentifier(None, TypeName(Name("Hello")))))
+    for {
+      result <- orgAPI.open(workspace.toString)
+      graph  <- orgAPI.dependencyGraph(identifiers, 1, apexOnly = true, IdentifiersRequest(Array()))
+      first <- orgAPI.dependencyGraphPage(
+        identifiers,
+        1,
+        apexOnly = true,
+        IdentifiersRequest(Array()),
+        0,
+        1
+      )
+      second <- orgAPI.dependencyGraphPage(
+        identifiers,
+        1,
+        apexOnly = true,
+        IdentifiersRequest(Array()),
+        1,
+        1
+      )
+    } yield {
+      assert(result.error.isEmpty)
+      assert(first.total == 2 && second.total == 2)
+      assert(first.version == second.version)
+      assert((first.nodeData ++ second.nodeData) sameElements graph.nodeData)
+      assert(first.linkData sameElements Array(DependencyLink(0, 1, "uses")))
+      assert(second.linkData.isEmpty)
+    }
+  }
+
   test("Get Test Class Names (with test class)") {
     val workspace = samplesDir.join("test-classes")
     val orgAPI    = OrgAPI()
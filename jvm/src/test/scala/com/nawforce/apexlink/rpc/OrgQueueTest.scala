@@ -0,0 +1,253 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.rpc
+
+import com.nawforce.apexlink.api.ServerOps
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.FileSystemHelper
+import com.nawforce.runtime.platform.{Environment, Path}
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.nio.file.Files
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+import scala.collection.mutable
+import scala.concurrent.duration.Duration
+import scala.concurrent.{Await, Future, Promise}
+
+class OrgQueueTest extends AnyFunSuite {
+
+  private class TestRequest(override val isRead: Boolean, latch: Option[CountDownLatch])
+      extends APIRequest {
+    val started: Promise[Unit]   = Promise[Unit]()
+    val completed: Promise[Unit] = Promise[Unit]()
+
+    override def process(queue: OrgQueue): Unit = {
+      started.success(())
+      latch.foreach(_.await(10, TimeUnit.SECONDS))
+      completed.success(())
+    }
+  }
+
+  private def deleteDir(path: PathLike): Unit = {
+    path.splitDirectoryEntries()._1.foreach(file => file.delete())
+    path.splitDirectoryEntries()._2.foreach(dir => deleteDir(dir))
+    path.delete()
+  }
+
+  private def withQueue[T](op: (Path, OrgQueue) => T): T = withNotifyingQueue(None)(op)
+
+  private def withNotifyingQueue[T](
+    notifier: Option[ClientNotifier]
+  )(op: (Path, OrgQueue) => T): T = {
+    val originalCache     = Environment.getCacheDirOverride
+    val originalAutoFlush = ServerOps.isAutoFlushEnabled
+    val root              = new Path(Files.createTempDirectory("orgqueuetest"))
+    try {
+      root.join("sfdx-project.json").write(FileSystemHelper.defaultSFDXProject)
+      root.join("Dummy.cls").write("public class Dummy {}")
+      root.join("Dummy.cls-meta.xml").write("")
+      val options = OpenOptions
+        .default()
+        .withAutoFlush(enabled = false)
+        .withCache(false)
+        .withIssueNotifications(enabled = true)
+      op(root, new OrgQueue(root.toString, options, notifier))
+    } finally {
+      Environment.setCacheDirOverride(originalCache)
+      ServerOps.setAutoFlush(originalAutoFlush)
+      deleteDir(root)
+    }
+  }
+
+  private def await[T](future: Future[T]): T = Await.result(future, Duration(10, TimeUnit.SECONDS))
+
+  private def isPending(future: Future[_]): Boolean = {
+    Thread.sleep(200)
+    !future.isCompleted
+  }
+
+  test("reads are processed while an earlier read is blocked") {
+    withQueue { (_, queue) =>
+      val latch = new CountDownLatch(1)
+      val slow  = new TestRequest(isRead = true, Some(latch))
+      val fast  = new TestRequest(isRead = true, None)
+      queue.add(slow)
+      queue.add(fast)
+
+      await(slow.started.future)
+      await(fast.completed.future)
+      assert(!slow.completed.isCompleted)
+      latch.countDown()
+      await(slow.completed.future)
+    }
+  }
+
+  test("writes wait for running reads and hold back later requests") {
+    withQueue { (_, queue) =>
+      val latch = new CountDownLatch(1)
+      val read  = new TestRequest(isRead = true, Some(latch))
+      val write = new TestRequest(isRead = false, None)
+      val later = new TestRequest(isRead = true, None)
+      queue.add(read)
+      queue.add(write)
+      queue.add(later)
+
+      await(read.started.future)
+      assert(isPending(write.started.future))
+      assert(!later.started.isCompleted)
+      latch.countDown()
+      await(write.completed.future)
+      await(later.completed.future)
+    }
+  }
+
+  test("only requests that leave org types unchanged are reads") {
+    assert(new GetIssues(Promise(), includeWarnings = true, 0).isRead)
+    assert(new IssuesForFile(Promise(), "").isRead)
+    assert(new TypeIdentifiers(Promise(), apexOnly = true).isRead)
+    assert(new GetCompletionItems(Promise(), "", 1, 0, "").isRead)
+    assert(new GetDefinition(Promise(), "", 1, 0, None).isRead)
+    assert(new GetImplementation(Promise(), "", 1, 0, None).isRead)
+    assert(new GetReferences(Promise(), "", 1, 0).isRead)
+    assert(!new OpenRequest(Promise()).isRead)
+  }
+
+  test("definitions and completions are processed while an earlier read is blocked") {
+    withQueue { (root, queue) =>
+      val path    = root.join("Dummy.cls").toString
+      val content = "public class Dummy { void func() { Dummy a; a."
+      val latch   = new CountDownLatch(1)
+      val slow    = new TestRequest(isRead = true, Some(latch))
+      queue.add(slow)
+      await(slow.started.future)
+
+      val definitions = await(GetDefinition(queue, path, 1, 14, None))
+      val completions = await(GetCompletionItems(queue, path, 1, content.length, content))
+      assert(definitions.nonEmpty)
+      assert(completions.map(_.label).contains("func()"))
+      assert(!slow.completed.isCompleted)
+      latch.countDown()
+      await(slow.completed.future)
+    }
+  }
+
+  test("indexed references are processed while an earlier read is blocked") {
+    withQueue { (root, queue) =>
+      val path = root.join("Dummy.cls")
+      val use  = root.join("UseDummy.cls")
+      path.write("public class Dummy { public static void run() {} }")
+      use.write("public class UseDummy { { Dummy.run(); } }")
+      use.parent.join("UseDummy.cls-meta.xml").write("")
+      queue.refresh(path.toString, highPriority = false)
+      queue.refresh(use.toString, highPriority = false)
+      queue.org.flush()
+
+      val latch = new CountDownLatch(1)
+      val slow  = new TestRequest(isRead = true, Some(latch))
+      queue.add(slow)
+      await(slow.started.future)
+
+      val references = await(GetReferences(queue, path.toString, 1, 40))
+      assert(references.map(_.targetPath).toSeq == Seq(use.toString))
+      assert(!slow.completed.isCompleted)
+      latch.countDown()
+      await(slow.completed.future)
+    }
+  }
+
+  test("requests wait for queued refreshes to complete") {
+    withQueue { (root, queue) =>
+      val path = root.join("Dummy.cls")
+      path.write("public class Dummy { Integer a = ''; }")
+      queue.refresh(path.toString, highPriority = false)
+      assert(queue.org.isDirty())
+
+      val request = new TestRequest(isRead = true, None)
+      queue.add(request)
+      assert(isPending(request.started.future))
+
+      queue.org.flush()
+      await(request.completed.future)
+      assert(!queue.org.isDirty())
+      assert(queue.org.issues.issuesForFile(path.toString).nonEmpty)
+    }
+  }
+
+  test("issue changes are sent after a refresh") {
+    val sent = mutable.ArrayBuffer[IssuesDeltaResult]()
+    val notifier = new ClientNotifier {
+      override def issuesChanged(delta: IssuesDeltaResult): Unit = sent.synchronized {
+        sent.append(delta)
+      }
+    }
+
+    withNotifyingQueue(Some(notifier)) { (root, queue) =>
+      val path = root.join("Dummy.cls")
+      path.write("public class Dummy { Foo f; }")
+      queue.refresh(path.toString, highPriority = true)
+
+      val added = sent.synchronized { sent.toList }
+      assert(added.length == 1)
+      assert(!added.head.reset)
+      assert(added.head.added.nonEmpty)
+      assert(added.head.added.forall(_.path.toString == path.toString))
+      assert(added.head.removed.isEmpty)
+
+      path.write("public class Dummy {}")
+      queue.refresh(path.toString, highPriority = true)
+
+      val removed = sent.synchronized { sent.toList }
+      assert(removed.length == 2)
+      assert(removed(1).since == added.head.version)
+      assert(removed(1).added.isEmpty)
+      assert(removed(1).removed.toSet == added.head.added.toSet)
+    }
+  }
+
+  test("issues since a version are returned") {
+    withQueue { (root, queue) =>
+      val initial = await(IssuesSince(queue, 0))
+      assert(initial.added.isEmpty)
+
+      val path = root.join("Dummy.cls")
+      path.write("public class Dummy { Foo f; }")
+      queue.refresh(path.toString, highPriority = true)
+
+      val delta = await(IssuesSince(queue, initial.version))
+      assert(delta.since == initial.version)
+      assert(delta.added.nonEmpty)
+      assert(delta.added.forall(_.path.toString == path.toString))
+    }
+  }
+
+  test("pages are sliced from a snapshot until the result changes") {
+    withQueue { (root, queue) =>
+      val first = await(GetIssuesPage(queue, includeWarnings = true, 0, 0, 1))
+      assert(first.total == 0)
+      queue.pagedIssues((true, 0), first.version)(fail("issues were not reused"))
+
+      val identifiers = await(TypeIdentifiersPage(queue, apexOnly = true, 0, 1))
+      assert(identifiers.total == 1)
+      queue.pagedIdentifiers(true, identifiers.version)(fail("identifiers were not reused"))
+
+      val path = root.join("Dummy.cls")
+      path.write("public class Dummy { Foo f; }")
+      queue.refresh(path.toString, highPriority = true)
+
+      val changed = await(GetIssuesPage(queue, includeWarnings = true, 0, 0, 1))
+      assert(changed.version != first.version)
+      assert(changed.total > 0)
+    }
+  }
+}
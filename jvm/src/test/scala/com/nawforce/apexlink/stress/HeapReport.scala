@@ -0,0 +1,56 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.apexlink.stress
+
+import com.nawforce.apexlink.api.Org
+import com.nawforce.apexlink.rpc.OpenOptions
+import com.nawforce.pkgforce.names.{DotName, Name, TypeName}
+import com.nawforce.runtime.platform.Path
+
+import java.lang.management.ManagementFactory
+
+/** Reports heap retained by an org after loading a workspace, the time taken to load it and the
+  * number of canonical names held. Run against the same workspace on different commits to compare memory use, the
+  * parsed cache is disabled so all classes are parsed.
+  */
+object HeapReport {
+
+  def main(args: Array[String]): Unit = {
+    if (args.length != 1) {
+      System.err.println("Usage: HeapReport <workspace directory>")
+      return
+    }
+
+    val options  = OpenOptions.default().withCache(false).withAutoFlush(false)
+    val baseline = usedHeap()
+    val start    = System.nanoTime()
+    val org      = Org.newOrg(Path(args.head), options)
+    val loadTime = (System.nanoTime() - start) / 1000000
+    val retained = usedHeap() - baseline
+
+    println(s"Issues: ${org.issues.issuesForFiles(null, false, 0).length}")
+    println(s"Load time: ${loadTime}ms")
+    println(f"Retained heap: ${retained / (1024.0 * 1024.0)}%.1f MB")
+    println(
+      s"Canonical Name: ${Name.canonicalCount}, TypeName: ${TypeName.canonicalCount}, " +
+        s"DotName: ${DotName.canonicalCount}"
+    )
+  }
+
+  private def usedHeap(): Long = {
+    val memory = ManagementFactory.getMemoryMXBean
+    (0 until 3).foreach(_ => System.gc())
+    memory.getHeapMemoryUsage.getUsed
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.apexlink.types.platform
+
+import com.nawforce.pkgforce.names.{DotName, Name, Names}
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.io.{ByteArrayOutputStream, DataOutputStream}
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+class PlatformTypeIndexTest extends AnyFunSuite {
+
+  private def index(
+    names: Seq[String],
+    standardTypes: String = "standard-types.jar",
+    sObjectTypes: String = "sobject-types.jar",
+    magic: Int = PlatformTypeIndex.Magic
+  ): ByteBuffer = {
+    val bytes = new ByteArrayOutputStream()
+    val out   = new DataOutputStream(bytes)
+    def writeString(value: String): Unit = {
+      val encoded = value.getBytes(StandardCharsets.UTF_8)
+      out.writeShort(encoded.length)
+      out.write(encoded)
+    }
+    out.writeInt(magic)
+    out.writeShort(PlatformTypeIndex.Version)
+    writeString(standardTypes)
+    writeString(sObjectTypes)
+    out.writeInt(names.size)
+    names.foreach(writeString)
+    out.flush()
+    ByteBuffer.wrap(bytes.toByteArray)
+  }
+
+  private def read(buffer: ByteBuffer): Option[Seq[String]] =
+    PlatformTypeIndex
+      .read(buffer, "standard-types.jar", "sobject-types.jar")
+      .map(_.toSeq.map(_.toString))
+
+  test("Index round trips names in order") {
+    val names = Seq("System.String", "Internal.Object$", "SObjects.Account")
+    assert(read(index(names)).contains(names))
+  }
+
+  test("Empty index") {
+    assert(read(index(Seq())).contains(Seq()))
+  }
+
+  test("Bad magic is rejected") {
+    assert(read(index(Seq("System.String"), magic = 0)).isEmpty)
+  }
+
+  test("Index for other jars is rejected") {
+    assert(read(index(Seq("System.String"), standardTypes = "standard-types-1.0.jar")).isEmpty)
+    assert(read(index(Seq("System.String"), sObjectTypes = "sobject-types-1.0.jar")).isEmpty)
+  }
+
+  test("Truncated index is rejected") {
+    val buffer = index(Seq("System.String", "System.Integer"))
+    buffer.limit(buffer.limit() - 3)
+    assert(read(buffer).isEmpty)
+  }
+
+  test("SObjects are keyed in Schema namespace") {
+    val map = PlatformTypeDeclaration.indexClassNames(
+      Array(DotName("System.String"), DotName("SObjects.Account"))
+    )
+    assert(map.get(DotName("System.String")).map(_.toString).contains("System.String"))
+    val account = map.get(DotName(Seq(Names.Schema, Name("Account"))))
+    assert(account.map(_.toString).contains("SObjects.Account"))
+    assert(map.get(DotName("SObjects.Account")).isEmpty)
+  }
+
+  test("Prebuilt index matches jar scan") {
+    val indexed = PlatformTypeIndex.load()
+    assert(indexed.nonEmpty)
+    assert(
+      indexed.get.map(_.toString).sorted.toSeq ==
+        PlatformTypeDeclaration.scanClassNames().map(_.toString).sorted.toSeq
+    )
+  }
+}
@@ -194,4 +194,39 @@ class IndexerTest extends AnyFunSuite with TestHelper {
       indexer.stop()
     }
   }
+
+  test("Rescan reports changes without waiting for the quiet period") {
+    run(Map[String, String]("a.txt" -> "", "b.txt" -> "")) { (monitor: Monitor, root: PathLike) =>
+      // Only injected changes should be reported
+      monitor.stop()
+
+      val changed = mutable.ArrayBuffer[String]()
+      var rescans = 0
+
+      val indexer = new Indexer(root, monitor) {
+        override def onFilesChanged(paths: Array[String], rescan: Boolean): Unit = {
+          if (rescan)
+            rescans += 1
+          paths.foreach(changed.append)
+        }
+      }
+
+      val aFile = root.join("a.txt").toString
+      val bFile = root.join("b.txt").toString
+      val cFile = root.join("c.txt")
+
+      indexer.injectFileChange(aFile)
+      indexer.injectFileChange(bFile)
+      cFile.write("")
+      indexer.rescan()
+      assert(rescans == 1)
+      assert(changed.toSet == Set(aFile, cFile.toString))
+
+      // The pending rescan has been cancelled
+      nap()
+      assert(rescans == 1)
+
+      indexer.stop()
+    }
+  }
 }
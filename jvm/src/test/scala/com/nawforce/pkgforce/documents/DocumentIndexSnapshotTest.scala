@@ -0,0 +1,176 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.documents
+
+import com.nawforce.pkgforce.diagnostics.IssueLogger
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.runtime.platform.{Environment, Path}
+import org.scalatest.BeforeAndAfter
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.nio.file.attribute.FileTime
+import java.nio.file.{Files, Path => NioPath}
+import scala.jdk.CollectionConverters._
+
+class DocumentIndexSnapshotTest extends AnyFunSuite with BeforeAndAfter {
+
+  private val natures = Seq(
+    LabelNature,
+    ApexNature,
+    ApexMetaNature,
+    TriggerNature,
+    TriggerMetaNature,
+    ComponentNature,
+    PageNature,
+    FlowNature,
+    SObjectNature,
+    FieldNature,
+    FieldSetNature,
+    SharingReasonNature
+  )
+
+  private val files = Map(
+    "pkg/classes/Foo.cls"                            -> "public class Foo {}",
+    "pkg/classes/Foo.cls-meta.xml"                   -> "",
+    "pkg/classes/nested/Bar.cls"                     -> "public class Bar {}",
+    "pkg/classes/README.md"                          -> "",
+    "pkg/triggers/T.trigger"                         -> "trigger T on Account (before insert) {}",
+    "pkg/objects/A__c/A__c.object-meta.xml"          -> "",
+    "pkg/objects/A__c/fields/F__c.field-meta.xml"    -> "",
+    "pkg/objects/A__c/fieldSets/S.fieldSet-meta.xml" -> "",
+    "pkg/labels/CustomLabels.labels-meta.xml"        -> "",
+    "pkg/pages/P.page"                               -> "",
+    "pkg/ignored/Ignored.cls"                        -> "public class Ignored {}",
+    "pkg/.hidden/Hidden.cls"                         -> "public class Hidden {}",
+    ".forceignore"                                   -> "**/ignored/**"
+  )
+
+  private var root: Path                              = _
+  private var cache: NioPath                          = _
+  private var originalCache: Option[Option[PathLike]] = _
+
+  before {
+    root = new Path(Files.createTempDirectory("indexsnapshottest"))
+    cache = Files.createTempDirectory("indexsnapshotcache")
+    originalCache = Environment.getCacheDirOverride
+    Environment.setCacheDirOverride(Some(Some(new Path(cache))))
+
+    files.foreach { case (name, content) =>
+      val file = root.native.resolve(name)
+      Files.createDirectories(file.getParent)
+      Files.write(file, content.getBytes())
+    }
+    ageDirectories()
+  }
+
+  after {
+    Environment.setCacheDirOverride(originalCache)
+    ParsedCache.clearContents(root)
+    ParsedCache.clearContents(new Path(cache))
+  }
+
+  /** Move directory timestamps into the past so they are old enough to be recorded. */
+  private def ageDirectories(): Unit = {
+    val past   = FileTime.fromMillis(System.currentTimeMillis() - 60000)
+    val stream = Files.walk(root.native)
+    try {
+      stream
+        .iterator()
+        .asScala
+        .filter(Files.isDirectory(_))
+        .foreach(Files.setLastModifiedTime(_, past))
+    } finally stream.close()
+  }
+
+  private def index(): DocumentIndex =
+    DocumentIndex(new IssueLogger(), None, isGulped = false, root, root.join("pkg"))
+
+  private def freshIndex(): DocumentIndex = {
+    Environment.setCacheDirOverride(Some(None))
+    try index()
+    finally Environment.setCacheDirOverride(Some(Some(new Path(cache))))
+  }
+
+  private def contents(index: DocumentIndex): Map[MetadataNature, Map[String, List[String]]] =
+    natures
+      .map(nature => (nature, index.get(nature).toMap.map(kv => (kv._1, kv._2.map(_.toString)))))
+      .toMap
+
+  private def snapshotFiles: Seq[NioPath] = {
+    val stream = Files.list(cache)
+    try stream.iterator().asScala.filter(_.getFileName.toString.startsWith("index-")).toSeq
+    finally stream.close()
+  }
+
+  test("restored index matches a fresh scan") {
+    val fresh = contents(freshIndex())
+    assert(fresh(ApexNature).keySet == Set("foo", "bar"))
+
+    assert(contents(index()) == fresh)
+    assert(snapshotFiles.size == 1)
+    assert(contents(index()) == fresh)
+  }
+
+  test("unchanged directory is restored without listing") {
+    index()
+
+    // Deleting a file and restoring the timestamp makes the directory appear unchanged
+    val nested = root.native.resolve("pkg/classes/nested")
+    val time   = Files.getLastModifiedTime(nested)
+    Files.delete(nested.resolve("Bar.cls"))
+    Files.setLastModifiedTime(nested, time)
+
+    assert(contents(index())(ApexNature).keySet == Set("foo", "bar"))
+    assert(contents(freshIndex())(ApexNature).keySet == Set("foo"))
+  }
+
+  test("changed directory is scanned again") {
+    index()
+
+    Files.write(root.native.resolve("pkg/classes/nested/Baz.cls"), "public class Baz {}".getBytes())
+    Files.setLastModifiedTime(
+      root.native.resolve("pkg/classes/nested"),
+      FileTime.fromMillis(System.currentTimeMillis() - 30000)
+    )
+
+    val restored = contents(index())
+    assert(restored(ApexNature).keySet == Set("foo", "bar", "baz"))
+    assert(restored == contents(freshIndex()))
+  }
+
+  test("recently modified directory is not recorded") {
+    val nested = root.native.resolve("pkg/classes/nested")
+    val recent = FileTime.fromMillis(System.currentTimeMillis())
+    Files.setLastModifiedTime(nested, recent)
+    index()
+
+    Files.delete(nested.resolve("Bar.cls"))
+    Files.setLastModifiedTime(nested, recent)
+    assert(contents(index())(ApexNature).keySet == Set("foo"))
+  }
+
+  test("saving a changed snapshot replaces it without leaving temporary files") {
+    index()
+    Files.write(root.native.resolve("pkg/classes/nested/Baz.cls"), "public class Baz {}".getBytes())
+    Files.setLastModifiedTime(
+      root.native.resolve("pkg/classes/nested"),
+      FileTime.fromMillis(System.currentTimeMillis() - 30000)
+    )
+    index()
+
+    assert(snapshotFiles.size == 1)
+    assert(!snapshotFiles.exists(_.getFileName.toString.endsWith(".tmp")))
+    assert(contents(index())(ApexNature).keySet == Set("foo", "bar", "baz"))
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.documents
+
+import com.nawforce.runtime.platform.Path
+import org.scalatest.BeforeAndAfter
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.nio.channels.FileChannel
+import java.nio.file.{Files, StandardOpenOption}
+import scala.collection.parallel.CollectionConverters._
+import scala.jdk.CollectionConverters._
+
+class SegmentParsedCacheTest extends AnyFunSuite with BeforeAndAfter {
+
+  private val emptyPackageContext = PackageContext(None, Array(), Array(), Array(), Array(), false)
+
+  private var root: Path = _
+
+  before {
+    root = new Path(Files.createTempDirectory("segmentcachetest"))
+  }
+
+  after {
+    ParsedCache.clearContents(root)
+  }
+
+  private def open(): SegmentParsedCache =
+    SegmentParsedCache.open(root, 1).getOrElse(throw new NoSuchElementException())
+
+  private def segmentFiles: Seq[java.nio.file.Path] = {
+    val stream = Files.list(root.native.resolve("segments"))
+    try stream.iterator().asScala.toSeq
+    finally stream.close()
+  }
+
+  test("key insert/recover") {
+    val cache = open()
+    cache.upsert(emptyPackageContext, "Foo", 0, "Hello".getBytes())
+    assert(cache.get(emptyPackageContext, "Foo", 0).get.sameElements("Hello".getBytes()))
+    assert(cache.get(emptyPackageContext, "Foo", 1).isEmpty)
+    assert(cache.get(emptyPackageContext, "Bar", 0).isEmpty)
+    assert(
+      cache
+        .get(PackageContext(Some("ns"), Array(), Array(), Array(), Array(), false), "Foo", 0)
+        .isEmpty
+    )
+  }
+
+  test("overwrite entry") {
+    val cache = open()
+    cache.upsert(emptyPackageContext, "Foo", 0, "Hello".getBytes())
+    cache.upsert(emptyPackageContext, "Foo", 0, "Goodbye".getBytes())
+    assert(cache.get(emptyPackageContext, "Foo", 0).get.sameElements("Goodbye".getBytes()))
+    assert(open().get(emptyPackageContext, "Foo", 0).get.sameElements("Goodbye".getBytes()))
+  }
+
+  test("entries recovered on reopen") {
+    val cache = open()
+    cache.upsert(emptyPackageContext, "Foo", 0, "Hello".getBytes())
+    cache.upsert(emptyPackageContext, "Bar", 0, Array[Byte]())
+    cache.expire()
+
+    val reopened = open()
+    assert(reopened.segmentCount == 1)
+    assert(reopened.get(emptyPackageContext, "Foo", 0).get.sameElements("Hello".getBytes()))
+    assert(reopened.get(emptyPackageContext, "Bar", 0).get.isEmpty)
+  }
+
+  test("incomplete record ignored") {
+    val cache = open()
+    cache.upsert(emptyPackageContext, "Foo", 0, "Hello".getBytes())
+    cache.upsert(emptyPackageContext, "Bar", 0, "Goodbye".getBytes())
+    cache.expire()
+
+    val file    = segmentFiles.head
+    val channel = FileChannel.open(file, StandardOpenOption.WRITE)
+    try channel.truncate(Files.size(file) - 1)
+    finally channel.close()
+
+    val reopened = open()
+    assert(reopened.get(emptyPackageContext, "Foo", 0).get.sameElements("Hello".getBytes()))
+    assert(reopened.get(emptyPackageContext, "Bar", 0).isEmpty)
+  }
+
+  test("expire compacts away unused entries") {
+    val cache = open()
+    cache.upsert(emptyPackageContext, "Foo", 0, "Hello".getBytes())
+    cache.upsert(emptyPackageContext, "Bar", 0, "Goodbye".getBytes())
+    cache.expire()
+    val original = segmentFiles
+
+    val reopened = open()
+    assert(reopened.get(emptyPackageContext, "Foo", 0).nonEmpty)
+    reopened.expire(System.currentTimeMillis() + ParsedCache.EXPIRE_WINDOW + 1)
+    assert(reopened.segmentCount == 1)
+    assert(segmentFiles.size == 1)
+    assert(!original.contains(segmentFiles.head))
+
+    val compacted = open()
+    assert(compacted.get(emptyPackageContext, "Foo", 0).get.sameElements("Hello".getBytes()))
+    assert(compacted.get(emptyPackageContext, "Bar", 0).isEmpty)
+  }
+
+  test("expire merges segments") {
+    (0 until 9).foreach(i => {
+      val cache = open()
+      cache.upsert(emptyPackageContext, s"Foo$i", 0, s"Hello$i".getBytes())
+      cache.expire()
+    })
+
+    val reopened = open()
+    assert(reopened.segmentCount == 1)
+    (0 until 9).foreach(i =>
+      assert(reopened.get(emptyPackageContext, s"Foo$i", 0).get.sameElements(s"Hello$i".getBytes()))
+    )
+  }
+
+  test("concurrent reads") {
+    val cache = open()
+    (0 until 100).foreach(i =>
+      cache.upsert(emptyPackageContext, s"Foo$i", i, s"Hello$i".getBytes())
+    )
+    cache.expire()
+
+    val reopened = open()
+    val results =
+      (0 until 100).par.map(i => reopened.get(emptyPackageContext, s"Foo$i", i).map(new String(_)))
+    assert(results.seq == (0 until 100).map(i => Some(s"Hello$i")))
+  }
+
+  test("clear removes segments") {
+    val cache = open()
+    cache.upsert(emptyPackageContext, "Foo", 0, "Hello".getBytes())
+    cache.clear()
+    assert(cache.get(emptyPackageContext, "Foo", 0).isEmpty)
+    assert(!root.exists)
+    assert(open().get(emptyPackageContext, "Foo", 0).isEmpty)
+  }
+}
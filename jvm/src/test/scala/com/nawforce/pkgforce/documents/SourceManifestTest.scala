@@ -0,0 +1,107 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.documents
+
+import com.nawforce.runtime.platform.Path
+import org.scalatest.BeforeAndAfter
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.nio.file.Files
+import java.nio.file.attribute.FileTime
+import scala.util.hashing.MurmurHash3
+
+class SourceManifestTest extends AnyFunSuite with BeforeAndAfter {
+
+  private var root: Path = _
+
+  // Classes are written in the cache directory for simplicity
+  private def workspace: Path = root
+
+  before {
+    root = new Path(Files.createTempDirectory("sourcemanifesttest"))
+  }
+
+  after {
+    ParsedCache.clearContents(root)
+  }
+
+  private def write(name: String, content: String, age: Long = 60000): Path = {
+    val path = root.join(name)
+    path.write(content)
+    Files.setLastModifiedTime(path.native, FileTime.fromMillis(System.currentTimeMillis() - age))
+    path
+  }
+
+  test("unchanged class not re-read") {
+    val source = write("Foo.cls", "public class Foo {}")
+    val meta   = write("Foo.cls-meta.xml", "<ApexClass/>")
+
+    val manifest      = SourceManifest.open(root, workspace)
+    val (hash, bytes) = manifest.classHash(source, meta)
+    assert(bytes.exists(_.sameElements("public class Foo {}".getBytes())))
+    manifest.save()
+
+    val reopened = SourceManifest.open(root, workspace)
+    assert(reopened.classHash(source, meta) == ((hash, None)))
+  }
+
+  test("changed class re-read") {
+    val source    = write("Foo.cls", "public class Foo {}")
+    val meta      = write("Foo.cls-meta.xml", "<ApexClass/>")
+    val manifest  = SourceManifest.open(root, workspace)
+    val (hash, _) = manifest.classHash(source, meta)
+
+    write("Foo.cls", "public class Bar {}", age = 30000)
+    val (newHash, bytes) = manifest.classHash(source, meta)
+    assert(newHash != hash)
+    assert(bytes.exists(_.sameElements("public class Bar {}".getBytes())))
+  }
+
+  test("changed meta re-read") {
+    val source    = write("Foo.cls", "public class Foo {}")
+    val meta      = write("Foo.cls-meta.xml", "<ApexClass/>")
+    val manifest  = SourceManifest.open(root, workspace)
+    val (hash, _) = manifest.classHash(source, meta)
+
+    write("Foo.cls-meta.xml", "<ApexClass></ApexClass>")
+    val (newHash, bytes) = manifest.classHash(source, meta)
+    assert(newHash != hash)
+    assert(bytes.nonEmpty)
+  }
+
+  test("recently modified class not recorded") {
+    val source    = write("Foo.cls", "public class Foo {}", age = 0)
+    val meta      = root.join("Foo.cls-meta.xml")
+    val manifest  = SourceManifest.open(root, workspace)
+    val (hash, _) = manifest.classHash(source, meta)
+    assert(hash == MurmurHash3.bytesHash("public class Foo {}".getBytes()))
+    assert(manifest.classHash(source, meta)._2.nonEmpty)
+  }
+
+  test("workspaces sharing a cache directory have separate manifests") {
+    val source = write("Foo.cls", "public class Foo {}")
+    val meta   = write("Foo.cls-meta.xml", "<ApexClass/>")
+
+    val manifest  = SourceManifest.open(root, workspace)
+    val (hash, _) = manifest.classHash(source, meta)
+    manifest.save()
+
+    val other = SourceManifest.open(root, root.join("other"))
+    assert(other.classHash(source, meta)._2.nonEmpty)
+    other.save()
+
+    assert(SourceManifest.open(root, workspace).classHash(source, meta) == ((hash, None)))
+    assert(!Files.list(root.native).anyMatch(_.getFileName.toString.endsWith(".tmp")))
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package io.github.apexdevtools.apexls
+
+import com.nawforce.apexlink.api.{Org, ServerOps}
+import com.nawforce.apexlink.org.OPM
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.runtime.FileSystemHelper
+import com.nawforce.runtime.platform.Environment
+import org.scalatest.funsuite.AnyFunSuite
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, PrintStream}
+import java.nio.charset.StandardCharsets
+import java.util.concurrent.{CountDownLatch, TimeUnit}
+
+class BatchDaemonTest extends AnyFunSuite {
+
+  test("responses carry the request id and one-shot status") {
+    val response = ujson.read(daemon().handle("""{"id":7,"args":["ping"]}"""))
+
+    assert(response("id").num == 7)
+    assert(response("status").num == 0)
+    assert(response("protocolVersion").num == 1)
+    assert(response("command").str == "ping")
+    assert(response("ok").bool)
+    assert(response("error") == ujson.Null)
+  }
+
+  test("command failures use the same codes as one-shot invocations") {
+    val response = ujson.read(daemon().handle("""{"id":"a","args":["not-a-command"]}"""))
+
+    assert(response("id").str == "a")
+    assert(response("status").num == 1)
+    assert(response("error")("code").str == "UNKNOWN_COMMAND")
+  }
+
+  test("malformed requests are invalid requests") {
+    val notJson = ujson.read(daemon().handle("ping"))
+    assert(notJson("id") == ujson.Null)
+    assert(notJson("status").num == 1)
+    assert(notJson("error")("code").str == "INVALID_REQUEST")
+
+    val noArgs = ujson.read(daemon().handle("""{"id":1}"""))
+    assert(noArgs("id").num == 1)
+    assert(noArgs("error")("code").str == "INVALID_REQUEST")
+
+    val badArgs = ujson.read(daemon().handle("""{"id":2,"args":["ping",3]}"""))
+    assert(badArgs("id").num == 2)
+    assert(badArgs("error")("code").str == "INVALID_REQUEST")
+  }
+
+  test("serve answers every request and runs independent commands concurrently") {
+    val started = new CountDownLatch(2)
+    val command = new TestCommand(
+      "rendezvous",
+      _ => {
+        started.countDown()
+        assert(started.await(10, TimeUnit.SECONDS))
+      }
+    )
+    val requests =
+      """{"id":1,"args":["rendezvous"]}
+        |
+        |{"id":2,"args":["rendezvous"]}
+        |""".stripMargin
+    val output = new ByteArrayOutputStream()
+
+    daemon(Seq(command), threads = 2).serve(
+      new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)),
+      output
+    )
+
+    val responses = new String(output.toByteArray, StandardCharsets.UTF_8).split('\n')
+    assert(responses.length == 2)
+    val parsed = responses.map(ujson.read(_))
+    assert(parsed.map(_("id").num).toSet == Set(1.0, 2.0))
+    assert(parsed.forall(_("ok").bool))
+  }
+
+  test("caching loader reuses orgs per workspace and cache options") {
+    FileSystemHelper.runTempDir(Map("Dummy.cls" -> "public class Dummy {}")) {
+      workspace =>
+        withRestoredSettings {
+          val counting = new CountingLoader(DefaultBatchWorkspaceLoader)
+          val caching  = new CachingBatchWorkspaceLoader(counting)
+          val options  = BatchOptions(workspace.toString, None, cacheEnabled = false)
+
+          val first  = caching.load(options).toOption.get
+          val second = caching.load(options.copy(workspace = workspace.join(".").toString))
+          assert(second.toOption.get eq first)
+          assert(counting.loads == 1)
+
+          val cacheDirectory = Some(workspace.join("cache").toString)
+          val cached =
+            caching.load(options.copy(cacheDirectory = cacheDirectory, cacheEnabled = true))
+          assert(!(cached.toOption.get eq first))
+          assert(counting.loads == 2)
+          assert(caching.size == 2)
+        }
+    }
+  }
+
+  test("caching loader applies changes made just before reuse") {
+    FileSystemHelper.runTempDir(Map("Dummy.cls" -> "public class Dummy {}")) {
+      workspace =>
+        withRestoredSettings {
+          val caching = new CachingBatchWorkspaceLoader(
+            new DefaultBatchWorkspaceLoader(Some((50L, 500L)))
+          )
+          val options = BatchOptions(workspace.toString, None, cacheEnabled = false)
+          val org     = caching.load(options).toOption.get
+          try {
+            val pkg   = org.getPackages().head
+            val dummy = workspace.join("Dummy.cls")
+            val added = workspace.join("Added.cls")
+            workspace.join("Added.cls-meta.xml").write("")
+            added.write("public class Added {}")
+            dummy.write("public class Dummy { Added a = 1; }")
+
+            assert(caching.load(options).toOption.get eq org)
+            assert(!org.isDirty())
+            assert(pkg.getTypeOfPath(added.toString) != null)
+            assert(org.issues.issuesForFile(dummy.toString).nonEmpty)
+          } finally {
+            org.asInstanceOf[OPM.OrgImpl].monitorLauncher.stop()
+          }
+        }
+    }
+  }
+
+  test("caching loader does not retain failed loads") {
+    var attempts = 0
+    val loader = new BatchWorkspaceLoader {
+      override def load(options: BatchOptions): Either[BatchDispatchFailure, Org] = {
+        attempts += 1
+        Left(BatchDispatchFailure(BatchError("WORKSPACE_LOAD_FAILED", "could not load"), 3))
+      }
+    }
+    val caching = new CachingBatchWorkspaceLoader(loader)
+    val options = BatchOptions("/path/that/does/not/exist", None, cacheEnabled = false)
+
+    assert(caching.load(options).isLeft)
+    assert(caching.load(options).isLeft)
+    assert(attempts == 2)
+    assert(caching.size == 0)
+  }
+
+  private def daemon(
+    commands: Seq[BatchCommand] = Seq(PingCommand),
+    threads: Int = 1
+  ): BatchDaemon = {
+    val loader = new BatchWorkspaceLoader {
+      override def load(options: BatchOptions): Either[BatchDispatchFailure, Org] = {
+        fail("Workspace loader should not have been called")
+      }
+    }
+    new BatchDaemon(commands, loader, threads, new PrintStream(new ByteArrayOutputStream()))
+  }
+
+  private def withRestoredSettings[T](op: => T): T = {
+    val originalCacheDirectory = Environment.getCacheDirOverride
+    val originalAutoFlush      = ServerOps.isAutoFlushEnabled
+    val originalLoggingLevel   = LoggerOps.getLoggingLevel
+    val originalIndexer        = ServerOps.getIndexerConfiguration
+    try {
+      op
+    } finally {
+      ServerOps.setIndexerConfiguration(originalIndexer)
+      Environment.setCacheDirOverride(originalCacheDirectory)
+      ServerOps.setAutoFlush(originalAutoFlush)
+      LoggerOps.setLoggingLevel(originalLoggingLevel)
+    }
+  }
+
+  private class CountingLoader(loader: BatchWorkspaceLoader) extends BatchWorkspaceLoader {
+    var loads = 0
+
+    override def load(options: BatchOptions): Either[BatchDispatchFailure, Org] = {
+      loads += 1
+      loader.load(options)
+    }
+  }
+
+  private class TestCommand(override val name: String, action: BatchContext => Unit)
+      extends BatchCommand {
+    override type Result = Unit
+
+    override val requiresWorkspace: Boolean = false
+
+    override def execute(context: BatchContext, args: Seq[String]): Either[BatchError, Unit] =
+      Right(action(context))
+
+    override def writeResult(result: Unit): ujson.Value = ujson.Obj()
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+import sbt._
+
+import java.io.{BufferedOutputStream, DataOutputStream, FileOutputStream}
+import java.nio.charset.StandardCharsets
+import java.util.zip.ZipFile
+import scala.collection.JavaConverters._
+
+/* Build time writer for the platform type index, see PlatformTypeIndex in the JVM sources for the
+ * reader and layout. The names are those indexDir would find by scanning the jars at runtime.
+ */
+object PlatformTypeIndexWriter {
+  val Magic: Int     = 0x41505449
+  val Version: Short = 1
+
+  private val standardTypesRoot = "io/github/apexdevtools/standardtypes/"
+  private val sObjectTypesRoot  = "io/github/apexdevtools/sobjecttypes/"
+
+  /* Write an index for the standard-types & sobject-types jars found on the classpath */
+  def generate(classpath: Seq[File], target: File): Seq[File] = {
+    def jar(prefix: String): File =
+      classpath
+        .find(_.getName.startsWith(prefix))
+        .getOrElse(sys.error(s"No $prefix jar found to build platform type index"))
+
+    val standardTypes = jar("standard-types")
+    val sObjectTypes  = jar("sobject-types")
+    val inputsModified = standardTypes.lastModified().max(sObjectTypes.lastModified())
+    if (!target.exists() || target.lastModified() < inputsModified)
+      write(standardTypes, sObjectTypes, target)
+    Seq(target)
+  }
+
+  def write(standardTypes: File, sObjectTypes: File, target: File): Unit = {
+    val names =
+      classNames(standardTypes, standardTypesRoot, Seq()) ++
+        classNames(sObjectTypes, sObjectTypesRoot, Seq("SObjects"))
+
+    IO.createDirectory(target.getParentFile)
+    val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)))
+    try {
+      out.writeInt(Magic)
+      out.writeShort(Version)
+      writeString(out, standardTypes.getName)
+      writeString(out, sObjectTypes.getName)
+      out.writeInt(names.size)
+      names.foreach(writeString(out, _))
+    } finally {
+      out.close()
+    }
+  }
+
+  /* Class names below root, using the same filtering & directory renaming as the runtime scan */
+  private def classNames(jar: File, root: String, prefix: Seq[String]): Seq[String] = {
+    val zip = new ZipFile(jar)
+    try {
+      zip.entries.asScala
+        .map(_.getName)
+        .filter(name => name.startsWith(root) && name.endsWith(".class"))
+        .flatMap(name => {
+          val parts    = name.substring(root.length).split('/')
+          val filename = parts.last
+          if (filename.endsWith("$.class") || !filename.contains('$')) {
+            val packages = parts.init.map(_.replace("SObjectStubs", "SObjects"))
+            Some((prefix ++ packages :+ filename.dropRight(".class".length)).mkString("."))
+          } else {
+            None
+          }
+        })
+        .toVector
+    } finally {
+      zip.close()
+    }
+  }
+
+  private def writeString(out: DataOutputStream, value: String): Unit = {
+    val bytes = value.getBytes(StandardCharsets.UTF_8)
+    out.writeShort(bytes.length)
+    out.write(bytes)
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.pkgforce.diagnostics
+
+import io.github.apexdevtools.api.{Issue => APIIssue}
+import io.github.apexdevtools.apexls.api.IssuesDelta
+
+import scala.collection.compat.immutable.ArraySeq
+import scala.collection.mutable
+
+/** Issues added and removed between two versions of an IssueLogger. When reset is set the changes
+  * from the since version were no longer held, added then holds all current issues and a client
+  * should discard any issues it holds.
+  */
+final case class IssueDelta(
+  since: Long,
+  toVersion: Long,
+  reset: Boolean,
+  addedIssues: ArraySeq[Issue],
+  removedIssues: ArraySeq[Issue]
+) extends IssuesDelta {
+  override def version(): Long = toVersion
+
+  override def isReset(): Boolean = reset
+
+  override def added(): Array[APIIssue] = addedIssues.toArray[APIIssue]
+
+  override def removed(): Array[APIIssue] = removedIssues.toArray[APIIssue]
+}
+
+/** Versioned record of changes to the issues held by an IssueLogger. Each change is stamped with a
+  * new version so the issues added and removed since a version can be recovered without copying
+  * all the issues held. Only the last maxChanges are retained, changes since an earlier version
+  * are not available.
+  *
+  * Access is not synchronised, the owning IssueLogger guards it.
+  */
+final class IssueJournal(maxChanges: Int = IssueJournal.defaultMaxChanges) {
+  private val changes  = mutable.ArrayDeque[IssueJournal.Change]()
+  private var current  = 0L
+  private var earliest = 0L
+
+  /** The version of the latest change, zero if there have been none. */
+  def version: Long = current
+
+  /** Record the issues for a path being replaced, only the differences are held. */
+  def record(previous: List[Issue], replacement: List[Issue]): Unit = {
+    val removed = previous.diff(replacement)
+    val added   = replacement.diff(previous)
+    if (removed.nonEmpty || added.nonEmpty) {
+      current += 1
+      changes.append(new IssueJournal.Change(current, removed, added))
+      while (changes.size > maxChanges)
+        earliest = changes.removeHead().version
+    }
+  }
+
+  /** The issues added and removed after a version, None if those changes are no longer held. */
+  def since(version: Long): Option[(ArraySeq[Issue], ArraySeq[Issue])] = {
+    if (version < earliest || version > current)
+      return None
+
+    // Net count of each issue over the changes, in the order they were first seen
+    val counts = mutable.LinkedHashMap[Issue, Int]()
+    changes.iterator
+      .dropWhile(_.version <= version)
+      .foreach(change => {
+        change.removed.foreach(issue => counts.put(issue, counts.getOrElse(issue, 0) - 1))
+        change.added.foreach(issue => counts.put(issue, counts.getOrElse(issue, 0) + 1))
+      })
+
+    val added   = mutable.ArrayBuffer[Issue]()
+    val removed = mutable.ArrayBuffer[Issue]()
+    counts.foreach { case (issue, count) =>
+      if (count > 0) (0 until count).foreach(_ => added.append(issue))
+      else if (count < 0) (0 until -count).foreach(_ => removed.append(issue))
+    }
+    Some((ArraySeq.unsafeWrapArray(added.toArray), ArraySeq.unsafeWrapArray(removed.toArray)))
+  }
+}
+
+object IssueJournal {
+  final val defaultMaxChanges = 10000
+
+  private final class Change(val version: Long, val removed: List[Issue], val added: List[Issue])
+}
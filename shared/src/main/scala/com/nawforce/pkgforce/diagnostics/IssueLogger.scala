@@ -30,7 +30,7 @@ package com.nawforce.pkgforce.diagnostics
 
 import com.nawforce.pkgforce.path.{Location, PathLike}
 import io.github.apexdevtools.api.{IssueLocation, Issue => APIIssue}
-import io.github.apexdevtools.apexls.api.IssuesCollection
+import io.github.apexdevtools.apexls.api.{IssuesCollection, IssuesDelta}
 import com.nawforce.pkgforce.diagnostics.Issue.APEX_LS_PROVIDER
 import com.nawforce.runtime.platform.Path
 
@@ -43,6 +43,15 @@ import scala.collection.mutable.ArrayBuffer
   *
   * Note: To support virtual filesystem testing then we need to have *Internal methods that pass
   * a PathLike, the public API methods use strings for simplicity.
+  *
+  * Access to the core state is synchronized on the logger so issues may be added while types are
+  * being validated concurrently. Issues for paths being replaced are held in a staging area until
+  * the replacement completes so readers continue to see the previous issues in the meantime.
+  *
+  * Changes to the stored issues are recorded in a versioned journal so clients can obtain the
+  * issues added and removed since a version rather than pulling the issues of each changed path.
+  * Issues added one at a time, as during a load, are recorded together as a single change when the
+  * journal is next used so they do not exhaust the changes it retains.
   */
 class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
     extends IssuesCollection {
@@ -51,14 +60,33 @@ class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
   private[diagnostics] val log = mutable.HashMap[PathLike, List[Issue]]() withDefaultValue List()
   private[diagnostics] val possibleMissing = mutable.HashSet[PathLike]()
   private[diagnostics] val hasChanged      = mutable.HashSet[PathLike]()
+  private[diagnostics] val staged          = mutable.HashMap[PathLike, List[Issue]]()
+  private val issueJournal                 = new IssueJournal()
+  private var unrecorded                   = List[Issue]()
+
+  // Paths for which the current thread is discarding issues, see discarding()
+  private val discarded = new ThreadLocal[Set[PathLike]] {
+    override def initialValue(): Set[PathLike] = Set.empty
+  }
+
+  /** The journal of changes, with any issues added since it was last used recorded first. */
+  private[diagnostics] def journal: IssueJournal = {
+    if (unrecorded.nonEmpty) {
+      issueJournal.record(Nil, unrecorded.reverse)
+      unrecorded = Nil
+    }
+    issueJournal
+  }
 
   // === CORE ISSUE LOGGING METHODS ===
 
-  def isEmpty: Boolean = log.isEmpty
+  def isEmpty: Boolean = synchronized { log.isEmpty }
 
-  def nonEmpty: Boolean = log.nonEmpty
+  def nonEmpty: Boolean = synchronized { log.nonEmpty }
 
-  def hasErrors: Boolean = log.values.exists(issueList => issueList.exists(_.isError))
+  def hasErrors: Boolean = synchronized {
+    log.values.exists(issueList => issueList.exists(_.isError))
+  }
 
   def log(issue: Issue): Unit = add(issue)
 
@@ -78,15 +106,18 @@ class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
   }
 
   /** Get all issues as an ArraySeq, compatible with CatchingLogger.issues */
-  def issues: ArraySeq[Issue] = {
+  def issues: ArraySeq[Issue] = synchronized {
     val buffer = mutable.ArrayBuffer[Issue]()
     log.values.foreach(issueList => buffer.addAll(issueList))
     ArraySeq.unsafeWrapArray(buffer.toArray)
   }
 
+  /** The version of the issues held, advanced by each change to them. */
+  def version: Long = synchronized { journal.version }
+
   // === ISSUESCOLLECTION INTERFACE METHODS (PUBLIC API) ===
 
-  override def hasUpdatedIssues: Array[String] = {
+  override def hasUpdatedIssues: Array[String] = synchronized {
     hasChanged.map(_.toString).toArray
   }
 
@@ -116,40 +147,105 @@ class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
     issuesForFileLocationInternal(Path(path), location)
   }
 
+  override def issuesSince(version: Long): IssuesDelta = issueDeltaSince(version)
+
   // === CORE OPERATIONS ===
 
-  def add(issue: Issue): Unit = {
-    if (shouldStoreIssue(issue)) {
+  def add(issue: Issue): Unit = synchronized {
+    if (discarded.get().contains(issue.path)) {
+      ()
+    } else if (staged.contains(issue.path)) {
+      if (shouldStoreIssue(issue))
+        staged.put(issue.path, issue :: staged(issue.path))
+    } else if (shouldStoreIssue(issue)) {
       hasChanged.add(issue.path)
+      unrecorded = issue :: unrecorded
       log.put(issue.path, issue :: log(issue.path))
       if (issue.diagnostic.category == MISSING_CATEGORY)
         possibleMissing.add(issue.path)
     }
   }
 
-  def clear(): Unit = {
+  def clear(): Unit = synchronized {
     hasChanged.clear()
+    journal.record(log.values.flatten.toList, Nil)
     log.clear()
   }
 
-  def pop(path: PathLike): List[Issue] = {
+  def pop(path: PathLike): List[Issue] = synchronized {
+    if (staged.contains(path))
+      return staged.put(path, Nil).getOrElse(Nil)
+
     val issues = log.getOrElse(path, Nil)
+    journal.record(issues, Nil)
     log.remove(path)
     if (issues.nonEmpty)
       hasChanged.add(path)
     issues
   }
 
-  def push(path: PathLike, issues: List[Issue]): Unit = {
+  def push(path: PathLike, issues: List[Issue]): Unit = synchronized {
+    if (staged.contains(path)) {
+      staged.put(path, issues.filter(shouldStoreIssue))
+      return
+    }
+
     hasChanged.add(path)
     val filteredIssues = issues.filter(shouldStoreIssue)
-    if (filteredIssues.nonEmpty)
+    if (filteredIssues.nonEmpty) {
+      journal.record(log(path), filteredIssues)
       log.put(path, filteredIssues)
+    }
+  }
+
+  /** Replace the issues of some paths with those logged while running an operation. Issues logged
+    * against the paths are staged until the operation completes and then replace the previous
+    * issues in a single step, readers see the previous issues until then. The replacement is one
+    * change in the journal.
+    */
+  def replacing[T](paths: Iterable[PathLike])(op: => T): T = {
+    val replaced = paths.toSet
+    synchronized { replaced.foreach(path => staged.put(path, Nil)) }
+    try {
+      op
+    } finally {
+      synchronized {
+        // Recorded as a single change, however many paths were replaced
+        val previous    = mutable.ListBuffer[Issue]()
+        val replacement = mutable.ListBuffer[Issue]()
+        replaced.foreach(path => {
+          val issues = staged.remove(path).getOrElse(Nil)
+          if (issues.nonEmpty || log.contains(path))
+            hasChanged.add(path)
+          previous.addAll(log(path))
+          replacement.addAll(issues)
+          if (issues.isEmpty) {
+            log.remove(path)
+          } else {
+            log.put(path, issues)
+            if (issues.exists(_.diagnostic.category == MISSING_CATEGORY))
+              possibleMissing.add(path)
+          }
+        })
+        journal.record(previous.toList, replacement.toList)
+      }
+    }
+  }
+
+  /** Run an operation discarding any issues it logs against a path, the existing issues for the
+    * path are retained. Only issues logged by the calling thread are discarded so this may be used
+    * while other threads are logging issues for the same path.
+    */
+  def discarding[T](path: PathLike)(op: => T): T = {
+    val outer = discarded.get()
+    discarded.set(outer + path)
+    try op
+    finally discarded.set(outer)
   }
 
   // === INTERNAL HELPERS ===
 
-  def ignoreUpdatedIssuesInternal(path: PathLike): Unit = {
+  def ignoreUpdatedIssuesInternal(path: PathLike): Unit = synchronized {
     hasChanged.remove(path)
   }
 
@@ -161,7 +257,7 @@ class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
     paths: Array[PathLike],
     includeWarnings: Boolean = true,
     maxIssuesPerFile: Int = 0
-  ): Seq[Issue] = {
+  ): Seq[Issue] = synchronized {
     val files =
       if (paths == null || paths.isEmpty)
         log.keys.toSeq.sortBy(_.toString)
@@ -185,21 +281,35 @@ class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
     buffer.toSeq
   }
 
-  def issuesForFileLocationInternal(path: PathLike, location: IssueLocation): Array[APIIssue] = {
-    val loc = Location(
-      location.startLineNumber(),
-      location.startCharOffset(),
-      location.endLineNumber(),
-      location.endCharOffset()
-    )
-    log
-      .getOrElse(path, Nil)
-      .filter(issue => loc.contains(issue.diagnostic.location))
-      .toArray[APIIssue]
+  def issuesForFileLocationInternal(path: PathLike, location: IssueLocation): Array[APIIssue] =
+    synchronized {
+      val loc = Location(
+        location.startLineNumber(),
+        location.startCharOffset(),
+        location.endLineNumber(),
+        location.endCharOffset()
+      )
+      log
+        .getOrElse(path, Nil)
+        .filter(issue => loc.contains(issue.diagnostic.location))
+        .toArray[APIIssue]
+    }
+
+  /** The issues added and removed since a version, if the changes are no longer held then the
+    * delta is a reset holding all current issues.
+    */
+  def issueDeltaSince(version: Long): IssueDelta = synchronized {
+    journal.since(version) match {
+      case Some((added, removed)) =>
+        IssueDelta(version, journal.version, reset = false, added, removed)
+      case None =>
+        IssueDelta(version, journal.version, reset = true, issues, Issue.emptyArray)
+    }
   }
 
-  def getDiagnostics(path: PathLike): List[Diagnostic] =
+  def getDiagnostics(path: PathLike): List[Diagnostic] = synchronized {
     log.getOrElse(path, Nil).map(_.diagnostic)
+  }
 
   private[diagnostics] def shouldStoreIssue(issue: Issue): Boolean = {
     externalPathFilter match {
@@ -218,7 +328,7 @@ class IssueLogger(val externalPathFilter: Option[PathLike => Boolean] = None)
 object IssueAnalysis {
 
   /** Check if a file has syntax issues from apex-ls provider */
-  def hasSyntaxIssues(logger: IssueLogger, path: PathLike): Boolean = {
+  def hasSyntaxIssues(logger: IssueLogger, path: PathLike): Boolean = logger.synchronized {
     logger.log
       .getOrElse(path, Nil)
       .exists(issue =>
@@ -227,7 +337,7 @@ object IssueAnalysis {
   }
 
   /** Get paths that have missing dependency issues */
-  def getMissing(logger: IssueLogger): Seq[PathLike] = {
+  def getMissing(logger: IssueLogger): Seq[PathLike] = logger.synchronized {
     val missing = new mutable.ArrayBuffer[PathLike]()
     logger.possibleMissing.foreach(possible => {
       val issues =
@@ -246,12 +356,12 @@ object IssueAnalysis {
 object IssueProviderOps {
 
   /** Clear all issues except those from apex-ls provider */
-  def clearProviderIssues(logger: IssueLogger, path: PathLike): Unit = {
+  def clearProviderIssues(logger: IssueLogger, path: PathLike): Unit = logger.synchronized {
     logger.hasChanged.add(path)
-    logger.log.put(
-      path,
-      logger.log.getOrElse(path, Nil).filter(_.provider == Issue.APEX_LS_PROVIDER)
-    )
+    val issues = logger.log.getOrElse(path, Nil)
+    val kept   = issues.filter(_.provider == Issue.APEX_LS_PROVIDER)
+    logger.journal.record(issues, kept)
+    logger.log.put(path, kept)
   }
 
   /** Replace issues from a specific provider */
@@ -260,26 +370,29 @@ object IssueProviderOps {
     providerId: String,
     path: PathLike,
     issues: Seq[Issue]
-  ): Unit = {
+  ): Unit = logger.synchronized {
     logger.hasChanged.add(path)
     val filteredNewIssues = issues.filter(logger.shouldStoreIssue)
-    logger.log.put(
-      path,
-      logger.log.getOrElse(path, Nil).filterNot(_.provider == providerId) ++ filteredNewIssues
-    )
+    val previous          = logger.log.getOrElse(path, Nil)
+    val newIssues         = previous.filterNot(_.provider == providerId) ++ filteredNewIssues
+    logger.journal.record(previous, newIssues)
+    logger.log.put(path, newIssues)
   }
 
   /** Replace unused issues while preserving other issue types */
-  def replaceUnusedIssues(logger: IssueLogger, path: PathLike, issues: Seq[Issue]): Unit = {
-    logger.hasChanged.add(path)
-    val filteredNewIssues = issues.filter(logger.shouldStoreIssue)
-    val newIssues =
-      logger.log(path).filterNot(_.diagnostic.category == UNUSED_CATEGORY) ++ filteredNewIssues
-    if (newIssues.isEmpty)
-      logger.log.remove(path)
-    else
-      logger.log.put(path, newIssues)
-  }
+  def replaceUnusedIssues(logger: IssueLogger, path: PathLike, issues: Seq[Issue]): Unit =
+    logger.synchronized {
+      logger.hasChanged.add(path)
+      val filteredNewIssues = issues.filter(logger.shouldStoreIssue)
+      val previous          = logger.log(path)
+      val newIssues =
+        previous.filterNot(_.diagnostic.category == UNUSED_CATEGORY) ++ filteredNewIssues
+      logger.journal.record(previous, newIssues)
+      if (newIssues.isEmpty)
+        logger.log.remove(path)
+      else
+        logger.log.put(path, newIssues)
+    }
 
   /** Replace unused issues for every path contributing to a declaration. New issues are stored
     * against their own paths; paths without new issues are still cleared to avoid stale findings.
@@ -32,7 +32,8 @@ class DocumentIndex(
   logger: IssueLogger,
   namespace: Option[Name],
   isGulped: Boolean,
-  ignore: Option[ForceIgnoreV2]
+  ignore: Option[ForceIgnoreV2],
+  snapshot: DocumentIndexSnapshot = DocumentIndexSnapshot.disabled
 ) {
 
   /** Store Nature->Type name (lowercase)->Path string */
@@ -43,7 +44,7 @@ class DocumentIndex(
   private val validator = new MetadataValidator(logger, namespace, isGulped)
 
   // Run scanner to prime the index & then validate everything
-  DocumentIndex.indexPath(path, ignore, this)
+  DocumentIndex.indexPath(path, ignore, snapshot, this)
   documents.foreach(byNature => {
     byNature._2.foreach(byTypename => validator.validate(byNature._1, byTypename._2))
   })
@@ -166,26 +167,25 @@ object DocumentIndex {
     path: PathLike
   ): DocumentIndex = {
     val ignore = logger.logAndGet(ForceIgnoreV2(projectPath.join(".forceignore")))
-    new DocumentIndex(path, logger, namespace, isGulped, ignore)
+    val snapshot = DocumentIndexSnapshot(projectPath, path, namespace, isGulped)
+    new DocumentIndex(path, logger, namespace, isGulped, ignore, snapshot)
   }
 
   private def indexPath(
     path: PathLike,
     forceIgnore: Option[ForceIgnoreV2],
+    snapshot: DocumentIndexSnapshot,
     index: DocumentIndex
   ): Unit = {
 
-    if (isExcluded(path))
+    if (DocumentIndexSnapshot.isExcluded(path))
       return
     if (path.isDirectory) {
-      if (forceIgnore.forall(_.includeDirectory(path))) {
-        val entries = path.splitDirectoryEntries()
-        // Enforce top-down handling
-        entries._1.foreach(file => addPath(file, forceIgnore, index))
-        entries._2.foreach(dir => indexPath(dir, forceIgnore, index))
-      } else {
-        LoggerOps.debug(s"Ignoring directory $path")
-      }
+      // Enforce top-down handling
+      snapshot
+        .scan(path, forceIgnore)
+        .foreach(dt => index.indexDocument(dt, deferValidation = true))
+      snapshot.save()
     } else {
       addPath(path, forceIgnore, index)
     }
@@ -204,11 +204,4 @@ object DocumentIndex {
       LoggerOps.debug(s"Ignoring file $path")
     }
   }
-
-  /** Exclude some paths that we would waste time searching. */
-  private def isExcluded(path: PathLike): Boolean = {
-    val basename = path.basename
-    basename.startsWith(".") || basename == "node_modules"
-  }
-
 }
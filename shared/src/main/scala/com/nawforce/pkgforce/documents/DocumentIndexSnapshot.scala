@@ -0,0 +1,198 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.documents
+
+import com.nawforce.pkgforce.diagnostics.LoggerOps
+import com.nawforce.pkgforce.names.Name
+import com.nawforce.pkgforce.path.PathLike
+import com.nawforce.pkgforce.sfdx.ForceIgnoreV2
+import com.nawforce.runtime.platform.Parallel
+import upickle.default.{macroRW, readBinary, writeBinary, ReadWriter => RW}
+
+import scala.collection.mutable
+import scala.util.hashing.MurmurHash3
+
+/** Recorded contents of a directory, the metadata file names and sub-directory names to search. */
+final case class DirectorySnapshot(modified: Long, files: Seq[String], directories: Seq[String])
+
+object DirectorySnapshot {
+  implicit val rw: RW[DirectorySnapshot] = macroRW
+}
+
+final case class DocumentIndexSnapshotData(
+  version: Int,
+  directories: Map[String, DirectorySnapshot]
+)
+
+object DocumentIndexSnapshotData {
+  implicit val rw: RW[DocumentIndexSnapshotData] = macroRW
+}
+
+/** Snapshot of the directory scan used to build a [[DocumentIndex]], held in the cache directory.
+  *
+  * Each directory is recorded with its modification time, which changes when entries are added,
+  * removed or renamed within it. While that is unchanged the recorded metadata files and
+  * sub-directories are reused without listing the directory or re-testing its files against
+  * .forceignore. Directories that have changed are listed again, concurrently where the platform
+  * allows, one level of the tree at a time.
+  *
+  * Directories modified a little while before being scanned are not recorded as a later change
+  * within the resolution of the file system timestamps could otherwise be missed. The snapshot is
+  * keyed on the indexed path, namespace & the .forceignore contents so a change to any of these
+  * starts from a full scan.
+  */
+final class DocumentIndexSnapshot private (
+  file: Option[PathLike],
+  previous: Map[String, DirectorySnapshot]
+) {
+  import DocumentIndexSnapshot._
+
+  private var current = Map[String, DirectorySnapshot]()
+
+  /** Find the metadata documents under a directory, in top-down order. */
+  def scan(root: PathLike, forceIgnore: Option[ForceIgnoreV2]): Seq[MetadataDocument] = {
+    val now      = System.currentTimeMillis()
+    val listings = mutable.HashMap[String, Listing]()
+    val recorded = mutable.HashMap[String, DirectorySnapshot]()
+
+    var level = Seq(root)
+    while (level.nonEmpty) {
+      val scanned = Parallel.map(level)(dir => (dir, scanDirectory(dir, forceIgnore, now)))
+      scanned.foreach { case (dir, listing) =>
+        listings.put(dir.toString, listing)
+        listing.snapshot.foreach(snapshot => recorded.put(dir.toString, snapshot))
+      }
+      level = scanned.flatMap(_._2.directories)
+    }
+    current = recorded.toMap
+
+    val documents = mutable.ArrayBuffer[MetadataDocument]()
+    def collect(dir: PathLike): Unit = {
+      listings.get(dir.toString).foreach(listing => {
+        documents.addAll(listing.documents)
+        listing.directories.foreach(collect)
+      })
+    }
+    collect(root)
+    documents.toSeq
+  }
+
+  /** Write the snapshot if it differs from the one loaded, ignores storage errors. The file is
+    * replaced in a single step so a failed or concurrent save can not leave it truncated.
+    */
+  def save(): Unit = {
+    if (current == previous) return
+
+    file.foreach(file => {
+      file.replace(writeBinary(DocumentIndexSnapshotData(FORMAT_VERSION, current))) match {
+        case Some(err) => LoggerOps.debug(s"Failed writing document index snapshot $file: $err")
+        case None      => ()
+      }
+    })
+  }
+
+  private def scanDirectory(
+    dir: PathLike,
+    forceIgnore: Option[ForceIgnoreV2],
+    now: Long
+  ): Listing = {
+    if (isExcluded(dir))
+      return Listing.empty
+    if (!forceIgnore.forall(_.includeDirectory(dir))) {
+      LoggerOps.debug(s"Ignoring directory $dir")
+      return Listing.empty
+    }
+
+    val modified = dir.lastModified().filter(_ > 0)
+    previous.get(dir.toString) match {
+      case Some(snapshot) if modified.contains(snapshot.modified) =>
+        Listing(
+          snapshot.files.flatMap(name => MetadataDocument(dir.join(name))),
+          snapshot.directories.map(dir.join(_)),
+          Some(snapshot)
+        )
+      case _ =>
+        val (files, directories) = dir.splitDirectoryEntries()
+        val documents = files.toSeq.flatMap(file => {
+          if (forceIgnore.forall(_.includeFile(file))) {
+            MetadataDocument(file)
+          } else {
+            LoggerOps.debug(s"Ignoring file $file")
+            None
+          }
+        })
+        val included = directories.toSeq.filterNot(isExcluded)
+        val snapshot = modified
+          .filter(_ < now - STABLE_WINDOW)
+          .map(DirectorySnapshot(_, documents.map(_.path.basename), included.map(_.basename)))
+        Listing(documents, included, snapshot)
+    }
+  }
+}
+
+object DocumentIndexSnapshot {
+  private val FORMAT_VERSION: Int = 1
+  private val STABLE_WINDOW: Long = 2000
+
+  private final case class Listing(
+    documents: Seq[MetadataDocument],
+    directories: Seq[PathLike],
+    snapshot: Option[DirectorySnapshot]
+  )
+
+  private object Listing {
+    val empty: Listing = Listing(Seq(), Seq(), None)
+  }
+
+  /** A snapshot that is never stored, all directories are scanned. */
+  def disabled: DocumentIndexSnapshot = new DocumentIndexSnapshot(None, Map())
+
+  /** Open the snapshot for an index, if there is no cache directory the snapshot is disabled. */
+  def apply(
+    projectPath: PathLike,
+    path: PathLike,
+    namespace: Option[Name],
+    isGulped: Boolean
+  ): DocumentIndexSnapshot = {
+    ParsedCache.directory() match {
+      case Left(_) => disabled
+      case Right(cacheDir) =>
+        val forceIgnore = projectPath.join(".forceignore").read().getOrElse("")
+        val key = MurmurHash3.orderedHash(
+          Seq(FORMAT_VERSION, path.toString, namespace.map(_.value), isGulped, forceIgnore)
+        )
+        val file = cacheDir.join(f"index-$key%08x")
+        val data =
+          try {
+            if (file.isFile)
+              file.readBytes().map(readBinary[DocumentIndexSnapshotData](_)).toOption
+            else None
+          } catch {
+            case ex: Exception =>
+              LoggerOps.debug(s"Caught exception loading document index snapshot $file: $ex")
+              None
+          }
+        new DocumentIndexSnapshot(
+          Some(file),
+          data.filter(_.version == FORMAT_VERSION).map(_.directories).getOrElse(Map())
+        )
+    }
+  }
+
+  /** Exclude some paths that we would waste time searching. */
+  private[documents] def isExcluded(path: PathLike): Boolean = {
+    val basename = path.basename
+    basename.startsWith(".") || basename == "node_modules"
+  }
+}
@@ -88,8 +88,21 @@ object CacheEntry {
   implicit val rw: RW[CacheEntry] = macroRW
 }
 
-/* Parsed class cache */
-final class ParsedCache(val path: PathLike, version: Int) {
+/* A pending upsert to a parsed cache, allows the value to be created separately from storing it */
+final case class CacheUpsert(
+  packageContext: PackageContext,
+  name: String,
+  contentHash: Int,
+  value: Array[Byte]
+) {
+  def apply(pc: ParsedCache): Unit = pc.upsert(packageContext, name, contentHash, value)
+}
+
+/* Parsed class cache, entries are keyed on the package context, type name & content hash */
+trait ParsedCache {
+
+  /** Directory holding the cache data */
+  val path: PathLike
 
   /** Upsert a key -> value pair, ignores storage errors */
   def upsert(
@@ -97,6 +110,26 @@ final class ParsedCache(val path: PathLike, version: Int) {
     name: String,
     contentHash: Int,
     value: Array[Byte]
+  ): Unit
+
+  /** Recover a value from a key */
+  def get(packageContext: PackageContext, name: String, contentHash: Int): Option[Array[Byte]]
+
+  /** Expire old entries in the cache */
+  def expire(): Unit
+
+  /** Clear the cache, useful for testing */
+  def clear(): Unit
+}
+
+/* Parsed class cache storing each entry in its own file within a two-level hex directory */
+final class DirectoryParsedCache(val path: PathLike, version: Int) extends ParsedCache {
+
+  override def upsert(
+    packageContext: PackageContext,
+    name: String,
+    contentHash: Int,
+    value: Array[Byte]
   ): Unit = {
     val cacheKey  = CacheKey(version, packageContext, name, contentHash)
     val hashParts = cacheKey.hashParts
@@ -108,8 +141,11 @@ final class ParsedCache(val path: PathLike, version: Int) {
     }
   }
 
-  /** Recover a value from a key */
-  def get(packageContext: PackageContext, name: String, contentHash: Int): Option[Array[Byte]] = {
+  override def get(
+    packageContext: PackageContext,
+    name: String,
+    contentHash: Int
+  ): Option[Array[Byte]] = {
     val cacheKey  = CacheKey(version, packageContext, name, contentHash)
     val hashParts = cacheKey.hashParts
     val outer     = path.join(hashParts.head)
@@ -131,8 +167,8 @@ final class ParsedCache(val path: PathLike, version: Int) {
     None
   }
 
-  /** Expire old entries in the cache */
-  def expire(): Unit = expire(path, System.currentTimeMillis() - ParsedCache.EXPIRE_WINDOW)
+  override def expire(): Unit =
+    expire(path, System.currentTimeMillis() - ParsedCache.EXPIRE_WINDOW)
 
   private def expire(path: PathLike, minTimeStamp: Long): Boolean = {
     if (!path.exists) return true
@@ -149,32 +185,24 @@ final class ParsedCache(val path: PathLike, version: Int) {
     }
   }
 
-  /** Clear the cache, useful for testing */
-  def clear(): Unit = {
-    clearContents(path)
-  }
-
-  private def clearContents(path: PathLike): Unit = {
-    path.directoryList() match {
-      case Left(_) => ()
-      case Right(names) =>
-        names.foreach(name => {
-          val pathEntry = path.join(name)
-          if (pathEntry.isDirectory) {
-            clearContents(pathEntry)
-          }
-          pathEntry.delete()
-        })
-    }
-    path.delete()
+  override def clear(): Unit = {
+    ParsedCache.clearContents(path)
   }
 }
 
 object ParsedCache {
-  private val TEST_FILE: String   = "test_file"
-  private val EXPIRE_WINDOW: Long = 7 * 24 * 60 * 60 * 1000
+  private val TEST_FILE: String = "test_file"
+
+  /** Age after which unused cache entries are removed */
+  val EXPIRE_WINDOW: Long = 7 * 24 * 60 * 60 * 1000
 
+  /** Create the default, directory based, cache. */
   def create(version: Int): Either[String, ParsedCache] = {
+    directory().map(new DirectoryParsedCache(_, version))
+  }
+
+  /** Locate the cache directory, creating it if needed and checking that it can be written to. */
+  def directory(): Either[String, PathLike] = {
     val cacheDirOpt = Environment.cacheDir
     if (cacheDirOpt.isEmpty) {
       return Left(
@@ -193,13 +221,13 @@ object ParsedCache {
           Left(s"Cache directory '$cacheDir' exists but is not writable, error '$err'")
         case Right(created) =>
           created.delete()
-          Right(new ParsedCache(cacheDir, version))
+          Right(cacheDir)
       }
     } else {
       cacheDir.parent.createDirectory(cacheDir.basename) match {
         case Left(err) =>
           Left(s"Cache directory '$cacheDir' does not exist and can not be created, error '$err'")
-        case Right(created) => Right(new ParsedCache(created, version))
+        case Right(created) => Right(created)
       }
     }
   }
@@ -208,6 +236,22 @@ object ParsedCache {
     create(0).map(_.clear())
   }
 
+  /** Delete a directory and everything within it. */
+  private[documents] def clearContents(path: PathLike): Unit = {
+    path.directoryList() match {
+      case Left(_) => ()
+      case Right(names) =>
+        names.foreach(name => {
+          val pathEntry = path.join(name)
+          if (pathEntry.isDirectory) {
+            clearContents(pathEntry)
+          }
+          pathEntry.delete()
+        })
+    }
+    path.delete()
+  }
+
   /* Construct a combined source & meta file from the source content hash. If the meta file does not
    * exist this returns the provided source hash. */
   def classMetaHash(metaFile: PathLike, sourceContentHash: Int): Int = {
@@ -19,11 +19,11 @@ import scala.collection.mutable
 class InternCache[T] extends CleanableCache {
   private var cache = mutable.HashMap[T, T]()
 
-  def intern(value: T): T = {
+  def intern(value: T): T = synchronized {
     cache.getOrElseUpdate(value, value)
   }
 
-  def clean(): Unit = {
+  def clean(): Unit = synchronized {
     cache = new mutable.HashMap[T, T]()
   }
 }
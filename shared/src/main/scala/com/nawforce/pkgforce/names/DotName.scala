@@ -13,7 +13,10 @@
  */
 package com.nawforce.pkgforce.names
 
-/** A qualified name with notional 'dot' separators
+import com.nawforce.runtime.platform.Interner
+
+/** A qualified name with notional 'dot' separators. Instances created via the companion are
+  * canonical for each exact sequence of names.
   */
 final case class DotName(names: Seq[Name]) {
 
@@ -39,10 +42,29 @@ final case class DotName(names: Seq[Name]) {
     TypeName(names.reverse)
   }
 
+  /** Cache hash code as used in collections */
+  override val hashCode: Int = names.hashCode
+
+  override def equals(that: Any): Boolean = {
+    that match {
+      case other: DotName => (other eq this) || (other.hashCode == hashCode && other.names == names)
+      case _              => false
+    }
+  }
+
   override def toString: String = names.mkString(".")
 }
 
 object DotName {
+  private val canonical =
+    new Interner[DotName](_.hashCode, (a, b) => a.names.corresponds(b.names)(_ eq _))
+
+  /** Obtain the canonical DotName, names are expected to be canonical already. */
+  def apply(names: Seq[Name]): DotName = canonical.intern(new DotName(names))
+
+  /** Number of canonical dot names held. */
+  def canonicalCount: Int = canonical.size
+
   def apply(name: String): DotName = {
     DotName(name.split('.').toSeq.map(p => Name(p)))
   }
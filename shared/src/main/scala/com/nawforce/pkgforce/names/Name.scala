@@ -13,12 +13,14 @@
  */
 package com.nawforce.pkgforce.names
 
+import com.nawforce.runtime.platform.Interner
 import upickle.default.{macroRW, ReadWriter => RW}
 
 /** Case-insensitive string for symbol names.
   *
   * The value of the Name is stored as is but equality and hashing are performed against a
-  * normalised lower case value.
+  * normalised lower case value. Instances are canonical for each exact value so equality is
+  * usually decided by reference.
   */
 @upickle.implicits.key("Name")
 final case class Name(value: String) {
@@ -32,7 +34,8 @@ final case class Name(value: String) {
   override def equals(that: Any): Boolean = {
     that match {
       case otherName: Name =>
-        otherName.canEqual(this) && otherName.value.equalsIgnoreCase(value)
+        (otherName eq this) || (otherName.canEqual(this) && otherName.hashCode == hashCode &&
+          otherName.value.equalsIgnoreCase(value))
       case _ => false
     }
   }
@@ -41,7 +44,16 @@ final case class Name(value: String) {
 }
 
 object Name {
+  private val canonical =
+    new Interner[Name](name => java.util.Objects.hashCode(name.value), _.value == _.value)
+
+  /** Obtain the canonical Name for a value. */
+  def apply(value: String): Name = canonical.intern(new Name(value))
+
+  /** Number of canonical names held. */
+  def canonicalCount: Int = canonical.size
+
   implicit val rw: RW[Name] = macroRW
 
-  val empty: Name = new Name("")
+  val empty: Name = Name("")
 }
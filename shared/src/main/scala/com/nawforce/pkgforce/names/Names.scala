@@ -13,25 +13,13 @@
  */
 package com.nawforce.pkgforce.names
 
-import com.nawforce.pkgforce.memory.CleanableCache
-
-import scala.collection.mutable
-
-/* Common names & Name interning support. */
-object Names extends CleanableCache {
-  private var nameCache = mutable.HashMap[String, Name]()
-
+/* Common names, Names are canonical so these are shorthands for Name construction. */
+object Names {
   def apply(name: String): Name             = cache(name)
   def apply(name: Name): Name               = cache(name.value)
   def safeApply(name: String): Option[Name] = Option(name).filterNot(_.isEmpty).map(n => Name(n))
 
-  private def cache(value: String): Name = {
-    nameCache.getOrElseUpdate(value, { new Name(value) })
-  }
-
-  override def clean(): Unit = {
-    nameCache = new mutable.HashMap[String, Name]()
-  }
+  private def cache(value: String): Name = Name(value)
 
   lazy val Empty: Name                   = cache("")
   lazy val System: Name                  = cache("System")
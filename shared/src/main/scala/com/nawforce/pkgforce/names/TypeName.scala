@@ -13,6 +13,7 @@
  */
 package com.nawforce.pkgforce.names
 
+import com.nawforce.runtime.platform.Interner
 import upickle.default.{macroRW, ReadWriter => RW}
 
 import scala.collection.immutable.ArraySeq.ofRef
@@ -25,6 +26,9 @@ import scala.collection.mutable.ArrayBuffer
   * name and its toString value is mostly straight forward but for some internally defined types
   * toString will produce better formatted output so it is advised you always use this when
   * displaying a TypeName.
+  *
+  * Instances created via the companion are canonical for each exact name, params & outer so
+  * equality is usually decided by reference.
   */
 @upickle.implicits.key("TypeName")
 final case class TypeName(name: Name, params: Seq[TypeName], outer: Option[TypeName]) {
@@ -32,6 +36,15 @@ final case class TypeName(name: Name, params: Seq[TypeName], outer: Option[TypeN
   /** Cache hash code as heavily used in collections */
   override val hashCode: Int = scala.util.hashing.MurmurHash3.caseClassHash(this)
 
+  override def equals(that: Any): Boolean = {
+    that match {
+      case other: TypeName =>
+        (other eq this) || (other.hashCode == hashCode && other.name == name &&
+          other.params == params && other.outer == outer)
+      case _ => false
+    }
+  }
+
   /** Provide custom handling to toString to deal with internal type display */
   override def toString: String = {
     if (params.isEmpty && outer.isEmpty)
@@ -124,13 +137,33 @@ final case class TypeName(name: Name, params: Seq[TypeName], outer: Option[TypeN
 }
 
 object TypeName {
+  private val canonical = new Interner[TypeName](_.hashCode, isSame)
+
+  /** Obtain the canonical TypeName, components are expected to be canonical already. */
+  def apply(name: Name, params: Seq[TypeName], outer: Option[TypeName]): TypeName =
+    canonical.intern(new TypeName(name, params, outer))
+
+  /** Number of canonical type names held. */
+  def canonicalCount: Int = canonical.size
+
+  /** Exact match by reference of components, different cases are not the same */
+  private def isSame(a: TypeName, b: TypeName): Boolean = {
+    (a.name eq b.name) &&
+    ((a.outer, b.outer) match {
+      case (None, None)       => true
+      case (Some(x), Some(y)) => x eq y
+      case _                  => false
+    }) &&
+    a.params.corresponds(b.params)(_ eq _)
+  }
+
   implicit val rw: RW[TypeName] = macroRW
 
   final val emptySeq: Seq[TypeName] = Seq[TypeName]()
 
   /** Helper for construction from Java, outer may be null */
   def fromJava(name: Name, params: Array[TypeName], outer: TypeName): TypeName = {
-    new TypeName(name, new ofRef(params), Option(outer))
+    TypeName(name, new ofRef(params), Option(outer))
   }
 
   def fromStringOrNull(typeName: String): TypeName = {
@@ -140,14 +173,14 @@ object TypeName {
   /** Create a type name from a sequence of names, these should be provided in inner->outer order */
   def apply(names: Seq[Name]): TypeName = {
     names match {
-      case hd +: Nil => new TypeName(hd, Nil, None)
-      case hd +: tl  => new TypeName(hd, Nil, Some(TypeName(tl)))
+      case hd +: Nil => TypeName(hd, Nil, None)
+      case hd +: tl  => TypeName(hd, Nil, Some(TypeName(tl)))
     }
   }
 
   /** Create a simple type name from a single name */
   def apply(name: Name): TypeName = {
-    new TypeName(name, Nil, None)
+    TypeName(name, Nil, None)
   }
 
   def apply(typeName: String): Either[String, TypeName] = {
@@ -272,11 +305,11 @@ object TypeName {
     TypeName(Names.SObjectTypeFieldSets$, Nil, Some(TypeName.Internal))
 
   def sObjectTypeFields$(typeName: TypeName): TypeName =
-    new TypeName(SObjectTypeFields$.name, Seq(typeName), SObjectTypeFields$.outer)
+    TypeName(SObjectTypeFields$.name, Seq(typeName), SObjectTypeFields$.outer)
   def sObjectTypeFieldSets$(typeName: TypeName): TypeName =
-    new TypeName(SObjectTypeFieldSets$.name, Seq(typeName), SObjectTypeFieldSets$.outer)
+    TypeName(SObjectTypeFieldSets$.name, Seq(typeName), SObjectTypeFieldSets$.outer)
   def sObjectTypeRowClause$(typeName: TypeName): TypeName =
-    new TypeName(SObjectFieldRowCause$.name, Seq(typeName), SObjectFieldRowCause$.outer)
+    TypeName(SObjectFieldRowCause$.name, Seq(typeName), SObjectFieldRowCause$.outer)
 
   /** Mapping for Ambiguous type names which can resolve to SObject of platform classes. */
   val ambiguousAliasMap: Map[TypeName, TypeName] = Map(
@@ -84,6 +84,9 @@ abstract class PathLike {
   // Write a file or return an error message
   def write(data: Array[Byte]): Option[String]
 
+  // Write a file via a temporary file renamed into place, so it is never left partly written
+  def replace(data: Array[Byte]): Option[String]
+
   // Create a directory if this is a directory (ignores if already exists), returns new Path or error message
   def createDirectory(name: String): Either[String, PathLike]
 
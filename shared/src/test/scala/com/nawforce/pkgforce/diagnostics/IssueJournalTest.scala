@@ -0,0 +1,86 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+
+package com.nawforce.pkgforce.diagnostics
+
+import com.nawforce.pkgforce.path.{Location, PathLike}
+import com.nawforce.runtime.platform.Path
+import org.scalatest.funsuite.AnyFunSuite
+
+class IssueJournalTest extends AnyFunSuite {
+  private val path: PathLike = Path("/project/src/classes/TestClass.cls")
+
+  private def issue(message: String): Issue =
+    Issue(path, Diagnostic(ERROR_CATEGORY, Location(1, 0, 1, 10), message))
+
+  private val a = issue("a")
+  private val b = issue("b")
+  private val c = issue("c")
+
+  test("Empty journal") {
+    val journal = new IssueJournal()
+    assert(journal.version == 0)
+    assert(journal.since(0).contains((Issue.emptyArray, Issue.emptyArray)))
+  }
+
+  test("Unchanged replacement is not recorded") {
+    val journal = new IssueJournal()
+    journal.record(List(a, b), List(b, a))
+    assert(journal.version == 0)
+  }
+
+  test("Only differences are recorded") {
+    val journal = new IssueJournal()
+    journal.record(List(a, b), List(b, c))
+    assert(journal.version == 1)
+    assert(journal.since(0).contains((Seq(c), Seq(a))))
+  }
+
+  test("Changes are merged over versions") {
+    val journal = new IssueJournal()
+    journal.record(Nil, List(a))
+    journal.record(Nil, List(b))
+    journal.record(List(a), Nil)
+    journal.record(Nil, List(c))
+    assert(journal.version == 4)
+    assert(journal.since(0).contains((Seq(b, c), Seq())))
+    assert(journal.since(1).contains((Seq(b, c), Seq(a))))
+    assert(journal.since(3).contains((Seq(c), Seq())))
+    assert(journal.since(4).contains((Seq(), Seq())))
+  }
+
+  test("Duplicate issues are counted") {
+    val journal = new IssueJournal()
+    journal.record(Nil, List(a))
+    journal.record(List(a), List(a, a))
+    assert(journal.since(0).contains((Seq(a, a), Seq())))
+    assert(journal.since(1).contains((Seq(a), Seq())))
+  }
+
+  test("Discarded changes are not available") {
+    val journal = new IssueJournal(maxChanges = 2)
+    journal.record(Nil, List(a))
+    journal.record(Nil, List(b))
+    journal.record(Nil, List(c))
+    assert(journal.version == 3)
+    assert(journal.since(0).isEmpty)
+    assert(journal.since(1).contains((Seq(b, c), Seq())))
+  }
+
+  test("Future version is not available") {
+    val journal = new IssueJournal()
+    journal.record(Nil, List(a))
+    assert(journal.since(2).isEmpty)
+  }
+}
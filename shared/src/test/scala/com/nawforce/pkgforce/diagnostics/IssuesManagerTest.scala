@@ -132,6 +132,32 @@ class IssueLoggerTest extends AnyFunSuite with BeforeAndAfter {
     assert(retrievedIssues.exists(_.diagnostic.message == "Warning 1"))
   }
 
+  test("replacing holds back new issues until the operation completes") {
+    val otherPath = Path("/project/src/classes/OtherClass.cls")
+    issuesManager.add(createErrorIssue(testPath, "Old error"))
+    issuesManager.ignoreUpdatedIssuesInternal(testPath)
+
+    issuesManager.replacing(Seq(testPath)) {
+      issuesManager.add(createErrorIssue(testPath, "New error"))
+      issuesManager.add(createMissingIssue(testPath, "New missing"))
+      issuesManager.add(createErrorIssue(otherPath, "Other error"))
+
+      assert(!issuesManager.hasUpdatedIssues.contains(testPath.toString))
+      assert(issuesManager.getDiagnostics(testPath).map(_.message) == List("Old error"))
+      assert(issuesManager.getDiagnostics(otherPath).size == 1)
+    }
+
+    assert(
+      issuesManager.issuesForFileInternal(testPath).map(_.diagnostic.message).toSet ==
+        Set("New error", "New missing")
+    )
+    assert(IssueAnalysis.getMissing(issuesManager) == Seq(testPath))
+
+    issuesManager.replacing(Seq(testPath)) {}
+    assert(issuesManager.hasUpdatedIssues.contains(testPath.toString))
+    assert(issuesManager.issuesForFileInternal(testPath).isEmpty)
+  }
+
   test("push method with external filter applies write-time filtering") {
     val externalFilter: PathLike => Boolean = path => path.toString.contains("external")
     val filteredManager                     = new IssueLogger(Some(externalFilter))
@@ -368,4 +394,82 @@ class IssueLoggerTest extends AnyFunSuite with BeforeAndAfter {
     assert(issues.size == 1)
     assert(issues.head.diagnostic.message == "Logged error")
   }
+
+  test("issueDeltaSince returns issues added and removed") {
+    val error   = createErrorIssue(testPath, "Error 1")
+    val warning = createWarningIssue(externalPath, "Warning 1")
+    issuesManager.add(error)
+    val version = issuesManager.version
+    issuesManager.add(warning)
+    issuesManager.pop(testPath)
+
+    val delta = issuesManager.issueDeltaSince(version)
+    assert(!delta.reset)
+    assert(delta.since == version)
+    assert(delta.toVersion == issuesManager.version)
+    assert(delta.addedIssues == Seq(warning))
+    assert(delta.removedIssues == Seq(error))
+    assert(issuesManager.issueDeltaSince(delta.toVersion).addedIssues.isEmpty)
+  }
+
+  test("issueDeltaSince includes replaced and provider issues") {
+    val error = createErrorIssue(testPath, "Error 1")
+    issuesManager.add(error)
+    val version = issuesManager.version
+
+    val replacement = createErrorIssue(testPath, "Error 2")
+    issuesManager.replacing(Seq(testPath)) {
+      issuesManager.add(replacement)
+    }
+    val provided = createProviderIssue(testPath, "Provided", "pmd")
+    IssueProviderOps.replaceProviderIssues(issuesManager, "pmd", testPath, Seq(provided))
+
+    val delta = issuesManager.issuesSince(version)
+    assert(!delta.isReset)
+    assert(delta.added().toSeq == Seq(replacement, provided))
+    assert(delta.removed().toSeq == Seq(error))
+  }
+
+  test("issueDeltaSince resets for unknown versions") {
+    val error = createErrorIssue(testPath, "Error 1")
+    issuesManager.add(error)
+
+    val delta = issuesManager.issueDeltaSince(issuesManager.version + 1)
+    assert(delta.reset)
+    assert(delta.addedIssues == Seq(error))
+    assert(delta.removedIssues.isEmpty)
+  }
+
+  test("issues added together are recorded as a single change") {
+    val version = issuesManager.version
+    val added = (0 until IssueJournal.defaultMaxChanges + 10).map(i =>
+      createErrorIssue(Path(s"/project/src/classes/Class$i.cls"), s"Error $i")
+    )
+    added.foreach(issuesManager.add)
+
+    val delta = issuesManager.issueDeltaSince(version)
+    assert(!delta.reset)
+    assert(delta.toVersion == version + 1)
+    assert(delta.addedIssues == added)
+    assert(delta.removedIssues.isEmpty)
+  }
+
+  test("replacing many paths is recorded as a single change") {
+    val paths = (0 until IssueJournal.defaultMaxChanges + 10).map(i =>
+      Path(s"/project/src/classes/Class$i.cls").asInstanceOf[PathLike]
+    )
+    paths.foreach(path => issuesManager.add(createErrorIssue(path, "Before")))
+    val version = issuesManager.version
+
+    val replacements = paths.map(path => createErrorIssue(path, "After"))
+    issuesManager.replacing(paths) {
+      replacements.foreach(issuesManager.add)
+    }
+
+    val delta = issuesManager.issueDeltaSince(version)
+    assert(!delta.reset)
+    assert(delta.toVersion == version + 1)
+    assert(delta.addedIssues.toSet == replacements.toSet)
+    assert(delta.removedIssues.size == paths.size)
+  }
 }
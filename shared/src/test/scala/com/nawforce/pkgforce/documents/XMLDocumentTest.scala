@@ -202,6 +202,17 @@ class XMLDocumentTest extends AnyFunSuite {
     }
   }
 
+  test("element text decodes references without shifting later locations") {
+    val source =
+      s"<root xmlns='$namespace'>\n  <label>a &amp; b &#233;</label>\n  <label>c</label>\n</root>"
+    withDocument(source) { doc =>
+      val labels = doc.rootElement.getChildren("label")
+      assert(labels.map(_.text) == Seq("a & b é", "c"))
+      assert(labels.map(_.line) == Seq(2, 3))
+      assert(slice(source, labels(1).location) == "<label>c</label>")
+    }
+  }
+
   test("XMLElementLike location defaults to its line") {
     val externalElement = new XMLElementLike {
       override val line: Int                                      = 7
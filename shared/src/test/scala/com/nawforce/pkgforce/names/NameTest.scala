@@ -0,0 +1,40 @@
+/*
+ Copyright (c) 2026 Kevin Jones, All rights reserved.
+ Redistribution and use in source and binary forms, with or without
+ modification, are permitted provided that the following conditions
+ are met:
+ 1. Redistributions of source code must retain the above copyright
+    notice, this list of conditions and the following disclaimer.
+ 2. Redistributions in binary form must reproduce the above copyright
+    notice, this list of conditions and the following disclaimer in the
+    documentation and/or other materials provided with the distribution.
+ 3. The name of the author may not be used to endorse or promote products
+    derived from this software without specific prior written permission.
+ */
+package com.nawforce.pkgforce.names
+
+import org.scalatest.funsuite.AnyFunSuite
+
+class NameTest extends AnyFunSuite {
+
+  test("names are canonical") {
+    assert(Name("Foo") eq Name("Foo"))
+    assert(Names("Foo") eq Name("Foo"))
+    assert(Name("") eq Name.empty)
+  }
+
+  test("names of different case are equal but not the same instance") {
+    val lower = Name("foo")
+    val upper = Name("FOO")
+    assert(lower == upper)
+    assert(lower.hashCode == upper.hashCode)
+    assert(lower ne upper)
+    assert(lower.value == "foo")
+    assert(upper.value == "FOO")
+  }
+
+  test("different names are not equal") {
+    assert(Name("Foo") != Name("Bar"))
+    assert(Name("Foo") != Name("Foo2"))
+  }
+}
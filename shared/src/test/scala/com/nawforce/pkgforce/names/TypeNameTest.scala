@@ -202,4 +202,30 @@ class TypeNameTest extends AnyFunSuite {
       )
     )
   }
+
+  test("type names are canonical") {
+    val generic = TypeName(Name("Map"), Seq(TypeName(Name("Foo")), TypeName(Name("Bar"))), None)
+    assert(TypeName.apply("Foo.Bar").toOption.get eq TypeName.apply("Foo.Bar").toOption.get)
+    assert(TypeName.apply("Map<Foo, Bar>").toOption.get eq generic)
+    assert(
+      TypeName.fromJava(Name("Bar"), Array(), TypeName(Name("Foo"))) eq
+        TypeName("Foo.Bar").toOption.get
+    )
+  }
+
+  test("type names of different case are equal but not the same instance") {
+    val lower = TypeName(Name("foo"))
+    val upper = TypeName(Name("Foo"))
+    assert(lower == upper)
+    assert(lower.hashCode == upper.hashCode)
+    assert(lower ne upper)
+    assert(lower.toString == "foo")
+    assert(upper.toString == "Foo")
+  }
+
+  test("dot names are canonical") {
+    assert(DotName("Foo.Bar") eq DotName(Seq(Name("Foo"), Name("Bar"))))
+    assert(DotName("Foo.Bar") == DotName("foo.bar"))
+    assert(DotName("Foo.Bar") != DotName("Foo.Baz"))
+  }
 }